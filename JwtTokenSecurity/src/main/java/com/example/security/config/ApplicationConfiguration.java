@@ -1,119 +1,186 @@
-package com.example.security.config;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.AuthenticationProvider;
-import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
-import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-
-import com.example.security.repository.UserRepository;
-
-/**
- * Configuration class for application-specific security settings.
- * 
- * <p>
- * Sets up user details service, password encoder, and authentication provider.
- * </p>
- * 
- * 
- * 
- * @author Shivraj.Jadhav
- */
-@Configuration
-public class ApplicationConfiguration {
-
-	private static final Logger logger = LoggerFactory.getLogger(ApplicationConfiguration.class);
-
-	private final UserRepository userRepository;
-
-	/**
-	 * Constructs an {@code ApplicationConfiguration} with the specified
-	 * {@code UserRepository}.
-	 *
-	 * @param userRepository the user repository
-	 */
-	public ApplicationConfiguration(UserRepository userRepository) {
-		this.userRepository = userRepository;
-	}
-
-	/**
-	 * Provides a {@code UserDetailsService} bean that loads user-specific data.
-	 * 
-	 * <p>
-	 * Uses the {@code UserRepository} to find users by email.
-	 * </p>
-	 *
-	 * @return the {@code UserDetailsService} bean
-	 */
-	@Bean
-	public UserDetailsService userDetailsService() {
-		logger.info("Creating UserDetailsService bean");
-
-		UserDetailsService userDetailsService = username -> userRepository.findByEmail(username)
-				.orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
-		logger.info("UserDetailsService bean created");
-
-		return userDetailsService;
-	}
-
-	/**
-	 * Provides a {@code BCryptPasswordEncoder} bean for password encoding.
-	 *
-	 * @return the {@code BCryptPasswordEncoder} bean
-	 */
-	@Bean
-	public BCryptPasswordEncoder passwordEncoder() {
-		logger.info("Creating BCryptPasswordEncoder bean");
-
-		return new BCryptPasswordEncoder();
-	}
-
-	/**
-	 * Provides an {@code AuthenticationManager} bean.
-	 *
-	 * <p>
-	 * Obtains the authentication manager from the provided
-	 * {@code AuthenticationConfiguration}.
-	 * </p>
-	 *
-	 * @param config the {@code AuthenticationConfiguration} to obtain the manager
-	 *               from
-	 * @return the {@code AuthenticationManager} bean
-	 * @throws Exception if an error occurs while obtaining the manager
-	 */
-	@Bean
-	public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
-		logger.info("Creating AuthenticationManager bean");
-
-		return config.getAuthenticationManager();
-	}
-
-	/**
-	 * Provides an {@code AuthenticationProvider} bean for handling authentication.
-	 *
-	 * <p>
-	 * Configures the provider with the user details service and password encoder.
-	 * </p>
-	 *
-	 * @return the {@code AuthenticationProvider} bean
-	 */
-	@Bean
-	public AuthenticationProvider authenticationProvider() {
-		logger.info("Creating AuthenticationProvider bean");
-
-		DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
-		authProvider.setUserDetailsService(userDetailsService());
-		authProvider.setPasswordEncoder(passwordEncoder());
-
-		logger.info("AuthenticationProvider bean created");
-
-		return authProvider;
-	}
-}
+package com.example.security.config;
+
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.example.security.jwt.TenantContext;
+import com.example.security.models.User;
+import com.example.security.repository.ShardRouter;
+import com.example.security.repository.UserRepository;
+import com.example.security.service.PasswordVerificationPool;
+import com.example.security.service.PooledPasswordEncoder;
+import com.example.security.service.SingleFlight;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Configuration class for application-specific security settings.
+ * 
+ * <p>
+ * Sets up user details service, password encoder, and authentication provider.
+ * </p>
+ * 
+ * <p>
+ * Also enables scheduling, which drives the housekeeping of the in-memory
+ * token stores.
+ * </p>
+ * 
+ * 
+ * 
+ * @author Shivraj.Jadhav
+ */
+@Configuration
+@EnableScheduling
+public class ApplicationConfiguration {
+
+	private static final Logger logger = LoggerFactory.getLogger(ApplicationConfiguration.class);
+
+	private final UserRepository userRepository;
+	private final ShardRouter shardRouter;
+	private final PasswordVerificationPool passwordVerificationPool;
+	private final MeterRegistry meterRegistry;
+
+	@Value("${security.user-lookup.join-timeout:1000}")
+	private long userLookupJoinTimeout;
+
+	/**
+	 * Constructs an {@code ApplicationConfiguration} with the specified
+	 * {@code UserRepository}, {@code ShardRouter},
+	 * {@code PasswordVerificationPool} and {@code MeterRegistry}.
+	 *
+	 * @param userRepository           the user repository
+	 * @param shardRouter              the router picking the user's shard
+	 * @param passwordVerificationPool the threads password hashes are
+	 *                                 computed on
+	 * @param meterRegistry            the registry of the lookup counters
+	 */
+	public ApplicationConfiguration(UserRepository userRepository, ShardRouter shardRouter,
+			PasswordVerificationPool passwordVerificationPool, MeterRegistry meterRegistry) {
+		this.userRepository = userRepository;
+		this.shardRouter = shardRouter;
+		this.passwordVerificationPool = passwordVerificationPool;
+		this.meterRegistry = meterRegistry;
+	}
+
+	/**
+	 * Provides a {@code UserDetailsService} bean that loads user-specific data.
+	 * 
+	 * <p>
+	 * Uses the {@code UserRepository} to find users by email within the tenant
+	 * bound to the {@link TenantContext}, on the shard owning the email.
+	 * Concurrent lookups of the same user share one query, see
+	 * {@link #userLookups()}.
+	 * </p>
+	 *
+	 * @return the {@code UserDetailsService} bean
+	 */
+	@Bean
+	public UserDetailsService userDetailsService() {
+		logger.info("Creating UserDetailsService bean");
+
+		SingleFlight<String, Optional<User>> userLookups = userLookups();
+		UserDetailsService userDetailsService = username -> {
+			String tenantId = TenantContext.currentTenantId();
+			return userLookups
+					.execute(tenantId + ':' + username,
+							() -> shardRouter.onShardOf(username,
+									() -> userRepository.findByTenantAndEmail(tenantId, username)))
+					.orElseThrow(() -> new UsernameNotFoundException("User not found"));
+		};
+
+		logger.info("UserDetailsService bean created");
+
+		return userDetailsService;
+	}
+
+	/**
+	 * Provides the {@code SingleFlight} coalescing concurrent lookups of a user
+	 * by tenant and email, shared by logins and the bearer-token user cache.
+	 *
+	 * <p>
+	 * A burst of requests for the same user costs one query; a caller joining a
+	 * lookup waits at most {@code security.user-lookup.join-timeout}
+	 * milliseconds before querying itself.
+	 * </p>
+	 *
+	 * @return the {@code SingleFlight} bean, keyed by
+	 *         {@code <tenant id>:<email>}
+	 */
+	@Bean
+	public SingleFlight<String, Optional<User>> userLookups() {
+		return new SingleFlight<>("user-lookup", userLookupJoinTimeout, meterRegistry);
+	}
+
+	/**
+	 * Provides a {@code PasswordEncoder} bean for password encoding.
+	 *
+	 * <p>
+	 * Passwords are hashed with BCrypt on the
+	 * {@link PasswordVerificationPool}, off the request threads.
+	 * </p>
+	 *
+	 * @return the {@code PasswordEncoder} bean
+	 */
+	@Bean
+	public PasswordEncoder passwordEncoder() {
+		logger.info("Creating BCryptPasswordEncoder bean");
+
+		return new PooledPasswordEncoder(new BCryptPasswordEncoder(), passwordVerificationPool);
+	}
+
+	/**
+	 * Provides an {@code AuthenticationManager} bean.
+	 *
+	 * <p>
+	 * Obtains the authentication manager from the provided
+	 * {@code AuthenticationConfiguration}.
+	 * </p>
+	 *
+	 * @param config the {@code AuthenticationConfiguration} to obtain the manager
+	 *               from
+	 * @return the {@code AuthenticationManager} bean
+	 * @throws Exception if an error occurs while obtaining the manager
+	 */
+	@Bean
+	public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
+		logger.info("Creating AuthenticationManager bean");
+
+		return config.getAuthenticationManager();
+	}
+
+	/**
+	 * Provides an {@code AuthenticationProvider} bean for handling authentication.
+	 *
+	 * <p>
+	 * Configures the provider with the user details service and password encoder.
+	 * </p>
+	 *
+	 * @return the {@code AuthenticationProvider} bean
+	 */
+	@Bean
+	public AuthenticationProvider authenticationProvider() {
+		logger.info("Creating AuthenticationProvider bean");
+
+		DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
+		authProvider.setUserDetailsService(userDetailsService());
+		authProvider.setPasswordEncoder(passwordEncoder());
+
+		logger.info("AuthenticationProvider bean created");
+
+		return authProvider;
+	}
+}
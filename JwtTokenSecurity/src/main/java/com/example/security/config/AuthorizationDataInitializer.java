@@ -0,0 +1,108 @@
+package com.example.security.config;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.security.models.Permission;
+import com.example.security.models.Role;
+import com.example.security.repository.PermissionRepository;
+import com.example.security.repository.RoleRepository;
+import com.example.security.repository.ShardSchemaManager;
+import com.example.security.service.PermissionIndex;
+
+/**
+ * Seeds the default roles and permissions and loads the permission index.
+ * 
+ * <p>
+ * On an empty database this creates {@code USERS_READ_SELF} (bit 0) and
+ * {@code USERS_READ_ALL} (bit 1), a {@code USER} role granting the former and
+ * an {@code ADMIN} role granting both. Existing data is left untouched, except
+ * that {@code SERVICE_ACCOUNTS_MANAGE} (bit 2) is added and granted to
+ * {@code ADMIN} wherever it is missing.
+ * </p>
+ * 
+ * <p>
+ * When users are sharded, the roles and permissions are then copied to every
+ * shard that has none, see {@link ShardSchemaManager}. Runs before the other
+ * application runners, which may rely on the roles.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AuthorizationDataInitializer implements ApplicationRunner {
+
+	private static final Logger logger = LoggerFactory.getLogger(AuthorizationDataInitializer.class);
+
+	private final PermissionRepository permissionRepository;
+	private final RoleRepository roleRepository;
+	private final PermissionIndex permissionIndex;
+	private final ShardSchemaManager shardSchemaManager;
+
+	/**
+	 * Constructs an {@code AuthorizationDataInitializer}.
+	 *
+	 * @param permissionRepository the permission repository
+	 * @param roleRepository       the role repository
+	 * @param permissionIndex      the index to load once data is in place
+	 * @param shardSchemaManager   the manager copying the data to the user
+	 *                             shards
+	 */
+	public AuthorizationDataInitializer(PermissionRepository permissionRepository, RoleRepository roleRepository,
+			PermissionIndex permissionIndex, ShardSchemaManager shardSchemaManager) {
+		this.permissionRepository = permissionRepository;
+		this.roleRepository = roleRepository;
+		this.permissionIndex = permissionIndex;
+		this.shardSchemaManager = shardSchemaManager;
+	}
+
+	/**
+	 * Seeds the defaults if no permission exists yet, adds the permissions
+	 * introduced since, copies them to the user shards, then loads the index.
+	 *
+	 * @param args the application arguments
+	 */
+	@Override
+	@Transactional
+	public void run(ApplicationArguments args) {
+		if (permissionRepository.count() == 0) {
+			logger.info("Seeding default roles and permissions");
+
+			Permission readSelf = permissionRepository
+					.save(new Permission().setName(Permission.USERS_READ_SELF).setBit(0));
+			Permission readAll = permissionRepository.save(new Permission().setName(Permission.USERS_READ_ALL).setBit(1));
+
+			roleRepository.save(new Role().setName(Role.USER).setPermissions(new HashSet<>(Set.of(readSelf))));
+			roleRepository.save(new Role().setName(Role.ADMIN).setPermissions(new HashSet<>(Set.of(readSelf, readAll))));
+		}
+
+		if (permissionRepository.findByName(Permission.SERVICE_ACCOUNTS_MANAGE).isEmpty()) {
+			logger.info("Adding permission {}", Permission.SERVICE_ACCOUNTS_MANAGE);
+
+			Permission manageServiceAccounts = permissionRepository
+					.save(new Permission().setName(Permission.SERVICE_ACCOUNTS_MANAGE).setBit(2));
+			roleRepository.findByName(Role.ADMIN)
+					.ifPresent(admin -> admin.getPermissions().add(manageServiceAccounts));
+		}
+
+		List<Permission> permissions = new ArrayList<>();
+		permissionRepository.findAll().forEach(permissions::add);
+		List<Role> roles = new ArrayList<>();
+		roleRepository.findAll().forEach(roles::add);
+		shardSchemaManager.replicate(permissions, roles);
+
+		permissionIndex.reload();
+	}
+}
@@ -0,0 +1,113 @@
+package com.example.security.config;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.jpa.boot.spi.JpaSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import com.example.security.repository.ReplicaRouter;
+import com.example.security.repository.ShardRouter;
+import com.example.security.repository.ShardRoutingDataSource;
+import com.example.security.repository.ShardSchemaManager;
+
+/**
+ * Configuration class for the application's data source.
+ * 
+ * <p>
+ * Without {@code security.shard.urls} this is the data source Spring Boot
+ * would have built from {@code spring.datasource.*}. With it, that data source
+ * becomes shard 0 of a {@link ShardRoutingDataSource}, with one pool per
+ * further shard sharing its driver and credentials. Shards listing read
+ * replicas in {@code security.replica.urls.<shard>} are wrapped by the
+ * {@link ReplicaRouter}.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+@Configuration
+public class DataSourceConfiguration {
+
+	private static final Logger logger = LoggerFactory.getLogger(DataSourceConfiguration.class);
+
+	@Value("${security.replica.connection-timeout:1000}")
+	private long replicaConnectionTimeout;
+
+	/**
+	 * Provides the application's {@code DataSource}.
+	 *
+	 * @param properties  the {@code spring.datasource.*} properties
+	 * @param shardRouter   the router listing the shards
+	 * @param replicaRouter the router listing the read replicas of the shards
+	 * @return the plain or shard-routing data source
+	 */
+	@Bean
+	public DataSource dataSource(DataSourceProperties properties, ShardRouter shardRouter,
+			ReplicaRouter replicaRouter) {
+		DataSource primary = withReplicas(0, properties.initializeDataSourceBuilder().build(), properties,
+				replicaRouter);
+		if (!shardRouter.isEnabled()) {
+			return primary;
+		}
+
+		Map<Object, Object> shards = new HashMap<>();
+		shards.put(0, primary);
+		List<String> urls = shardRouter.getUrls();
+		for (int shard = 1; shard < urls.size(); shard++) {
+			logger.info("Configuring user shard {}: {}", shard, urls.get(shard));
+			shards.put(shard, withReplicas(shard, properties.initializeDataSourceBuilder().url(urls.get(shard)).build(),
+					properties, replicaRouter));
+		}
+
+		ShardRoutingDataSource dataSource = new ShardRoutingDataSource();
+		dataSource.setTargetDataSources(shards);
+		dataSource.setDefaultTargetDataSource(primary);
+		return dataSource;
+	}
+
+	/**
+	 * Builds the pools of a shard's read replicas and lets the router wrap
+	 * the shard. A replica that is down should fail over quickly rather than
+	 * hold the request for the pool's default 30 seconds.
+	 */
+	private DataSource withReplicas(int shard, DataSource primary, DataSourceProperties properties,
+			ReplicaRouter replicaRouter) {
+		Map<String, DataSource> replicas = new LinkedHashMap<>();
+		for (String url : replicaRouter.getReplicaUrls(shard)) {
+			logger.info("Configuring read replica of shard {}: {}", shard, url);
+			DataSource replica = properties.initializeDataSourceBuilder().url(url).build();
+			if (replica instanceof HikariDataSource hikari) {
+				hikari.setReadOnly(true);
+				hikari.setConnectionTimeout(replicaConnectionTimeout);
+			}
+			replicas.put(url, replica);
+		}
+		return replicaRouter.route(shard, primary, replicas);
+	}
+
+	/**
+	 * Registers the {@link ShardSchemaManager} with Hibernate, so it can apply
+	 * the schema to the shards Hibernate does not bootstrap against.
+	 *
+	 * @param shardSchemaManager the schema manager
+	 * @return the customizer adding the integrator
+	 */
+	@Bean
+	public HibernatePropertiesCustomizer shardSchemaIntegrator(ShardSchemaManager shardSchemaManager) {
+		return properties -> properties.put(JpaSettings.INTEGRATOR_PROVIDER,
+				(IntegratorProvider) () -> List.of(shardSchemaManager));
+	}
+}
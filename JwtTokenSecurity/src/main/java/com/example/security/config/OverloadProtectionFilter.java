@@ -0,0 +1,158 @@
+package com.example.security.config;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.DisconnectedClientHelper;
+
+import com.example.security.exceptions.AuthFailure;
+import com.example.security.exceptions.AuthFailureResponder;
+import com.example.security.service.AdaptiveConcurrencyLimiter;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Sheds requests beyond the adaptive concurrency limits before any other work
+ * is done on them.
+ *
+ * <p>
+ * Requests to {@code /auth/**}, whose cost is dominated by password hashing
+ * and database writes, and all other requests are admitted by two separate
+ * {@link AdaptiveConcurrencyLimiter}s, so a login storm filling its own budget
+ * leaves request threads for authenticated API calls. A shed request is
+ * answered at once with a pre-rendered {@code 503}, {@link AuthFailure#OVERLOADED}
+ * or {@link AuthFailure#SERVICE_BUSY}, and a {@code Retry-After} header. A
+ * request ending in a server-side exception or a {@code 503} of its own, such
+ * as one turned away by the password hashing queue, counts as dropped and
+ * lowers the limit at once; client errors and disconnects do not.
+ * </p>
+ *
+ * <p>
+ * A request that goes asynchronous, such as a streamed user list or a batch of
+ * service tokens, holds its permit until the response is complete, so the
+ * time spent writing the body counts towards its latency. The async dispatch
+ * itself is not filtered again.
+ * </p>
+ *
+ * @author Shivraj.Jadhav
+ */
+public class OverloadProtectionFilter extends OncePerRequestFilter {
+
+	private static final String AUTH_PATH = "/auth/";
+	private static final String RETRY_AFTER_SECONDS = "1";
+
+	private final AdaptiveConcurrencyLimiter authLimiter;
+	private final AdaptiveConcurrencyLimiter apiLimiter;
+	private final AuthFailureResponder authFailureResponder;
+
+	/**
+	 * Constructs a new {@code OverloadProtectionFilter}.
+	 *
+	 * @param authLimiter          the limiter of the {@code /auth/**} endpoints
+	 * @param apiLimiter           the limiter of every other request
+	 * @param authFailureResponder the responder writing the {@code 503}s
+	 */
+	public OverloadProtectionFilter(AdaptiveConcurrencyLimiter authLimiter, AdaptiveConcurrencyLimiter apiLimiter,
+			AuthFailureResponder authFailureResponder) {
+		this.authLimiter = authLimiter;
+		this.apiLimiter = apiLimiter;
+		this.authFailureResponder = authFailureResponder;
+	}
+
+	@Override
+	protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+			@NonNull FilterChain filterChain) throws ServletException, IOException {
+		boolean auth = request.getRequestURI().startsWith(AUTH_PATH, request.getContextPath().length());
+		AdaptiveConcurrencyLimiter limiter = auth ? authLimiter : apiLimiter;
+		if (!limiter.tryAcquire()) {
+			response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+			authFailureResponder.reject(response, auth ? AuthFailure.OVERLOADED : AuthFailure.SERVICE_BUSY);
+			return;
+		}
+
+		long start = System.nanoTime();
+		try {
+			filterChain.doFilter(request, response);
+		} catch (IOException | ServletException | RuntimeException | Error ex) {
+			limiter.release(System.nanoTime() - start, isDropped(response, ex));
+			throw ex;
+		}
+
+		if (request.isAsyncStarted()) {
+			request.getAsyncContext().addListener(new AsyncRelease(limiter, start, response));
+		} else {
+			limiter.release(System.nanoTime() - start, isDropped(response, null));
+		}
+	}
+
+	/**
+	 * Decides whether a completed request tells of overload: a {@code 503}, or
+	 * a failure that is neither a client error nor a client going away.
+	 */
+	private static boolean isDropped(HttpServletResponse response, Throwable failure) {
+		if (failure == null) {
+			return response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value();
+		}
+		if (DisconnectedClientHelper.isClientDisconnectedException(failure)) {
+			return false;
+		}
+		Throwable cause = failure instanceof ServletException && failure.getCause() != null ? failure.getCause()
+				: failure;
+		return !(cause instanceof ErrorResponse errorResponse && errorResponse.getStatusCode().is4xxClientError());
+	}
+
+	/**
+	 * Releases the permit of an asynchronous request once its response is
+	 * complete, exactly once whichever of the events arrives first.
+	 */
+	private static final class AsyncRelease implements AsyncListener {
+
+		private final AdaptiveConcurrencyLimiter limiter;
+		private final long start;
+		private final HttpServletResponse response;
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		private AsyncRelease(AdaptiveConcurrencyLimiter limiter, long start, HttpServletResponse response) {
+			this.limiter = limiter;
+			this.start = start;
+			this.response = response;
+		}
+
+		@Override
+		public void onComplete(AsyncEvent event) {
+			release(isDropped(response, null));
+		}
+
+		@Override
+		public void onError(AsyncEvent event) {
+			release(isDropped(response, event.getThrowable()));
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event) {
+			release(true);
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event) {
+			// Listeners are cleared when the request goes asynchronous again
+			event.getAsyncContext().addListener(this);
+		}
+
+		private void release(boolean dropped) {
+			if (released.compareAndSet(false, true)) {
+				limiter.release(System.nanoTime() - start, dropped);
+			}
+		}
+	}
+}
@@ -0,0 +1,179 @@
+package com.example.security.config;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import com.example.security.jwt.Tenant;
+import com.example.security.models.Role;
+import com.example.security.repository.ShardRouter;
+
+/**
+ * Preloads users for load tests and benchmarks under the {@code perf} profile.
+ *
+ * <p>
+ * Inserts {@code security.perf.seed-users} users named
+ * {@code user<n>@perf.example.com}, n counting from 1, into the default
+ * tenant with the {@code USER} role and the password
+ * {@code security.perf.seed-password}. The password is hashed once and
+ * shared, and the rows go in as JDBC batches of
+ * {@code security.perf.seed-batch-size} with explicit ids, bypassing JPA, so
+ * millions of users load in seconds. The {@code users_seq} sequence is then
+ * moved past the seeded ids for the users signed up afterwards. The first
+ * {@code security.perf.seed-admins} users are given the {@code ADMIN} role as
+ * well, for benchmarks of the endpoints it guards.
+ * </p>
+ *
+ * <p>
+ * Only an empty {@code users} table is seeded, and not at all while users are
+ * sharded. Runs after {@link AuthorizationDataInitializer} has created the
+ * roles.
+ * </p>
+ *
+ * @author Shivraj.Jadhav
+ */
+@Component
+@Profile("perf")
+public class PerfDataSeeder implements ApplicationRunner {
+
+	private static final Logger logger = LoggerFactory.getLogger(PerfDataSeeder.class);
+
+	private static final String INSERT_USER = "insert into users (id, email, full_name, password, tenant, created_at, updated_at) values (?, ?, ?, ?, ?, ?, ?)";
+	private static final String INSERT_USER_ROLE = "insert into user_roles (user_id, role_id) values (?, ?)";
+
+	/** Increment of {@code users_seq}, see {@code schema-perf.sql}. */
+	private static final int SEQUENCE_INCREMENT = 50;
+
+	private final JdbcTemplate jdbcTemplate;
+	private final PasswordEncoder passwordEncoder;
+	private final ShardRouter shardRouter;
+
+	@Value("${security.perf.seed-users:0}")
+	private int seedUsers;
+
+	@Value("${security.perf.seed-password:perf-password}")
+	private String seedPassword;
+
+	@Value("${security.perf.seed-admins:0}")
+	private int seedAdmins;
+
+	@Value("${security.perf.seed-batch-size:5000}")
+	private int batchSize;
+
+	/**
+	 * Constructs a {@code PerfDataSeeder}.
+	 *
+	 * @param jdbcTemplate    the template the users are inserted with
+	 * @param passwordEncoder the encoder hashing the shared password
+	 * @param shardRouter     the router telling whether users are sharded
+	 */
+	public PerfDataSeeder(JdbcTemplate jdbcTemplate, PasswordEncoder passwordEncoder, ShardRouter shardRouter) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.passwordEncoder = passwordEncoder;
+		this.shardRouter = shardRouter;
+	}
+
+	/**
+	 * Seeds the users if requested and the table is empty.
+	 *
+	 * @param args the application arguments
+	 */
+	@Override
+	public void run(ApplicationArguments args) {
+		if (seedUsers <= 0) {
+			return;
+		}
+		if (shardRouter.isEnabled()) {
+			logger.warn("Not seeding {} users: users are sharded", seedUsers);
+			return;
+		}
+		Long existing = jdbcTemplate.queryForObject("select count(*) from users", Long.class);
+		if (existing != null && existing > 0) {
+			logger.warn("Not seeding {} users: the users table already holds {}", seedUsers, existing);
+			return;
+		}
+		Integer roleId = roleId(Role.USER);
+		Integer adminRoleId = roleId(Role.ADMIN);
+		if (roleId == null || adminRoleId == null) {
+			logger.warn("Not seeding {} users: the default roles do not exist", seedUsers);
+			return;
+		}
+
+		logger.info("Seeding {} users in batches of {}", seedUsers, batchSize);
+		long start = System.nanoTime();
+		String password = passwordEncoder.encode(seedPassword);
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+
+		for (int first = 1; first <= seedUsers; first += batchSize) {
+			int from = first;
+			int count = Math.min(batchSize, seedUsers - first + 1);
+			jdbcTemplate.batchUpdate(INSERT_USER, new BatchPreparedStatementSetter() {
+				@Override
+				public void setValues(PreparedStatement ps, int i) throws SQLException {
+					int id = from + i;
+					ps.setInt(1, id);
+					ps.setString(2, email(id));
+					ps.setString(3, "Perf User " + id);
+					ps.setString(4, password);
+					ps.setString(5, Tenant.DEFAULT_ID);
+					ps.setTimestamp(6, now);
+					ps.setTimestamp(7, now);
+				}
+
+				@Override
+				public int getBatchSize() {
+					return count;
+				}
+			});
+			jdbcTemplate.batchUpdate(INSERT_USER_ROLE, new BatchPreparedStatementSetter() {
+				@Override
+				public void setValues(PreparedStatement ps, int i) throws SQLException {
+					ps.setInt(1, from + i);
+					ps.setInt(2, roleId);
+				}
+
+				@Override
+				public int getBatchSize() {
+					return count;
+				}
+			});
+		}
+
+		int admins = Math.min(seedAdmins, seedUsers);
+		for (int id = 1; id <= admins; id++) {
+			jdbcTemplate.update(INSERT_USER_ROLE, id, adminRoleId);
+		}
+
+		// A pooled sequence value is the top of its block, so the next block
+		// starts right after the seeded ids
+		jdbcTemplate.execute("alter sequence users_seq restart with " + ((long) seedUsers + SEQUENCE_INCREMENT));
+		logger.info("Seeded {} users in {} ms", seedUsers, (System.nanoTime() - start) / 1_000_000);
+	}
+
+	private Integer roleId(String name) {
+		List<Integer> ids = jdbcTemplate.queryForList("select id from roles where name = ?", Integer.class, name);
+		return ids.isEmpty() ? null : ids.get(0);
+	}
+
+	/**
+	 * Returns the email of a seeded user.
+	 *
+	 * @param n the number of the user, from 1
+	 * @return the email
+	 */
+	public static String email(int n) {
+		return "user" + n + "@perf.example.com";
+	}
+}
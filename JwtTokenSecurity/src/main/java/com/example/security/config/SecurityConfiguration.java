@@ -1,111 +1,239 @@
-package com.example.security.config;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-import org.springframework.security.authentication.AuthenticationProvider;
-import org.springframework.security.config.annotation.web.builders.HttpSecurity;
-import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.web.SecurityFilterChain;
-import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
-import org.springframework.web.cors.CorsConfiguration;
-import org.springframework.web.cors.CorsConfigurationSource;
-import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
-
-import com.example.security.jwt.JwtAuthenticationFilter;
-
-import java.util.List;
-
-/**
- * Configuration class for Spring Security.
- * 
- * <p>
- * Configures HTTP security settings, including CORS, session management, and
- * authentication.
- * </p>
- * 
- * 
- * 
- * @author Shivraj.Jadhav
- */
-@Configuration
-@EnableWebSecurity
-public class SecurityConfiguration {
-
-	private static final Logger logger = LoggerFactory.getLogger(SecurityConfiguration.class);
-
-	private final AuthenticationProvider authenticationProvider;
-	private final JwtAuthenticationFilter jwtAuthenticationFilter;
-
-	/**
-	 * Constructs a {@code SecurityConfiguration} with the specified
-	 * {@code JwtAuthenticationFilter} and {@code AuthenticationProvider}.
-	 *
-	 * @param jwtAuthenticationFilter the JWT authentication filter
-	 * @param authenticationProvider  the authentication provider
-	 */
-	public SecurityConfiguration(JwtAuthenticationFilter jwtAuthenticationFilter,
-			AuthenticationProvider authenticationProvider) {
-		this.authenticationProvider = authenticationProvider;
-		this.jwtAuthenticationFilter = jwtAuthenticationFilter;
-	}
-
-	/**
-	 * Configures the security filter chain for HTTP requests.
-	 *
-	 * <p>
-	 * Disables CSRF protection, configures URL-based authorization, sets session
-	 * management policy, and adds custom filters.
-	 * </p>
-	 *
-	 * @param http the {@code HttpSecurity} to configure
-	 * @return the configured {@code SecurityFilterChain}
-	 * @throws Exception if an error occurs while configuring security
-	 */
-	@SuppressWarnings("removal")
-	@Bean
-	public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
-		logger.info("Configuring security filter chain");
-
-		http.csrf().disable().authorizeHttpRequests().requestMatchers("/auth/**").permitAll()
-				.requestMatchers("/h2-console/**").permitAll().anyRequest().authenticated().and().sessionManagement()
-				.sessionCreationPolicy(SessionCreationPolicy.STATELESS).and()
-				.authenticationProvider(authenticationProvider)
-				.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
-
-		// Allow H2 console frames
-		http.headers().frameOptions().disable();
-
-		logger.info("Security filter chain configured");
-
-		return http.build();
-	}
-
-	/**
-	 * Configures CORS settings.
-	 *
-	 * <p>
-	 * Sets allowed origins, methods, and headers for CORS requests.
-	 * </p>
-	 *
-	 * @return the configured {@code CorsConfigurationSource}
-	 */
-	@Bean
-	public CorsConfigurationSource corsConfigurationSource() {
-		logger.info("Configuring CORS settings");
-
-		CorsConfiguration configuration = new CorsConfiguration();
-		configuration.setAllowedOrigins(List.of("http://localhost:8005"));
-		configuration.setAllowedMethods(List.of("GET", "POST"));
-		configuration.setAllowedHeaders(List.of("Authorization", "Content-Type"));
-
-		UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
-		source.registerCorsConfiguration("/**", configuration);
-
-		logger.info("CORS settings configured");
-
-		return source;
-	}
-}
+package com.example.security.config;
+
+import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.annotation.web.configurers.HeadersConfigurer.FrameOptionsConfig;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.CorsConfigurationSource;
+import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+
+import com.example.security.exceptions.AuthFailureResponder;
+import com.example.security.jwt.JwtAuthenticationFilter;
+import com.example.security.jwt.TokenRenewalService;
+import com.example.security.models.Permission;
+import com.example.security.service.AdaptiveConcurrencyLimiter;
+import com.example.security.service.PermissionIndex;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.servlet.DispatcherType;
+
+import java.util.List;
+
+/**
+ * Configuration class for Spring Security.
+ * 
+ * <p>
+ * Configures HTTP security settings, including CORS, session management, and
+ * authentication.
+ * </p>
+ * 
+ * <p>
+ * Public endpoints and the API get separate, ordered filter chains, so a
+ * request only runs the filters its endpoint needs.
+ * </p>
+ * 
+ * 
+ * 
+ * @author Shivraj.Jadhav
+ */
+@Configuration
+@EnableWebSecurity
+@EnableMethodSecurity
+public class SecurityConfiguration {
+
+	private static final Logger logger = LoggerFactory.getLogger(SecurityConfiguration.class);
+
+	private final AuthenticationProvider authenticationProvider;
+	private final JwtAuthenticationFilter jwtAuthenticationFilter;
+	private final PermissionIndex permissionIndex;
+
+	/**
+	 * Constructs a {@code SecurityConfiguration} with the specified
+	 * {@code JwtAuthenticationFilter}, {@code AuthenticationProvider} and
+	 * {@code PermissionIndex}.
+	 *
+	 * @param jwtAuthenticationFilter the JWT authentication filter
+	 * @param authenticationProvider  the authentication provider
+	 * @param permissionIndex         the index backing permission rules
+	 */
+	public SecurityConfiguration(JwtAuthenticationFilter jwtAuthenticationFilter,
+			AuthenticationProvider authenticationProvider, PermissionIndex permissionIndex) {
+		this.authenticationProvider = authenticationProvider;
+		this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+		this.permissionIndex = permissionIndex;
+	}
+
+	/**
+	 * Configures the filter chain of the public endpoints, {@code /auth/**} and
+	 * {@code /h2-console/**}.
+	 *
+	 * <p>
+	 * Everything it matches is open, so it carries no JWT processing, security
+	 * context, session, request cache or authorization filters; only the
+	 * security headers are written, with frames allowed for the H2 console,
+	 * which is matched by path as it is a servlet of its own. It is consulted
+	 * before {@link #apiFilterChain(HttpSecurity)}.
+	 * </p>
+	 *
+	 * @param http the {@code HttpSecurity} to configure
+	 * @return the configured {@code SecurityFilterChain}
+	 * @throws Exception if an error occurs while configuring security
+	 */
+	@Bean
+	@Order(1)
+	public SecurityFilterChain publicFilterChain(HttpSecurity http) throws Exception {
+		logger.info("Configuring public security filter chain");
+
+		http.securityMatchers(matchers -> matchers.requestMatchers("/auth/**").requestMatchers(antMatcher("/h2-console/**")))
+				.csrf(AbstractHttpConfigurer::disable)
+				.sessionManagement(AbstractHttpConfigurer::disable).securityContext(AbstractHttpConfigurer::disable)
+				.requestCache(AbstractHttpConfigurer::disable).anonymous(AbstractHttpConfigurer::disable)
+				.servletApi(AbstractHttpConfigurer::disable).logout(AbstractHttpConfigurer::disable)
+				.exceptionHandling(AbstractHttpConfigurer::disable)
+				// Allow H2 console frames
+				.headers(headers -> headers.frameOptions(FrameOptionsConfig::disable));
+
+		logger.info("Public security filter chain configured");
+
+		return http.build();
+	}
+
+	/**
+	 * Configures the filter chain of every other request.
+	 *
+	 * <p>
+	 * Requests are authenticated by the {@link JwtAuthenticationFilter} alone:
+	 * CSRF protection, sessions, the request cache, logout, anonymous
+	 * authentication and the servlet API integration are dropped, and the
+	 * security context lives in a request attribute only. Listing all users
+	 * requires the {@code USERS_READ_ALL} permission, managing service accounts
+	 * the {@code SERVICE_ACCOUNTS_MANAGE} permission. The dispatch completing a
+	 * streamed response is let through, as its request was authorized before
+	 * streaming started.
+	 * </p>
+	 *
+	 * @param http the {@code HttpSecurity} to configure
+	 * @return the configured {@code SecurityFilterChain}
+	 * @throws Exception if an error occurs while configuring security
+	 */
+	@Bean
+	@Order(2)
+	public SecurityFilterChain apiFilterChain(HttpSecurity http) throws Exception {
+		logger.info("Configuring API security filter chain");
+
+		http.authorizeHttpRequests(requests -> requests.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+				.requestMatchers(HttpMethod.GET, "/users/").access(permissionIndex.require(Permission.USERS_READ_ALL))
+				.requestMatchers("/service-accounts/**")
+				.access(permissionIndex.require(Permission.SERVICE_ACCOUNTS_MANAGE)).anyRequest().authenticated())
+				.csrf(AbstractHttpConfigurer::disable).sessionManagement(AbstractHttpConfigurer::disable)
+				.securityContext(context -> context
+						.securityContextRepository(new RequestAttributeSecurityContextRepository()))
+				.requestCache(AbstractHttpConfigurer::disable).anonymous(AbstractHttpConfigurer::disable)
+				.servletApi(AbstractHttpConfigurer::disable).logout(AbstractHttpConfigurer::disable)
+				.authenticationProvider(authenticationProvider)
+				.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+
+		logger.info("API security filter chain configured");
+
+		return http.build();
+	}
+
+	/**
+	 * Keeps Spring Boot from registering the {@link JwtAuthenticationFilter}, a
+	 * bean, as a servlet filter of its own, which would run it ahead of the
+	 * security filter chains on every request, public ones included.
+	 *
+	 * @param jwtAuthenticationFilter the JWT authentication filter
+	 * @return the disabled registration
+	 */
+	@Bean
+	public FilterRegistrationBean<JwtAuthenticationFilter> jwtAuthenticationFilterRegistration(
+			JwtAuthenticationFilter jwtAuthenticationFilter) {
+		FilterRegistrationBean<JwtAuthenticationFilter> registration = new FilterRegistrationBean<>(
+				jwtAuthenticationFilter);
+		registration.setEnabled(false);
+		return registration;
+	}
+
+	/**
+	 * Registers the {@link OverloadProtectionFilter} ahead of the security
+	 * filter chains, so shed requests cost no security work.
+	 *
+	 * <p>
+	 * The {@code /auth/**} endpoints and the rest of the API each get an
+	 * adaptive limit within {@code security.overload.auth.*} and
+	 * {@code security.overload.api.*}; keeping the auth maximum below the
+	 * server's thread count leaves threads for the API in a login storm. The
+	 * filter is left out with {@code security.overload.enabled=false}.
+	 * </p>
+	 *
+	 * @param authFailureResponder the responder writing the {@code 503}s
+	 * @param meterRegistry        the registry of the limiters' meters
+	 * @param environment          the environment holding the limits
+	 * @return the registration of the filter
+	 */
+	@Bean
+	public FilterRegistrationBean<OverloadProtectionFilter> overloadProtectionFilter(
+			AuthFailureResponder authFailureResponder, MeterRegistry meterRegistry, Environment environment) {
+		FilterRegistrationBean<OverloadProtectionFilter> registration = new FilterRegistrationBean<>(
+				new OverloadProtectionFilter(limiter("auth", 20, 4, 100, meterRegistry, environment),
+						limiter("api", 100, 20, 200, meterRegistry, environment), authFailureResponder));
+		registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+		registration.setEnabled(environment.getProperty("security.overload.enabled", Boolean.class, true));
+		return registration;
+	}
+
+	private static AdaptiveConcurrencyLimiter limiter(String name, int initialLimit, int minLimit, int maxLimit,
+			MeterRegistry meterRegistry, Environment environment) {
+		String prefix = "security.overload." + name + ".";
+		return new AdaptiveConcurrencyLimiter(name,
+				environment.getProperty(prefix + "initial-limit", Integer.class, initialLimit),
+				environment.getProperty(prefix + "min-limit", Integer.class, minLimit),
+				environment.getProperty(prefix + "max-limit", Integer.class, maxLimit), meterRegistry);
+	}
+
+	/**
+	 * Configures CORS settings.
+	 *
+	 * <p>
+	 * Sets allowed origins, methods, and headers for CORS requests.
+	 * </p>
+	 *
+	 * @return the configured {@code CorsConfigurationSource}
+	 */
+	@Bean
+	public CorsConfigurationSource corsConfigurationSource() {
+		logger.info("Configuring CORS settings");
+
+		CorsConfiguration configuration = new CorsConfiguration();
+		configuration.setAllowedOrigins(List.of("http://localhost:8005"));
+		configuration.setAllowedMethods(List.of("GET", "POST"));
+		configuration.setAllowedHeaders(List.of("Authorization", "Content-Type"));
+		configuration.setExposedHeaders(List.of(TokenRenewalService.RENEWED_TOKEN_HEADER));
+
+		UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+		source.registerCorsConfiguration("/**", configuration);
+
+		logger.info("CORS settings configured");
+
+		return source;
+	}
+}
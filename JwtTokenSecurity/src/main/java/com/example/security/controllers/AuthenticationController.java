@@ -1,135 +1,374 @@
-package com.example.security.controllers;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
-import org.springframework.validation.BindingResult;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
-
-import com.example.security.dtos.LoginResponse;
-import com.example.security.dtos.LoginUserDto;
-import com.example.security.dtos.RegisterUserDto;
-import com.example.security.jwt.AuthenticationService;
-import com.example.security.jwt.JwtService;
-import com.example.security.models.User;
-
-import jakarta.validation.Valid;
-
-/**
- * Controller for handling authentication and user registration.
- * 
- * <p>
- * Provides end points for user sign up and login, using JWT for authentication.
- * </p>
- * 
- * @author Shivraj.Jadhav
- */
-@RestController
-@RequestMapping("/auth")
-public class AuthenticationController {
-
-	private static final Logger logger = LoggerFactory.getLogger(AuthenticationController.class);
-
-	private final JwtService jwtService;
-	private final AuthenticationService authenticationService;
-
-	/**
-	 * Constructs an {@code AuthenticationController} with the specified
-	 * {@code JwtService} and {@code AuthenticationService}.
-	 *
-	 * @param jwtService            the JWT service
-	 * @param authenticationService the authentication service
-	 */
-	public AuthenticationController(JwtService jwtService, AuthenticationService authenticationService) {
-		this.jwtService = jwtService;
-		this.authenticationService = authenticationService;
-	}
-
-	/**
-	 * Registers a new user with the provided registration details.
-	 *
-	 * @param registerUserDto the user registration details. Must include email,
-	 *                        password, and full name.
-	 * @param bindingResult   the result of the validation process. Contains
-	 *                        validation errors, if any.
-	 * @return a {@code ResponseEntity} containing the result of the registration
-	 *         process.
-	 */
-	@PostMapping("/signup")
-	public ResponseEntity<String> register(@Valid @RequestBody RegisterUserDto registerUserDto,
-			BindingResult bindingResult) {
-		// Handle validation errors
-		if (bindingResult.hasErrors()) {
-			StringBuilder errorMessages = new StringBuilder("Validation failed for registration: ");
-			bindingResult.getAllErrors().forEach(error -> errorMessages.append(error.getDefaultMessage()).append("; "));
-
-			logger.error("Validation failed for registration: {}", errorMessages.toString());
-
-			// Return bad request with validation errors
-			return ResponseEntity.badRequest().body(errorMessages.toString());
-		}
-
-		try {
-			logger.info("Attempting to register user with email: {}", registerUserDto.getEmail());
-
-			// Perform user registration
-			User registeredUser = authenticationService.signup(registerUserDto);
-
-			logger.info("User registered successfully with email: {}", registeredUser.getEmail());
-
-			// Return a success message
-			return ResponseEntity.ok("Registration successful for user: " + registeredUser.getEmail());
-		} catch (Exception ex) {
-			logger.error("Error during user registration for email: {}. Exception: {}", registerUserDto.getEmail(),
-					ex.getMessage());
-
-			// Return internal server error
-			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-					.body("Registration failed due to a server error. Please try again later.");
-		}
-	}
-
-	/**
-	 * Authenticates a user and generates a JWT token.
-	 *
-	 * @param loginUserDto the user login details.
-	 * @return a {@code ResponseEntity} containing the login response with JWT token
-	 *         and expiration time.
-	 */
-	@PostMapping("/login")
-	public ResponseEntity<?> authenticate(@RequestBody LoginUserDto loginUserDto) {
-		logger.info("Authenticating user (Login) with email: {}", loginUserDto.getEmail());
-
-		try {
-			User authenticatedUser = authenticationService.authenticate(loginUserDto);
-
-			if (authenticatedUser == null) {
-				logger.warn("Login failed for user: {}", loginUserDto.getEmail());
-				return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid credentials");
-			}
-
-			// Generate JWT token and get expiration time
-			String jwtToken = jwtService.generateToken(authenticatedUser);
-			long expiresIn = jwtService.getExpirationTime();
-
-			logger.info("User authenticated successfully (Login) with email: {}", authenticatedUser.getEmail());
-
-			// Return response with token and expiration time
-			LoginResponse loginResponse = new LoginResponse().setToken(jwtToken).setExpiresIn(expiresIn);
-
-			return ResponseEntity.ok(loginResponse);
-		} catch (Exception ex) {
-			logger.error("Error during authentication for email: {}. Exception: {}", loginUserDto.getEmail(),
-					ex.getMessage());
-
-			// Return internal server error
-			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-					.body("Authentication failed due to a server error. Please try again later.");
-		}
-	}
-
-}
+package com.example.security.controllers;
+
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.security.dtos.IntrospectionResponse;
+import com.example.security.dtos.LoginResponse;
+import com.example.security.dtos.LoginUserDto;
+import com.example.security.dtos.RegisterUserDto;
+import com.example.security.exceptions.AuthFailure;
+import com.example.security.exceptions.AuthFailureException;
+import com.example.security.jwt.AuthenticationService;
+import com.example.security.jwt.CompactTokenCodec;
+import com.example.security.jwt.JwtService;
+import com.example.security.jwt.OpaqueTokenSession;
+import com.example.security.jwt.OpaqueTokenStore;
+import com.example.security.jwt.Tenant;
+import com.example.security.jwt.TenantRegistry;
+import com.example.security.models.User;
+import com.example.security.service.IdempotencyStore;
+import com.example.security.service.ServiceAccountService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+
+/**
+ * Controller for handling authentication and user registration.
+ * 
+ * <p>
+ * Provides end points for user sign up and login, using JWT for authentication.
+ * </p>
+ * 
+ * <p>
+ * Both end points act on the tenant named in the {@value #TENANT_HEADER}
+ * header, or on the default tenant when it is absent.
+ * </p>
+ * 
+ * <p>
+ * A signup carrying an {@value #IDEMPOTENCY_KEY_HEADER} is executed once per
+ * key; retries get the first response replayed, see {@link IdempotencyStore}.
+ * Signing up an email already registered with the tenant gets a 409.
+ * </p>
+ * 
+ * <p>
+ * Opaque tokens can be introspected and revoked through {@code /auth/introspect}
+ * and {@code /auth/revoke}, in the manner of RFC 7662 and RFC 7009. Both are
+ * for other services and require the Basic credentials of a service account;
+ * they only see tokens of the account's tenant.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+@RestController
+@RequestMapping("/auth")
+public class AuthenticationController {
+
+	private static final Logger logger = LoggerFactory.getLogger(AuthenticationController.class);
+
+	/**
+	 * Request header naming the tenant to sign up or log in to.
+	 */
+	public static final String TENANT_HEADER = "X-Tenant-Id";
+
+	/**
+	 * Request header making a signup safe to retry.
+	 */
+	public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+	/**
+	 * Response header marking a response stored for an earlier request with the
+	 * same {@value #IDEMPOTENCY_KEY_HEADER}.
+	 */
+	public static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
+	private final JwtService jwtService;
+	private final AuthenticationService authenticationService;
+	private final CompactTokenCodec compactTokenCodec;
+	private final TenantRegistry tenantRegistry;
+	private final OpaqueTokenStore opaqueTokenStore;
+	private final IdempotencyStore idempotencyStore;
+	private final ServiceAccountService serviceAccountService;
+
+	/**
+	 * Constructs an {@code AuthenticationController} with the specified
+	 * {@code JwtService}, {@code AuthenticationService},
+	 * {@code CompactTokenCodec}, {@code TenantRegistry},
+	 * {@code OpaqueTokenStore}, {@code IdempotencyStore} and
+	 * {@code ServiceAccountService}.
+	 *
+	 * @param jwtService            the JWT service
+	 * @param authenticationService the authentication service
+	 * @param compactTokenCodec     the codec for compact binary tokens
+	 * @param tenantRegistry        the registry resolving the tenant header
+	 * @param opaqueTokenStore      the store behind opaque tokens
+	 * @param idempotencyStore      the store of signup responses by
+	 *                              idempotency key
+	 * @param serviceAccountService the service authenticating the callers of
+	 *                              introspection and revocation
+	 */
+	public AuthenticationController(JwtService jwtService, AuthenticationService authenticationService,
+			CompactTokenCodec compactTokenCodec, TenantRegistry tenantRegistry, OpaqueTokenStore opaqueTokenStore,
+			IdempotencyStore idempotencyStore, ServiceAccountService serviceAccountService) {
+		this.jwtService = jwtService;
+		this.authenticationService = authenticationService;
+		this.compactTokenCodec = compactTokenCodec;
+		this.tenantRegistry = tenantRegistry;
+		this.opaqueTokenStore = opaqueTokenStore;
+		this.idempotencyStore = idempotencyStore;
+		this.serviceAccountService = serviceAccountService;
+	}
+
+	/**
+	 * Registers a new user with the provided registration details.
+	 *
+	 * @param registerUserDto the user registration details. Must include email,
+	 *                        password, and full name.
+	 * @param bindingResult   the result of the validation process. Contains
+	 *                        validation errors, if any.
+	 * @param tenantId        the tenant to register the user with, or
+	 *                        {@code null} for the default tenant
+	 * @param idempotencyKey  the key making retries of the signup safe, or
+	 *                        {@code null}
+	 * @param request         the request, giving the client address
+	 * @return a {@code ResponseEntity} containing the result of the registration
+	 *         process.
+	 */
+	@PostMapping("/signup")
+	public ResponseEntity<String> register(@Valid @RequestBody RegisterUserDto registerUserDto,
+			BindingResult bindingResult, @RequestHeader(name = TENANT_HEADER, required = false) String tenantId,
+			@RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+			HttpServletRequest request) {
+		// Handle validation errors
+		if (bindingResult.hasErrors()) {
+			StringBuilder errorMessages = new StringBuilder("Validation failed for registration: ");
+			bindingResult.getAllErrors().forEach(error -> errorMessages.append(error.getDefaultMessage()).append("; "));
+
+			logger.error("Validation failed for registration: {}", errorMessages.toString());
+
+			// Return bad request with validation errors
+			return ResponseEntity.badRequest().body(errorMessages.toString());
+		}
+
+		Tenant tenant = tenantRegistry.byId(tenantId);
+		if (tenant == null) {
+			return ResponseEntity.badRequest().body("Unknown tenant");
+		}
+
+		String clientAddress = request.getRemoteAddr();
+		if (idempotencyKey == null) {
+			return signup(registerUserDto, tenant, clientAddress);
+		}
+		if (!IdempotencyStore.isValidKey(idempotencyKey)) {
+			return ResponseEntity.badRequest().body("Invalid " + IDEMPOTENCY_KEY_HEADER);
+		}
+
+		String fingerprint = idempotencyStore.fingerprint(registerUserDto.getEmail(), registerUserDto.getFullName(),
+				registerUserDto.getPassword());
+		IdempotencyStore.Response response = idempotencyStore.execute(tenant, idempotencyKey, fingerprint, () -> {
+			ResponseEntity<String> executed = signup(registerUserDto, tenant, clientAddress);
+			return new IdempotencyStore.Response(executed.getStatusCode().value(), executed.getBody());
+		});
+		if (response.isReplayed()) {
+			logger.info("Replaying registration response for email: {}", registerUserDto.getEmail());
+			return ResponseEntity.status(response.getStatus()).header(IDEMPOTENT_REPLAYED_HEADER, "true")
+					.body(response.getBody());
+		}
+		return ResponseEntity.status(response.getStatus()).body(response.getBody());
+	}
+
+	private ResponseEntity<String> signup(RegisterUserDto registerUserDto, Tenant tenant, String clientAddress) {
+		try {
+			logger.info("Attempting to register user with email: {}", registerUserDto.getEmail());
+
+			// Perform user registration
+			Optional<User> registeredUser = authenticationService.signup(registerUserDto, tenant, clientAddress);
+			if (registeredUser.isEmpty()) {
+				return ResponseEntity.status(HttpStatus.CONFLICT).body("Email already registered");
+			}
+
+			logger.info("User registered successfully with email: {}", registeredUser.get().getEmail());
+
+			// Return a success message
+			return ResponseEntity.ok("Registration successful for user: " + registeredUser.get().getEmail());
+		} catch (AuthFailureException ex) {
+			// Password hashing is saturated; GlobalExceptionHandler answers 503
+			throw ex;
+		} catch (Exception ex) {
+			logger.error("Error during user registration for email: {}. Exception: {}", registerUserDto.getEmail(),
+					ex.getMessage());
+
+			// Return internal server error
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+					.body("Registration failed due to a server error. Please try again later.");
+		}
+	}
+
+	/**
+	 * Authenticates a user and generates a JWT token.
+	 *
+	 * <p>
+	 * With {@code format=compact} a compact binary token is issued instead of a
+	 * JWT, provided {@code security.jwt.compact.enabled} is set; with
+	 * {@code format=opaque} an opaque token, provided
+	 * {@code security.opaque.enabled} is set.
+	 * </p>
+	 *
+	 * @param loginUserDto the user login details.
+	 * @param format       the token format, {@code jwt} (default),
+	 *                     {@code compact} or {@code opaque}
+	 * @param tenantId     the tenant to log in to, or {@code null} for the
+	 *                     default tenant
+	 * @param request      the request, giving the client address
+	 * @return a {@code ResponseEntity} containing the login response with JWT token
+	 *         and expiration time.
+	 */
+	@PostMapping("/login")
+	public ResponseEntity<?> authenticate(@RequestBody LoginUserDto loginUserDto,
+			@RequestParam(name = "format", defaultValue = "jwt") String format,
+			@RequestHeader(name = TENANT_HEADER, required = false) String tenantId, HttpServletRequest request) {
+		logger.info("Authenticating user (Login) with email: {}", loginUserDto.getEmail());
+
+		boolean compact = "compact".equals(format);
+		if (compact && !compactTokenCodec.isEnabled()) {
+			return ResponseEntity.badRequest().body("Compact tokens are not enabled");
+		}
+		boolean opaque = "opaque".equals(format);
+		if (opaque && !opaqueTokenStore.isEnabled()) {
+			return ResponseEntity.badRequest().body("Opaque tokens are not enabled");
+		}
+
+		Tenant tenant = tenantRegistry.byId(tenantId);
+		if (tenant == null) {
+			return ResponseEntity.badRequest().body("Unknown tenant");
+		}
+
+		try {
+			User authenticatedUser = authenticationService.authenticate(loginUserDto, tenant,
+					request.getRemoteAddr());
+
+			if (authenticatedUser == null) {
+				logger.warn("Login failed for user: {}", loginUserDto.getEmail());
+				return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid credentials");
+			}
+
+			// Generate JWT token and get expiration time
+			String jwtToken;
+			if (compact) {
+				jwtToken = compactTokenCodec.encode(tenant, authenticatedUser.getId(),
+						authenticatedUser.getPermissionMask());
+			} else if (opaque) {
+				jwtToken = opaqueTokenStore.issue(tenant, authenticatedUser.getId(), authenticatedUser.getEmail(),
+						authenticatedUser.getPermissionMask());
+			} else {
+				jwtToken = jwtService.generateToken(authenticatedUser);
+			}
+			long expiresIn = jwtService.getExpirationTime();
+
+			logger.info("User authenticated successfully (Login) with email: {}", authenticatedUser.getEmail());
+
+			// Return response with token and expiration time
+			LoginResponse loginResponse = new LoginResponse().setToken(jwtToken).setExpiresIn(expiresIn);
+
+			return ResponseEntity.ok(loginResponse);
+		} catch (AuthenticationException | AuthFailureException ex) {
+			// Rejected credentials are routine; GlobalExceptionHandler counts them and answers 401
+			throw ex;
+		} catch (Exception ex) {
+			logger.error("Error during authentication for email: {}. Exception: {}", loginUserDto.getEmail(),
+					ex.getMessage());
+
+			// Return internal server error
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+					.body("Authentication failed due to a server error. Please try again later.");
+		}
+	}
+
+	/**
+	 * Introspects an opaque token on behalf of a service account.
+	 *
+	 * <p>
+	 * Unknown, revoked, expired and malformed tokens, and tokens of other
+	 * tenants, are all reported as inactive, without saying which.
+	 * </p>
+	 *
+	 * @param token         the opaque token
+	 * @param authorization the Basic credentials of the service account
+	 * @param tenantId      the tenant of the account, or {@code null} for the
+	 *                      default tenant
+	 * @return the introspection response
+	 */
+	@PostMapping("/introspect")
+	public ResponseEntity<IntrospectionResponse> introspect(@RequestParam("token") String token,
+			@RequestHeader(name = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+			@RequestHeader(name = TENANT_HEADER, required = false) String tenantId) {
+		Tenant tenant = authenticateClient(authorization, tenantId);
+		if (!opaqueTokenStore.isEnabled() || !opaqueTokenStore.isOpaqueToken(token, 0)) {
+			return ResponseEntity.ok(IntrospectionResponse.inactive());
+		}
+
+		try {
+			OpaqueTokenSession session = opaqueTokenStore.resolve(token, 0);
+			if (session.getTenant() != tenant) {
+				return ResponseEntity.ok(IntrospectionResponse.inactive());
+			}
+			return ResponseEntity.ok(IntrospectionResponse.active(session.getEmail(), session.getTenant().getId(),
+					session.getIssuedAt() / 1000, session.getExpiresAt() / 1000, session.getPermissions()));
+		} catch (AuthFailureException ex) {
+			return ResponseEntity.ok(IntrospectionResponse.inactive());
+		}
+	}
+
+	/**
+	 * Revokes an opaque token on behalf of a service account.
+	 *
+	 * <p>
+	 * As RFC 7009 asks, the response is the same whether or not the token was
+	 * live; tokens of other tenants are left alone.
+	 * </p>
+	 *
+	 * @param token         the opaque token
+	 * @param authorization the Basic credentials of the service account
+	 * @param tenantId      the tenant of the account, or {@code null} for the
+	 *                      default tenant
+	 * @return an empty response
+	 */
+	@PostMapping("/revoke")
+	public ResponseEntity<Void> revoke(@RequestParam("token") String token,
+			@RequestHeader(name = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+			@RequestHeader(name = TENANT_HEADER, required = false) String tenantId) {
+		Tenant tenant = authenticateClient(authorization, tenantId);
+		if (!opaqueTokenStore.isEnabled()) {
+			return ResponseEntity.badRequest().build();
+		}
+
+		try {
+			if (opaqueTokenStore.isOpaqueToken(token, 0) && opaqueTokenStore.resolve(token, 0).getTenant() == tenant
+					&& opaqueTokenStore.revoke(token)) {
+				logger.info("Opaque token revoked");
+			}
+		} catch (AuthFailureException ex) {
+			logger.debug("Ignoring revocation of a malformed, expired or revoked token");
+		}
+		return ResponseEntity.ok().build();
+	}
+
+	/**
+	 * Authenticates the service account calling introspection or revocation.
+	 *
+	 * @return the tenant of the account
+	 * @throws AuthFailureException if the tenant is unknown or the credentials
+	 *                              do not match
+	 */
+	private Tenant authenticateClient(String authorization, String tenantId) {
+		Tenant tenant = tenantRegistry.byId(tenantId);
+		if (tenant == null) {
+			throw AuthFailure.BAD_CREDENTIALS.exception();
+		}
+		serviceAccountService.authenticate(tenant, authorization);
+		return tenant;
+	}
+}
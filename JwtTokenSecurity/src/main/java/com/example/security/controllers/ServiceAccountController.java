@@ -0,0 +1,232 @@
+package com.example.security.controllers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.example.security.dtos.CreateServiceAccountDto;
+import com.example.security.dtos.ServiceAccountResponse;
+import com.example.security.dtos.ServiceTokenRequest;
+import com.example.security.jwt.ServiceTokenIssuer;
+import com.example.security.jwt.Tenant;
+import com.example.security.jwt.TenantRegistry;
+import com.example.security.jwt.TokenPrincipal;
+import com.example.security.models.ServiceAccount;
+import com.example.security.service.PermissionIndex;
+import com.example.security.service.PermissionSet;
+import com.example.security.service.ServiceAccountService;
+
+import jakarta.validation.Valid;
+
+/**
+ * Controller for service accounts and the tokens they mint.
+ *
+ * <p>
+ * {@code POST /auth/service-tokens} authenticates a service account with HTTP
+ * Basic credentials, its name and secret, in the tenant named by the
+ * {@value AuthenticationController#TENANT_HEADER} header, and mints up to
+ * {@code security.service-account.max-batch} tokens in one call. The tokens
+ * are streamed back as newline-delimited JSON, one {@code {"token":"..."}}
+ * object per line, flushed chunk by chunk as {@link ServiceTokenIssuer} signs
+ * them.
+ * </p>
+ *
+ * <p>
+ * Users holding {@code SERVICE_ACCOUNTS_MANAGE} create and disable the service
+ * accounts of their own tenant through {@code /service-accounts}, and can only
+ * grant permissions they hold themselves.
+ * </p>
+ *
+ * @author Shivraj.Jadhav
+ */
+@RestController
+public class ServiceAccountController {
+
+	private static final Logger logger = LoggerFactory.getLogger(ServiceAccountController.class);
+
+
+	private final ServiceAccountService serviceAccountService;
+	private final ServiceTokenIssuer serviceTokenIssuer;
+	private final PermissionIndex permissionIndex;
+	private final TenantRegistry tenantRegistry;
+
+	@Value("${security.service-account.max-batch:10000}")
+	private int maxBatch;
+
+	@Value("${security.service-account.max-token-ttl:300000}")
+	private long maxTokenTtl;
+
+	/**
+	 * Constructs a {@code ServiceAccountController}.
+	 *
+	 * @param serviceAccountService the service managing the accounts
+	 * @param serviceTokenIssuer    the issuer minting the tokens
+	 * @param permissionIndex       the index resolving permission names
+	 * @param tenantRegistry        the registry resolving the tenant header
+	 */
+	public ServiceAccountController(ServiceAccountService serviceAccountService,
+			ServiceTokenIssuer serviceTokenIssuer, PermissionIndex permissionIndex, TenantRegistry tenantRegistry) {
+		this.serviceAccountService = serviceAccountService;
+		this.serviceTokenIssuer = serviceTokenIssuer;
+		this.permissionIndex = permissionIndex;
+		this.tenantRegistry = tenantRegistry;
+	}
+
+	/**
+	 * Mints a batch of tokens for a service account.
+	 *
+	 * <p>
+	 * The tokens carry the requested permissions, which must be a subset of the
+	 * account's, or all of the account's permissions if none are requested.
+	 * Their lifetime defaults to, and may not exceed,
+	 * {@code security.service-account.max-token-ttl}.
+	 * </p>
+	 *
+	 * @param tokenRequest  the number, permissions and lifetime of the tokens
+	 * @param authorization the Basic credentials of the service account
+	 * @param tenantId      the tenant of the account, or {@code null} for the
+	 *                      default tenant
+	 * @return a streamed response with one token per line
+	 */
+	@PostMapping("/auth/service-tokens")
+	public ResponseEntity<StreamingResponseBody> issueTokens(@RequestBody ServiceTokenRequest tokenRequest,
+			@RequestHeader(name = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+			@RequestHeader(name = AuthenticationController.TENANT_HEADER, required = false) String tenantId) {
+		Tenant tenant = tenantRegistry.byId(tenantId);
+		if (tenant == null) {
+			return badRequest("Unknown tenant");
+		}
+
+		int count = tokenRequest.getCount();
+		if (count < 1 || count > maxBatch) {
+			return badRequest("Count must be between 1 and " + maxBatch);
+		}
+		long ttl = tokenRequest.getExpiresIn() != null ? tokenRequest.getExpiresIn() : maxTokenTtl;
+		if (ttl < 1 || ttl > maxTokenTtl) {
+			return badRequest("Expiry must be between 1 and " + maxTokenTtl + " ms");
+		}
+
+		ServiceAccount account = serviceAccountService.authenticate(tenant, authorization);
+
+		long permissions = account.getPermissions();
+		if (tokenRequest.getPermissions() != null && !tokenRequest.getPermissions().isEmpty()) {
+			long requested;
+			try {
+				requested = permissionIndex.maskForPermissions(tokenRequest.getPermissions());
+			} catch (IllegalArgumentException ex) {
+				return badRequest(ex.getMessage());
+			}
+			if ((requested & ~permissions) != 0) {
+				return ResponseEntity.status(HttpStatus.FORBIDDEN).contentType(MediaType.TEXT_PLAIN)
+						.body(text("Permissions exceed those of the service account"));
+			}
+			permissions = requested;
+		}
+
+		logger.info("Issuing {} tokens to service account {} of tenant {}", count, account.getName(), tenant);
+
+		long scope = permissions;
+		StreamingResponseBody body = out -> serviceTokenIssuer.issue(account, scope, count, ttl, tokens -> {
+			StringBuilder lines = new StringBuilder(tokens.length * (tokens[0].length() + 13));
+			for (String token : tokens) {
+				lines.append("{\"token\":\"").append(token).append("\"}\n");
+			}
+			out.write(lines.toString().getBytes(StandardCharsets.US_ASCII));
+			out.flush();
+		});
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+	}
+
+	/**
+	 * Creates a service account in the tenant of the current user.
+	 *
+	 * @param createServiceAccountDto the name and permissions of the account
+	 * @param bindingResult           the result of the validation process
+	 * @return the account with its secret, which cannot be retrieved again
+	 */
+	@PostMapping("/service-accounts")
+	public ResponseEntity<?> create(@Valid @RequestBody CreateServiceAccountDto createServiceAccountDto,
+			BindingResult bindingResult) {
+		if (bindingResult.hasErrors()) {
+			StringBuilder errorMessages = new StringBuilder("Validation failed for service account: ");
+			bindingResult.getAllErrors().forEach(error -> errorMessages.append(error.getDefaultMessage()).append("; "));
+			return ResponseEntity.badRequest().body(errorMessages.toString());
+		}
+
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		long permissions;
+		try {
+			permissions = permissionIndex.maskForPermissions(createServiceAccountDto.getPermissions());
+		} catch (IllegalArgumentException ex) {
+			return ResponseEntity.badRequest().body(ex.getMessage());
+		}
+		if ((permissions & ~maskOf(authentication)) != 0) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Cannot grant permissions you do not hold");
+		}
+
+		Tenant tenant = tenantOf(authentication);
+		String name = createServiceAccountDto.getName();
+		return serviceAccountService.create(tenant, name, permissions)
+				.<ResponseEntity<?>>map(secret -> ResponseEntity.status(HttpStatus.CREATED)
+						.body(new ServiceAccountResponse().setName(name).setSecret(secret)
+								.setPermissions(namesOf(permissions))))
+				.orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT)
+						.body("Service account already exists: " + name));
+	}
+
+	/**
+	 * Disables a service account of the current user's tenant.
+	 *
+	 * @param name the name of the account
+	 * @return an empty response, or 404 if the tenant has no such account
+	 */
+	@DeleteMapping("/service-accounts/{name}")
+	public ResponseEntity<Void> disable(@PathVariable("name") String name) {
+		Tenant tenant = tenantOf(SecurityContextHolder.getContext().getAuthentication());
+		return serviceAccountService.disable(tenant, name) ? ResponseEntity.noContent().build()
+				: ResponseEntity.notFound().build();
+	}
+
+	private Tenant tenantOf(Authentication authentication) {
+		return ((TokenPrincipal) authentication.getPrincipal()).getTenant();
+	}
+
+	private List<String> namesOf(long permissions) {
+		List<String> names = new ArrayList<>();
+		for (GrantedAuthority authority : permissionIndex.authorities(permissions)) {
+			names.add(authority.getAuthority());
+		}
+		return names;
+	}
+
+	private static long maskOf(Authentication authentication) {
+		return authentication.getAuthorities() instanceof PermissionSet permissionSet ? permissionSet.getMask() : 0L;
+	}
+
+	private static ResponseEntity<StreamingResponseBody> badRequest(String message) {
+		return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body(text(message));
+	}
+
+	private static StreamingResponseBody text(String message) {
+		return out -> out.write(message.getBytes(StandardCharsets.UTF_8));
+	}
+}
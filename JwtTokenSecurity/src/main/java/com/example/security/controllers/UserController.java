@@ -1,79 +1,139 @@
-package com.example.security.controllers;
-
-import java.util.List;
-
-import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import com.example.security.models.User;
-import com.example.security.service.UserService;
-
-/**
- * Controller for managing user-related operations.
- * 
- * <p>
- * This class provides endpoints for retrieving information about the currently
- * authenticated user and for listing all users.
- * </p>
- */
-@RequestMapping("/users")
-@RestController
-public class UserController {
-
-	private static final Logger logger = LoggerFactory.getLogger(UserController.class);
-	private final UserService userService;
-
-	/**
-	 * Constructs a new {@link UserController} with the specified
-	 * {@link UserService}.
-	 *
-	 * @param userService the service used for user-related operations
-	 */
-	public UserController(UserService userService) {
-		this.userService = userService;
-	}
-
-	/**
-	 * Retrieves the details of the currently authenticated user.
-	 * 
-	 * <p>
-	 * This endpoint returns the {@link User} object of the currently authenticated
-	 * user based on the security context.
-	 * </p>
-	 *
-	 * @return a {@code ResponseEntity} containing the authenticated user's details
-	 */
-	@GetMapping("/me")
-	public ResponseEntity<User> authenticatedUser() {
-		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-		User currentUser = (User) authentication.getPrincipal();
-
-		logger.info("Fetching details for authenticated user: {}", currentUser.getEmail());
-
-		return ResponseEntity.ok(currentUser);
-	}
-
-	/**
-	 * Retrieves a list of all users.
-	 * 
-	 * <p>
-	 * This endpoint returns a list of all users in the system.
-	 * </p>
-	 *
-	 * @return a {@code ResponseEntity} containing a list of all users
-	 */
-	@GetMapping("/")
-	public ResponseEntity<List<User>> allUsers() {
-		List<User> users = userService.allUsers();
-
-		logger.info("Fetching details for all users. Total users found: {}", users.size());
-
-		return ResponseEntity.ok(users);
-	}
-}
+package com.example.security.controllers;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.security.jwt.TokenPrincipal;
+import com.example.security.models.User;
+import com.example.security.service.TenantUserCache;
+import com.example.security.service.UserResponseCache;
+import com.example.security.service.UserResponseCache.CachedResponse;
+import com.example.security.service.UserService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Controller for managing user-related operations.
+ * 
+ * <p>
+ * This class provides endpoints for retrieving information about the currently
+ * authenticated user and for listing all users.
+ * </p>
+ */
+@RequestMapping("/users")
+@RestController
+public class UserController {
+
+	private static final Logger logger = LoggerFactory.getLogger(UserController.class);
+	private final UserService userService;
+	private final UserResponseCache userResponseCache;
+	private final TenantUserCache tenantUserCache;
+	private final ObjectWriter usersWriter;
+
+	/**
+	 * Constructs a new {@link UserController} with the specified
+	 * {@link UserService}, {@link UserResponseCache}, {@link TenantUserCache}
+	 * and {@link ObjectMapper}.
+	 *
+	 * @param userService       the service used for user-related operations
+	 * @param userResponseCache the cache of serialized user responses
+	 * @param tenantUserCache   the cache the authenticated user is loaded from
+	 * @param objectMapper      the mapper the user list is written with
+	 */
+	public UserController(UserService userService, UserResponseCache userResponseCache,
+			TenantUserCache tenantUserCache, ObjectMapper objectMapper) {
+		this.userService = userService;
+		this.userResponseCache = userResponseCache;
+		this.tenantUserCache = tenantUserCache;
+		// Resolved once; no flush per element and the container closes the stream
+		this.usersWriter = objectMapper.writerFor(User.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+				.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+	}
+
+	/**
+	 * Retrieves the details of the currently authenticated user.
+	 * 
+	 * <p>
+	 * This endpoint returns the {@link User} object of the currently authenticated
+	 * user based on the security context. The response carries an ETag derived
+	 * from the user's id and last update; a request whose {@code If-None-Match}
+	 * matches gets a 304 without a body. The serialized bytes are served from the
+	 * {@link UserResponseCache}. The user is loaded through the
+	 * {@link TenantUserCache} from the token's principal. Tokens of service
+	 * accounts get a 403.
+	 * </p>
+	 *
+	 * @param request the current request, used for the conditional check
+	 * @return a {@code ResponseEntity} containing the authenticated user's details
+	 */
+	@GetMapping("/me")
+	public ResponseEntity<byte[]> authenticatedUser(WebRequest request) {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		TokenPrincipal principal = (TokenPrincipal) authentication.getPrincipal();
+		if (principal.isServiceAccount()) {
+			// Service accounts have no profile
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+		}
+
+		User currentUser = tenantUserCache.load(principal.getTenant(), principal.getName());
+
+		CachedResponse response = userResponseCache.get(currentUser);
+		if (request.checkNotModified(response.getEtag())) {
+			logger.debug("Details for authenticated user not modified: {}", currentUser.getEmail());
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+		}
+
+		logger.info("Fetching details for authenticated user: {}", currentUser.getEmail());
+
+		return ResponseEntity.ok().eTag(response.getEtag()).cacheControl(CacheControl.noCache().cachePrivate())
+				.contentType(MediaType.APPLICATION_JSON).body(response.getBody());
+	}
+
+	/**
+	 * Retrieves a list of all users of the caller's tenant.
+	 * 
+	 * <p>
+	 * This endpoint returns a list of all users of the tenant of the
+	 * authenticated user or service account; users of other tenants are never
+	 * listed. The users are read from the repository in batches while the JSON
+	 * array is streamed one user at a time through a shared
+	 * {@link ObjectWriter}, so neither the users nor the response are held in
+	 * memory as a whole and the body flows out as the container's buffer fills;
+	 * large responses are compressed by the server when the client accepts it.
+	 * </p>
+	 *
+	 * @return a {@code ResponseEntity} streaming the list of the tenant's users
+	 */
+	@GetMapping("/")
+	public ResponseEntity<StreamingResponseBody> allUsers() {
+		TokenPrincipal principal = (TokenPrincipal) SecurityContextHolder.getContext().getAuthentication()
+				.getPrincipal();
+		// Authorized here, on the request thread; the body is written later
+		Iterable<User> users = userService.allUsers(principal.getTenant());
+
+		logger.info("Streaming details for all users of tenant {}", principal.getTenant());
+
+		StreamingResponseBody body = out -> {
+			try (SequenceWriter sequence = usersWriter.writeValuesAsArray(out)) {
+				for (User user : users) {
+					sequence.write(user);
+				}
+			}
+		};
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+	}
+}
@@ -0,0 +1,61 @@
+package com.example.security.dtos;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+
+/**
+ * DTO for transferring the details of a new service account.
+ * 
+ * <p>
+ * This class encapsulates the name of the account and the permissions its
+ * tokens may carry.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+public class CreateServiceAccountDto {
+
+	@NotBlank(message = "Name is required")
+	@Pattern(regexp = "[A-Za-z0-9._-]{1,64}", message = "Name may only contain letters, digits, '.', '_' and '-'")
+	private String name;
+
+	private List<String> permissions = List.of();
+
+	/**
+	 * Gets the name of the service account.
+	 *
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Sets the name of the service account.
+	 *
+	 * @param name the name
+	 */
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Gets the names of the permissions the account's tokens may carry.
+	 *
+	 * @return the permission names
+	 */
+	public List<String> getPermissions() {
+		return permissions;
+	}
+
+	/**
+	 * Sets the names of the permissions the account's tokens may carry.
+	 *
+	 * @param permissions the permission names
+	 */
+	public void setPermissions(List<String> permissions) {
+		this.permissions = permissions;
+	}
+}
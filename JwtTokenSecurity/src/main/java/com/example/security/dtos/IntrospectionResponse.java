@@ -0,0 +1,111 @@
+package com.example.security.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * DTO for representing the response of a token introspection.
+ * 
+ * <p>
+ * Follows RFC 7662: an inactive token is answered with {@code active} alone,
+ * an active one also names its subject, tenant, lifetime (in epoch seconds)
+ * and permission bitmap.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IntrospectionResponse {
+
+	private static final IntrospectionResponse INACTIVE = new IntrospectionResponse();
+
+	private boolean active;
+	private String sub;
+	private String tenant;
+	private Long iat;
+	private Long exp;
+	private Long perms;
+
+	/**
+	 * Returns the response for an inactive token.
+	 *
+	 * @return the shared inactive response
+	 */
+	public static IntrospectionResponse inactive() {
+		return INACTIVE;
+	}
+
+	/**
+	 * Returns the response for an active token.
+	 *
+	 * @param sub    the subject (the user's email)
+	 * @param tenant the tenant id
+	 * @param iat    the issue time in epoch seconds
+	 * @param exp    the expiry time in epoch seconds
+	 * @param perms  the permission bitmap
+	 * @return the active response
+	 */
+	public static IntrospectionResponse active(String sub, String tenant, long iat, long exp, long perms) {
+		IntrospectionResponse response = new IntrospectionResponse();
+		response.active = true;
+		response.sub = sub;
+		response.tenant = tenant;
+		response.iat = iat;
+		response.exp = exp;
+		response.perms = perms;
+		return response;
+	}
+
+	/**
+	 * Gets whether the token is active.
+	 *
+	 * @return true if the token is active
+	 */
+	public boolean isActive() {
+		return active;
+	}
+
+	/**
+	 * Gets the subject of the token.
+	 *
+	 * @return the subject, or {@code null} if inactive
+	 */
+	public String getSub() {
+		return sub;
+	}
+
+	/**
+	 * Gets the tenant of the token.
+	 *
+	 * @return the tenant id, or {@code null} if inactive
+	 */
+	public String getTenant() {
+		return tenant;
+	}
+
+	/**
+	 * Gets the issue time of the token.
+	 *
+	 * @return the issue time in epoch seconds, or {@code null} if inactive
+	 */
+	public Long getIat() {
+		return iat;
+	}
+
+	/**
+	 * Gets the expiry time of the token.
+	 *
+	 * @return the expiry time in epoch seconds, or {@code null} if inactive
+	 */
+	public Long getExp() {
+		return exp;
+	}
+
+	/**
+	 * Gets the permission bitmap of the token.
+	 *
+	 * @return the permission bitmap, or {@code null} if inactive
+	 */
+	public Long getPerms() {
+		return perms;
+	}
+}
@@ -0,0 +1,80 @@
+package com.example.security.dtos;
+
+import java.util.List;
+
+/**
+ * DTO for representing a newly created service account.
+ * 
+ * <p>
+ * This class contains the name of the account, its permissions and its
+ * secret, which is only ever shown in this response.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+public class ServiceAccountResponse {
+
+	private String name;
+	private String secret;
+	private List<String> permissions;
+
+	/**
+	 * Gets the name of the service account.
+	 *
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Sets the name of the service account.
+	 *
+	 * @param name the name
+	 * @return the {@code ServiceAccountResponse} instance
+	 */
+	public ServiceAccountResponse setName(String name) {
+		this.name = name;
+		return this;
+	}
+
+	/**
+	 * Gets the secret of the service account.
+	 *
+	 * @return the secret
+	 */
+	public String getSecret() {
+		return secret;
+	}
+
+	/**
+	 * Sets the secret of the service account.
+	 *
+	 * @param secret the secret
+	 * @return the {@code ServiceAccountResponse} instance
+	 */
+	public ServiceAccountResponse setSecret(String secret) {
+		this.secret = secret;
+		return this;
+	}
+
+	/**
+	 * Gets the names of the permissions the account's tokens may carry.
+	 *
+	 * @return the permission names
+	 */
+	public List<String> getPermissions() {
+		return permissions;
+	}
+
+	/**
+	 * Sets the names of the permissions the account's tokens may carry.
+	 *
+	 * @param permissions the permission names
+	 * @return the {@code ServiceAccountResponse} instance
+	 */
+	public ServiceAccountResponse setPermissions(List<String> permissions) {
+		this.permissions = permissions;
+		return this;
+	}
+}
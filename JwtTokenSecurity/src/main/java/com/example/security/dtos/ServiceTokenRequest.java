@@ -0,0 +1,75 @@
+package com.example.security.dtos;
+
+import java.util.List;
+
+/**
+ * DTO for requesting a batch of service account tokens.
+ * 
+ * <p>
+ * This class encapsulates the number of tokens to mint, the permissions they
+ * carry and their lifetime.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+public class ServiceTokenRequest {
+
+	private int count = 1;
+	private List<String> permissions;
+	private Long expiresIn;
+
+	/**
+	 * Gets the number of tokens to mint.
+	 *
+	 * @return the number of tokens
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Sets the number of tokens to mint.
+	 *
+	 * @param count the number of tokens
+	 */
+	public void setCount(int count) {
+		this.count = count;
+	}
+
+	/**
+	 * Gets the names of the permissions the tokens carry.
+	 *
+	 * @return the permission names, or {@code null} for all of the account's
+	 *         permissions
+	 */
+	public List<String> getPermissions() {
+		return permissions;
+	}
+
+	/**
+	 * Sets the names of the permissions the tokens carry.
+	 *
+	 * @param permissions the permission names
+	 */
+	public void setPermissions(List<String> permissions) {
+		this.permissions = permissions;
+	}
+
+	/**
+	 * Gets the lifetime of the tokens in milliseconds.
+	 *
+	 * @return the lifetime, or {@code null} for the longest allowed
+	 */
+	public Long getExpiresIn() {
+		return expiresIn;
+	}
+
+	/**
+	 * Sets the lifetime of the tokens in milliseconds.
+	 *
+	 * @param expiresIn the lifetime
+	 */
+	public void setExpiresIn(Long expiresIn) {
+		this.expiresIn = expiresIn;
+	}
+}
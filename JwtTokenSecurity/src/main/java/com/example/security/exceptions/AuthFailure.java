@@ -0,0 +1,78 @@
+package com.example.security.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * The routine ways an authentication attempt can fail, or a request be shed
+ * under overload.
+ * 
+ * <p>
+ * Each failure carries the status and texts of its error response, so the
+ * response can be rendered once at startup, and a shared stackless
+ * {@link AuthFailureException} that can be thrown without capturing a stack
+ * trace.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+public enum AuthFailure {
+
+	EXPIRED_TOKEN(HttpStatus.FORBIDDEN, "JWT expired", "The JWT token has expired."),
+	BAD_SIGNATURE(HttpStatus.FORBIDDEN, "JWT signature does not match", "The JWT signature is invalid."),
+	MALFORMED_TOKEN(HttpStatus.FORBIDDEN, "JWT is malformed", "The JWT token could not be parsed."),
+	UNKNOWN_USER(HttpStatus.FORBIDDEN, "User not found", "The token subject does not exist."),
+	UNKNOWN_TENANT(HttpStatus.FORBIDDEN, "Unknown tenant", "The token was issued for an unknown tenant."),
+	BAD_CREDENTIALS(HttpStatus.UNAUTHORIZED, "Bad credentials", "The username or password is incorrect."),
+	INVALID_TOKEN(HttpStatus.FORBIDDEN, "Token is not active", "The token is unknown or has been revoked."),
+	ACCOUNT_DISABLED(HttpStatus.FORBIDDEN, "Account is locked or disabled", "The account is locked or disabled."),
+	OVERLOADED(HttpStatus.SERVICE_UNAVAILABLE, "Too many logins in progress", "Please try again in a moment."),
+	SERVICE_BUSY(HttpStatus.SERVICE_UNAVAILABLE, "Too many requests in progress", "Please try again in a moment.");
+
+	private final HttpStatus status;
+	private final String detail;
+	private final String description;
+	private final AuthFailureException exception;
+
+	AuthFailure(HttpStatus status, String detail, String description) {
+		this.status = status;
+		this.detail = detail;
+		this.description = description;
+		this.exception = new AuthFailureException(this);
+	}
+
+	/**
+	 * Gets the HTTP status of the error response.
+	 *
+	 * @return the status
+	 */
+	public HttpStatus getStatus() {
+		return status;
+	}
+
+	/**
+	 * Gets the detail of the error response.
+	 *
+	 * @return the detail
+	 */
+	public String getDetail() {
+		return detail;
+	}
+
+	/**
+	 * Gets the description of the error response.
+	 *
+	 * @return the description
+	 */
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * Returns the shared exception for this failure.
+	 *
+	 * @return the stackless exception
+	 */
+	public AuthFailureException exception() {
+		return exception;
+	}
+}
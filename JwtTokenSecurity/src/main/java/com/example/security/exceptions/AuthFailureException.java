@@ -0,0 +1,34 @@
+package com.example.security.exceptions;
+
+/**
+ * Stackless exception signalling a routine authentication failure.
+ * 
+ * <p>
+ * Expired, tampered and malformed tokens are expected traffic, so this
+ * exception neither fills in a stack trace nor records suppressed exceptions.
+ * One instance per {@link AuthFailure} is shared; obtain it through
+ * {@link AuthFailure#exception()}.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+public final class AuthFailureException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final AuthFailure failure;
+
+	AuthFailureException(AuthFailure failure) {
+		super(failure.getDetail(), null, false, false);
+		this.failure = failure;
+	}
+
+	/**
+	 * Gets the failure this exception signals.
+	 *
+	 * @return the failure
+	 */
+	public AuthFailure getFailure() {
+		return failure;
+	}
+}
@@ -0,0 +1,97 @@
+package com.example.security.exceptions;
+
+import java.io.IOException;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Renders and counts {@link AuthFailure} responses.
+ * 
+ * <p>
+ * The {@link ProblemDetail} body of every failure is serialized once at
+ * startup, so rejecting a request only copies bytes to the response. Failures
+ * are counted in the {@code auth.failures} meter, tagged by reason, instead of
+ * being logged one by one.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+@Component
+public class AuthFailureResponder {
+
+	private final byte[][] bodies;
+	private final Counter[] counters;
+
+	/**
+	 * Constructs a new {@code AuthFailureResponder}.
+	 *
+	 * @param objectMapper  the mapper used to pre-render the responses
+	 * @param meterRegistry the registry the failure counters are kept in
+	 * @throws JsonProcessingException if a response cannot be serialized
+	 */
+	public AuthFailureResponder(ObjectMapper objectMapper, MeterRegistry meterRegistry)
+			throws JsonProcessingException {
+		AuthFailure[] failures = AuthFailure.values();
+		this.bodies = new byte[failures.length][];
+		this.counters = new Counter[failures.length];
+		for (AuthFailure failure : failures) {
+			bodies[failure.ordinal()] = objectMapper.writeValueAsBytes(problemDetailOf(failure));
+			counters[failure.ordinal()] = Counter.builder("auth.failures")
+					.description("Rejected authentication attempts")
+					.tag("reason", failure.name().toLowerCase())
+					.register(meterRegistry);
+		}
+	}
+
+	/**
+	 * Counts the failure and writes its pre-rendered response.
+	 *
+	 * @param response the response to write to
+	 * @param failure  the failure to reject the request with
+	 * @throws IOException if the response cannot be written
+	 */
+	public void reject(HttpServletResponse response, AuthFailure failure) throws IOException {
+		record(failure);
+		byte[] body = bodies[failure.ordinal()];
+		response.setStatus(failure.getStatus().value());
+		response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+		response.setContentLength(body.length);
+		response.getOutputStream().write(body);
+	}
+
+	/**
+	 * Counts the failure and returns a fresh {@link ProblemDetail} for it, for
+	 * callers that go through the MVC exception handling.
+	 *
+	 * @param failure the failure
+	 * @return the problem detail
+	 */
+	public ProblemDetail problemDetail(AuthFailure failure) {
+		record(failure);
+		return problemDetailOf(failure);
+	}
+
+	/**
+	 * Counts a failure.
+	 *
+	 * @param failure the failure
+	 */
+	public void record(AuthFailure failure) {
+		counters[failure.ordinal()].increment();
+	}
+
+	private static ProblemDetail problemDetailOf(AuthFailure failure) {
+		ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(failure.getStatus(), failure.getDetail());
+		problemDetail.setProperty("description", failure.getDescription());
+		return problemDetail;
+	}
+}
@@ -1,109 +1,188 @@
-package com.example.security.jwt;
-
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.stereotype.Service;
-
-import com.example.security.dtos.LoginUserDto;
-import com.example.security.dtos.RegisterUserDto;
-import com.example.security.models.User;
-import com.example.security.repository.UserRepository;
-
-/**
- * Service class responsible for user authentication and registration.
- * 
- * <p>
- * This service handles user registration by encoding passwords and saving user
- * details to the repository. It also manages user authentication by validating
- * credentials and retrieving user details.
- * </p>
- * 
- * <p>
- * It interacts with {@link UserRepository} to perform CRUD operations on user
- * data, and with {@link AuthenticationManager} for authentication purposes.
- * </p>
- * 
- * @author Shivraj.Jadhav
- */
-@Service
-public class AuthenticationService {
-
-	private static final Logger logger = LoggerFactory.getLogger(AuthenticationService.class);
-
-	private final UserRepository userRepository;
-	private final PasswordEncoder passwordEncoder;
-	private final AuthenticationManager authenticationManager;
-
-	/**
-	 * Constructs an instance of {@code AuthenticationService}.
-	 *
-	 * @param userRepository        the user repository to interact with user data
-	 * @param authenticationManager the authentication manager to handle
-	 *                              authentication
-	 * @param passwordEncoder       the password encoder to encode passwords
-	 */
-	public AuthenticationService(UserRepository userRepository, AuthenticationManager authenticationManager,
-			PasswordEncoder passwordEncoder) {
-		this.userRepository = userRepository;
-		this.authenticationManager = authenticationManager;
-		this.passwordEncoder = passwordEncoder;
-	}
-
-	/**
-	 * Registers a new user with the given details.
-	 *
-	 * <p>
-	 * This method creates a new user, encodes the password, and saves the user to
-	 * the repository.
-	 * </p>
-	 *
-	 * @param input the user registration details
-	 * @return the saved {@link User} entity
-	 */
-	public User signup(RegisterUserDto input) {
-		logger.info("Registering new user with email: {}", input.getEmail());
-
-		User user = new User().setFullName(input.getFullName()).setEmail(input.getEmail())
-				.setPassword(passwordEncoder.encode(input.getPassword()));
-
-		User savedUser = userRepository.save(user);
-
-		logger.info("User registered successfully with email: {}", savedUser.getEmail());
-		return savedUser;
-	}
-
-	/**
-	 * Authenticates a user with the given login details.
-	 *
-	 * <p>
-	 * This method verifies the user's credentials and returns the authenticated
-	 * user.
-	 * </p>
-	 *
-	 * @param input the login credentials
-	 * @return the authenticated {@link User} entity
-	 * @throws RuntimeException if authentication fails or user is not found
-	 */
-	public User authenticate(LoginUserDto input) {
-		try {
-			logger.info("Attempting to authenticate user with email: {}", input.getEmail());
-
-			authenticationManager
-					.authenticate(new UsernamePasswordAuthenticationToken(input.getEmail(), input.getPassword()));
-
-			User user = userRepository.findByEmail(input.getEmail())
-					.orElseThrow(() -> new RuntimeException("User not found"));
-
-			logger.info("User authenticated successfully with email: {}", user.getEmail());
-			return user;
-		} catch (Exception ex) {
-			logger.error("Authentication failed for email: {}. Exception: {}", input.getEmail(), ex.getMessage());
-			throw new RuntimeException("Authentication failed", ex);
-		}
-	}
-
-}
+package com.example.security.jwt;
+
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import com.example.security.dtos.LoginUserDto;
+import com.example.security.dtos.RegisterUserDto;
+import com.example.security.exceptions.AuthFailure;
+import com.example.security.exceptions.AuthFailureException;
+import com.example.security.models.Role;
+import com.example.security.models.User;
+import com.example.security.repository.ReplicaRouter;
+import com.example.security.repository.RoleRepository;
+import com.example.security.repository.ShardRouter;
+import com.example.security.repository.UserRepository;
+import com.example.security.service.AuditEvent;
+import com.example.security.service.AuditLog;
+import com.example.security.service.FailedLoginTracker;
+import com.example.security.service.PasswordVerificationPool;
+import com.example.security.service.PermissionIndex;
+
+/**
+ * Service class responsible for user authentication and registration.
+ * 
+ * <p>
+ * This service handles user registration by encoding passwords and saving user
+ * details to the repository. It also manages user authentication by validating
+ * credentials and retrieving user details.
+ * </p>
+ * 
+ * <p>
+ * It interacts with {@link UserRepository} to perform CRUD operations on user
+ * data, and with {@link AuthenticationManager} for authentication purposes.
+ * Signups, logins and failed logins are recorded in the {@link AuditLog}.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+@Service
+public class AuthenticationService {
+
+	private static final Logger logger = LoggerFactory.getLogger(AuthenticationService.class);
+
+	private final UserRepository userRepository;
+	private final PasswordEncoder passwordEncoder;
+	private final AuthenticationManager authenticationManager;
+	private final RoleRepository roleRepository;
+	private final PermissionIndex permissionIndex;
+	private final ShardRouter shardRouter;
+	private final ReplicaRouter replicaRouter;
+	private final FailedLoginTracker failedLoginTracker;
+	private final AuditLog auditLog;
+
+	/**
+	 * Constructs an instance of {@code AuthenticationService}.
+	 *
+	 * @param userRepository        the user repository to interact with user data
+	 * @param authenticationManager the authentication manager to handle
+	 *                              authentication
+	 * @param passwordEncoder       the password encoder to encode passwords
+	 * @param roleRepository        the role repository new users' default role
+	 *                              is loaded from
+	 * @param permissionIndex       the index resolving users' permissions
+	 * @param shardRouter           the router picking the user's shard
+	 * @param replicaRouter         the router told about new users, so their
+	 *                              first lookups see them
+	 * @param failedLoginTracker    the tracker of failed logins, setting the
+	 *                              priority of password verification
+	 * @param auditLog              the audit trail of signups and logins
+	 */
+	public AuthenticationService(UserRepository userRepository, AuthenticationManager authenticationManager,
+			PasswordEncoder passwordEncoder, RoleRepository roleRepository, PermissionIndex permissionIndex,
+			ShardRouter shardRouter, ReplicaRouter replicaRouter, FailedLoginTracker failedLoginTracker,
+			AuditLog auditLog) {
+		this.userRepository = userRepository;
+		this.authenticationManager = authenticationManager;
+		this.passwordEncoder = passwordEncoder;
+		this.roleRepository = roleRepository;
+		this.permissionIndex = permissionIndex;
+		this.shardRouter = shardRouter;
+		this.replicaRouter = replicaRouter;
+		this.failedLoginTracker = failedLoginTracker;
+		this.auditLog = auditLog;
+	}
+
+	/**
+	 * Registers a new user with the given details.
+	 *
+	 * <p>
+	 * This method creates a new user, encodes the password, grants the default
+	 * {@code USER} role, and saves the user to the shard owning the email. An
+	 * email already registered with the tenant is looked up before the password
+	 * is hashed, so repeated signups cost no hashing; one registered
+	 * concurrently is caught by the unique constraint.
+	 * </p>
+	 *
+	 * @param input         the user registration details
+	 * @param tenant        the tenant the user belongs to
+	 * @param clientAddress the address the signup comes from
+	 * @return the saved {@link User} entity, or empty if the email is already
+	 *         registered with the tenant
+	 */
+	public Optional<User> signup(RegisterUserDto input, Tenant tenant, String clientAddress) {
+		logger.info("Registering new user with email: {} for tenant: {}", input.getEmail(), tenant);
+
+		if (shardRouter.onShardOf(input.getEmail(),
+				() -> userRepository.findByTenantAndEmail(tenant.getId(), input.getEmail())).isPresent()) {
+			logger.info("Email already registered: {}", input.getEmail());
+			return Optional.empty();
+		}
+
+		User user = new User().setFullName(input.getFullName()).setEmail(input.getEmail()).setTenant(tenant.getId())
+				.setPassword(passwordEncoder.encode(input.getPassword()));
+		User savedUser;
+		try {
+			savedUser = shardRouter.onShardOf(user.getEmail(), () -> {
+				roleRepository.findByName(Role.USER).ifPresent(role -> user.getRoles().add(role));
+				return userRepository.save(user);
+			});
+		} catch (DataIntegrityViolationException ex) {
+			logger.info("Email registered concurrently: {}", input.getEmail());
+			return Optional.empty();
+		}
+		// Replicas may not have the user yet when the login follows
+		replicaRouter.recordWrite(savedUser.getEmail(), savedUser.getId());
+		auditLog.publish(AuditEvent.Type.SIGNUP, tenant.getId(), savedUser.getEmail(), clientAddress, null);
+
+		logger.info("User registered successfully with email: {}", savedUser.getEmail());
+		return Optional.of(savedUser);
+	}
+
+	/**
+	 * Authenticates a user with the given login details.
+	 *
+	 * <p>
+	 * This method verifies the user's credentials and returns the authenticated
+	 * user with its permissions resolved, ready to be embedded in a token.
+	 * Logins whose account or address failed repeatedly of late have their
+	 * password verified at a lower priority, see {@link FailedLoginTracker}.
+	 * </p>
+	 *
+	 * @param input         the login credentials
+	 * @param tenant        the tenant the user belongs to
+	 * @param clientAddress the address the login comes from
+	 * @return the authenticated {@link User} entity
+	 * @throws AuthenticationException if the credentials are rejected
+	 * @throws AuthFailureException    if the user no longer exists
+	 */
+	public User authenticate(LoginUserDto input, Tenant tenant, String clientAddress) {
+		logger.debug("Attempting to authenticate user with email: {} for tenant: {}", input.getEmail(), tenant);
+
+		PasswordVerificationPool.Priority priority = failedLoginTracker.priorityOf(input.getEmail(), clientAddress);
+		TenantContext.set(tenant);
+		try {
+			PasswordVerificationPool.withPriority(priority, () -> authenticationManager
+					.authenticate(new UsernamePasswordAuthenticationToken(input.getEmail(), input.getPassword())));
+		} catch (AuthenticationException ex) {
+			if (ex instanceof BadCredentialsException) {
+				failedLoginTracker.recordFailure(input.getEmail(), clientAddress);
+			}
+			auditLog.publish(AuditEvent.Type.LOGIN_FAILED, tenant.getId(), input.getEmail(), clientAddress,
+					ex.getClass().getSimpleName());
+			throw ex;
+		} finally {
+			TenantContext.clear();
+		}
+		failedLoginTracker.recordSuccess(input.getEmail());
+
+		User user = shardRouter
+				.onShardOf(input.getEmail(), () -> userRepository.findByTenantAndEmail(tenant.getId(), input.getEmail()))
+				.orElseThrow(AuthFailure.UNKNOWN_USER::exception);
+		user.setPermissions(permissionIndex.resolve(user));
+		auditLog.publish(AuditEvent.Type.LOGIN_SUCCEEDED, tenant.getId(), user.getEmail(), clientAddress, null);
+
+		logger.info("User authenticated successfully with email: {}", user.getEmail());
+		return user;
+	}
+
+}
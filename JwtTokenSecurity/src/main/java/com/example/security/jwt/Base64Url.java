@@ -0,0 +1,128 @@
+package com.example.security.jwt;
+
+import java.util.Arrays;
+
+import com.example.security.exceptions.AuthFailure;
+import com.example.security.exceptions.AuthFailureException;
+
+/**
+ * Allocation-free Base64url decoding straight from a {@link CharSequence}, and
+ * encoding into a byte buffer.
+ * <p>
+ * Shared by the token fast paths, which decode segments of the
+ * "Authorization" header in place instead of substring-ing them first, and
+ * assemble new tokens in reused buffers.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+final class Base64Url {
+
+	private static final byte[] DECODE_TABLE = new byte[128];
+	private static final byte[] ENCODE_TABLE = new byte[64];
+
+	static {
+		Arrays.fill(DECODE_TABLE, (byte) -1);
+		String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+		for (int i = 0; i < alphabet.length(); i++) {
+			DECODE_TABLE[alphabet.charAt(i)] = (byte) i;
+			ENCODE_TABLE[i] = (byte) alphabet.charAt(i);
+		}
+	}
+
+	private Base64Url() {
+	}
+
+	/**
+	 * Returns the number of bytes {@code chars} unpadded Base64url characters
+	 * decode to.
+	 *
+	 * @param chars the number of encoded characters
+	 * @return the decoded length in bytes
+	 */
+	static int decodedLength(int chars) {
+		return chars * 6 / 8;
+	}
+
+	/**
+	 * Decodes the unpadded Base64url characters in {@code [start, end)}.
+	 *
+	 * @param source the characters to decode from
+	 * @param start  the first character, inclusive
+	 * @param end    the last character, exclusive
+	 * @param out    the buffer to decode into, at least
+	 *               {@link #decodedLength(int)} bytes long
+	 * @return the number of bytes written
+	 * @throws AuthFailureException if a character is outside the alphabet or
+	 *                              the trailing bits are not canonical
+	 */
+	static int decode(CharSequence source, int start, int end, byte[] out) {
+		int accumulator = 0;
+		int bits = 0;
+		int written = 0;
+		for (int i = start; i < end; i++) {
+			char c = source.charAt(i);
+			int value = c < 128 ? DECODE_TABLE[c] : -1;
+			if (value < 0) {
+				throw AuthFailure.MALFORMED_TOKEN.exception();
+			}
+			accumulator = (accumulator << 6) | value;
+			bits += 6;
+			if (bits >= 8) {
+				bits -= 8;
+				out[written++] = (byte) (accumulator >> bits);
+				accumulator &= (1 << bits) - 1;
+			}
+		}
+		if (accumulator != 0 || bits >= 6) {
+			// Non-canonical trailing bits would give one token several spellings
+			throw AuthFailure.MALFORMED_TOKEN.exception();
+		}
+		return written;
+	}
+
+	/**
+	 * Returns the number of unpadded Base64url characters {@code bytes} bytes
+	 * encode to.
+	 *
+	 * @param bytes the number of bytes
+	 * @return the encoded length in characters
+	 */
+	static int encodedLength(int bytes) {
+		return (bytes * 8 + 5) / 6;
+	}
+
+	/**
+	 * Encodes {@code length} bytes as unpadded Base64url characters, one byte
+	 * per character.
+	 *
+	 * @param source the bytes to encode
+	 * @param length the number of bytes to encode
+	 * @param out    the buffer to encode into, with at least
+	 *               {@link #encodedLength(int)} bytes left after
+	 *               {@code offset}
+	 * @param offset the index to write the first character at
+	 * @return the index just past the last character written
+	 */
+	static int encode(byte[] source, int length, byte[] out, int offset) {
+		int i = 0;
+		for (; i + 3 <= length; i += 3) {
+			int bits = (source[i] & 0xff) << 16 | (source[i + 1] & 0xff) << 8 | (source[i + 2] & 0xff);
+			out[offset++] = ENCODE_TABLE[bits >>> 18];
+			out[offset++] = ENCODE_TABLE[(bits >>> 12) & 0x3f];
+			out[offset++] = ENCODE_TABLE[(bits >>> 6) & 0x3f];
+			out[offset++] = ENCODE_TABLE[bits & 0x3f];
+		}
+		if (length - i == 1) {
+			int bits = (source[i] & 0xff) << 16;
+			out[offset++] = ENCODE_TABLE[bits >>> 18];
+			out[offset++] = ENCODE_TABLE[(bits >>> 12) & 0x3f];
+		} else if (length - i == 2) {
+			int bits = (source[i] & 0xff) << 16 | (source[i + 1] & 0xff) << 8;
+			out[offset++] = ENCODE_TABLE[bits >>> 18];
+			out[offset++] = ENCODE_TABLE[(bits >>> 12) & 0x3f];
+			out[offset++] = ENCODE_TABLE[(bits >>> 6) & 0x3f];
+		}
+		return offset;
+	}
+}
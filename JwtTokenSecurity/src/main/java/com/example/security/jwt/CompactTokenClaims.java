@@ -0,0 +1,73 @@
+package com.example.security.jwt;
+
+/**
+ * Mutable holder for the claims of a compact binary token.
+ * <p>
+ * {@link CompactTokenCodec#decode(CharSequence, int, CompactTokenClaims)} fills
+ * an instance in place, so a caller can reuse one holder instead of receiving a
+ * freshly allocated claims object per token.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+public class CompactTokenClaims {
+
+	private int keyId;
+	private int subjectId;
+	private long issuedAt;
+	private long expiresAt;
+	private long roles;
+
+	/**
+	 * Gets the id of the key the token was signed with.
+	 *
+	 * @return the key id
+	 */
+	public int getKeyId() {
+		return keyId;
+	}
+
+	/**
+	 * Gets the id of the user the token was issued to.
+	 *
+	 * @return the subject's user id
+	 */
+	public int getSubjectId() {
+		return subjectId;
+	}
+
+	/**
+	 * Gets the issue time of the token.
+	 *
+	 * @return the issue time in epoch seconds
+	 */
+	public long getIssuedAt() {
+		return issuedAt;
+	}
+
+	/**
+	 * Gets the expiry time of the token.
+	 *
+	 * @return the expiry time in epoch seconds
+	 */
+	public long getExpiresAt() {
+		return expiresAt;
+	}
+
+	/**
+	 * Gets the roles bitmap carried by the token.
+	 *
+	 * @return the roles bitmap
+	 */
+	public long getRoles() {
+		return roles;
+	}
+
+	void set(int keyId, int subjectId, long issuedAt, long expiresAt, long roles) {
+		this.keyId = keyId;
+		this.subjectId = subjectId;
+		this.issuedAt = issuedAt;
+		this.expiresAt = expiresAt;
+		this.roles = roles;
+	}
+}
@@ -1,111 +1,327 @@
-package com.example.security.jwt;
-
-import jakarta.servlet.FilterChain;
-import jakarta.servlet.ServletException;
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.lang.NonNull;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
-import org.springframework.stereotype.Component;
-import org.springframework.web.filter.OncePerRequestFilter;
-import org.springframework.web.servlet.HandlerExceptionResolver;
-
-import java.io.IOException;
-
-/**
- * Filter for JWT-based authentication.
- * <p>
- * This filter intercepts HTTP requests to check for a JWT token in the
- * "Authorization" header. If a valid token is found, it authenticates the user
- * and sets the security context accordingly.
- * </p>
- * 
- * @author Shivraj.Jadhav
- */
-@Component
-public class JwtAuthenticationFilter extends OncePerRequestFilter {
-
-	private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
-
-	private final JwtService jwtService;
-	private final UserDetailsService userDetailsService;
-	private final HandlerExceptionResolver handlerExceptionResolver;
-
-	/**
-	 * Constructs an instance of {@code JwtAuthenticationFilter}.
-	 *
-	 * @param jwtService               the JWT service to handle token operations
-	 * @param userDetailsService       the service to load user details
-	 * @param handlerExceptionResolver the exception resolver for handling errors
-	 */
-	public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService,
-			HandlerExceptionResolver handlerExceptionResolver) {
-		this.jwtService = jwtService;
-		this.userDetailsService = userDetailsService;
-		this.handlerExceptionResolver = handlerExceptionResolver;
-	}
-
-	/**
-	 * Processes the incoming HTTP request to perform JWT authentication.
-	 *
-	 * <p>
-	 * This method extracts the JWT token from the "Authorization" header, validates
-	 * it, and sets the authentication in the security context if the token is
-	 * valid.
-	 * </p>
-	 *
-	 * @param request     the HTTP request
-	 * @param response    the HTTP response
-	 * @param filterChain the filter chain to pass the request and response to the
-	 *                    next filter
-	 * @throws ServletException if an error occurs during processing
-	 * @throws IOException      if an I/O error occurs during processing
-	 */
-	@Override
-	protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
-			@NonNull FilterChain filterChain) throws ServletException, IOException {
-		final String authHeader = request.getHeader("Authorization");
-
-		if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-			logger.debug("No JWT token found in the Authorization header or token does not start with Bearer.");
-			filterChain.doFilter(request, response);
-			return;
-		}
-
-		try {
-			final String jwt = authHeader.substring(7);
-			final String userEmail = jwtService.extractUsername(jwt);
-
-			Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-
-			if (userEmail != null && authentication == null) {
-				logger.debug("JWT token found for user: {}", userEmail);
-
-				UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
-
-				if (jwtService.isTokenValid(jwt, userDetails)) {
-					logger.debug("JWT token is valid for user: {}", userEmail);
-
-					UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(userDetails,
-							null, userDetails.getAuthorities());
-					authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-					SecurityContextHolder.getContext().setAuthentication(authToken);
-				} else {
-					logger.warn("Invalid JWT token for user: {}", userEmail);
-				}
-			}
-
-			filterChain.doFilter(request, response);
-		} catch (Exception exception) {
-			logger.error("Error occurred during JWT authentication", exception);
-			handlerExceptionResolver.resolveException(request, response, null, exception);
-		}
-	}
-}
+package com.example.security.jwt;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+
+import com.example.security.exceptions.AuthFailure;
+import com.example.security.exceptions.AuthFailureException;
+import com.example.security.exceptions.AuthFailureResponder;
+import com.example.security.models.ServiceAccount;
+import com.example.security.models.User;
+import com.example.security.repository.ShardRouter;
+import com.example.security.repository.UserRepository;
+import com.example.security.service.AuditEvent;
+import com.example.security.service.AuditLog;
+import com.example.security.service.ServiceAccountService;
+import com.example.security.service.TenantUserCache;
+
+/**
+ * Filter for JWT-based authentication.
+ * <p>
+ * This filter intercepts HTTP requests to check for a JWT token in the
+ * "Authorization" header. If a valid token is found, it authenticates the user
+ * and sets the security context accordingly. The authorities are taken from
+ * the permission bitmap in the token, not from the database. The tenant is
+ * resolved from the token itself and the user is looked up within it.
+ * </p>
+ * 
+ * <p>
+ * Expired, tampered, malformed and orphaned tokens are rejected with a
+ * pre-rendered response from {@link AuthFailureResponder}, counted and recorded
+ * in the {@link AuditLog} rather than logged; only unexpected errors reach the
+ * exception resolver.
+ * </p>
+ * 
+ * <p>
+ * A JWT that is close to expiry gets a renewed token in the
+ * {@value TokenRenewalService#RENEWED_TOKEN_HEADER} response header, see
+ * {@link TokenRenewalService}. Tokens of service accounts, whose subject
+ * starts with {@value ServiceAccount#SUBJECT_PREFIX}, resolve to the
+ * {@link ServiceAccount} and are never renewed.
+ * </p>
+ * 
+ * <p>
+ * The security context is given a {@link TokenPrincipal} built by the
+ * {@link TokenAuthenticationFactory}, not the loaded entity.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+@Component
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+	private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+
+	private final JwtService jwtService;
+	private final TenantUserCache tenantUserCache;
+	private final HandlerExceptionResolver handlerExceptionResolver;
+	private final CompactTokenCodec compactTokenCodec;
+	private final UserRepository userRepository;
+	private final TenantRegistry tenantRegistry;
+	private final JwtFastPathVerifier jwtFastPathVerifier;
+	private final TokenAuthenticationFactory tokenAuthenticationFactory;
+	private final AuthFailureResponder authFailureResponder;
+	private final TokenRenewalService tokenRenewalService;
+	private final OpaqueTokenStore opaqueTokenStore;
+	private final ShardRouter shardRouter;
+	private final ServiceAccountService serviceAccountService;
+	private final AuditLog auditLog;
+
+	// Per-thread claim holders, reused across requests
+	private final ThreadLocal<JwtFastPathClaims> jwtClaims = ThreadLocal.withInitial(JwtFastPathClaims::new);
+	private final ThreadLocal<CompactTokenClaims> compactClaims = ThreadLocal.withInitial(CompactTokenClaims::new);
+
+	/**
+	 * Constructs an instance of {@code JwtAuthenticationFilter}.
+	 *
+	 * @param jwtService                 the JWT service to handle token operations
+	 * @param tenantUserCache            the tenant-partitioned cache JWT subjects
+	 *                                   are loaded from
+	 * @param handlerExceptionResolver   the exception resolver for handling errors
+	 * @param compactTokenCodec          the codec for compact binary tokens
+	 * @param userRepository             the repository compact token subjects are
+	 *                                   loaded from
+	 * @param tenantRegistry             the registry resolving compact token key
+	 *                                   ids
+	 * @param jwtFastPathVerifier        the allocation-free verifier for our own
+	 *                                   JWTs
+	 * @param tokenAuthenticationFactory the factory building the
+	 *                                   authentication of a verified token
+	 * @param authFailureResponder       the responder for routine token failures
+	 * @param tokenRenewalService        the service issuing sliding renewals
+	 * @param opaqueTokenStore           the store resolving opaque tokens
+	 * @param shardRouter                the router picking a compact token
+	 *                                   subject's shard
+	 * @param serviceAccountService      the service resolving service account
+	 *                                   subjects
+	 * @param auditLog                   the audit trail rejected tokens are
+	 *                                   recorded in
+	 */
+	public JwtAuthenticationFilter(JwtService jwtService, TenantUserCache tenantUserCache,
+			HandlerExceptionResolver handlerExceptionResolver, CompactTokenCodec compactTokenCodec,
+			UserRepository userRepository, TenantRegistry tenantRegistry, JwtFastPathVerifier jwtFastPathVerifier,
+			TokenAuthenticationFactory tokenAuthenticationFactory, AuthFailureResponder authFailureResponder,
+			TokenRenewalService tokenRenewalService, OpaqueTokenStore opaqueTokenStore, ShardRouter shardRouter,
+			ServiceAccountService serviceAccountService, AuditLog auditLog) {
+		this.jwtService = jwtService;
+		this.tenantUserCache = tenantUserCache;
+		this.handlerExceptionResolver = handlerExceptionResolver;
+		this.compactTokenCodec = compactTokenCodec;
+		this.userRepository = userRepository;
+		this.tenantRegistry = tenantRegistry;
+		this.jwtFastPathVerifier = jwtFastPathVerifier;
+		this.tokenAuthenticationFactory = tokenAuthenticationFactory;
+		this.authFailureResponder = authFailureResponder;
+		this.tokenRenewalService = tokenRenewalService;
+		this.opaqueTokenStore = opaqueTokenStore;
+		this.shardRouter = shardRouter;
+		this.serviceAccountService = serviceAccountService;
+		this.auditLog = auditLog;
+	}
+
+	/**
+	 * Processes the incoming HTTP request to perform JWT authentication.
+	 *
+	 * <p>
+	 * This method extracts the JWT token from the "Authorization" header, validates
+	 * it, and sets the authentication in the security context if the token is
+	 * valid.
+	 * </p>
+	 *
+	 * @param request     the HTTP request
+	 * @param response    the HTTP response
+	 * @param filterChain the filter chain to pass the request and response to the
+	 *                    next filter
+	 * @throws ServletException if an error occurs during processing
+	 * @throws IOException      if an I/O error occurs during processing
+	 */
+	@Override
+	protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+			@NonNull FilterChain filterChain) throws ServletException, IOException {
+		final String authHeader = request.getHeader("Authorization");
+
+		if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+			logger.debug("No JWT token found in the Authorization header or token does not start with Bearer.");
+			filterChain.doFilter(request, response);
+			return;
+		}
+
+		if (compactTokenCodec.isEnabled() && compactTokenCodec.isCompactToken(authHeader, 7)) {
+			authenticateCompactToken(authHeader, request, response, filterChain);
+			return;
+		}
+
+		if (opaqueTokenStore.isEnabled() && opaqueTokenStore.isOpaqueToken(authHeader, 7)) {
+			authenticateOpaqueToken(authHeader, request, response, filterChain);
+			return;
+		}
+
+		try {
+			// Our own tokens are verified in place; anything else is parsed once by jjwt
+			JwtFastPathClaims claims = jwtClaims.get();
+			if (!jwtFastPathVerifier.verify(authHeader, 7, claims)) {
+				jwtService.readClaims(authHeader.substring(7), claims);
+			}
+			final String userEmail = claims.getSubject();
+
+			Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+			if (userEmail != null && authentication == null) {
+				logger.debug("JWT token found for user: {}", userEmail);
+
+				Tenant tenant = claims.getTenant();
+				boolean serviceAccount = userEmail.startsWith(ServiceAccount.SUBJECT_PREFIX);
+				ServiceAccount account = serviceAccount
+						? serviceAccountService.load(tenant,
+								userEmail.substring(ServiceAccount.SUBJECT_PREFIX.length()))
+						: null;
+				User user = serviceAccount ? null : tenantUserCache.load(tenant, userEmail);
+				UserDetails userDetails = serviceAccount ? account : user;
+
+				boolean valid = userEmail.equals(userDetails.getUsername());
+
+				if (valid) {
+					logger.debug("JWT token is valid for user: {}", userEmail);
+
+					long permissions = claims.getPermissions();
+					SecurityContextHolder.getContext()
+							.setAuthentication(serviceAccount
+									? tokenAuthenticationFactory.forServiceAccount(account, tenant, permissions, request)
+									: tokenAuthenticationFactory.forUser(user, tenant, permissions, request));
+
+					if (tokenRenewalService.isEnabled() && !serviceAccount) {
+						long issuedAt = claims.getIssuedAt() * 1000;
+						long expiresAt = claims.getExpiresAt() * 1000;
+						String renewed = tokenRenewalService.renewIfDue(user, issuedAt, expiresAt);
+						if (renewed != null) {
+							response.setHeader(TokenRenewalService.RENEWED_TOKEN_HEADER, renewed);
+						}
+					}
+				} else {
+					logger.warn("Invalid JWT token for user: {}", userEmail);
+				}
+			}
+		} catch (Exception exception) {
+			reject(request, response, exception);
+			return;
+		}
+
+		filterChain.doFilter(request, response);
+	}
+
+	/**
+	 * Authenticates a request carrying a compact binary token.
+	 *
+	 * <p>
+	 * The token is decoded in place from the header, its subject is loaded by id
+	 * and the security context is populated exactly as for a JWT.
+	 * </p>
+	 */
+	private void authenticateCompactToken(String authHeader, HttpServletRequest request,
+			HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+		try {
+			CompactTokenClaims claims = compactClaims.get();
+			compactTokenCodec.decode(authHeader, 7, claims);
+
+			if (SecurityContextHolder.getContext().getAuthentication() == null) {
+				Tenant tenant = tenantRegistry.byIndex(claims.getKeyId());
+				User userDetails = shardRouter
+						.onShardOfId(claims.getSubjectId(), () -> userRepository.findById(claims.getSubjectId()))
+						.filter(user -> user.getTenant().equals(tenant.getId()))
+						.orElseThrow(AuthFailure.UNKNOWN_USER::exception);
+
+				SecurityContextHolder.getContext().setAuthentication(
+						tokenAuthenticationFactory.forUser(userDetails, tenant, claims.getRoles(), request));
+			}
+		} catch (Exception exception) {
+			reject(request, response, exception);
+			return;
+		}
+
+		filterChain.doFilter(request, response);
+	}
+
+	/**
+	 * Authenticates a request carrying an opaque token.
+	 *
+	 * <p>
+	 * The session behind the token is looked up in the {@link OpaqueTokenStore}
+	 * and its user loaded through the tenant cache; the permissions are those
+	 * recorded when the token was issued.
+	 * </p>
+	 */
+	private void authenticateOpaqueToken(String authHeader, HttpServletRequest request,
+			HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+		try {
+			OpaqueTokenSession session = opaqueTokenStore.resolve(authHeader, 7);
+
+			if (SecurityContextHolder.getContext().getAuthentication() == null) {
+				User user = tenantUserCache.load(session.getTenant(), session.getEmail());
+
+				SecurityContextHolder.getContext().setAuthentication(tokenAuthenticationFactory.forUser(user,
+						session.getTenant(), session.getPermissions(), request));
+			}
+		} catch (Exception exception) {
+			reject(request, response, exception);
+			return;
+		}
+
+		filterChain.doFilter(request, response);
+	}
+
+	/**
+	 * Rejects a request whose token could not be authenticated.
+	 *
+	 * <p>
+	 * Routine failures, including the exceptions thrown by jjwt on the fallback
+	 * path, are answered with their pre-rendered response. Anything else is
+	 * logged and handed to the exception resolver.
+	 * </p>
+	 */
+	private void reject(HttpServletRequest request, HttpServletResponse response, Exception exception)
+			throws IOException {
+		AuthFailure failure = classify(exception);
+		auditLog.publish(AuditEvent.Type.TOKEN_REJECTED, null, null, request.getRemoteAddr(),
+				failure != null ? failure.name() : exception.getClass().getSimpleName());
+		if (failure != null) {
+			logger.debug("Rejected token: {}", failure);
+			authFailureResponder.reject(response, failure);
+			return;
+		}
+
+		logger.error("Error occurred during token authentication", exception);
+		handlerExceptionResolver.resolveException(request, response, null, exception);
+	}
+
+	private static AuthFailure classify(Exception exception) {
+		if (exception instanceof AuthFailureException authFailureException) {
+			return authFailureException.getFailure();
+		} else if (exception instanceof ExpiredJwtException) {
+			return AuthFailure.EXPIRED_TOKEN;
+		} else if (exception instanceof SignatureException) {
+			return AuthFailure.BAD_SIGNATURE;
+		} else if (exception instanceof JwtException || exception instanceof IllegalArgumentException) {
+			return AuthFailure.MALFORMED_TOKEN;
+		} else if (exception instanceof UsernameNotFoundException) {
+			return AuthFailure.UNKNOWN_USER;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,50 @@
+package com.example.security.jwt;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+
+import com.example.security.service.PermissionSet;
+
+/**
+ * Authentication established from a token, carrying the token's permission
+ * bitmap.
+ * <p>
+ * The authorities are the shared {@link PermissionSet} itself rather than a
+ * copied list, so permission checks stay a bit test.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+@SuppressWarnings("serial")
+public class JwtAuthenticationToken extends UsernamePasswordAuthenticationToken {
+
+	private final PermissionSet permissions;
+
+	/**
+	 * Constructs an authenticated {@code JwtAuthenticationToken}.
+	 *
+	 * @param principal   the authenticated principal
+	 * @param permissions the permissions granted by the token
+	 */
+	public JwtAuthenticationToken(Object principal, PermissionSet permissions) {
+		super(principal, null, List.of());
+		this.permissions = permissions;
+	}
+
+	/**
+	 * Gets the permissions granted by the token.
+	 *
+	 * @return the permission set
+	 */
+	public PermissionSet getPermissions() {
+		return permissions;
+	}
+
+	@Override
+	public Collection<GrantedAuthority> getAuthorities() {
+		return permissions;
+	}
+}
@@ -0,0 +1,95 @@
+package com.example.security.jwt;
+
+/**
+ * Mutable holder for the claims read by {@link JwtFastPathVerifier}, or by
+ * {@link JwtService#readClaims} for tokens off the fast path.
+ * <p>
+ * Only the claims the request path needs ({@code sub}, {@code iat}, {@code exp} and
+ * {@code perms}) are kept, as primitives where
+ * possible, so verifying a token does not build a {@code Claims} map or any
+ * {@code Date} objects.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+public class JwtFastPathClaims {
+
+	private Tenant tenant;
+	private String subject;
+	private long issuedAt;
+	private long expiresAt;
+	private long permissions;
+
+	/**
+	 * Gets the tenant the token was issued for.
+	 *
+	 * @return the tenant
+	 */
+	public Tenant getTenant() {
+		return tenant;
+	}
+
+	/**
+	 * Gets the subject (the user's email) of the token.
+	 *
+	 * @return the subject
+	 */
+	public String getSubject() {
+		return subject;
+	}
+
+	/**
+	 * Gets the issue time of the token.
+	 *
+	 * @return the issue time in epoch seconds, or {@code -1} if absent
+	 */
+	public long getIssuedAt() {
+		return issuedAt;
+	}
+
+	/**
+	 * Gets the expiry time of the token.
+	 *
+	 * @return the expiry time in epoch seconds
+	 */
+	public long getExpiresAt() {
+		return expiresAt;
+	}
+
+	/**
+	 * Gets the permission bitmap of the token.
+	 *
+	 * @return the permission bitmap, or 0 if absent
+	 */
+	public long getPermissions() {
+		return permissions;
+	}
+
+	void reset() {
+		tenant = null;
+		subject = null;
+		issuedAt = -1;
+		expiresAt = -1;
+		permissions = 0;
+	}
+
+	void setTenant(Tenant tenant) {
+		this.tenant = tenant;
+	}
+
+	void setSubject(String subject) {
+		this.subject = subject;
+	}
+
+	void setIssuedAt(long issuedAt) {
+		this.issuedAt = issuedAt;
+	}
+
+	void setExpiresAt(long expiresAt) {
+		this.expiresAt = expiresAt;
+	}
+
+	void setPermissions(long permissions) {
+		this.permissions = permissions;
+	}
+}
@@ -0,0 +1,315 @@
+package com.example.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.stereotype.Component;
+
+import com.example.security.exceptions.AuthFailure;
+import com.example.security.exceptions.AuthFailureException;
+
+/**
+ * Zero-copy verifier for the HS256 JWTs issued by {@link JwtService}.
+ * <p>
+ * The verifier locates the header, payload and signature segments of the token
+ * by offset inside the "Authorization" header, checks the HMAC over the raw
+ * characters and reads {@code sub}, {@code iat}, {@code exp} and
+ * {@code perms} with a small streaming scanner. No substring, {@code Claims}
+ * map or {@code Date} is created; per-thread scratch buffers and the
+ * per-thread MACs of a {@link TenantHmac} are reused, so the only allocation on
+ * success is the subject string.
+ * </p>
+ * 
+ * <p>
+ * The header segment is matched against the headers the {@link TenantRegistry}
+ * pre-encodes for each tenant, which selects the verification key and tenant
+ * without decoding the header.
+ * </p>
+ * 
+ * <p>
+ * Tokens that do not carry exactly a header {@code JwtService} writes, or
+ * whose payload uses JSON the scanner does not handle (escaped strings, missing
+ * {@code exp}), are reported as not handled and should go through the regular
+ * jjwt parser instead.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+@Component
+public class JwtFastPathVerifier {
+
+	private static final int SIGNATURE_LENGTH = TenantHmac.LENGTH;
+	private static final int SIGNATURE_CHARS = 43;
+
+	private static final byte[] SUB = { 's', 'u', 'b' };
+	private static final byte[] IAT = { 'i', 'a', 't' };
+	private static final byte[] EXP = { 'e', 'x', 'p' };
+	private static final byte[] PERMS = { 'p', 'e', 'r', 'm', 's' };
+
+	private final TenantRegistry tenantRegistry;
+	private final TokenClock tokenClock;
+	private final TenantHmac hmac;
+
+	private final ThreadLocal<Scratch> scratch;
+
+	/**
+	 * Constructs a new {@code JwtFastPathVerifier}.
+	 *
+	 * @param tenantRegistry the registry holding the tenants' signing keys
+	 * @param tokenClock     the clock expiry is checked against
+	 */
+	public JwtFastPathVerifier(TenantRegistry tenantRegistry, TokenClock tokenClock) {
+		this.tenantRegistry = tenantRegistry;
+		this.tokenClock = tokenClock;
+		this.hmac = new TenantHmac(tenantRegistry);
+		this.scratch = ThreadLocal.withInitial(Scratch::new);
+	}
+
+	/**
+	 * Verifies the JWT starting at {@code offset} and reads its claims.
+	 *
+	 * @param source the characters holding the token, e.g. the whole header
+	 * @param offset the index the token starts at
+	 * @param claims the holder the claims are written to
+	 * @return true if the token was verified on the fast path, false if it must be
+	 *         handed to the regular parser
+	 * @throws AuthFailureException if the token is malformed, its signature
+	 *                              does not match or it has expired
+	 */
+	public boolean verify(String source, int offset, JwtFastPathClaims claims) {
+		int firstDot = source.indexOf('.', offset);
+		Tenant tenant = firstDot < 0 ? null : tenantRegistry.byJwtHeader(source, offset, firstDot);
+		if (tenant == null) {
+			return false;
+		}
+		int secondDot = source.indexOf('.', firstDot + 1);
+		if (secondDot < 0 || source.indexOf('.', secondDot + 1) >= 0) {
+			return false;
+		}
+
+		Scratch buffers = scratch.get();
+
+		if (source.length() - secondDot - 1 != SIGNATURE_CHARS) {
+			throw AuthFailure.BAD_SIGNATURE.exception();
+		}
+		Base64Url.decode(source, secondDot + 1, source.length(), buffers.signature);
+
+		int inputLength = secondDot - offset;
+		byte[] input = buffers.input(inputLength);
+		for (int i = 0; i < inputLength; i++) {
+			char c = source.charAt(offset + i);
+			if (c >= 128) {
+				throw AuthFailure.MALFORMED_TOKEN.exception();
+			}
+			input[i] = (byte) c;
+		}
+		hmac.sign(tenant, input, inputLength, buffers.mac);
+		if (!signatureEquals(buffers.mac, buffers.signature)) {
+			throw AuthFailure.BAD_SIGNATURE.exception();
+		}
+
+		byte[] payload = buffers.payload(Base64Url.decodedLength(secondDot - firstDot - 1));
+		int payloadLength = Base64Url.decode(source, firstDot + 1, secondDot, payload);
+
+		claims.reset();
+		claims.setTenant(tenant);
+		if (!readClaims(payload, payloadLength, claims) || claims.getSubject() == null
+				|| claims.getExpiresAt() < 0) {
+			return false;
+		}
+
+		if (tokenClock.isExpired(claims.getExpiresAt() * 1000)) {
+			throw AuthFailure.EXPIRED_TOKEN.exception();
+		}
+		return true;
+	}
+
+	private static boolean signatureEquals(byte[] expected, byte[] actual) {
+		int diff = 0;
+		for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+			diff |= expected[i] ^ actual[i];
+		}
+		return diff == 0;
+	}
+
+	/**
+	 * Scans a flat JSON object and picks out {@code sub}, {@code iat},
+	 * {@code exp} and {@code perms}, skipping every other member.
+	 *
+	 * @return false if the payload uses JSON this scanner does not handle
+	 */
+	private static boolean readClaims(byte[] json, int length, JwtFastPathClaims claims) {
+		int i = skipWhitespace(json, 0, length);
+		if (i >= length || json[i] != '{') {
+			return false;
+		}
+		i = skipWhitespace(json, i + 1, length);
+		if (i < length && json[i] == '}') {
+			return true;
+		}
+
+		while (i < length && json[i] == '"') {
+			int keyStart = i + 1;
+			int keyEnd = endOfString(json, keyStart, length);
+			if (keyEnd < 0) {
+				return false;
+			}
+			i = skipWhitespace(json, keyEnd + 1, length);
+			if (i >= length || json[i] != ':') {
+				return false;
+			}
+			i = skipWhitespace(json, i + 1, length);
+			if (i >= length) {
+				return false;
+			}
+
+			if (keyEquals(json, keyStart, keyEnd, SUB)) {
+				if (json[i] != '"') {
+					return false;
+				}
+				int end = endOfString(json, i + 1, length);
+				if (end < 0 || contains(json, i + 1, end, (byte) '\\')) {
+					return false;
+				}
+				claims.setSubject(new String(json, i + 1, end - i - 1, StandardCharsets.UTF_8));
+				i = end + 1;
+			} else if (keyEquals(json, keyStart, keyEnd, IAT) || keyEquals(json, keyStart, keyEnd, EXP)
+					|| keyEquals(json, keyStart, keyEnd, PERMS)) {
+				boolean negative = json[i] == '-';
+				int start = negative ? ++i : i;
+				long value = 0;
+				while (i < length && json[i] >= '0' && json[i] <= '9' && i - start < 18) {
+					value = value * 10 + (json[i++] - '0');
+				}
+				if (i == start || value < 0) {
+					return false;
+				}
+				if (json[keyStart] == 'i') {
+					claims.setIssuedAt(value);
+				} else if (json[keyStart + 1] == 'x') {
+					claims.setExpiresAt(negative ? -1 : value);
+				} else {
+					claims.setPermissions(negative ? -value : value);
+				}
+			} else {
+				i = skipValue(json, i, length);
+				if (i < 0) {
+					return false;
+				}
+			}
+
+			i = skipWhitespace(json, i, length);
+			if (i >= length) {
+				return false;
+			}
+			if (json[i] == '}') {
+				return true;
+			}
+			if (json[i] != ',') {
+				return false;
+			}
+			i = skipWhitespace(json, i + 1, length);
+		}
+		return false;
+	}
+
+	private static int skipWhitespace(byte[] json, int i, int length) {
+		while (i < length && (json[i] == ' ' || json[i] == '\t' || json[i] == '\n' || json[i] == '\r')) {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Returns the index of the quote closing the string starting at
+	 * {@code start}, or -1 if it is not terminated.
+	 */
+	private static int endOfString(byte[] json, int start, int length) {
+		for (int i = start; i < length; i++) {
+			if (json[i] == '\\') {
+				i++;
+			} else if (json[i] == '"') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the index just past the value starting at {@code i}, or -1 if it is
+	 * not well formed.
+	 */
+	private static int skipValue(byte[] json, int i, int length) {
+		if (json[i] == '"') {
+			int end = endOfString(json, i + 1, length);
+			return end < 0 ? -1 : end + 1;
+		}
+		if (json[i] == '{' || json[i] == '[') {
+			int depth = 0;
+			for (; i < length; i++) {
+				byte b = json[i];
+				if (b == '"') {
+					i = endOfString(json, i + 1, length);
+					if (i < 0) {
+						return -1;
+					}
+				} else if (b == '{' || b == '[') {
+					depth++;
+				} else if ((b == '}' || b == ']') && --depth == 0) {
+					return i + 1;
+				}
+			}
+			return -1;
+		}
+		while (i < length && json[i] != ',' && json[i] != '}' && json[i] != ' ' && json[i] != '\n'
+				&& json[i] != '\r' && json[i] != '\t') {
+			i++;
+		}
+		return i;
+	}
+
+	private static boolean keyEquals(byte[] json, int start, int end, byte[] key) {
+		if (end - start != key.length) {
+			return false;
+		}
+		for (int i = 0; i < key.length; i++) {
+			if (json[start + i] != key[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean contains(byte[] json, int start, int end, byte value) {
+		for (int i = start; i < end; i++) {
+			if (json[i] == value) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Per-thread buffers, reused across tokens.
+	 */
+	private static final class Scratch {
+
+		private final byte[] mac = new byte[SIGNATURE_LENGTH];
+		private final byte[] signature = new byte[SIGNATURE_LENGTH];
+		private byte[] input = new byte[256];
+		private byte[] payload = new byte[256];
+
+		private byte[] input(int length) {
+			if (input.length < length) {
+				input = new byte[Math.max(length, input.length * 2)];
+			}
+			return input;
+		}
+
+		private byte[] payload(int length) {
+			if (payload.length < length) {
+				payload = new byte[Math.max(length, payload.length * 2)];
+			}
+			return payload;
+		}
+	}
+}
@@ -1,141 +1,351 @@
-package com.example.security.jwt;
-
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
-import java.security.Key;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.function.Function;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.stereotype.Service;
-
-/**
- * Service for handling JSON Web Tokens (JWTs).
- * <p>
- * Provides functionality to generate, validate, and extract claims from JWTs.
- * </p>
- * 
- * 
- * @author Shivraj.Jadhav
- * 
- */
-@Service
-public class JwtService {
-
-	private static final Logger logger = LoggerFactory.getLogger(JwtService.class);
-
-	@Value("${security.jwt.secret-key}")
-	private String secretKey;
-
-	@Value("${security.jwt.expiration-time}")
-	private long jwtExpiration;
-
-	/**
-	 * Extracts the username from the given JWT token.
-	 *
-	 * @param token the JWT token from which to extract the username
-	 * @return the username extracted from the token
-	 */
-	public String extractUsername(String token) {
-		logger.debug("Extracting username from token");
-		return extractClaim(token, Claims::getSubject);
-	}
-
-	/**
-	 * Extracts a specific claim from the JWT token.
-	 *
-	 * @param <T>            the type of the claim
-	 * @param token          the JWT token from which to extract the claim
-	 * @param claimsResolver function to extract the claim from the Claims object
-	 * @return the extracted claim
-	 */
-	public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-		logger.debug("Extracting claim from token");
-		final Claims claims = extractAllClaims(token);
-		return claimsResolver.apply(claims);
-	}
-
-	/**
-	 * Generates a new JWT token for the specified user details.
-	 *
-	 * @param userDetails the details of the user for whom the token is being
-	 *                    generated
-	 * @return the generated JWT token
-	 */
-	public String generateToken(UserDetails userDetails) {
-		logger.debug("Generating token for user: {}", userDetails.getUsername());
-		return generateToken(new HashMap<>(), userDetails);
-	}
-
-	/**
-	 * Generates a new JWT token with additional claims for the specified user
-	 * details.
-	 *
-	 * @param extraClaims additional claims to include in the token
-	 * @param userDetails the details of the user for whom the token is being
-	 *                    generated
-	 * @return the generated JWT token
-	 */
-	public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
-		logger.debug("Generating token with extra claims for user: {}", userDetails.getUsername());
-		return buildToken(extraClaims, userDetails, jwtExpiration);
-	}
-
-	/**
-	 * Retrieves the expiration time for the JWT token.
-	 *
-	 * @return the expiration time in milliseconds
-	 */
-	public long getExpirationTime() {
-		return jwtExpiration;
-	}
-
-	private String buildToken(Map<String, Object> extraClaims, UserDetails userDetails, long expiration) {
-		logger.debug("Building token with expiration time: {}", expiration);
-		return Jwts.builder().setClaims(extraClaims).setSubject(userDetails.getUsername())
-				.setIssuedAt(new Date(System.currentTimeMillis()))
-				.setExpiration(new Date(System.currentTimeMillis() + expiration))
-				.signWith(getSignInKey(), SignatureAlgorithm.HS256).compact();
-	}
-
-	/**
-	 * Checks if the given JWT token is valid.
-	 *
-	 * @param token       the JWT token to validate
-	 * @param userDetails the details of the user to match against the token
-	 * @return true if the token is valid, false otherwise
-	 */
-	public boolean isTokenValid(String token, UserDetails userDetails) {
-		logger.debug("Validating token for user: {}", userDetails.getUsername());
-		final String username = extractUsername(token);
-		return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
-	}
-
-	private boolean isTokenExpired(String token) {
-		logger.debug("Checking if token is expired");
-		return extractExpiration(token).before(new Date());
-	}
-
-	private Date extractExpiration(String token) {
-		logger.debug("Extracting expiration date from token");
-		return extractClaim(token, Claims::getExpiration);
-	}
-
-	private Claims extractAllClaims(String token) {
-		logger.debug("Extracting all claims from token");
-		return Jwts.parserBuilder().setSigningKey(getSignInKey()).build().parseClaimsJws(token).getBody();
-	}
-
-	private Key getSignInKey() {
-		logger.debug("Getting signing key");
-		byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-		return Keys.hmacShaKeyFor(keyBytes);
-	}
-}
+package com.example.security.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import java.security.Key;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+import com.example.security.exceptions.AuthFailure;
+import com.example.security.exceptions.AuthFailureException;
+import com.example.security.models.ServiceAccount;
+import com.example.security.models.User;
+import com.example.security.service.PermissionSet;
+
+/**
+ * Service for handling JSON Web Tokens (JWTs).
+ * <p>
+ * Provides functionality to generate, validate, and extract claims from JWTs.
+ * </p>
+ * 
+ * <p>
+ * Tokens carrying only the standard claims and the permission bitmap, which
+ * is every token this service issues itself, are written by a
+ * {@link JwtTemplateWriter} rather than serialized by jjwt; tokens with other
+ * extra claims still go through the jjwt builder.
+ * </p>
+ * 
+ * <p>
+ * Tokens are signed with the key of the user's {@link Tenant}; tokens of
+ * tenants other than the default one name the tenant in the {@code kid} header,
+ * which the parser uses to pick the verification key.
+ * </p>
+ * 
+ * 
+ * @author Shivraj.Jadhav
+ * 
+ */
+@Service
+public class JwtService {
+
+	private static final Logger logger = LoggerFactory.getLogger(JwtService.class);
+
+	/**
+	 * Name of the claim holding the permission bitmap.
+	 */
+	public static final String PERMISSIONS_CLAIM = "perms";
+
+	private final TenantRegistry tenantRegistry;
+	private final TokenClock tokenClock;
+
+	@Value("${security.jwt.expiration-time}")
+	private long jwtExpiration;
+
+	private JwtParser jwtParser;
+
+	private JwtTemplateWriter templateWriter;
+
+	/**
+	 * Constructs a new {@code JwtService}.
+	 *
+	 * @param tenantRegistry the registry holding the tenants' signing keys
+	 * @param tokenClock     the clock tokens are issued and checked against
+	 */
+	public JwtService(TenantRegistry tenantRegistry, TokenClock tokenClock) {
+		this.tenantRegistry = tenantRegistry;
+		this.tokenClock = tokenClock;
+	}
+
+	/**
+	 * Builds the parser once, so parsing does not pay for a new JSON deserializer
+	 * on every call. The verification key is resolved from the {@code kid} header
+	 * through the {@link TenantRegistry} and the time claims are checked against
+	 * the {@link TokenClock}, with its clock skew. Also builds the
+	 * {@link JwtTemplateWriter} tokens are issued with.
+	 */
+	@PostConstruct
+	void init() {
+		templateWriter = new JwtTemplateWriter(tenantRegistry);
+		jwtParser = Jwts.parserBuilder().setSigningKeyResolver(new SigningKeyResolverAdapter() {
+			@Override
+			public Key resolveSigningKey(JwsHeader header, Claims claims) {
+				return tenantOf(header).getKey();
+			}
+		}).setClock(tokenClock.jjwtClock()).setAllowedClockSkewSeconds(tokenClock.getSkew() / 1000).build();
+	}
+
+	/**
+	 * Extracts the username from the given JWT token.
+	 *
+	 * @param token the JWT token from which to extract the username
+	 * @return the username extracted from the token
+	 */
+	public String extractUsername(String token) {
+		logger.debug("Extracting username from token");
+		return extractClaim(token, Claims::getSubject);
+	}
+
+	/**
+	 * Extracts a specific claim from the JWT token.
+	 *
+	 * @param <T>            the type of the claim
+	 * @param token          the JWT token from which to extract the claim
+	 * @param claimsResolver function to extract the claim from the Claims object
+	 * @return the extracted claim
+	 */
+	public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
+		logger.debug("Extracting claim from token");
+		final Claims claims = extractAllClaims(token);
+		return claimsResolver.apply(claims);
+	}
+
+	/**
+	 * Generates a new JWT token for the specified user details.
+	 *
+	 * @param userDetails the details of the user for whom the token is being
+	 *                    generated
+	 * @return the generated JWT token
+	 */
+	public String generateToken(UserDetails userDetails) {
+		logger.debug("Generating token for user: {}", userDetails.getUsername());
+		long now = tokenClock.millis();
+		if (userDetails.getAuthorities() instanceof PermissionSet permissions) {
+			return buildToken(userDetails, true, permissions.getMask(), null, now, now + jwtExpiration);
+		}
+		return buildToken(userDetails, false, 0L, null, now, now + jwtExpiration);
+	}
+
+	/**
+	 * Generates a new JWT token with additional claims for the specified user
+	 * details.
+	 *
+	 * @param extraClaims additional claims to include in the token
+	 * @param userDetails the details of the user for whom the token is being
+	 *                    generated
+	 * @return the generated JWT token
+	 */
+	public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
+		logger.debug("Generating token with extra claims for user: {}", userDetails.getUsername());
+		long now = tokenClock.millis();
+		if (extraClaims.isEmpty()) {
+			return buildToken(userDetails, false, 0L, null, now, now + jwtExpiration);
+		}
+		if (extraClaims.size() == 1 && extraClaims.get(PERMISSIONS_CLAIM) instanceof Long permissions) {
+			return buildToken(userDetails, true, permissions, null, now, now + jwtExpiration);
+		}
+		return buildJjwtToken(extraClaims, userDetails, null, now, now + jwtExpiration);
+	}
+
+	/**
+	 * Generates a token for a service account.
+	 *
+	 * <p>
+	 * Unlike user tokens, the caller fixes every time-dependent claim, so a batch
+	 * of tokens minted together shares them and differs only in its id. The
+	 * method is thread-safe and may be called in parallel.
+	 * </p>
+	 *
+	 * @param account     the service account the token is issued to
+	 * @param permissions the permission bitmap the token carries
+	 * @param tokenId     the unique id of the token, its {@code jti} claim
+	 * @param issuedAt    the issue time in milliseconds
+	 * @param expiresAt   the expiry time in milliseconds
+	 * @return the signed token
+	 */
+	public String generateServiceToken(ServiceAccount account, long permissions, String tokenId, long issuedAt,
+			long expiresAt) {
+		return buildToken(account, true, permissions, tokenId, issuedAt, expiresAt);
+	}
+
+	/**
+	 * Retrieves the expiration time for the JWT token.
+	 *
+	 * @return the expiration time in milliseconds
+	 */
+	public long getExpirationTime() {
+		return jwtExpiration;
+	}
+
+	/**
+	 * Builds a token carrying only the standard claims and, optionally, the
+	 * permission bitmap from the {@link JwtTemplateWriter}, falling back to jjwt
+	 * for subjects the template cannot copy verbatim.
+	 */
+	private String buildToken(UserDetails userDetails, boolean hasPermissions, long permissions, String tokenId,
+			long issuedAt, long expiresAt) {
+		Tenant tenant = tenantOf(userDetails);
+		String token = templateWriter.write(tenant, userDetails.getUsername(), hasPermissions, permissions, tokenId,
+				issuedAt / 1000, expiresAt / 1000);
+		if (token != null) {
+			return token;
+		}
+
+		Map<String, Object> claims = new HashMap<>();
+		if (hasPermissions) {
+			claims.put(PERMISSIONS_CLAIM, permissions);
+		}
+		return buildJjwtToken(claims, userDetails, tokenId, issuedAt, expiresAt);
+	}
+
+	private String buildJjwtToken(Map<String, Object> extraClaims, UserDetails userDetails, String tokenId,
+			long issuedAt, long expiresAt) {
+		logger.debug("Building token with jjwt, expiring at: {}", expiresAt);
+		Tenant tenant = tenantOf(userDetails);
+		JwtBuilder builder = Jwts.builder();
+		if (!tenant.isDefault()) {
+			builder.setHeaderParam(JwsHeader.KEY_ID, tenant.getId());
+		}
+		return builder.setClaims(extraClaims).setSubject(userDetails.getUsername()).setId(tokenId)
+				.setIssuedAt(new Date(issuedAt)).setExpiration(new Date(expiresAt))
+				.signWith(tenant.getKey(), SignatureAlgorithm.HS256).compact();
+	}
+
+	/**
+	 * Extracts the tenant the given JWT token was issued for.
+	 *
+	 * @param token the JWT token
+	 * @return the tenant named by the {@code kid} header
+	 */
+	public Tenant extractTenant(String token) {
+		return tenantOf(jwtParser.parseClaimsJws(token).getHeader());
+	}
+
+	/**
+	 * Parses and verifies the given JWT token once and reads the claims the
+	 * request path needs into the holder {@link JwtFastPathVerifier} fills for
+	 * the tokens it handles, so callers read both kinds of tokens alike.
+	 *
+	 * @param token  the JWT token
+	 * @param claims the holder the claims are written to
+	 * @throws AuthFailureException         if the token names an unknown tenant,
+	 *                                      carries no expiry or has expired
+	 *                                      within the clock skew
+	 * @throws io.jsonwebtoken.JwtException if jjwt rejects the token
+	 */
+	public void readClaims(String token, JwtFastPathClaims claims) {
+		Jws<Claims> jws = jwtParser.parseClaimsJws(token);
+		Claims body = jws.getBody();
+		Date expiration = body.getExpiration();
+		if (expiration == null) {
+			throw AuthFailure.MALFORMED_TOKEN.exception();
+		}
+		if (tokenClock.isExpired(expiration.getTime())) {
+			throw AuthFailure.EXPIRED_TOKEN.exception();
+		}
+
+		claims.reset();
+		claims.setTenant(tenantOf(jws.getHeader()));
+		claims.setSubject(body.getSubject());
+		Date issuedAt = body.getIssuedAt();
+		if (issuedAt != null) {
+			claims.setIssuedAt(issuedAt.getTime() / 1000);
+		}
+		claims.setExpiresAt(expiration.getTime() / 1000);
+		Number permissions = body.get(PERMISSIONS_CLAIM, Number.class);
+		claims.setPermissions(permissions != null ? permissions.longValue() : 0L);
+	}
+
+	/**
+	 * Extracts the permission bitmap from the given JWT token.
+	 *
+	 * @param token the JWT token
+	 * @return the permission bitmap, or 0 if the token carries none
+	 */
+	public long extractPermissions(String token) {
+		Number permissions = extractClaim(token, claims -> claims.get(PERMISSIONS_CLAIM, Number.class));
+		return permissions != null ? permissions.longValue() : 0L;
+	}
+
+	/**
+	 * Checks if the given JWT token is valid.
+	 *
+	 * @param token       the JWT token to validate
+	 * @param userDetails the details of the user to match against the token
+	 * @return true if the token is valid, false otherwise
+	 */
+	public boolean isTokenValid(String token, UserDetails userDetails) {
+		logger.debug("Validating token for user: {}", userDetails.getUsername());
+		final String username = extractUsername(token);
+		return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+	}
+
+	/**
+	 * Extracts the issue time from the given JWT token.
+	 *
+	 * @param token the JWT token
+	 * @return the issue time, or {@code null} if the token carries none
+	 */
+	public Date extractIssuedAt(String token) {
+		return extractClaim(token, Claims::getIssuedAt);
+	}
+
+	private boolean isTokenExpired(String token) {
+		logger.debug("Checking if token is expired");
+		return tokenClock.isExpired(extractExpiration(token).getTime());
+	}
+
+	/**
+	 * Extracts the expiry time from the given JWT token.
+	 *
+	 * @param token the JWT token
+	 * @return the expiry time
+	 */
+	public Date extractExpiration(String token) {
+		logger.debug("Extracting expiration date from token");
+		return extractClaim(token, Claims::getExpiration);
+	}
+
+	private Claims extractAllClaims(String token) {
+		logger.debug("Extracting all claims from token");
+		return jwtParser.parseClaimsJws(token).getBody();
+	}
+
+	private Tenant tenantOf(JwsHeader<?> header) {
+		Tenant tenant = tenantRegistry.byId(header.getKeyId());
+		if (tenant == null) {
+			throw AuthFailure.UNKNOWN_TENANT.exception();
+		}
+		return tenant;
+	}
+
+	private Tenant tenantOf(UserDetails userDetails) {
+		String tenantId;
+		if (userDetails instanceof User user) {
+			tenantId = user.getTenant();
+		} else if (userDetails instanceof ServiceAccount account) {
+			tenantId = account.getTenant();
+		} else {
+			return tenantRegistry.getDefault();
+		}
+		Tenant tenant = tenantRegistry.byId(tenantId);
+		if (tenant == null) {
+			throw AuthFailure.UNKNOWN_TENANT.exception();
+		}
+		return tenant;
+	}
+}
@@ -0,0 +1,184 @@
+package com.example.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Template-based writer for the HS256 JWTs issued by {@link JwtService}.
+ * <p>
+ * Every token {@code JwtService} issues has the same shape: the header the
+ * {@link TenantRegistry} pre-encodes for its tenant, and a flat payload of
+ * {@code perms}, {@code sub}, an optional {@code jti}, {@code iat} and
+ * {@code exp}. The writer keeps the header bytes and the constant JSON
+ * fragments of the payload, fills in the variable claims with a small number
+ * writer, Base64url-encodes and signs in per-thread buffers with a
+ * {@link TenantHmac}. No map, JSON serializer or builder is involved, and
+ * the only allocation is the resulting string.
+ * </p>
+ *
+ * <p>
+ * The output is byte for byte what jjwt produces for the same claims, in the
+ * same order. String claims are copied verbatim, so a subject or id that would
+ * need JSON escaping, or is not plain ASCII, is refused and must go through
+ * jjwt instead.
+ * </p>
+ *
+ * @author Shivraj.Jadhav
+ */
+final class JwtTemplateWriter {
+
+	private static final int SIGNATURE_LENGTH = TenantHmac.LENGTH;
+
+	private static final byte[] PERMS_START = ascii("{\"perms\":");
+	private static final byte[] SUB_AFTER_PERMS = ascii(",\"sub\":\"");
+	private static final byte[] SUB_START = ascii("{\"sub\":\"");
+	private static final byte[] JTI = ascii("\",\"jti\":\"");
+	private static final byte[] IAT = ascii("\",\"iat\":");
+	private static final byte[] EXP = ascii(",\"exp\":");
+
+	private final byte[][] headers;
+	private final TenantHmac hmac;
+	private final ThreadLocal<Scratch> scratch;
+
+	/**
+	 * Constructs a new {@code JwtTemplateWriter}.
+	 *
+	 * @param tenantRegistry the registry holding the tenants' headers and keys
+	 */
+	JwtTemplateWriter(TenantRegistry tenantRegistry) {
+		this.headers = new byte[tenantRegistry.size()][];
+		for (int i = 0; i < headers.length; i++) {
+			headers[i] = ascii(tenantRegistry.byIndex(i).getJwtHeader() + '.');
+		}
+		this.hmac = new TenantHmac(tenantRegistry);
+		this.scratch = ThreadLocal.withInitial(Scratch::new);
+	}
+
+	/**
+	 * Writes and signs a token.
+	 *
+	 * @param tenant         the tenant whose header and key are used
+	 * @param subject        the {@code sub} claim
+	 * @param hasPermissions whether the token carries a {@code perms} claim
+	 * @param permissions    the {@code perms} claim
+	 * @param tokenId        the {@code jti} claim, or {@code null} for none
+	 * @param issuedAt       the {@code iat} claim in seconds
+	 * @param expiresAt      the {@code exp} claim in seconds
+	 * @return the token, or {@code null} if the subject or id cannot be copied
+	 *         verbatim
+	 */
+	String write(Tenant tenant, String subject, boolean hasPermissions, long permissions, String tokenId,
+			long issuedAt, long expiresAt) {
+		if (!isPlain(subject) || (tokenId != null && !isPlain(tokenId))) {
+			return null;
+		}
+
+		Scratch buffers = scratch.get();
+		int length = subject.length() + (tokenId != null ? tokenId.length() : 0) + 128;
+		byte[] payload = buffers.payload(length);
+
+		int p;
+		if (hasPermissions) {
+			p = put(PERMS_START, payload, 0);
+			p = putLong(permissions, payload, p);
+			p = put(SUB_AFTER_PERMS, payload, p);
+		} else {
+			p = put(SUB_START, payload, 0);
+		}
+		p = putAscii(subject, payload, p);
+		if (tokenId != null) {
+			p = put(JTI, payload, p);
+			p = putAscii(tokenId, payload, p);
+		}
+		p = put(IAT, payload, p);
+		p = putLong(issuedAt, payload, p);
+		p = put(EXP, payload, p);
+		p = putLong(expiresAt, payload, p);
+		payload[p++] = '}';
+
+		byte[] header = headers[tenant.getIndex()];
+		byte[] token = buffers.token(
+				header.length + Base64Url.encodedLength(p) + 1 + Base64Url.encodedLength(SIGNATURE_LENGTH));
+		int t = put(header, token, 0);
+		t = Base64Url.encode(payload, p, token, t);
+
+		hmac.sign(tenant, token, t, buffers.mac);
+		token[t++] = '.';
+		t = Base64Url.encode(buffers.mac, SIGNATURE_LENGTH, token, t);
+
+		return new String(token, 0, t, StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Checks that a string is printable ASCII that JSON writes unescaped.
+	 */
+	private static boolean isPlain(String value) {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c < 0x20 || c > 0x7e || c == '"' || c == '\\') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int put(byte[] fragment, byte[] out, int offset) {
+		System.arraycopy(fragment, 0, out, offset, fragment.length);
+		return offset + fragment.length;
+	}
+
+	private static int putAscii(String value, byte[] out, int offset) {
+		for (int i = 0; i < value.length(); i++) {
+			out[offset++] = (byte) value.charAt(i);
+		}
+		return offset;
+	}
+
+	private static int putLong(long value, byte[] out, int offset) {
+		if (value == Long.MIN_VALUE) {
+			return putAscii(Long.toString(value), out, offset);
+		}
+		if (value < 0) {
+			out[offset++] = '-';
+			value = -value;
+		}
+		int end = offset;
+		long rest = value;
+		do {
+			end++;
+			rest /= 10;
+		} while (rest != 0);
+		for (int i = end - 1; i >= offset; i--) {
+			out[i] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+		return end;
+	}
+
+	private static byte[] ascii(String value) {
+		return value.getBytes(StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Per-thread buffers, reused across tokens.
+	 */
+	private static final class Scratch {
+
+		private final byte[] mac = new byte[SIGNATURE_LENGTH];
+		private byte[] payload = new byte[256];
+		private byte[] token = new byte[512];
+
+		private byte[] payload(int length) {
+			if (payload.length < length) {
+				payload = new byte[length];
+			}
+			return payload;
+		}
+
+		private byte[] token(int length) {
+			if (token.length < length) {
+				token = new byte[length];
+			}
+			return token;
+		}
+	}
+}
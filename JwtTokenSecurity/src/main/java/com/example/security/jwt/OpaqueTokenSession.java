@@ -0,0 +1,116 @@
+package com.example.security.jwt;
+
+/**
+ * The state behind an opaque token.
+ * <p>
+ * Sessions are immutable apart from the handle of their scheduled expiry;
+ * revoking a token removes its session from the {@link OpaqueTokenStore}. The key is the first 128 bits of the SHA-256 digest
+ * of the token's random bytes, split into two {@code long}s.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+public final class OpaqueTokenSession {
+
+	private final long keyHigh;
+	private final long keyLow;
+	private final Tenant tenant;
+	private final int userId;
+	private final String email;
+	private final long permissions;
+	private final long issuedAt;
+	private final long expiresAt;
+
+	private volatile TimingWheel.Timeout<OpaqueTokenSession> expiry;
+
+	OpaqueTokenSession(long keyHigh, long keyLow, Tenant tenant, int userId, String email, long permissions,
+			long issuedAt, long expiresAt) {
+		this.keyHigh = keyHigh;
+		this.keyLow = keyLow;
+		this.tenant = tenant;
+		this.userId = userId;
+		this.email = email;
+		this.permissions = permissions;
+		this.issuedAt = issuedAt;
+		this.expiresAt = expiresAt;
+	}
+
+	long getKeyHigh() {
+		return keyHigh;
+	}
+
+	long getKeyLow() {
+		return keyLow;
+	}
+
+	TimingWheel.Timeout<OpaqueTokenSession> getExpiry() {
+		return expiry;
+	}
+
+	void setExpiry(TimingWheel.Timeout<OpaqueTokenSession> expiry) {
+		this.expiry = expiry;
+	}
+
+	/**
+	 * Gets the hex-encoded key, as stored in the {@code opaque_tokens} table.
+	 *
+	 * @return 32 hex characters
+	 */
+	public String getKeyHex() {
+		return String.format("%016x%016x", keyHigh, keyLow);
+	}
+
+	/**
+	 * Gets the tenant of the user.
+	 *
+	 * @return the tenant
+	 */
+	public Tenant getTenant() {
+		return tenant;
+	}
+
+	/**
+	 * Gets the id of the user the token was issued to.
+	 *
+	 * @return the user id
+	 */
+	public int getUserId() {
+		return userId;
+	}
+
+	/**
+	 * Gets the email of the user the token was issued to.
+	 *
+	 * @return the email
+	 */
+	public String getEmail() {
+		return email;
+	}
+
+	/**
+	 * Gets the permission bitmap granted by the token.
+	 *
+	 * @return the permission bitmap
+	 */
+	public long getPermissions() {
+		return permissions;
+	}
+
+	/**
+	 * Gets the issue time of the token.
+	 *
+	 * @return the issue time in epoch millis
+	 */
+	public long getIssuedAt() {
+		return issuedAt;
+	}
+
+	/**
+	 * Gets the expiry time of the token.
+	 *
+	 * @return the expiry time in epoch millis
+	 */
+	public long getExpiresAt() {
+		return expiresAt;
+	}
+}
@@ -0,0 +1,272 @@
+package com.example.security.jwt;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+
+import jakarta.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.security.exceptions.AuthFailure;
+import com.example.security.exceptions.AuthFailureException;
+
+/**
+ * In-memory store behind opaque access tokens.
+ * <p>
+ * Opaque tokens are an opt-in alternative to JWTs, enabled by
+ * {@code security.opaque.enabled}. The token is {@value #PREFIX} followed by
+ * 16 random bytes in Base64url; it carries no claims and is only meaningful to
+ * this service, which makes it revocable. The store keeps the session behind
+ * every live token in an {@link OpaqueTokenTable} keyed by the SHA-256 digest
+ * of the token, so neither memory nor the database ever holds a usable token.
+ * </p>
+ * 
+ * <p>
+ * Resolving a token decodes and digests it in per-thread buffers and probes
+ * the table; the database is never read on the request path. Writes go
+ * through the {@link OpaqueTokenWriter}, which also restores the table at
+ * startup. Expired sessions are dropped by a {@link TimingWheel} with
+ * one-second ticks, and revoking a token cancels its expiry; lookups check the
+ * expiry as well, so a session is never served late.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+@Component
+public class OpaqueTokenStore {
+
+	private static final Logger logger = LoggerFactory.getLogger(OpaqueTokenStore.class);
+
+	/**
+	 * Prefix distinguishing opaque tokens from JWTs in the "Authorization"
+	 * header.
+	 */
+	public static final String PREFIX = "ot_";
+
+	static final int TOKEN_BYTES = 16;
+	static final int ENCODED_LENGTH = (TOKEN_BYTES * 8 + 5) / 6;
+
+	private static final long TICK_MILLIS = 1000L;
+
+	@Value("${security.opaque.enabled:false}")
+	private boolean enabled;
+
+	@Value("${security.jwt.expiration-time}")
+	private long expiration;
+
+	private final TenantRegistry tenantRegistry;
+	private final OpaqueTokenWriter writer;
+	private final TokenClock tokenClock;
+	private final OpaqueTokenTable table = new OpaqueTokenTable();
+	private final TimingWheel<OpaqueTokenSession> expiryWheel;
+	private final SecureRandom random = new SecureRandom();
+	private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+	/**
+	 * Constructs a new {@code OpaqueTokenStore}.
+	 *
+	 * @param tenantRegistry the registry resolving the tenants of stored tokens
+	 * @param writer         the write-behind persistence of the store
+	 * @param tokenClock     the clock tokens are issued and checked against
+	 */
+	public OpaqueTokenStore(TenantRegistry tenantRegistry, OpaqueTokenWriter writer, TokenClock tokenClock) {
+		this.tenantRegistry = tenantRegistry;
+		this.writer = writer;
+		this.tokenClock = tokenClock;
+		this.expiryWheel = new TimingWheel<>(TICK_MILLIS, tokenClock.millis(), this::expired);
+	}
+
+	@PostConstruct
+	void init() {
+		if (!enabled) {
+			logger.info("Opaque token format disabled");
+			return;
+		}
+		for (OpaqueTokenSession session : writer.loadActive(tenantRegistry)) {
+			add(session);
+		}
+		logger.info("Opaque token format enabled, {} active tokens restored", table.size());
+	}
+
+	/**
+	 * Returns whether opaque tokens are enabled by
+	 * {@code security.opaque.enabled}.
+	 *
+	 * @return true if opaque tokens may be issued and accepted
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Checks whether the token starting at {@code offset} is an opaque token.
+	 *
+	 * @param source the characters holding the token, e.g. the whole header
+	 * @param offset the index the token starts at
+	 * @return true if the token carries the opaque prefix
+	 */
+	public boolean isOpaqueToken(String source, int offset) {
+		return source.startsWith(PREFIX, offset);
+	}
+
+	/**
+	 * Issues an opaque token for the given user.
+	 *
+	 * @param tenant      the tenant of the user
+	 * @param userId      the id of the user the token is issued to
+	 * @param email       the email of the user
+	 * @param permissions the permission bitmap the token grants
+	 * @return the token, including the {@value #PREFIX} prefix
+	 */
+	public String issue(Tenant tenant, int userId, String email, long permissions) {
+		byte[] token = new byte[TOKEN_BYTES];
+		random.nextBytes(token);
+
+		Scratch buffers = scratch.get();
+		buffers.digest(token);
+		long issuedAt = tokenClock.millis();
+		OpaqueTokenSession session = new OpaqueTokenSession(buffers.keyHigh(), buffers.keyLow(), tenant, userId,
+				email, permissions, issuedAt, issuedAt + expiration);
+
+		add(session);
+		writer.enqueueInsert(session);
+		return PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+	}
+
+	/**
+	 * Resolves the opaque token starting at {@code offset} to its session.
+	 *
+	 * @param source the characters holding the token, e.g. the whole header
+	 * @param offset the index the token (including its prefix) starts at
+	 * @return the session behind the token
+	 * @throws AuthFailureException if the token is malformed, unknown, revoked
+	 *                              or expired
+	 */
+	public OpaqueTokenSession resolve(CharSequence source, int offset) {
+		OpaqueTokenSession session = find(source, offset);
+		if (session == null) {
+			throw AuthFailure.INVALID_TOKEN.exception();
+		}
+		if (tokenClock.isExpired(session.getExpiresAt())) {
+			throw AuthFailure.EXPIRED_TOKEN.exception();
+		}
+		return session;
+	}
+
+	/**
+	 * Revokes the given opaque token. Revoking an unknown token is a no-op.
+	 *
+	 * @param token the token, including the {@value #PREFIX} prefix
+	 * @return true if a live token was revoked
+	 * @throws AuthFailureException if the token is malformed
+	 */
+	public boolean revoke(String token) {
+		OpaqueTokenSession session = find(token, 0);
+		if (session == null || table.remove(session.getKeyHigh(), session.getKeyLow()) == null) {
+			return false;
+		}
+		TimingWheel.Timeout<OpaqueTokenSession> expiry = session.getExpiry();
+		if (expiry != null) {
+			expiry.cancel();
+		}
+		writer.enqueueDelete(session);
+		return true;
+	}
+
+	/**
+	 * Returns the number of sessions held, including expired ones not yet
+	 * swept.
+	 *
+	 * @return the number of sessions
+	 */
+	public int size() {
+		return table.size();
+	}
+
+	/**
+	 * Drops the sessions that have expired.
+	 */
+	@Scheduled(fixedDelay = TICK_MILLIS)
+	public void expire() {
+		expire(tokenClock.millis());
+	}
+
+	int expire(long now) {
+		return expiryWheel.advance(now);
+	}
+
+	private void expired(List<OpaqueTokenSession> sessions) {
+		for (OpaqueTokenSession session : sessions) {
+			table.remove(session.getKeyHigh(), session.getKeyLow());
+		}
+		logger.debug("Expired {} opaque tokens", sessions.size());
+	}
+
+	private void add(OpaqueTokenSession session) {
+		table.put(session);
+		session.setExpiry(expiryWheel.schedule(session, session.getExpiresAt()));
+	}
+
+	private OpaqueTokenSession find(CharSequence source, int offset) {
+		int start = offset + PREFIX.length();
+		if (source.length() - start != ENCODED_LENGTH) {
+			throw AuthFailure.MALFORMED_TOKEN.exception();
+		}
+
+		Scratch buffers = scratch.get();
+		Base64Url.decode(source, start, start + ENCODED_LENGTH, buffers.token);
+		buffers.digest(buffers.token);
+		return table.get(buffers.keyHigh(), buffers.keyLow());
+	}
+
+	/**
+	 * Per-thread buffers and digest, reused across tokens.
+	 */
+	private static final class Scratch {
+
+		private final MessageDigest sha256;
+		private final byte[] token = new byte[TOKEN_BYTES];
+		private final byte[] hash = new byte[32];
+
+		private Scratch() {
+			try {
+				this.sha256 = MessageDigest.getInstance("SHA-256");
+			} catch (NoSuchAlgorithmException ex) {
+				throw new IllegalStateException("SHA-256 is not available", ex);
+			}
+		}
+
+		private void digest(byte[] token) {
+			try {
+				sha256.update(token, 0, TOKEN_BYTES);
+				sha256.digest(hash, 0, hash.length);
+			} catch (DigestException ex) {
+				throw new IllegalStateException("Digest buffer too small", ex);
+			}
+		}
+
+		private long keyHigh() {
+			return getLong(hash, 0);
+		}
+
+		private long keyLow() {
+			return getLong(hash, 8);
+		}
+
+		private static long getLong(byte[] buffer, int offset) {
+			long value = 0;
+			for (int i = 0; i < 8; i++) {
+				value = (value << 8) | (buffer[offset + i] & 0xFF);
+			}
+			return value;
+		}
+	}
+}
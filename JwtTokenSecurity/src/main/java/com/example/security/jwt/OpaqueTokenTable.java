@@ -0,0 +1,183 @@
+package com.example.security.jwt;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * Concurrent hash table of {@link OpaqueTokenSession}s keyed by two
+ * {@code long}s.
+ * <p>
+ * Keys are uniformly random digests, so they are stored unboxed in parallel
+ * {@code long} arrays with linear probing and used directly as hash codes: the
+ * high word picks one of {@value #SEGMENTS} segments and the low word the
+ * slot. A lookup allocates nothing and usually completes under an optimistic
+ * read stamp without touching the segment's lock.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+final class OpaqueTokenTable {
+
+	static final int SEGMENTS = 64;
+
+	private static final OpaqueTokenSession TOMBSTONE = new OpaqueTokenSession(0, 0, null, 0, null, 0, 0, 0);
+
+	private final Segment[] segments = new Segment[SEGMENTS];
+
+	OpaqueTokenTable() {
+		for (int i = 0; i < SEGMENTS; i++) {
+			segments[i] = new Segment();
+		}
+	}
+
+	OpaqueTokenSession get(long high, long low) {
+		return segmentFor(high).get(high, low);
+	}
+
+	void put(OpaqueTokenSession session) {
+		segmentFor(session.getKeyHigh()).put(session);
+	}
+
+	OpaqueTokenSession remove(long high, long low) {
+		return segmentFor(high).remove(high, low);
+	}
+
+	int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			size += segment.size;
+		}
+		return size;
+	}
+
+	void forEach(Consumer<OpaqueTokenSession> action) {
+		for (Segment segment : segments) {
+			segment.forEach(action);
+		}
+	}
+
+	private Segment segmentFor(long high) {
+		return segments[(int) (high >>> 58) & (SEGMENTS - 1)];
+	}
+
+	private static final class Segment {
+
+		private final StampedLock lock = new StampedLock();
+		private long[] keys = new long[2 * 64];
+		private OpaqueTokenSession[] values = new OpaqueTokenSession[64];
+		private int size;
+		private int used;
+
+		OpaqueTokenSession get(long high, long low) {
+			long stamp = lock.tryOptimisticRead();
+			OpaqueTokenSession session = find(keys, values, high, low);
+			if (lock.validate(stamp)) {
+				return session;
+			}
+
+			stamp = lock.readLock();
+			try {
+				return find(keys, values, high, low);
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+
+		void put(OpaqueTokenSession session) {
+			long stamp = lock.writeLock();
+			try {
+				if ((used + 1) * 4 > values.length * 3) {
+					rehash(size * 2 >= values.length ? values.length * 2 : values.length);
+				}
+				if (insert(keys, values, session)) {
+					used++;
+				}
+				size++;
+			} finally {
+				lock.unlockWrite(stamp);
+			}
+		}
+
+		OpaqueTokenSession remove(long high, long low) {
+			long stamp = lock.writeLock();
+			try {
+				int mask = values.length - 1;
+				for (int i = (int) low & mask, probes = 0; probes < values.length; i = (i + 1) & mask, probes++) {
+					OpaqueTokenSession session = values[i];
+					if (session == null) {
+						return null;
+					}
+					if (session != TOMBSTONE && keys[2 * i] == high && keys[2 * i + 1] == low) {
+						values[i] = TOMBSTONE;
+						size--;
+						return session;
+					}
+				}
+				return null;
+			} finally {
+				lock.unlockWrite(stamp);
+			}
+		}
+
+		void forEach(Consumer<OpaqueTokenSession> action) {
+			long stamp = lock.readLock();
+			try {
+				for (OpaqueTokenSession session : values) {
+					if (session != null && session != TOMBSTONE) {
+						action.accept(session);
+					}
+				}
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+
+		private void rehash(int capacity) {
+			long[] newKeys = new long[2 * capacity];
+			OpaqueTokenSession[] newValues = new OpaqueTokenSession[capacity];
+			for (OpaqueTokenSession session : values) {
+				if (session != null && session != TOMBSTONE) {
+					insert(newKeys, newValues, session);
+				}
+			}
+			keys = newKeys;
+			values = newValues;
+			used = size;
+		}
+
+		/**
+		 * Inserts into the first free or tombstoned slot, returning whether a
+		 * never-used slot was taken.
+		 */
+		private static boolean insert(long[] keys, OpaqueTokenSession[] values, OpaqueTokenSession session) {
+			int mask = values.length - 1;
+			int i = (int) session.getKeyLow() & mask;
+			while (values[i] != null && values[i] != TOMBSTONE) {
+				i = (i + 1) & mask;
+			}
+			boolean fresh = values[i] == null;
+			keys[2 * i] = session.getKeyHigh();
+			keys[2 * i + 1] = session.getKeyLow();
+			values[i] = session;
+			return fresh;
+		}
+
+		private static OpaqueTokenSession find(long[] keys, OpaqueTokenSession[] values, long high, long low) {
+			int mask = values.length - 1;
+			if (keys.length != 2 * values.length) {
+				// Torn read during a rehash; the stamp will not validate
+				return null;
+			}
+			for (int i = (int) low & mask, probes = 0; probes < values.length; i = (i + 1) & mask, probes++) {
+				OpaqueTokenSession session = values[i];
+				if (session == null) {
+					return null;
+				}
+				if (session != TOMBSTONE && keys[2 * i] == high && keys[2 * i + 1] == low) {
+					return session;
+				}
+			}
+			return null;
+		}
+	}
+}
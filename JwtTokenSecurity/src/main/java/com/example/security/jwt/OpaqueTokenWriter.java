@@ -0,0 +1,195 @@
+package com.example.security.jwt;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Write-behind persistence for the {@link OpaqueTokenStore}.
+ * <p>
+ * Issuing and revoking a token only enqueues a write; a scheduled flush drains
+ * the queue every {@code security.opaque.flush-interval} milliseconds and
+ * applies it to the {@code opaque_tokens} table as JDBC batches. Tokens issued
+ * in the last interval before a crash are lost, which only forces those
+ * clients to log in again. The table is read once, at startup, to restore
+ * the store.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class OpaqueTokenWriter {
+
+	private static final Logger logger = LoggerFactory.getLogger(OpaqueTokenWriter.class);
+
+	private static final String INSERT = "insert into opaque_tokens (token_hash, user_id, email, tenant, permissions, issued_at, expires_at) values (?, ?, ?, ?, ?, ?, ?)";
+	private static final String DELETE = "delete from opaque_tokens where token_hash = ?";
+	private static final String DELETE_EXPIRED = "delete from opaque_tokens where expires_at <= ?";
+	private static final String SELECT_ACTIVE = "select token_hash, user_id, email, tenant, permissions, issued_at, expires_at from opaque_tokens where expires_at > ?";
+
+	private static final long PURGE_INTERVAL = 60_000L;
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TokenClock tokenClock;
+	private final Queue<OpaqueTokenSession> pendingInserts = new ConcurrentLinkedQueue<>();
+	private final Queue<String> pendingDeletes = new ConcurrentLinkedQueue<>();
+
+	@Value("${security.opaque.enabled:false}")
+	private boolean enabled;
+
+	private long lastPurge;
+
+	/**
+	 * Constructs a new {@code OpaqueTokenWriter}.
+	 *
+	 * @param jdbcTemplate the template the batches are written with
+	 * @param tokenClock   the clock expired rows are told apart with
+	 */
+	public OpaqueTokenWriter(JdbcTemplate jdbcTemplate, TokenClock tokenClock) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.tokenClock = tokenClock;
+	}
+
+	void enqueueInsert(OpaqueTokenSession session) {
+		pendingInserts.add(session);
+	}
+
+	void enqueueDelete(OpaqueTokenSession session) {
+		pendingDeletes.add(session.getKeyHex());
+	}
+
+	/**
+	 * Reads the tokens that have not expired yet.
+	 *
+	 * @param tenantRegistry the registry resolving the stored tenant ids
+	 * @return the active sessions; tokens of unknown tenants are skipped
+	 */
+	List<OpaqueTokenSession> loadActive(TenantRegistry tenantRegistry) {
+		List<OpaqueTokenSession> sessions = new ArrayList<>();
+		jdbcTemplate.query(SELECT_ACTIVE, rs -> {
+			Tenant tenant = tenantRegistry.byId(rs.getString("tenant"));
+			if (tenant == null) {
+				return;
+			}
+			String hash = rs.getString("token_hash");
+			sessions.add(new OpaqueTokenSession(Long.parseUnsignedLong(hash.substring(0, 16), 16),
+					Long.parseUnsignedLong(hash.substring(16), 16), tenant, rs.getInt("user_id"),
+					rs.getString("email"), rs.getLong("permissions"), rs.getLong("issued_at"),
+					rs.getLong("expires_at")));
+		}, tokenClock.millis());
+		return sessions;
+	}
+
+	/**
+	 * Applies the queued writes as JDBC batches and, once a minute, deletes
+	 * expired rows. Nothing is written while opaque tokens are disabled.
+	 *
+	 * <p>
+	 * Inserts and deletes are written independently, so a failed insert batch
+	 * never holds back the deletes of revoked tokens. Writes that fail are
+	 * queued again for the next flush. A failed insert batch may have written
+	 * some of its rows, so it is retried row by row and a duplicate counts as
+	 * written; tokens revoked or expired in the meantime are not retried.
+	 * </p>
+	 */
+	@Scheduled(fixedDelayString = "${security.opaque.flush-interval:1000}")
+	public synchronized void flush() {
+		if (!enabled) {
+			return;
+		}
+		List<OpaqueTokenSession> inserts = new ArrayList<>();
+		for (OpaqueTokenSession session; (session = pendingInserts.poll()) != null;) {
+			inserts.add(session);
+		}
+		List<String> deletes = new ArrayList<>();
+		for (String hash; (hash = pendingDeletes.poll()) != null;) {
+			deletes.add(hash);
+		}
+
+		// Inserts go first so a token revoked within the same interval is deleted
+		if (!inserts.isEmpty()) {
+			List<Object[]> rows = new ArrayList<>(inserts.size());
+			inserts.forEach(session -> rows.add(insertRow(session)));
+			try {
+				jdbcTemplate.batchUpdate(INSERT, rows);
+			} catch (DataAccessException ex) {
+				logger.warn("Failed to write {} opaque tokens as a batch, retrying them one by one", inserts.size(), ex);
+				retryInserts(inserts, new HashSet<>(deletes));
+			}
+		}
+		if (!deletes.isEmpty()) {
+			List<Object[]> rows = new ArrayList<>(deletes.size());
+			deletes.forEach(hash -> rows.add(new Object[] { hash }));
+			try {
+				jdbcTemplate.batchUpdate(DELETE, rows);
+			} catch (DataAccessException ex) {
+				logger.error("Failed to delete {} revoked opaque tokens, retrying with the next flush", deletes.size(),
+						ex);
+				pendingDeletes.addAll(deletes);
+			}
+		}
+		if (!inserts.isEmpty() || !deletes.isEmpty()) {
+			logger.debug("Flushed {} opaque token inserts and {} deletes", inserts.size(), deletes.size());
+		}
+
+		long now = tokenClock.millis();
+		if (now - lastPurge >= PURGE_INTERVAL) {
+			lastPurge = now;
+			jdbcTemplate.update(DELETE_EXPIRED, now);
+		}
+	}
+
+	private void retryInserts(List<OpaqueTokenSession> inserts, Set<String> revoked) {
+		long now = tokenClock.millis();
+		int requeued = 0;
+		for (OpaqueTokenSession session : inserts) {
+			if (revoked.contains(session.getKeyHex()) || session.getExpiresAt() <= now) {
+				continue;
+			}
+			if (requeued > 0) {
+				// The database is failing; the rest waits for the next flush
+				pendingInserts.add(session);
+				requeued++;
+				continue;
+			}
+			try {
+				jdbcTemplate.update(INSERT, insertRow(session));
+			} catch (DuplicateKeyException ex) {
+				// Written by the failed batch
+			} catch (DataAccessException ex) {
+				pendingInserts.add(session);
+				requeued++;
+			}
+		}
+		if (requeued > 0) {
+			logger.error("Failed to write {} opaque tokens, retrying with the next flush", requeued);
+		}
+	}
+
+	private static Object[] insertRow(OpaqueTokenSession session) {
+		return new Object[] { session.getKeyHex(), session.getUserId(), session.getEmail(),
+				session.getTenant().getId(), session.getPermissions(), session.getIssuedAt(),
+				session.getExpiresAt() };
+	}
+
+	@PreDestroy
+	void shutdown() {
+		flush();
+	}
+}
@@ -0,0 +1,156 @@
+package com.example.security.jwt;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.stream.IntStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.example.security.models.ServiceAccount;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Mints batches of tokens for a {@link ServiceAccount}.
+ *
+ * <p>
+ * Signing is pure CPU work, an HMAC and a little JSON per token, so a batch is
+ * split into chunks of {@value #CHUNK_SIZE} that are signed in parallel on a
+ * dedicated fork/join pool with one thread per available processor. The
+ * issuer pipelines the chunks: while one chunk is handed to the
+ * {@link ChunkWriter}, the next one is already being signed. Only two chunks
+ * are held at a time, however large the batch, and a writer that fails, e.g.
+ * because the client went away, stops the signing.
+ * </p>
+ *
+ * <p>
+ * The tokens of a batch share their issue and expiry times; each has a
+ * {@code jti} made of a random batch id and its index in the batch.
+ * </p>
+ *
+ * @author Shivraj.Jadhav
+ */
+@Component
+public class ServiceTokenIssuer {
+
+	private static final Logger logger = LoggerFactory.getLogger(ServiceTokenIssuer.class);
+
+	static final int CHUNK_SIZE = 256;
+
+	private final JwtService jwtService;
+	private final TokenClock tokenClock;
+	private final ForkJoinPool signingPool;
+
+	/**
+	 * Receives the signed tokens of a batch, one chunk at a time and in order.
+	 */
+	@FunctionalInterface
+	public interface ChunkWriter {
+
+		/**
+		 * Writes a chunk of tokens.
+		 *
+		 * @param tokens the tokens
+		 * @throws IOException if the tokens cannot be written
+		 */
+		void write(String[] tokens) throws IOException;
+	}
+
+	/**
+	 * Constructs a new {@code ServiceTokenIssuer}.
+	 *
+	 * @param jwtService the service signing the tokens
+	 * @param tokenClock the clock the tokens are issued at
+	 */
+	public ServiceTokenIssuer(JwtService jwtService, TokenClock tokenClock) {
+		this.jwtService = jwtService;
+		this.tokenClock = tokenClock;
+		this.signingPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName("service-token-signer-" + thread.getPoolIndex());
+			return thread;
+		}, null, false);
+	}
+
+	@PreDestroy
+	void stop() {
+		signingPool.shutdownNow();
+	}
+
+	/**
+	 * Mints a batch of tokens and hands them to a writer.
+	 *
+	 * @param account     the service account the tokens are issued to
+	 * @param permissions the permission bitmap the tokens carry
+	 * @param count       the number of tokens
+	 * @param ttl         the lifetime of the tokens in milliseconds
+	 * @param writer      the writer receiving the tokens
+	 * @throws IOException if the writer fails
+	 */
+	public void issue(ServiceAccount account, long permissions, int count, long ttl, ChunkWriter writer)
+			throws IOException {
+		String batchId = UUID.randomUUID().toString();
+		long issuedAt = tokenClock.millis();
+		Batch batch = new Batch(account, permissions, batchId, issuedAt, issuedAt + ttl);
+
+		CompletableFuture<String[]> next = sign(batch, 0, Math.min(CHUNK_SIZE, count));
+		try {
+			for (int start = 0; start < count; start += CHUNK_SIZE) {
+				String[] chunk = join(next);
+				int nextStart = start + CHUNK_SIZE;
+				next = nextStart < count ? sign(batch, nextStart, Math.min(nextStart + CHUNK_SIZE, count)) : null;
+				writer.write(chunk);
+			}
+		} finally {
+			if (next != null) {
+				next.cancel(false);
+			}
+		}
+
+		logger.info("Issued {} tokens to service account {} in batch {}", count, account.getName(), batchId);
+	}
+
+	private CompletableFuture<String[]> sign(Batch batch, int start, int end) {
+		return CompletableFuture.supplyAsync(() -> IntStream.range(start, end).parallel()
+				.mapToObj(index -> jwtService.generateServiceToken(batch.account, batch.permissions,
+						batch.batchId + '.' + index, batch.issuedAt, batch.expiresAt))
+				.toArray(String[]::new), signingPool);
+	}
+
+	private static String[] join(CompletableFuture<String[]> chunk) {
+		try {
+			return chunk.join();
+		} catch (CompletionException ex) {
+			if (ex.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw ex;
+		}
+	}
+
+	/**
+	 * The claims shared by the tokens of a batch.
+	 */
+	private static final class Batch {
+
+		private final ServiceAccount account;
+		private final long permissions;
+		private final String batchId;
+		private final long issuedAt;
+		private final long expiresAt;
+
+		private Batch(ServiceAccount account, long permissions, String batchId, long issuedAt, long expiresAt) {
+			this.account = account;
+			this.permissions = permissions;
+			this.batchId = batchId;
+			this.issuedAt = issuedAt;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package com.example.security.jwt;
+
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * A customer served by this deployment, with its own signing key.
+ * 
+ * <p>
+ * Tenants are created by {@link TenantRegistry} at startup and identified on
+ * the request path by their {@link #getIndex() index} (the key id of compact
+ * tokens) or by the pre-encoded {@link #getJwtHeader() JWT header} that names
+ * them in its {@code kid}, so no database query is needed to resolve one.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+public final class Tenant {
+
+	/**
+	 * Id of the tenant tokens without a {@code kid} belong to.
+	 */
+	public static final String DEFAULT_ID = "default";
+
+	private final String id;
+	private final int index;
+	private final SecretKeySpec key;
+	private final String jwtHeader;
+
+	Tenant(String id, int index, SecretKeySpec key, String jwtHeader) {
+		this.id = id;
+		this.index = index;
+		this.key = key;
+		this.jwtHeader = jwtHeader;
+	}
+
+	/**
+	 * Gets the id of the tenant.
+	 *
+	 * @return the id
+	 */
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * Gets the position of the tenant in the registry.
+	 *
+	 * @return the index, 0 for the default tenant
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Gets the HMAC-SHA256 key tokens of this tenant are signed with.
+	 *
+	 * @return the signing key
+	 */
+	public SecretKeySpec getKey() {
+		return key;
+	}
+
+	/**
+	 * Gets the Base64url-encoded header of the JWTs issued for this tenant.
+	 *
+	 * @return the encoded header segment
+	 */
+	public String getJwtHeader() {
+		return jwtHeader;
+	}
+
+	/**
+	 * Checks whether this is the default tenant.
+	 *
+	 * @return true for the default tenant
+	 */
+	public boolean isDefault() {
+		return index == 0;
+	}
+
+	@Override
+	public String toString() {
+		return id;
+	}
+}
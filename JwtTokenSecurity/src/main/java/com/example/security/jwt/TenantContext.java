@@ -0,0 +1,39 @@
+package com.example.security.jwt;
+
+/**
+ * Holds the tenant a login is performed for.
+ * 
+ * <p>
+ * {@code AuthenticationManager} only passes the username to the
+ * {@code UserDetailsService}, so {@link AuthenticationService} binds the tenant
+ * to the current thread for the duration of the authentication and the
+ * lookup scopes the email to it.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+public final class TenantContext {
+
+	private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+	private TenantContext() {
+	}
+
+	/**
+	 * Gets the id of the tenant bound to the current thread.
+	 *
+	 * @return the tenant id, or {@link Tenant#DEFAULT_ID} if none is bound
+	 */
+	public static String currentTenantId() {
+		String tenantId = CURRENT.get();
+		return tenantId != null ? tenantId : Tenant.DEFAULT_ID;
+	}
+
+	static void set(Tenant tenant) {
+		CURRENT.set(tenant.getId());
+	}
+
+	static void clear() {
+		CURRENT.remove();
+	}
+}
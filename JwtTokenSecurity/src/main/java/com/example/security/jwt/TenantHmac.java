@@ -0,0 +1,108 @@
+package com.example.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * HMAC-SHA256 with a key per tenant and a {@link Mac} per tenant and thread.
+ *
+ * <p>
+ * The hand-written token codecs sign and verify on the request path, where
+ * neither looking up a {@code Mac} nor initializing it with the key is cheap.
+ * Each thread lazily creates one instance per tenant and reuses it; signing
+ * writes into a caller-provided buffer, so it allocates nothing.
+ * </p>
+ *
+ * <p>
+ * Formats other than the JWTs use keys derived from the tenant's JWT key as
+ * {@code HMAC(key, context)}, so a MAC computed for one format is never valid
+ * for another.
+ * </p>
+ *
+ * @author Shivraj.Jadhav
+ */
+final class TenantHmac {
+
+	/**
+	 * Length of a MAC in bytes.
+	 */
+	static final int LENGTH = 32;
+
+	private static final String ALGORITHM = "HmacSHA256";
+
+	private final SecretKeySpec[] keys;
+	private final ThreadLocal<Mac[]> macs;
+
+	/**
+	 * Constructs a {@code TenantHmac} over the tenants' JWT keys.
+	 *
+	 * @param tenantRegistry the registry holding the tenants' keys
+	 */
+	TenantHmac(TenantRegistry tenantRegistry) {
+		this(tenantRegistry, null);
+	}
+
+	/**
+	 * Constructs a {@code TenantHmac} over keys derived from the tenants' JWT
+	 * keys for the given context.
+	 *
+	 * @param tenantRegistry the registry holding the tenants' keys
+	 * @param context        the label the keys are derived for, or {@code null}
+	 *                       for the JWT keys themselves
+	 */
+	TenantHmac(TenantRegistry tenantRegistry, String context) {
+		this.keys = new SecretKeySpec[tenantRegistry.size()];
+		for (int i = 0; i < keys.length; i++) {
+			SecretKeySpec key = tenantRegistry.byIndex(i).getKey();
+			keys[i] = context == null ? key : derive(key, context);
+		}
+		this.macs = ThreadLocal.withInitial(() -> new Mac[keys.length]);
+	}
+
+	/**
+	 * Computes the MAC of a tenant over part of a buffer.
+	 *
+	 * @param tenant the tenant whose key is used
+	 * @param input  the buffer holding the input
+	 * @param length the number of bytes, from the start of the buffer, to sign
+	 * @param mac    the buffer the {@value #LENGTH} bytes of the MAC are
+	 *               written to
+	 */
+	void sign(Tenant tenant, byte[] input, int length, byte[] mac) {
+		try {
+			Mac hmac = hmac(tenant.getIndex());
+			hmac.update(input, 0, length);
+			hmac.doFinal(mac, 0);
+		} catch (ShortBufferException ex) {
+			throw new IllegalStateException("MAC buffer too small", ex);
+		}
+	}
+
+	private Mac hmac(int index) {
+		Mac[] threadMacs = macs.get();
+		Mac hmac = threadMacs[index];
+		if (hmac == null) {
+			hmac = newMac(keys[index]);
+			threadMacs[index] = hmac;
+		}
+		return hmac;
+	}
+
+	private static SecretKeySpec derive(SecretKeySpec key, String context) {
+		return new SecretKeySpec(newMac(key).doFinal(context.getBytes(StandardCharsets.US_ASCII)), ALGORITHM);
+	}
+
+	private static Mac newMac(SecretKeySpec key) {
+		try {
+			Mac hmac = Mac.getInstance(ALGORITHM);
+			hmac.init(key);
+			return hmac;
+		} catch (GeneralSecurityException ex) {
+			throw new IllegalStateException("HmacSHA256 is not available", ex);
+		}
+	}
+}
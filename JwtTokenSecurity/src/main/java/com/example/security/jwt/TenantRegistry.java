@@ -0,0 +1,166 @@
+package com.example.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import io.jsonwebtoken.io.Decoders;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Registry of the tenants this deployment serves and their signing keys.
+ * 
+ * <p>
+ * The default tenant uses {@code security.jwt.secret-key}. Further tenants are
+ * listed in {@code security.tenant.ids}, each with its Base64 key in
+ * {@code security.tenant.keys.<id>}. Tenants are held in an array indexed by
+ * their position, so the request path resolves one from a compact token's key
+ * id or a JWT's header segment without a map lookup or a database query.
+ * </p>
+ * 
+ * <p>
+ * JWTs of the default tenant keep the plain {@code {"alg":"HS256"}} header, so
+ * tokens issued before tenants existed remain valid; all other tenants are
+ * named in the {@code kid} header parameter.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+@Component
+public class TenantRegistry {
+
+	private static final Logger logger = LoggerFactory.getLogger(TenantRegistry.class);
+
+	/**
+	 * Compact tokens carry the tenant index in a single byte.
+	 */
+	static final int MAX_TENANTS = 256;
+
+	private static final String MAC_ALGORITHM = "HmacSHA256";
+
+	private final Environment environment;
+
+	private Tenant[] tenants;
+	private Map<String, Tenant> tenantsById;
+
+	/**
+	 * Constructs a new {@code TenantRegistry}.
+	 *
+	 * @param environment the environment the tenant keys are read from
+	 */
+	public TenantRegistry(Environment environment) {
+		this.environment = environment;
+	}
+
+	@PostConstruct
+	void init() {
+		List<Tenant> list = new ArrayList<>();
+		list.add(newTenant(Tenant.DEFAULT_ID, 0, environment.getRequiredProperty("security.jwt.secret-key")));
+
+		for (String id : StringUtils.commaDelimitedListToStringArray(environment.getProperty("security.tenant.ids", ""))) {
+			id = id.trim();
+			if (id.isEmpty() || id.equals(Tenant.DEFAULT_ID)) {
+				continue;
+			}
+			if (!id.matches("[A-Za-z0-9_-]{1,50}")) {
+				throw new IllegalStateException("Invalid tenant id: " + id);
+			}
+			list.add(newTenant(id, list.size(), environment.getRequiredProperty("security.tenant.keys." + id)));
+		}
+
+		if (list.size() > MAX_TENANTS) {
+			throw new IllegalStateException("At most " + MAX_TENANTS + " tenants are supported");
+		}
+
+		tenants = list.toArray(Tenant[]::new);
+		tenantsById = new HashMap<>();
+		for (Tenant tenant : tenants) {
+			tenantsById.put(tenant.getId(), tenant);
+		}
+		logger.info("Registered tenants: {}", tenantsById.keySet());
+	}
+
+	/**
+	 * Gets the default tenant.
+	 *
+	 * @return the default tenant
+	 */
+	public Tenant getDefault() {
+		return tenants[0];
+	}
+
+	/**
+	 * Gets the number of registered tenants.
+	 *
+	 * @return the number of tenants, including the default one
+	 */
+	public int size() {
+		return tenants.length;
+	}
+
+	/**
+	 * Looks a tenant up by id.
+	 *
+	 * @param id the tenant id, or {@code null} for the default tenant
+	 * @return the tenant, or {@code null} if the id is unknown
+	 */
+	public Tenant byId(String id) {
+		return id == null ? tenants[0] : tenantsById.get(id);
+	}
+
+	/**
+	 * Looks a tenant up by index.
+	 *
+	 * @param index the tenant index
+	 * @return the tenant, or {@code null} if the index is out of range
+	 */
+	public Tenant byIndex(int index) {
+		return index >= 0 && index < tenants.length ? tenants[index] : null;
+	}
+
+	/**
+	 * Finds the tenant whose JWT header occupies {@code start..end} of the source.
+	 *
+	 * @param source the characters holding the token
+	 * @param start  the index the header segment starts at
+	 * @param end    the index of the dot ending the header segment
+	 * @return the tenant, or {@code null} if the header is not one this service
+	 *         writes
+	 */
+	public Tenant byJwtHeader(CharSequence source, int start, int end) {
+		for (Tenant tenant : tenants) {
+			String header = tenant.getJwtHeader();
+			if (header.length() == end - start && regionMatches(source, start, header)) {
+				return tenant;
+			}
+		}
+		return null;
+	}
+
+	private static boolean regionMatches(CharSequence source, int start, String header) {
+		for (int i = 0; i < header.length(); i++) {
+			if (source.charAt(start + i) != header.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static Tenant newTenant(String id, int index, String secretKey) {
+		SecretKeySpec key = new SecretKeySpec(Decoders.BASE64.decode(secretKey), MAC_ALGORITHM);
+		String json = index == 0 ? "{\"alg\":\"HS256\"}" : "{\"kid\":\"" + id + "\",\"alg\":\"HS256\"}";
+		String header = Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+		return new Tenant(id, index, key, header);
+	}
+}
@@ -0,0 +1,291 @@
+package com.example.security.jwt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel for expiring large numbers of entries.
+ * <p>
+ * Time is divided into ticks of a fixed length. The wheel has {@value #LEVELS}
+ * levels of {@value #SLOTS} slots each; level {@code n} spans
+ * {@code 64^(n+1)} ticks, so with one-second ticks the wheel reaches about 194
+ * days ahead, and entries further out are parked in the top level until they
+ * come into range. Every slot is an intrusive doubly linked list, which makes
+ * {@link #schedule(Object, long)} and {@link Timeout#cancel()} O(1)
+ * regardless of how many entries the wheel holds.
+ * </p>
+ *
+ * <p>
+ * {@link #advance(long)} is driven by the owner, typically from a
+ * {@code @Scheduled} method. It expires the slots of the ticks that have
+ * passed, moving entries down a level as their slot comes due, and hands all
+ * expired payloads to the callback as one batch, outside the wheel's lock.
+ * A bitmap of occupied slots per level lets it skip empty ticks, so the cost
+ * of an advance is bounded by the entries it touches rather than by the time
+ * elapsed or the size of the wheel.
+ * </p>
+ *
+ * @param <T> the type of the payloads
+ * @author Shivraj.Jadhav
+ */
+public final class TimingWheel<T> {
+
+	static final int LEVELS = 4;
+	static final int SLOTS = 64;
+
+	private static final int SLOT_BITS = 6;
+	private static final int SLOT_MASK = SLOTS - 1;
+
+	private final long tickMillis;
+	private final Consumer<List<T>> expiryCallback;
+	private final Timeout<T>[] heads;
+	private final long[] occupied = new long[LEVELS];
+
+	/** The last tick whose slot has been expired. */
+	private long currentTick;
+	private int size;
+
+	/**
+	 * Constructs a new {@code TimingWheel}.
+	 *
+	 * @param tickMillis     the length of a tick in milliseconds, the
+	 *                       resolution of the wheel
+	 * @param startMillis    the current time in epoch millis
+	 * @param expiryCallback the callback receiving each batch of expired
+	 *                       payloads
+	 */
+	@SuppressWarnings("unchecked")
+	public TimingWheel(long tickMillis, long startMillis, Consumer<List<T>> expiryCallback) {
+		if (tickMillis <= 0) {
+			throw new IllegalArgumentException("Tick must be positive: " + tickMillis);
+		}
+		this.tickMillis = tickMillis;
+		this.expiryCallback = expiryCallback;
+		this.heads = new Timeout[LEVELS * SLOTS];
+		this.currentTick = startMillis / tickMillis;
+	}
+
+	/**
+	 * Schedules a payload to expire at the given time.
+	 *
+	 * <p>
+	 * The payload expires on the first {@link #advance(long)} at or after the
+	 * end of the tick holding {@code deadlineMillis}; a deadline in the past
+	 * expires at the end of the current tick.
+	 * </p>
+	 *
+	 * @param payload        the payload handed to the callback on expiry
+	 * @param deadlineMillis the expiry time in epoch millis
+	 * @return the handle cancelling the expiry
+	 */
+	public Timeout<T> schedule(T payload, long deadlineMillis) {
+		Timeout<T> timeout = new Timeout<>(this, payload, ceilDiv(deadlineMillis, tickMillis));
+		synchronized (this) {
+			place(timeout);
+			size++;
+		}
+		return timeout;
+	}
+
+	/**
+	 * Expires every entry due by the given time.
+	 *
+	 * @param nowMillis the current time in epoch millis
+	 * @return the number of entries expired
+	 */
+	public int advance(long nowMillis) {
+		long targetTick = nowMillis / tickMillis;
+		Timeout<T> expired = null;
+		synchronized (this) {
+			while (currentTick < targetTick) {
+				long tick = currentTick + 1;
+				if ((tick & SLOT_MASK) != 0) {
+					// Jump to the next occupied slot of this round, or to the next round
+					long pending = occupied[0] & (-1L << (tick & SLOT_MASK));
+					long next = pending != 0 ? (tick & ~SLOT_MASK) + Long.numberOfTrailingZeros(pending)
+							: (tick | SLOT_MASK) + 1;
+					if (next > targetTick) {
+						currentTick = targetTick;
+						break;
+					}
+					currentTick = next - 1;
+					if ((next & SLOT_MASK) == 0) {
+						continue;
+					}
+					tick = next;
+				} else {
+					for (int level = LEVELS - 1; level > 0; level--) {
+						if ((tick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+							cascade(level, (int) (tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+						}
+					}
+				}
+				expired = append(expired, detach(0, (int) tick & SLOT_MASK));
+				currentTick = tick;
+			}
+		}
+		return dispatch(expired);
+	}
+
+	/**
+	 * Returns the number of scheduled entries.
+	 *
+	 * @return the number of entries not yet expired or cancelled
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	private synchronized boolean cancel(Timeout<T> timeout) {
+		if (timeout.bucket < 0) {
+			return false;
+		}
+		unlink(timeout);
+		size--;
+		return true;
+	}
+
+	/**
+	 * Puts an entry into the lowest level whose current round covers its
+	 * deadline. Must hold the lock.
+	 */
+	private void place(Timeout<T> timeout) {
+		long base = currentTick + 1;
+		long tick = Math.max(timeout.deadlineTick, base);
+		int level = 0;
+		while (level < LEVELS - 1 && (tick >>> (SLOT_BITS * (level + 1))) != (base >>> (SLOT_BITS * (level + 1)))) {
+			level++;
+		}
+		int bucket = level * SLOTS + ((int) (tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+
+		Timeout<T> head = heads[bucket];
+		timeout.bucket = bucket;
+		timeout.prev = null;
+		timeout.next = head;
+		if (head != null) {
+			head.prev = timeout;
+		}
+		heads[bucket] = timeout;
+		occupied[level] |= 1L << (bucket & SLOT_MASK);
+	}
+
+	private void unlink(Timeout<T> timeout) {
+		int bucket = timeout.bucket;
+		if (timeout.prev != null) {
+			timeout.prev.next = timeout.next;
+		} else {
+			heads[bucket] = timeout.next;
+			if (timeout.next == null) {
+				occupied[bucket / SLOTS] &= ~(1L << (bucket & SLOT_MASK));
+			}
+		}
+		if (timeout.next != null) {
+			timeout.next.prev = timeout.prev;
+		}
+		timeout.bucket = -1;
+		timeout.prev = null;
+		timeout.next = null;
+	}
+
+	/**
+	 * Moves the entries of a slot one or more levels down. Must hold the lock.
+	 */
+	private void cascade(int level, int slot) {
+		Timeout<T> timeout = detach(level, slot);
+		while (timeout != null) {
+			Timeout<T> next = timeout.next;
+			place(timeout);
+			timeout = next;
+		}
+	}
+
+	/**
+	 * Empties a slot and returns its list. Must hold the lock.
+	 */
+	private Timeout<T> detach(int level, int slot) {
+		int bucket = level * SLOTS + slot;
+		Timeout<T> head = heads[bucket];
+		heads[bucket] = null;
+		occupied[level] &= ~(1L << slot);
+		return head;
+	}
+
+	/**
+	 * Marks the entries of a detached slot as expired and prepends them to the
+	 * batch. Must hold the lock.
+	 */
+	private Timeout<T> append(Timeout<T> batch, Timeout<T> list) {
+		Timeout<T> timeout = list;
+		while (timeout != null) {
+			Timeout<T> next = timeout.next;
+			timeout.bucket = -1;
+			timeout.prev = null;
+			timeout.next = batch;
+			batch = timeout;
+			size--;
+			timeout = next;
+		}
+		return batch;
+	}
+
+	private int dispatch(Timeout<T> expired) {
+		if (expired == null) {
+			return 0;
+		}
+		List<T> payloads = new ArrayList<>();
+		for (Timeout<T> timeout = expired; timeout != null;) {
+			payloads.add(timeout.payload);
+			Timeout<T> next = timeout.next;
+			timeout.next = null;
+			timeout = next;
+		}
+		expiryCallback.accept(payloads);
+		return payloads.size();
+	}
+
+	private static long ceilDiv(long x, long y) {
+		return -Math.floorDiv(-x, y);
+	}
+
+	/**
+	 * Handle of a scheduled entry.
+	 *
+	 * @param <T> the type of the payload
+	 */
+	public static final class Timeout<T> {
+
+		private final TimingWheel<T> wheel;
+		private final T payload;
+		private final long deadlineTick;
+
+		/** The level * SLOTS + slot the entry is linked into, or -1. */
+		private int bucket = -1;
+		private Timeout<T> prev;
+		private Timeout<T> next;
+
+		private Timeout(TimingWheel<T> wheel, T payload, long deadlineTick) {
+			this.wheel = wheel;
+			this.payload = payload;
+			this.deadlineTick = deadlineTick;
+		}
+
+		/**
+		 * Gets the payload of the entry.
+		 *
+		 * @return the payload
+		 */
+		public T getPayload() {
+			return payload;
+		}
+
+		/**
+		 * Cancels the expiry of the entry.
+		 *
+		 * @return true if the entry was still scheduled
+		 */
+		public boolean cancel() {
+			return wheel.cancel(this);
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package com.example.security.jwt;
+
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.stereotype.Component;
+
+import com.example.security.models.ServiceAccount;
+import com.example.security.models.User;
+import com.example.security.service.PermissionIndex;
+import com.example.security.service.PermissionSet;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Builds the {@link JwtAuthenticationToken} of a request whose token has been
+ * verified.
+ *
+ * <p>
+ * The principal is a {@link TokenPrincipal} copied from the loaded subject
+ * rather than the entity itself, and the authorities are the
+ * {@link PermissionSet}s precomputed by the {@link PermissionIndex}. The
+ * details carry the remote address only: the API is stateless, so the
+ * session lookup {@code WebAuthenticationDetailsSource} performs on every
+ * request can never find one. A request thus allocates the principal, the
+ * details and the token, nothing more.
+ * </p>
+ *
+ * @author Shivraj.Jadhav
+ */
+@Component
+public class TokenAuthenticationFactory {
+
+	private final PermissionIndex permissionIndex;
+
+	/**
+	 * Constructs a new {@code TokenAuthenticationFactory}.
+	 *
+	 * @param permissionIndex the index resolving token permission bitmaps
+	 */
+	public TokenAuthenticationFactory(PermissionIndex permissionIndex) {
+		this.permissionIndex = permissionIndex;
+	}
+
+	/**
+	 * Authenticates a user.
+	 *
+	 * @param user        the user the token was issued to
+	 * @param tenant      the tenant of the token
+	 * @param permissions the permission bitmap of the token
+	 * @param request     the current request
+	 * @return the authentication
+	 */
+	public JwtAuthenticationToken forUser(User user, Tenant tenant, long permissions, HttpServletRequest request) {
+		return authenticate(new TokenPrincipal(user.getId(), user.getEmail(), tenant, false), permissions, request);
+	}
+
+	/**
+	 * Authenticates a service account.
+	 *
+	 * @param serviceAccount the account the token was issued to
+	 * @param tenant         the tenant of the token
+	 * @param permissions    the permission bitmap of the token
+	 * @param request        the current request
+	 * @return the authentication
+	 */
+	public JwtAuthenticationToken forServiceAccount(ServiceAccount serviceAccount, Tenant tenant, long permissions,
+			HttpServletRequest request) {
+		return authenticate(new TokenPrincipal(serviceAccount.getId(), serviceAccount.getName(), tenant, true),
+				permissions, request);
+	}
+
+	private JwtAuthenticationToken authenticate(TokenPrincipal principal, long permissions,
+			HttpServletRequest request) {
+		JwtAuthenticationToken authToken = new JwtAuthenticationToken(principal,
+				permissionIndex.authorities(permissions));
+		authToken.setDetails(new WebAuthenticationDetails(request.getRemoteAddr(), null));
+		return authToken;
+	}
+}
@@ -0,0 +1,140 @@
+package com.example.security.jwt;
+
+import java.time.Clock;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * The clock every token is issued and checked against.
+ *
+ * <p>
+ * By default the time is read from the system clock on every call. With
+ * {@code security.jwt.clock.tick} set to a number of milliseconds, a daemon
+ * thread reads it once per tick instead and calls return that cached value,
+ * so the request path neither reads the clock nor allocates for it; issue and
+ * expiry times are then up to one tick behind.
+ * </p>
+ *
+ * <p>
+ * A token is only considered expired {@code security.jwt.clock.skew}
+ * milliseconds after its expiry time, tolerating clocks of other issuers that
+ * run behind; jjwt is given the same tolerance, rounded down to seconds.
+ * Tests and benchmarks construct the clock over a fixed or offset
+ * {@link Clock} to make expiry deterministic.
+ * </p>
+ *
+ * @author Shivraj.Jadhav
+ */
+@Component
+public class TokenClock {
+
+	private static final Logger logger = LoggerFactory.getLogger(TokenClock.class);
+
+	private final Clock source;
+
+	private volatile long cached;
+	private volatile boolean ticking;
+	private Thread ticker;
+
+	@Value("${security.jwt.clock.tick:0}")
+	private long tick;
+
+	@Value("${security.jwt.clock.skew:0}")
+	private long skew;
+
+	/**
+	 * Constructs a {@code TokenClock} over the system clock.
+	 */
+	@Autowired
+	public TokenClock() {
+		this(Clock.systemUTC());
+	}
+
+	/**
+	 * Constructs a {@code TokenClock} over the given clock.
+	 *
+	 * @param source the clock the time is read from
+	 */
+	public TokenClock(Clock source) {
+		this.source = source;
+	}
+
+	@PostConstruct
+	void start() {
+		if (tick <= 0) {
+			return;
+		}
+
+		cached = source.millis();
+		ticking = true;
+		ticker = new Thread(this::work, "token-clock");
+		ticker.setDaemon(true);
+		ticker.start();
+		logger.info("Token clock cached with a tick of {} ms, clock skew {} ms", tick, skew);
+	}
+
+	@PreDestroy
+	void stop() {
+		if (ticker == null) {
+			return;
+		}
+		ticking = false;
+		LockSupport.unpark(ticker);
+	}
+
+	private void work() {
+		long tickNanos = TimeUnit.MILLISECONDS.toNanos(tick);
+		while (ticking) {
+			LockSupport.parkNanos(tickNanos);
+			cached = source.millis();
+		}
+	}
+
+	/**
+	 * Gets the current time.
+	 *
+	 * @return the time in milliseconds since the epoch
+	 */
+	public long millis() {
+		return ticking ? cached : source.millis();
+	}
+
+	/**
+	 * Checks whether a token expiring at the given time has expired, allowing
+	 * for the clock skew.
+	 *
+	 * @param expiresAt the expiry time in milliseconds since the epoch
+	 * @return true if the token has expired
+	 */
+	public boolean isExpired(long expiresAt) {
+		return expiresAt + skew <= millis();
+	}
+
+	/**
+	 * Gets the tolerated clock skew.
+	 *
+	 * @return the skew in milliseconds
+	 */
+	public long getSkew() {
+		return skew;
+	}
+
+	/**
+	 * Adapts the clock to jjwt, which checks the time claims while parsing.
+	 *
+	 * @return a jjwt clock reading this clock
+	 */
+	io.jsonwebtoken.Clock jjwtClock() {
+		return () -> new Date(millis());
+	}
+}
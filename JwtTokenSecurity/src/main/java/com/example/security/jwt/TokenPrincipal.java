@@ -0,0 +1,85 @@
+package com.example.security.jwt;
+
+import java.security.Principal;
+
+import com.example.security.models.ServiceAccount;
+
+/**
+ * The subject of an authenticated token, as seen by the rest of the request.
+ *
+ * <p>
+ * A small immutable snapshot of the user or service account the token was
+ * issued to, taken once its subject has been checked: the id, the name the
+ * subject is looked up by and the tenant. The security context holds this
+ * instead of the JPA entity, so nothing on the request path touches managed
+ * state; handlers needing the full profile load it through the tenant cache.
+ * </p>
+ *
+ * @author Shivraj.Jadhav
+ */
+public final class TokenPrincipal implements Principal {
+
+	private final Integer id;
+	private final String name;
+	private final Tenant tenant;
+	private final boolean serviceAccount;
+
+	/**
+	 * Constructs a new {@code TokenPrincipal}.
+	 *
+	 * @param id             the id of the user or service account
+	 * @param name           the email of the user or the name of the service
+	 *                       account
+	 * @param tenant         the tenant the subject belongs to
+	 * @param serviceAccount whether the subject is a service account
+	 */
+	public TokenPrincipal(Integer id, String name, Tenant tenant, boolean serviceAccount) {
+		this.id = id;
+		this.name = name;
+		this.tenant = tenant;
+		this.serviceAccount = serviceAccount;
+	}
+
+	/**
+	 * Gets the id of the subject.
+	 *
+	 * @return the id
+	 */
+	public Integer getId() {
+		return id;
+	}
+
+	/**
+	 * Gets the email of the user, or the name of the service account without
+	 * the {@value ServiceAccount#SUBJECT_PREFIX} prefix.
+	 *
+	 * @return the name
+	 */
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets the tenant the subject belongs to.
+	 *
+	 * @return the tenant
+	 */
+	public Tenant getTenant() {
+		return tenant;
+	}
+
+	/**
+	 * Checks whether the subject is a service account.
+	 *
+	 * @return true for a service account, false for a user
+	 */
+	public boolean isServiceAccount() {
+		return serviceAccount;
+	}
+
+	@Override
+	public String toString() {
+		return (serviceAccount ? ServiceAccount.SUBJECT_PREFIX : "") + name + '@' + tenant.getId();
+	}
+}
@@ -0,0 +1,167 @@
+package com.example.security.jwt;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.security.models.User;
+import com.example.security.service.PermissionIndex;
+
+/**
+ * Issues sliding renewals for JWTs that are close to expiry.
+ * 
+ * <p>
+ * Once a valid token has used up {@code security.jwt.renewal.fraction} of its
+ * lifetime, {@link JwtAuthenticationFilter} hands the client a fresh token in
+ * the {@value #RENEWED_TOKEN_HEADER} response header. Clients that swap tokens
+ * as they go never hit the hard expiry, so re-logins through BCrypt are spread
+ * out instead of arriving together when a batch of tokens expires. The
+ * renewed token carries the user's current permissions, resolved from their
+ * roles by the {@link PermissionIndex}, so a change of roles reaches clients
+ * that never log in again at their next renewal.
+ * </p>
+ * 
+ * <p>
+ * Renewals are limited to one per subject every
+ * {@code security.jwt.renewal.min-interval} milliseconds, so a client that
+ * keeps sending its old token is not handed a new one on every request. Each
+ * claim is dropped by a {@link TimingWheel} once its interval has passed.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+@Component
+public class TokenRenewalService {
+
+	private static final Logger logger = LoggerFactory.getLogger(TokenRenewalService.class);
+
+	/**
+	 * Response header carrying the renewed token.
+	 */
+	public static final String RENEWED_TOKEN_HEADER = "X-Renewed-Token";
+
+	private static final long TICK_MILLIS = 1000L;
+
+	private final JwtService jwtService;
+	private final PermissionIndex permissionIndex;
+	private final TokenClock tokenClock;
+	private final ConcurrentMap<String, Long> lastRenewals = new ConcurrentHashMap<>();
+	private final TimingWheel<RenewalClaim> expiryWheel;
+
+	@Value("${security.jwt.renewal.fraction:0.75}")
+	private double fraction;
+
+	@Value("${security.jwt.renewal.min-interval:60000}")
+	private long minInterval;
+
+	/**
+	 * Constructs a new {@code TokenRenewalService}.
+	 *
+	 * @param jwtService      the service signing the renewed tokens
+	 * @param permissionIndex the index resolving the user's current permissions
+	 * @param tokenClock      the clock token ages are measured against
+	 */
+	public TokenRenewalService(JwtService jwtService, PermissionIndex permissionIndex, TokenClock tokenClock) {
+		this.jwtService = jwtService;
+		this.permissionIndex = permissionIndex;
+		this.tokenClock = tokenClock;
+		this.expiryWheel = new TimingWheel<>(TICK_MILLIS, tokenClock.millis(), this::expired);
+	}
+
+	/**
+	 * Checks whether renewal is switched on.
+	 *
+	 * @return {@code true} if the renewal fraction is between 0 and 1
+	 */
+	public boolean isEnabled() {
+		return fraction > 0 && fraction < 1;
+	}
+
+	/**
+	 * Returns a renewed token if the current one is due for renewal and the
+	 * subject has not been renewed recently.
+	 *
+	 * @param user      the authenticated user
+	 * @param issuedAt  the issue time of the current token, in epoch millis
+	 * @param expiresAt the expiry time of the current token, in epoch millis
+	 * @return the renewed token, or {@code null} if none is issued
+	 */
+	public String renewIfDue(User user, long issuedAt, long expiresAt) {
+		if (!isEnabled() || issuedAt <= 0 || expiresAt <= issuedAt) {
+			return null;
+		}
+
+		long now = tokenClock.millis();
+		if (now - issuedAt < (long) ((expiresAt - issuedAt) * fraction)) {
+			return null;
+		}
+
+		String subject = user.getUsername();
+		if (!acquire(subject, now)) {
+			return null;
+		}
+
+		logger.debug("Renewing token for user: {}", subject);
+		// Not the claim of the old token, or revoked roles would slide along forever
+		long permissions = permissionIndex.resolve(user).getMask();
+		return jwtService.generateToken(Map.of(JwtService.PERMISSIONS_CLAIM, permissions), user);
+	}
+
+	/**
+	 * Claims the renewal slot of a subject, failing if it was claimed less than
+	 * the minimum interval ago.
+	 */
+	private boolean acquire(String subject, long now) {
+		Long claimed = now;
+		while (true) {
+			Long last = lastRenewals.putIfAbsent(subject, claimed);
+			if (last == null) {
+				break;
+			}
+			if (now - last < minInterval) {
+				return false;
+			}
+			if (lastRenewals.replace(subject, last, claimed)) {
+				break;
+			}
+		}
+		expiryWheel.schedule(new RenewalClaim(subject, claimed), now + minInterval);
+		return true;
+	}
+
+	/**
+	 * Drops the renewal claims whose interval has passed.
+	 */
+	@Scheduled(fixedDelay = TICK_MILLIS)
+	public void expire() {
+		expiryWheel.advance(tokenClock.millis());
+	}
+
+	private void expired(List<RenewalClaim> claims) {
+		for (RenewalClaim claim : claims) {
+			// A newer claim of the same subject replaced the value and has its own expiry
+			lastRenewals.remove(claim.subject, claim.claimed);
+		}
+	}
+
+	/**
+	 * A subject's claim on the renewal slot, scheduled for removal.
+	 */
+	private static final class RenewalClaim {
+
+		private final String subject;
+		private final Long claimed;
+
+		private RenewalClaim(String subject, Long claimed) {
+			this.subject = subject;
+			this.claimed = claimed;
+		}
+	}
+}
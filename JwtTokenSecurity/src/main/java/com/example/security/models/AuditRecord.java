@@ -0,0 +1,114 @@
+package com.example.security.models;
+
+import java.util.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * A row of the authentication audit trail.
+ * <p>
+ * Rows are written in JDBC batches by the
+ * {@link com.example.security.service.AuditLog} and never updated; the
+ * request path does not read this table.
+ * </p>
+ *
+ * @author Shivraj.Jadhav
+ *
+ */
+@Entity
+@Table(name = "audit_events", indexes = { @Index(name = "idx_audit_events_occurred_at", columnList = "occurred_at"),
+		@Index(name = "idx_audit_events_subject", columnList = "subject") })
+public class AuditRecord {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(nullable = false)
+	private Long id;
+
+	@Column(name = "event_type", length = 32, nullable = false)
+	private String eventType;
+
+	@Column(name = "occurred_at", nullable = false)
+	private Date occurredAt;
+
+	@Column(length = 50)
+	private String tenant;
+
+	@Column(length = 100)
+	private String subject;
+
+	@Column(name = "client_address", length = 45)
+	private String clientAddress;
+
+	@Column(length = 64)
+	private String detail;
+
+	/**
+	 * Gets the unique identifier for the record.
+	 *
+	 * @return the record ID
+	 */
+	public Long getId() {
+		return id;
+	}
+
+	/**
+	 * Gets the kind of event.
+	 *
+	 * @return the event type
+	 */
+	public String getEventType() {
+		return eventType;
+	}
+
+	/**
+	 * Gets the time the event occurred.
+	 *
+	 * @return the time of the event
+	 */
+	public Date getOccurredAt() {
+		return occurredAt;
+	}
+
+	/**
+	 * Gets the id of the tenant the event concerns.
+	 *
+	 * @return the tenant id, or {@code null} if unknown
+	 */
+	public String getTenant() {
+		return tenant;
+	}
+
+	/**
+	 * Gets the email or token subject the event concerns.
+	 *
+	 * @return the subject, or {@code null} if unknown
+	 */
+	public String getSubject() {
+		return subject;
+	}
+
+	/**
+	 * Gets the address of the client.
+	 *
+	 * @return the client address
+	 */
+	public String getClientAddress() {
+		return clientAddress;
+	}
+
+	/**
+	 * Gets the reason of a failure or rejection.
+	 *
+	 * @return the detail, or {@code null}
+	 */
+	public String getDetail() {
+		return detail;
+	}
+}
@@ -0,0 +1,87 @@
+package com.example.security.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Durable copy of the response to a request made with an
+ * {@code Idempotency-Key}.
+ * <p>
+ * Rows are written by the {@link com.example.security.service.IdempotencyStore}
+ * once a request completes and read only when a retry misses its in-memory
+ * entry. The key is stored as a SHA-256 digest of the tenant and key, the
+ * request as a keyed fingerprint, so neither the key nor the password of a
+ * signup can be read back.
+ * </p>
+ *
+ * @author Shivraj.Jadhav
+ *
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at"))
+public class IdempotencyRecord {
+
+	@Id
+	@Column(name = "key_hash", length = 64, nullable = false)
+	private String keyHash;
+
+	@Column(length = 64, nullable = false)
+	private String fingerprint;
+
+	@Column(nullable = false)
+	private int status;
+
+	@Column(length = 255)
+	private String body;
+
+	@Column(name = "expires_at", nullable = false)
+	private long expiresAt;
+
+	/**
+	 * Gets the hex-encoded digest of the tenant and key.
+	 *
+	 * @return the key digest
+	 */
+	public String getKeyHash() {
+		return keyHash;
+	}
+
+	/**
+	 * Gets the hex-encoded fingerprint of the request.
+	 *
+	 * @return the request fingerprint
+	 */
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * Gets the HTTP status of the response.
+	 *
+	 * @return the status code
+	 */
+	public int getStatus() {
+		return status;
+	}
+
+	/**
+	 * Gets the body of the response.
+	 *
+	 * @return the body
+	 */
+	public String getBody() {
+		return body;
+	}
+
+	/**
+	 * Gets the time after which the key may be reused.
+	 *
+	 * @return the expiry in milliseconds
+	 */
+	public long getExpiresAt() {
+		return expiresAt;
+	}
+}
@@ -0,0 +1,108 @@
+package com.example.security.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Durable copy of an issued opaque token.
+ * <p>
+ * Rows are written behind the in-memory token store and read back only at
+ * startup; the request path never touches this table. Only a SHA-256 digest of
+ * the token is kept, so the table cannot be used to replay tokens.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ * 
+ */
+@Entity
+@Table(name = "opaque_tokens", indexes = @Index(name = "idx_opaque_tokens_expires_at", columnList = "expires_at"))
+public class OpaqueToken {
+
+	@Id
+	@Column(name = "token_hash", length = 32, nullable = false)
+	private String tokenHash;
+
+	@Column(name = "user_id", nullable = false)
+	private Integer userId;
+
+	@Column(length = 100, nullable = false)
+	private String email;
+
+	@Column(length = 50, nullable = false)
+	private String tenant;
+
+	@Column(nullable = false)
+	private long permissions;
+
+	@Column(name = "issued_at", nullable = false)
+	private long issuedAt;
+
+	@Column(name = "expires_at", nullable = false)
+	private long expiresAt;
+
+	/**
+	 * Gets the hex-encoded digest of the token.
+	 * 
+	 * @return the token digest
+	 */
+	public String getTokenHash() {
+		return tokenHash;
+	}
+
+	/**
+	 * Gets the id of the user the token was issued to.
+	 * 
+	 * @return the user id
+	 */
+	public Integer getUserId() {
+		return userId;
+	}
+
+	/**
+	 * Gets the email of the user the token was issued to.
+	 * 
+	 * @return the email
+	 */
+	public String getEmail() {
+		return email;
+	}
+
+	/**
+	 * Gets the id of the tenant of the user.
+	 * 
+	 * @return the tenant id
+	 */
+	public String getTenant() {
+		return tenant;
+	}
+
+	/**
+	 * Gets the permission bitmap granted by the token.
+	 * 
+	 * @return the permission bitmap
+	 */
+	public long getPermissions() {
+		return permissions;
+	}
+
+	/**
+	 * Gets the issue time of the token.
+	 * 
+	 * @return the issue time in epoch millis
+	 */
+	public long getIssuedAt() {
+		return issuedAt;
+	}
+
+	/**
+	 * Gets the expiry time of the token.
+	 * 
+	 * @return the expiry time in epoch millis
+	 */
+	public long getExpiresAt() {
+		return expiresAt;
+	}
+}
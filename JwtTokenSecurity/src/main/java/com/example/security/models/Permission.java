@@ -0,0 +1,104 @@
+package com.example.security.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Represents a single permission that can be granted through a {@link Role}.
+ * <p>
+ * Each permission owns a fixed bit position between 0 and 63. A user's
+ * effective permissions are therefore a single {@code long}, which is what
+ * tokens carry and what authorization checks test against.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ * 
+ */
+@Entity
+@Table(name = "permissions")
+public class Permission {
+
+	/**
+	 * Permission to read one's own profile.
+	 */
+	public static final String USERS_READ_SELF = "USERS_READ_SELF";
+
+	/**
+	 * Permission to list all users.
+	 */
+	public static final String USERS_READ_ALL = "USERS_READ_ALL";
+
+	/**
+	 * Permission to create and disable the service accounts of one's tenant.
+	 */
+	public static final String SERVICE_ACCOUNTS_MANAGE = "SERVICE_ACCOUNTS_MANAGE";
+
+	/**
+	 * The number of distinct permissions a bitmap can hold.
+	 */
+	public static final int MAX_PERMISSIONS = Long.SIZE;
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.AUTO)
+	@Column(nullable = false)
+	private Integer id;
+
+	@Column(unique = true, length = 64, nullable = false)
+	private String name;
+
+	@Column(unique = true, nullable = false)
+	private int bit;
+
+	/**
+	 * Gets the unique identifier for the permission.
+	 * 
+	 * @return the permission ID
+	 */
+	public Integer getId() {
+		return id;
+	}
+
+	/**
+	 * Gets the name of the permission.
+	 * 
+	 * @return the permission name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Sets the name of the permission.
+	 * 
+	 * @param name the permission name
+	 * @return the updated Permission object
+	 */
+	public Permission setName(String name) {
+		this.name = name;
+		return this;
+	}
+
+	/**
+	 * Gets the bit position of the permission.
+	 * 
+	 * @return the bit position, between 0 and 63
+	 */
+	public int getBit() {
+		return bit;
+	}
+
+	/**
+	 * Sets the bit position of the permission.
+	 * 
+	 * @param bit the bit position, between 0 and 63
+	 * @return the updated Permission object
+	 */
+	public Permission setBit(int bit) {
+		this.bit = bit;
+		return this;
+	}
+}
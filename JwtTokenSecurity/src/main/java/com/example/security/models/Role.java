@@ -0,0 +1,97 @@
+package com.example.security.models;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.JoinTable;
+import jakarta.persistence.ManyToMany;
+import jakarta.persistence.Table;
+
+/**
+ * Represents a named group of {@link Permission}s assigned to users.
+ * 
+ * @author Shivraj.Jadhav
+ * 
+ */
+@Entity
+@Table(name = "roles")
+public class Role {
+
+	/**
+	 * The role granted to every user on sign up.
+	 */
+	public static final String USER = "USER";
+
+	/**
+	 * The administrative role.
+	 */
+	public static final String ADMIN = "ADMIN";
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.AUTO)
+	@Column(nullable = false)
+	private Integer id;
+
+	@Column(unique = true, length = 64, nullable = false)
+	private String name;
+
+	@ManyToMany(fetch = FetchType.EAGER)
+	@JoinTable(name = "role_permissions", joinColumns = @JoinColumn(name = "role_id"), inverseJoinColumns = @JoinColumn(name = "permission_id"))
+	private Set<Permission> permissions = new HashSet<>();
+
+	/**
+	 * Gets the unique identifier for the role.
+	 * 
+	 * @return the role ID
+	 */
+	public Integer getId() {
+		return id;
+	}
+
+	/**
+	 * Gets the name of the role.
+	 * 
+	 * @return the role name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Sets the name of the role.
+	 * 
+	 * @param name the role name
+	 * @return the updated Role object
+	 */
+	public Role setName(String name) {
+		this.name = name;
+		return this;
+	}
+
+	/**
+	 * Gets the permissions granted by the role.
+	 * 
+	 * @return the granted permissions
+	 */
+	public Set<Permission> getPermissions() {
+		return permissions;
+	}
+
+	/**
+	 * Sets the permissions granted by the role.
+	 * 
+	 * @param permissions the granted permissions
+	 * @return the updated Role object
+	 */
+	public Role setPermissions(Set<Permission> permissions) {
+		this.permissions = permissions;
+		return this;
+	}
+}
@@ -0,0 +1,218 @@
+package com.example.security.models;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.hibernate.annotations.CreationTimestamp;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * A non-human account that batch jobs authenticate as to mint short-lived
+ * tokens for their workers.
+ * <p>
+ * A service account belongs to a tenant and is named uniquely within it. Its
+ * secret is a long random string handed out once at creation; only its
+ * SHA-256 digest is stored, which is safe for a secret of that entropy and
+ * costs microseconds to check instead of a BCrypt round. The permission
+ * bitmap is the ceiling for the scope of the tokens the account may mint.
+ * </p>
+ *
+ * <p>
+ * Tokens minted for the account name it as their subject with the
+ * {@value #SUBJECT_PREFIX} prefix, which no email address can start with, and
+ * the account is their principal.
+ * </p>
+ *
+ * @author Shivraj.Jadhav
+ *
+ */
+@SuppressWarnings("serial")
+@Entity
+@Table(name = "service_accounts", uniqueConstraints = @UniqueConstraint(columnNames = { "tenant", "name" }))
+public class ServiceAccount implements UserDetails {
+
+	/**
+	 * Prefix of the token subject naming a service account.
+	 */
+	public static final String SUBJECT_PREFIX = "service:";
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.AUTO)
+	@Column(nullable = false)
+	private Integer id;
+
+	@Column(length = 64, nullable = false)
+	private String name;
+
+	@JsonIgnore
+	@Column(length = 50, nullable = false)
+	private String tenant;
+
+	@JsonIgnore
+	@Column(name = "secret_hash", length = 64, nullable = false)
+	private String secretHash;
+
+	@Column(nullable = false)
+	private long permissions;
+
+	@Column(nullable = false)
+	private boolean enabled = true;
+
+	@CreationTimestamp
+	@Column(updatable = false, name = "created_at")
+	private Date createdAt;
+
+	/**
+	 * Gets the unique identifier for the service account.
+	 *
+	 * @return the service account ID
+	 */
+	public Integer getId() {
+		return id;
+	}
+
+	/**
+	 * Gets the name of the service account, unique within its tenant.
+	 *
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Sets the name of the service account.
+	 *
+	 * @param name the name
+	 * @return the updated ServiceAccount object
+	 */
+	public ServiceAccount setName(String name) {
+		this.name = name;
+		return this;
+	}
+
+	/**
+	 * Gets the id of the tenant the service account belongs to.
+	 *
+	 * @return the tenant id
+	 */
+	public String getTenant() {
+		return tenant;
+	}
+
+	/**
+	 * Sets the id of the tenant the service account belongs to.
+	 *
+	 * @param tenant the tenant id
+	 * @return the updated ServiceAccount object
+	 */
+	public ServiceAccount setTenant(String tenant) {
+		this.tenant = tenant;
+		return this;
+	}
+
+	/**
+	 * Gets the hex-encoded SHA-256 digest of the secret.
+	 *
+	 * @return the secret digest
+	 */
+	public String getSecretHash() {
+		return secretHash;
+	}
+
+	/**
+	 * Sets the hex-encoded SHA-256 digest of the secret.
+	 *
+	 * @param secretHash the secret digest
+	 * @return the updated ServiceAccount object
+	 */
+	public ServiceAccount setSecretHash(String secretHash) {
+		this.secretHash = secretHash;
+		return this;
+	}
+
+	/**
+	 * Gets the bitmap of the permissions the account's tokens may carry.
+	 *
+	 * @return the permission bitmap
+	 */
+	public long getPermissions() {
+		return permissions;
+	}
+
+	/**
+	 * Sets the bitmap of the permissions the account's tokens may carry.
+	 *
+	 * @param permissions the permission bitmap
+	 * @return the updated ServiceAccount object
+	 */
+	public ServiceAccount setPermissions(long permissions) {
+		this.permissions = permissions;
+		return this;
+	}
+
+	/**
+	 * Sets whether the account may mint tokens and its tokens are accepted.
+	 *
+	 * @param enabled false to disable the account
+	 * @return the updated ServiceAccount object
+	 */
+	public ServiceAccount setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		return this;
+	}
+
+	/**
+	 * Gets the timestamp when the service account was created.
+	 *
+	 * @return the creation timestamp
+	 */
+	public Date getCreatedAt() {
+		return createdAt;
+	}
+
+	/**
+	 * Returns no authorities; a token's authorities come from its own
+	 * permission bitmap.
+	 *
+	 * @return an empty list
+	 */
+	@Override
+	public Collection<? extends GrantedAuthority> getAuthorities() {
+		return List.of();
+	}
+
+	@JsonIgnore
+	@Override
+	public String getPassword() {
+		return secretHash;
+	}
+
+	/**
+	 * Returns the subject of the account's tokens.
+	 *
+	 * @return the name with the {@value #SUBJECT_PREFIX} prefix
+	 */
+	@JsonIgnore
+	@Override
+	public String getUsername() {
+		return SUBJECT_PREFIX + name;
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+}
@@ -0,0 +1,23 @@
+package com.example.security.repository;
+
+import java.util.Optional;
+import org.springframework.data.repository.CrudRepository;
+import com.example.security.models.Permission;
+
+/**
+ * Repository interface for managing {@link Permission} entities.
+ * 
+ * @author Shivraj.Jadhav
+ * 
+ */
+public interface PermissionRepository extends CrudRepository<Permission, Integer> {
+
+	/**
+	 * Finds a permission by its name.
+	 * 
+	 * @param name the name of the permission
+	 * @return an {@link Optional} containing the permission if found, otherwise
+	 *         {@link Optional#empty()}
+	 */
+	Optional<Permission> findByName(String name);
+}
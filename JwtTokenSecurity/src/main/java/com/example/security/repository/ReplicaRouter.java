@@ -0,0 +1,208 @@
+package com.example.security.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.example.security.jwt.TimingWheel;
+
+/**
+ * Routes read-only user lookups to read replicas.
+ *
+ * <p>
+ * The replicas of a shard are listed by JDBC URL in
+ * {@code security.replica.urls.<shard>} and share the driver and credentials of
+ * {@code spring.datasource}. Each shard with replicas is wrapped in a
+ * {@link ReplicaRoutingDataSource}, so read-only transactions go to a healthy
+ * replica and everything else to the shard's primary.
+ * </p>
+ *
+ * <p>
+ * Replicas lag behind the primary, so a user who has just signed up might not
+ * be found by the login that follows. Writes are therefore recorded by email
+ * and id, and for {@code security.replica.read-your-writes-window}
+ * milliseconds afterwards {@link ShardRouter} pins the lookups of that user to
+ * the primary. The record is kept by this instance only; deployments spreading
+ * a signup and its login over several instances need a window covering their
+ * replication lag or sticky routing.
+ * </p>
+ *
+ * @author Shivraj.Jadhav
+ */
+@Component
+public class ReplicaRouter {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReplicaRouter.class);
+
+	private static final long TICK_MILLIS = 1000L;
+
+	private final Environment environment;
+	private final List<ReplicaRoutingDataSource> routed = new CopyOnWriteArrayList<>();
+	private final ConcurrentMap<Object, Long> recentWrites = new ConcurrentHashMap<>();
+	private final TimingWheel<RecentWrite> expiryWheel = new TimingWheel<>(TICK_MILLIS, System.currentTimeMillis(),
+			this::expired);
+
+	@Value("${security.replica.read-your-writes-window:5000}")
+	private long readYourWritesWindow;
+
+	@Value("${security.replica.health-check-timeout:1}")
+	private int healthCheckTimeout;
+
+	/**
+	 * Constructs a new {@code ReplicaRouter}.
+	 *
+	 * @param environment the environment the replica URLs are read from
+	 */
+	public ReplicaRouter(Environment environment) {
+		this.environment = environment;
+	}
+
+	/**
+	 * Gets the JDBC URLs of the read replicas of a shard.
+	 *
+	 * @param shard the shard index
+	 * @return the URLs, empty if the shard has no replicas
+	 */
+	public List<String> getReplicaUrls(int shard) {
+		List<String> urls = new ArrayList<>();
+		for (String url : StringUtils
+				.commaDelimitedListToStringArray(environment.getProperty("security.replica.urls." + shard, ""))) {
+			if (!url.isBlank()) {
+				urls.add(url.trim());
+			}
+		}
+		return urls;
+	}
+
+	/**
+	 * Returns the data source of a shard, routing read-only transactions to
+	 * its replicas if it has any.
+	 *
+	 * @param shard    the shard index
+	 * @param primary  the primary of the shard
+	 * @param replicas the replicas of the shard, by JDBC URL
+	 * @return the primary itself, or the replica-routing data source
+	 */
+	public DataSource route(int shard, DataSource primary, Map<String, DataSource> replicas) {
+		if (replicas.isEmpty()) {
+			return primary;
+		}
+		ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(shard, primary, replicas);
+		routed.add(dataSource);
+		logger.info("Read-only lookups of shard {} go to {} replicas", shard, replicas.size());
+		// Defers picking the database until the transaction's read-only flag is set
+		return new LazyConnectionDataSourceProxy(dataSource);
+	}
+
+	/**
+	 * Returns whether any shard has read replicas.
+	 *
+	 * @return true if lookups may be served by replicas
+	 */
+	public boolean isEnabled() {
+		return !routed.isEmpty();
+	}
+
+	/**
+	 * Records that a user has been written, pinning the lookups of the user to
+	 * the primary for the read-your-writes window.
+	 *
+	 * @param email the email of the user
+	 * @param id    the id of the user
+	 */
+	public void recordWrite(String email, Integer id) {
+		if (!isEnabled()) {
+			return;
+		}
+		long deadline = System.currentTimeMillis() + readYourWritesWindow;
+		record(normalize(email), deadline);
+		record(id, deadline);
+	}
+
+	/**
+	 * Returns the action to run for a lookup by email: the action itself, or
+	 * the action pinned to the primary if the user was written recently.
+	 */
+	<T> Supplier<T> readYourWrites(String email, Supplier<T> action) {
+		return recentWrites.isEmpty() || !isRecent(normalize(email)) ? action
+				: () -> ReplicaRoutingDataSource.onPrimary(action);
+	}
+
+	/**
+	 * Returns the action to run for a lookup by id: the action itself, or the
+	 * action pinned to the primary if the user was written recently.
+	 */
+	<T> Supplier<T> readYourWrites(int id, Supplier<T> action) {
+		return recentWrites.isEmpty() || !isRecent(id) ? action : () -> ReplicaRoutingDataSource.onPrimary(action);
+	}
+
+	/**
+	 * Probes the replicas, taking failed ones out of rotation and returning
+	 * recovered ones to it.
+	 */
+	@Scheduled(fixedDelayString = "${security.replica.health-check-interval:5000}")
+	public void checkHealth() {
+		for (ReplicaRoutingDataSource dataSource : routed) {
+			dataSource.checkHealth(healthCheckTimeout);
+		}
+	}
+
+	/**
+	 * Drops the write records whose window has passed.
+	 */
+	@Scheduled(fixedDelay = TICK_MILLIS)
+	public void expire() {
+		expiryWheel.advance(System.currentTimeMillis());
+	}
+
+	private void record(Object key, Long deadline) {
+		recentWrites.put(key, deadline);
+		expiryWheel.schedule(new RecentWrite(key, deadline), deadline);
+	}
+
+	private boolean isRecent(Object key) {
+		Long deadline = recentWrites.get(key);
+		return deadline != null && deadline > System.currentTimeMillis();
+	}
+
+	private void expired(List<RecentWrite> writes) {
+		for (RecentWrite write : writes) {
+			// A later write of the same user replaced the deadline and has its own expiry
+			recentWrites.remove(write.key, write.deadline);
+		}
+	}
+
+	private static String normalize(String email) {
+		return email.trim().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * A recorded write, scheduled for removal.
+	 */
+	private static final class RecentWrite {
+
+		private final Object key;
+		private final Long deadline;
+
+		private RecentWrite(Object key, Long deadline) {
+			this.key = key;
+			this.deadline = deadline;
+		}
+	}
+}
@@ -0,0 +1,171 @@
+package com.example.security.repository;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * {@code DataSource} sending read-only transactions to the read replicas of a
+ * database and everything else to its primary.
+ *
+ * <p>
+ * A connection is taken from a replica when the current transaction is
+ * read-only and the thread has not been pinned to the primary by
+ * {@link #onPrimary(Supplier)}. Healthy replicas take turns; a replica that
+ * fails to hand out a connection is marked down and the primary serves the
+ * read instead, until {@link #checkHealth(int)} finds the replica working
+ * again.
+ * </p>
+ *
+ * <p>
+ * The read-only flag is only known once the transaction has begun, while JPA
+ * transactions ask for their connection while beginning, so this data source
+ * is used behind a {@code LazyConnectionDataSourceProxy}, see
+ * {@link ReplicaRouter#route(int, DataSource, Map)}.
+ * </p>
+ *
+ * @author Shivraj.Jadhav
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+	private static final ThreadLocal<Boolean> PRIMARY_PINNED = new ThreadLocal<>();
+
+	private final int shard;
+	private final DataSource primary;
+	private final Replica[] replicas;
+	private final AtomicInteger turn = new AtomicInteger();
+
+	/**
+	 * Constructs a new {@code ReplicaRoutingDataSource}.
+	 *
+	 * @param shard    the shard the databases belong to, for logging
+	 * @param primary  the primary database
+	 * @param replicas the replicas, by JDBC URL
+	 */
+	ReplicaRoutingDataSource(int shard, DataSource primary, Map<String, DataSource> replicas) {
+		this.shard = shard;
+		this.primary = primary;
+		List<Replica> list = new ArrayList<>();
+		replicas.forEach((url, dataSource) -> list.add(new Replica(url, dataSource)));
+		this.replicas = list.toArray(new Replica[0]);
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		Replica replica = select();
+		if (replica != null) {
+			try {
+				return replica.dataSource.getConnection();
+			} catch (SQLException ex) {
+				markDown(replica, ex);
+			}
+		}
+		return primary.getConnection();
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		Replica replica = select();
+		if (replica != null) {
+			try {
+				return replica.dataSource.getConnection(username, password);
+			} catch (SQLException ex) {
+				markDown(replica, ex);
+			}
+		}
+		return primary.getConnection(username, password);
+	}
+
+	/**
+	 * Probes every replica and updates its health.
+	 *
+	 * @param timeoutSeconds the time a replica has to validate a connection
+	 */
+	void checkHealth(int timeoutSeconds) {
+		for (Replica replica : replicas) {
+			try (Connection connection = replica.dataSource.getConnection()) {
+				if (connection.isValid(timeoutSeconds)) {
+					if (!replica.healthy) {
+						replica.healthy = true;
+						logger.info("Read replica {} of shard {} is back up", replica.url, shard);
+					}
+				} else {
+					markDown(replica, null);
+				}
+			} catch (SQLException ex) {
+				markDown(replica, ex);
+			}
+		}
+	}
+
+	/**
+	 * Runs an action with every connection taken from the primary, even for
+	 * read-only transactions.
+	 *
+	 * @param <T>    the type of the result
+	 * @param action the repository calls to run
+	 * @return the result of the action
+	 */
+	static <T> T onPrimary(Supplier<T> action) {
+		if (PRIMARY_PINNED.get() != null) {
+			return action.get();
+		}
+		PRIMARY_PINNED.set(Boolean.TRUE);
+		try {
+			return action.get();
+		} finally {
+			PRIMARY_PINNED.remove();
+		}
+	}
+
+	/**
+	 * Picks the replica for the next connection, or {@code null} for the
+	 * primary.
+	 */
+	private Replica select() {
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || PRIMARY_PINNED.get() != null) {
+			return null;
+		}
+		int start = Math.floorMod(turn.getAndIncrement(), replicas.length);
+		for (int i = 0; i < replicas.length; i++) {
+			Replica replica = replicas[(start + i) % replicas.length];
+			if (replica.healthy) {
+				return replica;
+			}
+		}
+		return null;
+	}
+
+	private void markDown(Replica replica, SQLException ex) {
+		if (replica.healthy) {
+			replica.healthy = false;
+			logger.warn("Read replica {} of shard {} is down, reading from the primary: {}", replica.url, shard,
+					ex != null ? ex.getMessage() : "connection is not valid");
+		}
+	}
+
+	private static final class Replica {
+
+		private final String url;
+		private final DataSource dataSource;
+		private volatile boolean healthy = true;
+
+		private Replica(String url, DataSource dataSource) {
+			this.url = url;
+			this.dataSource = dataSource;
+		}
+	}
+}
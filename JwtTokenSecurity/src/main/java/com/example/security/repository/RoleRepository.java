@@ -0,0 +1,23 @@
+package com.example.security.repository;
+
+import java.util.Optional;
+import org.springframework.data.repository.CrudRepository;
+import com.example.security.models.Role;
+
+/**
+ * Repository interface for managing {@link Role} entities.
+ * 
+ * @author Shivraj.Jadhav
+ * 
+ */
+public interface RoleRepository extends CrudRepository<Role, Integer> {
+
+	/**
+	 * Finds a role by its name.
+	 * 
+	 * @param name the name of the role
+	 * @return an {@link Optional} containing the role if found, otherwise
+	 *         {@link Optional#empty()}
+	 */
+	Optional<Role> findByName(String name);
+}
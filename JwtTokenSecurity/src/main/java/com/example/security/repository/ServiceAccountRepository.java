@@ -0,0 +1,28 @@
+package com.example.security.repository;
+
+import java.util.Optional;
+import org.springframework.data.repository.CrudRepository;
+import com.example.security.models.ServiceAccount;
+
+/**
+ * Repository interface for managing {@link ServiceAccount} entities.
+ * <p>
+ * Service accounts are few and are not sharded; they always live in the
+ * {@code spring.datasource} database.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ * 
+ */
+public interface ServiceAccountRepository extends CrudRepository<ServiceAccount, Integer> {
+
+	/**
+	 * Finds a service account of a tenant by its name.
+	 * 
+	 * @param tenant the id of the tenant
+	 * @param name   the name of the service account
+	 * @return an {@link Optional} containing the service account if found,
+	 *         otherwise {@link Optional#empty()}
+	 */
+	Optional<ServiceAccount> findByTenantAndName(String tenant, String name);
+}
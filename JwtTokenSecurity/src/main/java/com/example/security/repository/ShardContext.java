@@ -0,0 +1,60 @@
+package com.example.security.repository;
+
+/**
+ * Holds the shard the current thread's database work is routed to.
+ * 
+ * <p>
+ * {@link ShardRoutingDataSource} reads it whenever a connection is obtained,
+ * which for repository calls is when their transaction begins. It is bound by
+ * {@link ShardRouter} around each routed call; work done without a bound shard
+ * goes to shard 0, the {@code spring.datasource} database.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+public final class ShardContext {
+
+	private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+	private ShardContext() {
+	}
+
+	/**
+	 * Gets the shard bound to the current thread.
+	 *
+	 * @return the shard index, or 0 if none is bound
+	 */
+	public static int currentShard() {
+		Integer shard = CURRENT.get();
+		return shard != null ? shard : 0;
+	}
+
+	/**
+	 * Checks whether a shard is bound to the current thread, which is only the
+	 * case for work routed by a {@link ShardRouter} with sharding enabled.
+	 *
+	 * @return true if a shard is bound
+	 */
+	static boolean isBound() {
+		return CURRENT.get() != null;
+	}
+
+	/**
+	 * Binds a shard to the current thread.
+	 *
+	 * @return the previously bound shard, to be passed to {@link #restore}
+	 */
+	static Integer set(int shard) {
+		Integer previous = CURRENT.get();
+		CURRENT.set(shard);
+		return previous;
+	}
+
+	static void restore(Integer previous) {
+		if (previous != null) {
+			CURRENT.set(previous);
+		} else {
+			CURRENT.remove();
+		}
+	}
+}
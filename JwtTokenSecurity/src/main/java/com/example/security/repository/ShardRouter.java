@@ -0,0 +1,286 @@
+package com.example.security.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Routes user reads and writes to the shard owning the user.
+ *
+ * <p>
+ * Shard 0 is the {@code spring.datasource} database; further shards are listed
+ * by JDBC URL in {@code security.shard.urls} and share its driver and
+ * credentials. With no further shards every call runs directly, exactly as
+ * before sharding existed.
+ * </p>
+ *
+ * <p>
+ * A user lives on the shard picked by a consistent hash of the normalized
+ * email: each shard owns {@value #VIRTUAL_NODES} points on a 64-bit ring and an
+ * email belongs to the first point at or after its hash. Appending a shard
+ * therefore moves only about {@code 1/N} of the users. Shards are identified
+ * by their position in the list, so the list may only grow at the end.
+ * </p>
+ *
+ * <p>
+ * User ids carry their shard in the bits above {@value #ID_SHARD_SHIFT}, see
+ * {@link ShardedSequenceGenerator}, so a lookup by id is routed without a
+ * broadcast. Roles and permissions are reference data, seeded on shard 0 and
+ * copied to every other shard by {@link ShardSchemaManager}.
+ * </p>
+ *
+ * <p>
+ * Within a shard, read-only lookups may be served by a read replica; lookups of
+ * a user written moments ago are pinned to the primary, see
+ * {@link ReplicaRouter}.
+ * </p>
+ *
+ * @author Shivraj.Jadhav
+ */
+@Component
+public class ShardRouter {
+
+	private static final Logger logger = LoggerFactory.getLogger(ShardRouter.class);
+
+	/**
+	 * Number of low id bits numbering the users within a shard.
+	 */
+	public static final int ID_SHARD_SHIFT = 24;
+
+	/**
+	 * Ids are positive {@code int}s, leaving 7 bits for the shard.
+	 */
+	static final int MAX_SHARDS = 1 << (31 - ID_SHARD_SHIFT);
+
+	static final int VIRTUAL_NODES = 128;
+
+	private final Environment environment;
+	private final ReplicaRouter replicaRouter;
+
+	private List<String> urls;
+	private long[] ringHashes;
+	private int[] ringShards;
+	private ExecutorService executor;
+
+	/**
+	 * Constructs a new {@code ShardRouter}.
+	 *
+	 * @param environment   the environment the shard URLs are read from
+	 * @param replicaRouter the router picking between a shard's primary and
+	 *                      its replicas
+	 */
+	public ShardRouter(Environment environment, ReplicaRouter replicaRouter) {
+		this.environment = environment;
+		this.replicaRouter = replicaRouter;
+	}
+
+	@PostConstruct
+	void init() {
+		List<String> list = new ArrayList<>();
+		list.add(environment.getProperty("spring.datasource.url"));
+		for (String url : StringUtils.commaDelimitedListToStringArray(environment.getProperty("security.shard.urls", ""))) {
+			if (!url.isBlank()) {
+				list.add(url.trim());
+			}
+		}
+		if (list.size() > MAX_SHARDS) {
+			throw new IllegalStateException("At most " + MAX_SHARDS + " shards are supported");
+		}
+		urls = List.copyOf(list);
+		buildRing(urls.size());
+
+		if (isEnabled()) {
+			AtomicInteger threads = new AtomicInteger();
+			executor = Executors.newFixedThreadPool(urls.size(), runnable -> {
+				Thread thread = new Thread(runnable, "shard-query-" + threads.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+			logger.info("Users sharded across {} databases", urls.size());
+		}
+	}
+
+	@PreDestroy
+	void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Returns whether users are spread over more than one database.
+	 *
+	 * @return true if {@code security.shard.urls} lists further shards
+	 */
+	public boolean isEnabled() {
+		return urls.size() > 1;
+	}
+
+	/**
+	 * Returns the number of shards, including shard 0.
+	 *
+	 * @return the number of shards
+	 */
+	public int shardCount() {
+		return urls.size();
+	}
+
+	/**
+	 * Gets the JDBC URLs of the shards.
+	 *
+	 * @return the URLs, indexed by shard
+	 */
+	public List<String> getUrls() {
+		return urls;
+	}
+
+	/**
+	 * Returns the shard owning the given email.
+	 *
+	 * @param email the email, in any case
+	 * @return the shard index
+	 */
+	public int shardFor(String email) {
+		if (!isEnabled()) {
+			return 0;
+		}
+		long hash = hash(email.trim().toLowerCase(Locale.ROOT));
+		int index = Arrays.binarySearch(ringHashes, hash);
+		if (index < 0) {
+			index = -index - 1;
+			if (index == ringHashes.length) {
+				index = 0;
+			}
+		}
+		return ringShards[index];
+	}
+
+	/**
+	 * Returns the shard the user with the given id was created on.
+	 *
+	 * @param id the user id
+	 * @return the shard index
+	 */
+	public static int shardOfId(int id) {
+		return id >>> ID_SHARD_SHIFT;
+	}
+
+	/**
+	 * Runs an action against the shard owning the given email.
+	 *
+	 * @param <T>    the type of the result
+	 * @param email  the email of the user the action concerns
+	 * @param action the repository calls to run
+	 * @return the result of the action
+	 */
+	public <T> T onShardOf(String email, Supplier<T> action) {
+		Supplier<T> routed = replicaRouter.readYourWrites(email, action);
+		return isEnabled() ? onShard(shardFor(email), routed) : routed.get();
+	}
+
+	/**
+	 * Runs an action against the shard holding the user with the given id.
+	 * Without further shards the action runs directly, whatever the id.
+	 *
+	 * @param <T>    the type of the result
+	 * @param id     the id of the user the action concerns
+	 * @param action the repository calls to run
+	 * @return the result of the action
+	 */
+	public <T> T onShardOfId(int id, Supplier<T> action) {
+		Supplier<T> routed = replicaRouter.readYourWrites(id, action);
+		if (!isEnabled()) {
+			// A single database numbers its users freely, without shard bits
+			return routed.get();
+		}
+		int shard = shardOfId(id);
+		if (shard >= urls.size()) {
+			throw new IllegalArgumentException("No shard " + shard + " for user id " + id);
+		}
+		return onShard(shard, routed);
+	}
+
+	/**
+	 * Runs an action against the shard with the given index, from {@code 0} to
+	 * {@link #shardCount()} exclusive, on the shard query pool so the shards
+	 * can be queried in parallel. Without further shards the action runs
+	 * directly, in the calling thread.
+	 *
+	 * @param <T>    the type of the result
+	 * @param shard  the index of the shard
+	 * @param action the repository calls to run
+	 * @return the future result of the action
+	 */
+	public <T> CompletableFuture<T> onShardAsync(int shard, Supplier<T> action) {
+		if (shard < 0 || shard >= urls.size()) {
+			throw new IllegalArgumentException("No shard " + shard);
+		}
+		if (!isEnabled()) {
+			return CompletableFuture.supplyAsync(action, Runnable::run);
+		}
+		return CompletableFuture.supplyAsync(() -> onShard(shard, action), executor);
+	}
+
+	<T> T onShard(int shard, Supplier<T> action) {
+		Integer previous = ShardContext.set(shard);
+		try {
+			return action.get();
+		} finally {
+			ShardContext.restore(previous);
+		}
+	}
+
+	private void buildRing(int shards) {
+		long[] hashes = new long[shards * VIRTUAL_NODES];
+		int[] owners = new int[hashes.length];
+		Integer[] order = new Integer[hashes.length];
+		for (int shard = 0; shard < shards; shard++) {
+			for (int node = 0; node < VIRTUAL_NODES; node++) {
+				int point = shard * VIRTUAL_NODES + node;
+				hashes[point] = hash("shard-" + shard + "#" + node);
+				order[point] = point;
+			}
+		}
+		Arrays.sort(order, (a, b) -> Long.compare(hashes[a], hashes[b]));
+
+		ringHashes = new long[hashes.length];
+		ringShards = new int[hashes.length];
+		for (int i = 0; i < order.length; i++) {
+			ringHashes[i] = hashes[order[i]];
+			ringShards[i] = order[i] / VIRTUAL_NODES;
+		}
+	}
+
+	/**
+	 * FNV-1a over the characters, finished with the MurmurHash3 mixer so
+	 * similar emails land far apart on the ring.
+	 */
+	static long hash(String value) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < value.length(); i++) {
+			hash ^= value.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
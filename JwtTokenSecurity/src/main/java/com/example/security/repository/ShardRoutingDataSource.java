@@ -0,0 +1,17 @@
+package com.example.security.repository;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * {@code DataSource} handing out connections of the shard bound to the current
+ * thread by {@link ShardContext}.
+ * 
+ * @author Shivraj.Jadhav
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		return ShardContext.currentShard();
+	}
+}
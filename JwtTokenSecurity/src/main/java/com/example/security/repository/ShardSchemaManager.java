@@ -0,0 +1,157 @@
+package com.example.security.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.security.models.Permission;
+import com.example.security.models.Role;
+
+/**
+ * Keeps the shards other than shard 0 in step with it.
+ *
+ * <p>
+ * Hibernate only manages the schema of the database it bootstraps against,
+ * which is shard 0. This component is registered as a Hibernate
+ * {@link Integrator} to capture the mapping metadata and, once the context is
+ * up, applies the same {@code update} to every other shard. After the
+ * authorization data has been seeded, {@link #replicate(List, List)} copies
+ * roles and permissions, with their ids, to shards that have none yet, so
+ * the {@code user_roles} rows of every shard reference the same ids.
+ * </p>
+ *
+ * @author Shivraj.Jadhav
+ */
+@Component
+public class ShardSchemaManager implements Integrator, SmartInitializingSingleton {
+
+	private static final Logger logger = LoggerFactory.getLogger(ShardSchemaManager.class);
+
+	private static final Set<String> MANAGED_ACTIONS = Set.of("update", "create", "create-drop", "create-only");
+
+	private final ShardRouter shardRouter;
+	private final DataSource dataSource;
+
+	private Metadata metadata;
+	private SessionFactoryImplementor sessionFactory;
+
+	/**
+	 * Constructs a new {@code ShardSchemaManager}.
+	 *
+	 * @param shardRouter the router the shards are bound with
+	 * @param dataSource  the application's data source, shard-routing when
+	 *                    sharding is enabled
+	 */
+	public ShardSchemaManager(ShardRouter shardRouter, DataSource dataSource) {
+		this.shardRouter = shardRouter;
+		this.dataSource = dataSource;
+	}
+
+	@Override
+	public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+			SessionFactoryImplementor sessionFactory) {
+		this.metadata = metadata;
+		this.sessionFactory = sessionFactory;
+	}
+
+	@Override
+	public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+		this.metadata = null;
+		this.sessionFactory = null;
+	}
+
+	/**
+	 * Updates the schema of every shard but shard 0, provided Hibernate manages
+	 * the schema at all.
+	 */
+	@Override
+	public void afterSingletonsInstantiated() {
+		if (!shardRouter.isEnabled() || metadata == null) {
+			return;
+		}
+		Object action = sessionFactory.getProperties().get(AvailableSettings.HBM2DDL_AUTO);
+		if (action == null || !MANAGED_ACTIONS.contains(action.toString())) {
+			logger.info("Schema of the user shards is not managed (hbm2ddl.auto={})", action);
+			return;
+		}
+
+		Map<String, Object> settings = new HashMap<>(sessionFactory.getProperties());
+		settings.put(AvailableSettings.HBM2DDL_AUTO, "update");
+		for (int shard = 1; shard < shardRouter.shardCount(); shard++) {
+			shardRouter.onShard(shard, () -> {
+				SchemaManagementToolCoordinator.process(metadata, sessionFactory.getServiceRegistry(), settings,
+						dropAction -> {
+						});
+				return null;
+			});
+			logger.info("Updated schema of shard {}", shard);
+		}
+	}
+
+	/**
+	 * Copies the roles and permissions of shard 0 to every shard that has no
+	 * permissions yet.
+	 *
+	 * @param permissions the permissions of shard 0
+	 * @param roles       the roles of shard 0, with their permissions
+	 */
+	public void replicate(List<Permission> permissions, List<Role> roles) {
+		if (!shardRouter.isEnabled()) {
+			return;
+		}
+		Map<Object, DataSource> shards = ((ShardRoutingDataSource) dataSource).getResolvedDataSources();
+		for (int shard = 1; shard < shardRouter.shardCount(); shard++) {
+			// Straight to the shard's pool: the caller's transaction has bound a
+			// shard 0 connection to the routing data source
+			DataSource target = shards.get(shard);
+			JdbcTemplate jdbcTemplate = new JdbcTemplate(target);
+			boolean copied = new TransactionTemplate(new DataSourceTransactionManager(target)).execute(status -> {
+				Integer count = jdbcTemplate.queryForObject("select count(*) from permissions", Integer.class);
+				if (count != null && count > 0) {
+					return false;
+				}
+
+				List<Object[]> permissionRows = new ArrayList<>();
+				for (Permission permission : permissions) {
+					permissionRows.add(new Object[] { permission.getId(), permission.getName(), permission.getBit() });
+				}
+				jdbcTemplate.batchUpdate("insert into permissions (id, name, bit) values (?, ?, ?)", permissionRows);
+
+				List<Object[]> roleRows = new ArrayList<>();
+				List<Object[]> grantRows = new ArrayList<>();
+				for (Role role : roles) {
+					roleRows.add(new Object[] { role.getId(), role.getName() });
+					for (Permission permission : role.getPermissions()) {
+						grantRows.add(new Object[] { role.getId(), permission.getId() });
+					}
+				}
+				jdbcTemplate.batchUpdate("insert into roles (id, name) values (?, ?)", roleRows);
+				jdbcTemplate.batchUpdate("insert into role_permissions (role_id, permission_id) values (?, ?)",
+						grantRows);
+				return true;
+			});
+			if (copied) {
+				logger.info("Copied {} roles and {} permissions to shard {}", roles.size(), permissions.size(), shard);
+			}
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package com.example.security.repository;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+/**
+ * Generates the annotated id with a {@link ShardedSequenceGenerator}.
+ *
+ * @author Shivraj.Jadhav
+ */
+@IdGeneratorType(ShardedSequenceGenerator.class)
+@Retention(RUNTIME)
+@Target({ FIELD, METHOD })
+public @interface ShardedSequence {
+
+	/**
+	 * The name of the database sequence.
+	 *
+	 * @return the sequence name
+	 */
+	String name();
+
+	/**
+	 * The number of ids fetched from the sequence at once.
+	 *
+	 * @return the block size
+	 */
+	int incrementSize() default 50;
+}
@@ -0,0 +1,97 @@
+package com.example.security.repository;
+
+import java.util.Properties;
+
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/**
+ * Id generator giving every shard its own range of user ids.
+ *
+ * <p>
+ * On shard 0 this is the plain pooled sequence generator, so existing ids and
+ * the {@code users_seq} sequence are unchanged. Every other shard draws blocks
+ * from its own copy of the sequence and prefixes the shard index above
+ * {@link ShardRouter#ID_SHARD_SHIFT}, which keeps ids unique across shards and
+ * lets {@link ShardRouter#shardOfId(int)} route by id. The blocks are kept per
+ * shard because the inherited optimizer holds a single block in memory and
+ * would hand one shard's ids to another. It is declared on an id with
+ * {@link ShardedSequence}.
+ * </p>
+ *
+ * <p>
+ * Once sharding is enabled, ids of shard 0 are held below the shard bits like
+ * those of every other shard, or they would be routed to a shard that does not
+ * hold them. A single database numbers its users without that limit.
+ * </p>
+ *
+ * @author Shivraj.Jadhav
+ */
+public class ShardedSequenceGenerator extends SequenceStyleGenerator {
+
+	private static final int LOCAL_ID_LIMIT = 1 << ShardRouter.ID_SHARD_SHIFT;
+
+	private final long[] next = new long[ShardRouter.MAX_SHARDS];
+	private final long[] limit = new long[ShardRouter.MAX_SHARDS];
+	private final ShardedSequence config;
+
+	/**
+	 * Constructs a new {@code ShardedSequenceGenerator}.
+	 *
+	 * @param config the sequence declared on the id
+	 */
+	public ShardedSequenceGenerator(ShardedSequence config) {
+		this.config = config;
+	}
+
+	@Override
+	public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry)
+			throws MappingException {
+		parameters.setProperty(SEQUENCE_PARAM, config.name());
+		parameters.setProperty(INCREMENT_PARAM, Integer.toString(config.incrementSize()));
+		super.configure(type, parameters, serviceRegistry);
+	}
+
+	@Override
+	public Object generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+		int shard = ShardContext.currentShard();
+		if (shard == 0) {
+			Object id = super.generate(session, object);
+			if (ShardContext.isBound() && ((Number) id).longValue() >= LOCAL_ID_LIMIT) {
+				throw new HibernateException("User ids of shard 0 are exhausted");
+			}
+			return id;
+		}
+
+		long local;
+		synchronized (this) {
+			if (next[shard] >= limit[shard]) {
+				allocate(shard, session);
+			}
+			local = next[shard]++;
+		}
+		if (local >= LOCAL_ID_LIMIT) {
+			throw new HibernateException("User ids of shard " + shard + " are exhausted");
+		}
+		return (shard << ShardRouter.ID_SHARD_SHIFT) | (int) local;
+	}
+
+	/**
+	 * Fetches the next block of shard-local ids. A pooled sequence value is the
+	 * top of its block; a fresh sequence starts below one block, so its first
+	 * value is skipped.
+	 */
+	private void allocate(int shard, SharedSessionContractImplementor session) {
+		int incrementSize = getDatabaseStructure().getIncrementSize();
+		long value = getDatabaseStructure().buildCallback(session).getNextValue().makeValue().longValue();
+		if (value < incrementSize) {
+			value = getDatabaseStructure().buildCallback(session).getNextValue().makeValue().longValue();
+		}
+		next[shard] = value - incrementSize + 1;
+		limit[shard] = value + 1;
+	}
+}
@@ -1,27 +1,70 @@
-package com.example.security.repository;
-
-import java.util.Optional;
-import org.springframework.data.repository.CrudRepository;
-import com.example.security.models.User;
-
-/**
- * Repository interface for managing {@link User} entities.
- * <p>
- * Extends {@link CrudRepository} to provide CRUD operations for {@link User}
- * entities.
- * </p>
- * 
- * @author Shivraj.Jadhav
- * 
- */
-public interface UserRepository extends CrudRepository<User, Integer> {
-
-	/**
-	 * Finds a user by their email address.
-	 * 
-	 * @param email the email address of the user
-	 * @return an {@link Optional} containing the user if found, otherwise
-	 *         {@link Optional#empty()}
-	 */
-	Optional<User> findByEmail(String email);
-}
+package com.example.security.repository;
+
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.security.models.User;
+
+/**
+ * Repository interface for managing {@link User} entities.
+ * <p>
+ * Extends {@link CrudRepository} to provide CRUD operations for {@link User}
+ * entities. The lookups run in read-only transactions, which lets
+ * {@link ReplicaRoutingDataSource} serve them from a read replica.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ * 
+ */
+public interface UserRepository extends CrudRepository<User, Integer> {
+
+	/**
+	 * Finds a user by their email address.
+	 * 
+	 * @param email the email address of the user
+	 * @return an {@link Optional} containing the user if found, otherwise
+	 *         {@link Optional#empty()}
+	 */
+	@Transactional(readOnly = true)
+	Optional<User> findByEmail(String email);
+
+	/**
+	 * Finds a user of a tenant by their email address.
+	 * 
+	 * @param tenant the id of the tenant
+	 * @param email  the email address of the user
+	 * @return an {@link Optional} containing the user if found, otherwise
+	 *         {@link Optional#empty()}
+	 */
+	@Transactional(readOnly = true)
+	Optional<User> findByTenantAndEmail(String tenant, String email);
+
+	/**
+	 * Finds the next users of a tenant after the given id, in id order.
+	 * Listings page through the tenant's users with this, passing the last id
+	 * seen.
+	 * 
+	 * @param tenant the id of the tenant
+	 * @param id     the id after which to start, {@code 0} for the first page
+	 * @param limit  the maximum number of users to return
+	 * @return the tenant's users with a greater id, at most {@code limit} of
+	 *         them
+	 */
+	@Transactional(readOnly = true)
+	List<User> findByTenantAndIdGreaterThanOrderByIdAsc(String tenant, Integer id, Limit limit);
+
+	/**
+	 * Finds the names of the roles assigned to a user, without loading the
+	 * roles themselves.
+	 * 
+	 * @param id the id of the user
+	 * @return the names of the user's roles
+	 */
+	@Transactional(readOnly = true)
+	@Query("select r.name from User u join u.roles r where u.id = :id")
+	List<String> findRoleNamesById(@Param("id") Integer id);
+}
@@ -0,0 +1,166 @@
+package com.example.security.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Concurrency limit that adapts to the latency of the work it admits, after
+ * TCP Vegas.
+ *
+ * <p>
+ * Every completed call reports its round-trip time. The limiter keeps the
+ * lowest time seen as the no-load latency and estimates how many calls are
+ * queueing somewhere downstream as
+ * {@code limit * (1 - minRtt / rtt)}. While that estimate stays below
+ * {@code 3 * log10(limit)} and the limit is actually being used, the limit
+ * grows by {@code log10(limit)}; once it exceeds {@code 6 * log10(limit)}, it
+ * shrinks by as much. A call reported as dropped, because it failed or was
+ * itself shed further down, cuts the limit by a tenth at once. The no-load
+ * latency is relearned every {@value #PROBE_MULTIPLIER} times the limit in
+ * samples, so a lasting change in the baseline does not pin the limit.
+ * </p>
+ *
+ * <p>
+ * The limiter reports the {@code overload.limit} and
+ * {@code overload.in-flight} gauges and the {@code overload.requests}
+ * counter, tagged by outcome, {@code accepted} or {@code shed}, all tagged by
+ * the limiter's name.
+ * </p>
+ *
+ * @author Shivraj.Jadhav
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+	private static final int PROBE_MULTIPLIER = 30;
+	private static final double DROP_BACKOFF = 0.9;
+
+	private final int minLimit;
+	private final int maxLimit;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final Counter accepted;
+	private final Counter shed;
+
+	private volatile int limit;
+
+	// Guarded by this
+	private double estimatedLimit;
+	private long minRtt = Long.MAX_VALUE;
+	private long samples;
+
+	/**
+	 * Constructs a new {@code AdaptiveConcurrencyLimiter}.
+	 *
+	 * @param name          the name tagging the meters
+	 * @param initialLimit  the limit to start with
+	 * @param minLimit      the lowest the limit may fall to
+	 * @param maxLimit      the highest the limit may grow to
+	 * @param meterRegistry the registry the meters are kept in
+	 */
+	public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+			MeterRegistry meterRegistry) {
+		if (minLimit < 1 || minLimit > maxLimit) {
+			throw new IllegalArgumentException("Invalid limits " + minLimit + ".." + maxLimit);
+		}
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+		this.limit = (int) estimatedLimit;
+
+		Gauge.builder("overload.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+				.description("Current adaptive concurrency limit").tag("limiter", name).register(meterRegistry);
+		Gauge.builder("overload.in-flight", this, AdaptiveConcurrencyLimiter::getInFlight)
+				.description("Requests admitted and not yet completed").tag("limiter", name).register(meterRegistry);
+		this.accepted = outcome(meterRegistry, name, "accepted");
+		this.shed = outcome(meterRegistry, name, "shed");
+	}
+
+	/**
+	 * Admits a call if the limit allows. An admitted call must be
+	 * {@linkplain #release(long, boolean) released} once it completes.
+	 *
+	 * @return true if the call is admitted, false if it is to be shed
+	 */
+	public boolean tryAcquire() {
+		int current;
+		do {
+			current = inFlight.get();
+			if (current >= limit) {
+				shed.increment();
+				return false;
+			}
+		} while (!inFlight.compareAndSet(current, current + 1));
+		accepted.increment();
+		return true;
+	}
+
+	/**
+	 * Releases an admitted call and feeds its outcome into the limit.
+	 *
+	 * @param rttNanos the time the call took, in nanoseconds
+	 * @param dropped  whether the call failed or was shed downstream
+	 */
+	public void release(long rttNanos, boolean dropped) {
+		int concurrency = inFlight.getAndDecrement();
+		update(rttNanos, concurrency, dropped);
+	}
+
+	/**
+	 * Gets the current limit.
+	 *
+	 * @return the number of calls admitted at once
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * Gets the number of calls admitted and not yet released.
+	 *
+	 * @return the calls in flight
+	 */
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	private synchronized void update(long rtt, int concurrency, boolean dropped) {
+		if (++samples >= PROBE_MULTIPLIER * (long) limit) {
+			samples = 0;
+			minRtt = Long.MAX_VALUE;
+		}
+
+		if (dropped) {
+			setLimit(estimatedLimit * DROP_BACKOFF);
+			return;
+		}
+		if (rtt <= 0) {
+			return;
+		}
+		if (rtt < minRtt) {
+			minRtt = rtt;
+		}
+
+		double queue = Math.ceil(estimatedLimit * (1 - (double) minRtt / rtt));
+		double step = Math.max(1, Math.log10(estimatedLimit));
+		if (queue <= 3 * step) {
+			// Only grow a limit that is being used, or idle periods would inflate it
+			if (concurrency * 2 >= estimatedLimit) {
+				setLimit(estimatedLimit + step);
+			}
+		} else if (queue >= 6 * step) {
+			setLimit(estimatedLimit - step);
+		}
+	}
+
+	private void setLimit(double newLimit) {
+		estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+		limit = (int) estimatedLimit;
+	}
+
+	private static Counter outcome(MeterRegistry meterRegistry, String name, String outcome) {
+		return Counter.builder("overload.requests").description("Requests by admission outcome")
+				.tag("limiter", name).tag("outcome", outcome).register(meterRegistry);
+	}
+}
@@ -0,0 +1,86 @@
+package com.example.security.service;
+
+/**
+ * An authentication event recorded by the {@link AuditLog}.
+ *
+ * @author Shivraj.Jadhav
+ */
+public final class AuditEvent {
+
+	/**
+	 * The kinds of audited events.
+	 */
+	public enum Type {
+		SIGNUP, LOGIN_SUCCEEDED, LOGIN_FAILED, TOKEN_REJECTED
+	}
+
+	private final Type type;
+	private final long occurredAt;
+	private final String tenant;
+	private final String subject;
+	private final String clientAddress;
+	private final String detail;
+
+	AuditEvent(Type type, long occurredAt, String tenant, String subject, String clientAddress, String detail) {
+		this.type = type;
+		this.occurredAt = occurredAt;
+		this.tenant = tenant;
+		this.subject = subject;
+		this.clientAddress = clientAddress;
+		this.detail = detail;
+	}
+
+	/**
+	 * Gets the kind of event.
+	 *
+	 * @return the type
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * Gets the time the event occurred.
+	 *
+	 * @return the time in milliseconds
+	 */
+	public long getOccurredAt() {
+		return occurredAt;
+	}
+
+	/**
+	 * Gets the id of the tenant the event concerns.
+	 *
+	 * @return the tenant id, or {@code null} if unknown
+	 */
+	public String getTenant() {
+		return tenant;
+	}
+
+	/**
+	 * Gets the email or token subject the event concerns.
+	 *
+	 * @return the subject, or {@code null} if unknown
+	 */
+	public String getSubject() {
+		return subject;
+	}
+
+	/**
+	 * Gets the address of the client.
+	 *
+	 * @return the client address
+	 */
+	public String getClientAddress() {
+		return clientAddress;
+	}
+
+	/**
+	 * Gets the reason of a failure or rejection.
+	 *
+	 * @return the detail, or {@code null}
+	 */
+	public String getDetail() {
+		return detail;
+	}
+}
@@ -0,0 +1,234 @@
+package com.example.security.service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.example.security.jwt.TokenClock;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Audit trail of signups, logins, failed logins and rejected tokens.
+ *
+ * <p>
+ * Publishing an event only puts it into a lock-free {@link AuditRingBuffer} of
+ * {@code security.audit.capacity} events, so the authentication path never
+ * waits for the database. A background thread drains the buffer and inserts
+ * the events into the {@code audit_events} table as JDBC batches of up to
+ * {@code security.audit.batch-size}, idling for
+ * {@code security.audit.flush-interval} milliseconds when the buffer is empty.
+ * </p>
+ *
+ * <p>
+ * What happens when the buffer is full is set by
+ * {@code security.audit.overflow}: {@code drop}, the default, discards the
+ * new event at once; {@code block} makes the publishing thread wait for room
+ * for up to {@code security.audit.block-timeout} milliseconds before
+ * discarding it, trading authentication latency for a complete trail while
+ * the database catches up. A batch the database rejects is logged and
+ * discarded too. Events left in the buffer are written on shutdown.
+ * </p>
+ *
+ * <p>
+ * The writer reports the {@code audit.queue.size} gauge, the
+ * {@code audit.queue.lag} timer, the time from an event occurring to its
+ * batch being written, and the {@code audit.events} counter tagged by outcome:
+ * {@code written}, {@code dropped} or {@code failed}.
+ * </p>
+ *
+ * @author Shivraj.Jadhav
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class AuditLog {
+
+	private static final Logger logger = LoggerFactory.getLogger(AuditLog.class);
+
+	private static final String INSERT = "insert into audit_events (event_type, occurred_at, tenant, subject, client_address, detail) values (?, ?, ?, ?, ?, ?)";
+
+	/**
+	 * What to do with an event the full buffer has no room for.
+	 */
+	public enum OverflowPolicy {
+		DROP, BLOCK
+	}
+
+	private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+	private final JdbcTemplate jdbcTemplate;
+	private final MeterRegistry meterRegistry;
+	private final TokenClock tokenClock;
+
+	private AuditRingBuffer<AuditEvent> buffer;
+	private Thread writer;
+	private volatile boolean running;
+	private Counter written;
+	private Counter dropped;
+	private Counter failed;
+	private Timer lag;
+
+	@Value("${security.audit.enabled:true}")
+	private boolean enabled;
+
+	@Value("${security.audit.capacity:8192}")
+	private int capacity;
+
+	@Value("${security.audit.batch-size:500}")
+	private int batchSize;
+
+	@Value("${security.audit.flush-interval:200}")
+	private long flushInterval;
+
+	@Value("${security.audit.overflow:drop}")
+	private OverflowPolicy overflow;
+
+	@Value("${security.audit.block-timeout:100}")
+	private long blockTimeout;
+
+	/**
+	 * Constructs a new {@code AuditLog}.
+	 *
+	 * @param jdbcTemplate  the template the batches are written with
+	 * @param meterRegistry the registry the writer's meters are kept in
+	 * @param tokenClock    the clock events are timestamped with
+	 */
+	public AuditLog(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry, TokenClock tokenClock) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.meterRegistry = meterRegistry;
+		this.tokenClock = tokenClock;
+	}
+
+	@PostConstruct
+	void start() {
+		if (!enabled) {
+			return;
+		}
+
+		buffer = new AuditRingBuffer<>(capacity);
+		Gauge.builder("audit.queue.size", buffer, AuditRingBuffer::size)
+				.description("Audit events waiting to be written").register(meterRegistry);
+		lag = Timer.builder("audit.queue.lag").description("Time from an audit event to its batch being written")
+				.register(meterRegistry);
+		written = outcome("written");
+		dropped = outcome("dropped");
+		failed = outcome("failed");
+
+		running = true;
+		writer = new Thread(this::work, "audit-writer");
+		writer.setDaemon(true);
+		writer.start();
+		logger.info("Audit log started with a buffer of {} events, overflow policy {}", buffer.capacity(), overflow);
+	}
+
+	@PreDestroy
+	void stop() throws InterruptedException {
+		if (writer == null) {
+			return;
+		}
+		running = false;
+		LockSupport.unpark(writer);
+		writer.join(TimeUnit.SECONDS.toMillis(5));
+	}
+
+	/**
+	 * Records an event.
+	 *
+	 * @param type          the kind of event
+	 * @param tenant        the id of the tenant concerned, or {@code null}
+	 * @param subject       the email or token subject concerned, or
+	 *                      {@code null}
+	 * @param clientAddress the address of the client
+	 * @param detail        the reason of a failure, or {@code null}
+	 */
+	public void publish(AuditEvent.Type type, String tenant, String subject, String clientAddress, String detail) {
+		if (!enabled) {
+			return;
+		}
+		AuditEvent event = new AuditEvent(type, tokenClock.millis(), tenant, subject, clientAddress, detail);
+		if (buffer.offer(event)) {
+			return;
+		}
+
+		if (overflow == OverflowPolicy.BLOCK) {
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(blockTimeout);
+			do {
+				LockSupport.parkNanos(BLOCK_PARK_NANOS);
+				if (buffer.offer(event)) {
+					return;
+				}
+			} while (System.nanoTime() < deadline && running);
+		}
+		dropped.increment();
+	}
+
+	private void work() {
+		List<AuditEvent> batch = new ArrayList<>(batchSize);
+		while (running) {
+			drain(batch);
+			if (batch.isEmpty()) {
+				LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushInterval));
+			}
+		}
+		// Stopped: write what is left
+		do {
+			drain(batch);
+		} while (!batch.isEmpty());
+	}
+
+	/**
+	 * Takes up to a batch of events from the buffer and writes them.
+	 */
+	private void drain(List<AuditEvent> batch) {
+		batch.clear();
+		for (AuditEvent event; batch.size() < batchSize && (event = buffer.poll()) != null;) {
+			batch.add(event);
+		}
+		if (batch.isEmpty()) {
+			return;
+		}
+
+		List<Object[]> rows = new ArrayList<>(batch.size());
+		for (AuditEvent event : batch) {
+			rows.add(new Object[] { event.getType().name(), new Timestamp(event.getOccurredAt()),
+					truncate(event.getTenant(), 50), truncate(event.getSubject(), 100),
+					truncate(event.getClientAddress(), 45), truncate(event.getDetail(), 64) });
+		}
+		try {
+			jdbcTemplate.batchUpdate(INSERT, rows);
+		} catch (RuntimeException ex) {
+			logger.error("Failed to write {} audit events", batch.size(), ex);
+			failed.increment(batch.size());
+			return;
+		}
+
+		long now = tokenClock.millis();
+		for (AuditEvent event : batch) {
+			lag.record(now - event.getOccurredAt(), TimeUnit.MILLISECONDS);
+		}
+		written.increment(batch.size());
+	}
+
+	private Counter outcome(String outcome) {
+		return Counter.builder("audit.events").description("Audit events by outcome").tag("outcome", outcome)
+				.register(meterRegistry);
+	}
+
+	private static String truncate(String value, int length) {
+		return value == null || value.length() <= length ? value : value.substring(0, length);
+	}
+}
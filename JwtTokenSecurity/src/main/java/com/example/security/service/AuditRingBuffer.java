@@ -0,0 +1,106 @@
+package com.example.security.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free ring buffer with many producers and a single consumer.
+ *
+ * <p>
+ * Each slot carries a sequence number telling producers and the consumer
+ * whose turn it is: a producer claims the next position with a CAS on the
+ * tail once the slot's sequence says it is free, stores its element and
+ * publishes it by advancing the sequence; the consumer takes elements in
+ * order as their sequences show them published. A full buffer fails the
+ * offer instead of waiting, leaving the overflow policy to the caller.
+ * </p>
+ *
+ * @param <E> the type of the elements
+ * @author Shivraj.Jadhav
+ */
+final class AuditRingBuffer<E> {
+
+	private final int mask;
+	private final Object[] elements;
+	private final AtomicLongArray sequences;
+	private final AtomicLong tail = new AtomicLong();
+	private volatile long head;
+
+	/**
+	 * Constructs a new {@code AuditRingBuffer}.
+	 *
+	 * @param capacity the capacity, rounded up to a power of two
+	 */
+	AuditRingBuffer(int capacity) {
+		int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+		this.mask = size - 1;
+		this.elements = new Object[size];
+		this.sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			sequences.set(i, i);
+		}
+	}
+
+	/**
+	 * Adds an element if there is room. Safe to call from any thread.
+	 *
+	 * @param element the element
+	 * @return false if the buffer is full
+	 */
+	boolean offer(E element) {
+		long position = tail.get();
+		for (;;) {
+			int index = (int) (position & mask);
+			long difference = sequences.get(index) - position;
+			if (difference == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					elements[index] = element;
+					sequences.set(index, position + 1);
+					return true;
+				}
+				position = tail.get();
+			} else if (difference < 0) {
+				return false;
+			} else {
+				position = tail.get();
+			}
+		}
+	}
+
+	/**
+	 * Takes the oldest element. Must only be called by the consumer thread.
+	 *
+	 * @return the element, or {@code null} if none is published yet
+	 */
+	@SuppressWarnings("unchecked")
+	E poll() {
+		long position = head;
+		int index = (int) (position & mask);
+		if (sequences.get(index) != position + 1) {
+			return null;
+		}
+		E element = (E) elements[index];
+		elements[index] = null;
+		sequences.set(index, position + mask + 1);
+		head = position + 1;
+		return element;
+	}
+
+	/**
+	 * Returns the number of claimed slots, including ones still being filled.
+	 *
+	 * @return the number of elements
+	 */
+	int size() {
+		return (int) Math.max(0, tail.get() - head);
+	}
+
+	/**
+	 * Returns the capacity.
+	 *
+	 * @return the capacity
+	 */
+	int capacity() {
+		return mask + 1;
+	}
+}
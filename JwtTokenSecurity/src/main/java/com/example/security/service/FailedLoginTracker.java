@@ -0,0 +1,152 @@
+package com.example.security.service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.security.jwt.TimingWheel;
+
+/**
+ * Counts recent failed logins by account and by client address.
+ *
+ * <p>
+ * A login whose email or address has failed
+ * {@code security.password.suspect-after-failures} times within the current
+ * {@code security.password.failure-window} is suspect, and its password is
+ * verified at {@link PasswordVerificationPool.Priority#SUSPECT}. Guessing and
+ * credential stuffing thereby slow themselves down under load without
+ * locking anyone out. A successful login clears the count of its account;
+ * counts are dropped by a {@link TimingWheel} when their window ends.
+ * </p>
+ *
+ * @author Shivraj.Jadhav
+ */
+@Component
+public class FailedLoginTracker {
+
+	private static final long TICK_MILLIS = 1000L;
+
+	private final ConcurrentMap<String, Failures> failures = new ConcurrentHashMap<>();
+	private final TimingWheel<Expiry> expiryWheel = new TimingWheel<>(TICK_MILLIS, System.currentTimeMillis(),
+			this::expired);
+
+	@Value("${security.password.suspect-after-failures:5}")
+	private int threshold;
+
+	@Value("${security.password.failure-window:600000}")
+	private long window;
+
+	/**
+	 * Returns the priority to verify a login's password with.
+	 *
+	 * @param email         the email the login is for
+	 * @param clientAddress the address the login comes from
+	 * @return {@code SUSPECT} if the account or address failed too often
+	 *         recently, {@code NORMAL} otherwise
+	 */
+	public PasswordVerificationPool.Priority priorityOf(String email, String clientAddress) {
+		if (failures.isEmpty()) {
+			return PasswordVerificationPool.Priority.NORMAL;
+		}
+		long now = System.currentTimeMillis();
+		return count(accountKey(email), now) >= threshold || count(addressKey(clientAddress), now) >= threshold
+				? PasswordVerificationPool.Priority.SUSPECT
+				: PasswordVerificationPool.Priority.NORMAL;
+	}
+
+	/**
+	 * Counts a failed login against its account and address.
+	 *
+	 * @param email         the email the login was for
+	 * @param clientAddress the address the login came from
+	 */
+	public void recordFailure(String email, String clientAddress) {
+		long now = System.currentTimeMillis();
+		increment(accountKey(email), now);
+		increment(addressKey(clientAddress), now);
+	}
+
+	/**
+	 * Clears the failures of an account after a successful login.
+	 *
+	 * @param email the email the login was for
+	 */
+	public void recordSuccess(String email) {
+		if (!failures.isEmpty()) {
+			failures.remove(accountKey(email));
+		}
+	}
+
+	/**
+	 * Drops the counts whose window has ended.
+	 */
+	@Scheduled(fixedDelay = TICK_MILLIS)
+	public void expire() {
+		expiryWheel.advance(System.currentTimeMillis());
+	}
+
+	private int count(String key, long now) {
+		Failures entry = failures.get(key);
+		return entry != null && entry.windowEnd > now ? entry.count.get() : 0;
+	}
+
+	private void increment(String key, long now) {
+		Failures entry = failures.compute(key, (k, current) -> {
+			if (current != null && current.windowEnd > now) {
+				return current;
+			}
+			Failures fresh = new Failures(now + window);
+			expiryWheel.schedule(new Expiry(k, fresh), fresh.windowEnd);
+			return fresh;
+		});
+		entry.count.incrementAndGet();
+	}
+
+	private void expired(List<Expiry> expiries) {
+		for (Expiry expiry : expiries) {
+			// A new window of the same key replaced the entry and has its own expiry
+			failures.remove(expiry.key, expiry.failures);
+		}
+	}
+
+	private static String accountKey(String email) {
+		return "account:" + email.trim().toLowerCase(Locale.ROOT);
+	}
+
+	private static String addressKey(String clientAddress) {
+		return "address:" + clientAddress;
+	}
+
+	/**
+	 * The failures of a key within one window.
+	 */
+	private static final class Failures {
+
+		private final long windowEnd;
+		private final AtomicInteger count = new AtomicInteger();
+
+		private Failures(long windowEnd) {
+			this.windowEnd = windowEnd;
+		}
+	}
+
+	/**
+	 * The end of a window, scheduled for removal.
+	 */
+	private static final class Expiry {
+
+		private final String key;
+		private final Failures failures;
+
+		private Expiry(String key, Failures failures) {
+			this.key = key;
+			this.failures = failures;
+		}
+	}
+}
@@ -0,0 +1,406 @@
+package com.example.security.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import javax.crypto.Mac;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.security.jwt.Tenant;
+import com.example.security.jwt.TenantRegistry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Responses of requests made with an {@code Idempotency-Key}, so a retried
+ * request is answered without being executed again.
+ *
+ * <p>
+ * Keys are scoped to a tenant and bound to a fingerprint of the request. The
+ * first request with a key executes; identical requests arriving while it
+ * runs wait for its response instead of executing too, and later ones get the
+ * stored response replayed for {@code security.idempotency.ttl} milliseconds.
+ * Reusing a key for a different request gets a 422. A waiting request that
+ * does not see a response within {@code security.idempotency.wait-timeout}
+ * milliseconds gets a 409 and may retry.
+ * </p>
+ *
+ * <p>
+ * Responses are kept in memory, up to {@code security.idempotency.max-entries}
+ * of them, and written to the {@code idempotency_keys} table, which answers
+ * the retries that miss memory after an eviction, a restart or on another
+ * node. Server errors and failures are not stored, so their retries execute
+ * again. Expired keys are purged every
+ * {@code security.idempotency.purge-interval} milliseconds.
+ * </p>
+ *
+ * <p>
+ * The {@code idempotency.requests} counter is tagged by outcome:
+ * {@code executed}, {@code replayed}, {@code mismatch} or
+ * {@code in-progress}.
+ * </p>
+ *
+ * @author Shivraj.Jadhav
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class IdempotencyStore {
+
+	private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+
+	private static final String SELECT = "select fingerprint, status, body, expires_at from idempotency_keys where key_hash = ?";
+	private static final String INSERT = "insert into idempotency_keys (key_hash, fingerprint, status, body, expires_at) values (?, ?, ?, ?, ?)";
+	private static final String DELETE_EXPIRED_KEY = "delete from idempotency_keys where key_hash = ? and expires_at <= ?";
+	private static final String DELETE_EXPIRED = "delete from idempotency_keys where expires_at <= ?";
+
+	/** Printable ASCII without spaces, as for other header tokens. */
+	private static final Pattern KEY_PATTERN = Pattern.compile("[\\x21-\\x7E]{1,255}");
+	private static final int MAX_STORED_BODY = 255;
+
+	/**
+	 * Answer to a key reused for a different request.
+	 */
+	public static final Response MISMATCH = new Response(422,
+			"Idempotency-Key was already used for a different request", false);
+
+	/**
+	 * Answer to a request whose key is still being executed by another one.
+	 */
+	public static final Response IN_PROGRESS = new Response(409,
+			"A request with this Idempotency-Key is still in progress", false);
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TenantRegistry tenantRegistry;
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+	private final Counter executed;
+	private final Counter replayed;
+	private final Counter mismatched;
+	private final Counter inProgress;
+
+	@Value("${security.idempotency.ttl:86400000}")
+	private long ttl;
+
+	@Value("${security.idempotency.max-entries:10000}")
+	private int maxEntries;
+
+	@Value("${security.idempotency.wait-timeout:10000}")
+	private long waitTimeout;
+
+	/**
+	 * Constructs a new {@code IdempotencyStore}.
+	 *
+	 * @param jdbcTemplate   the template the stored responses are kept with
+	 * @param tenantRegistry the registry whose default key signs the request
+	 *                       fingerprints
+	 * @param meterRegistry  the registry the outcome counter is kept in
+	 */
+	public IdempotencyStore(JdbcTemplate jdbcTemplate, TenantRegistry tenantRegistry, MeterRegistry meterRegistry) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.tenantRegistry = tenantRegistry;
+		this.executed = outcome(meterRegistry, "executed");
+		this.replayed = outcome(meterRegistry, "replayed");
+		this.mismatched = outcome(meterRegistry, "mismatch");
+		this.inProgress = outcome(meterRegistry, "in-progress");
+	}
+
+	/**
+	 * Tells whether a key is well-formed: 1 to 255 printable ASCII characters
+	 * without spaces.
+	 *
+	 * @param key the key
+	 * @return true if the key can be used
+	 */
+	public static boolean isValidKey(String key) {
+		return KEY_PATTERN.matcher(key).matches();
+	}
+
+	/**
+	 * Computes the fingerprint binding a key to the request, keyed with the
+	 * default tenant's secret so it reveals nothing about secrets in the
+	 * request.
+	 *
+	 * @param parts the fields identifying the request
+	 * @return the hex-encoded fingerprint
+	 */
+	public String fingerprint(String... parts) {
+		try {
+			Mac mac = Mac.getInstance("HmacSHA256");
+			mac.init(tenantRegistry.getDefault().getKey());
+			for (String part : parts) {
+				mac.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+				mac.update((byte) 0);
+			}
+			return HexFormat.of().formatHex(mac.doFinal());
+		} catch (GeneralSecurityException ex) {
+			throw new IllegalStateException("HmacSHA256 is not available", ex);
+		}
+	}
+
+	/**
+	 * Executes a request once per key, or answers it from the response of the
+	 * request that did.
+	 *
+	 * @param tenant      the tenant the key belongs to
+	 * @param key         the idempotency key, see {@link #isValidKey(String)}
+	 * @param fingerprint the fingerprint of the request, see
+	 *                    {@link #fingerprint(String...)}
+	 * @param action      executes the request
+	 * @return the response of this or an earlier execution, {@link #MISMATCH}
+	 *         or {@link #IN_PROGRESS}
+	 */
+	public Response execute(Tenant tenant, String key, String fingerprint, Supplier<Response> action) {
+		String keyHash = keyHash(tenant, key);
+		Entry entry = new Entry(fingerprint, System.currentTimeMillis() + ttl);
+		for (Entry existing; (existing = entries.putIfAbsent(keyHash, entry)) != null;) {
+			if (existing.expiresAt > System.currentTimeMillis()) {
+				return existing.fingerprint.equals(fingerprint) ? await(existing) : mismatch();
+			}
+			entries.remove(keyHash, existing);
+		}
+		if (entries.size() > maxEntries) {
+			evictOne();
+		}
+
+		Response response;
+		try {
+			Entry stored = load(keyHash);
+			if (stored != null) {
+				// Executed before this entry was lost from memory
+				entries.replace(keyHash, entry, stored);
+				if (stored.fingerprint.equals(fingerprint)) {
+					replayed.increment();
+					response = stored.result.join().replay();
+				} else {
+					response = mismatch();
+				}
+			} else {
+				response = action.get();
+				executed.increment();
+				if (response.getStatus() >= 500) {
+					entries.remove(keyHash, entry);
+				} else {
+					persist(keyHash, entry, response);
+				}
+			}
+		} catch (RuntimeException ex) {
+			entries.remove(keyHash, entry);
+			entry.result.completeExceptionally(ex);
+			throw ex;
+		}
+		entry.result.complete(response);
+		return response;
+	}
+
+	/**
+	 * Drops the expired keys from memory and the table.
+	 */
+	@Scheduled(fixedDelayString = "${security.idempotency.purge-interval:3600000}")
+	public void purge() {
+		long now = System.currentTimeMillis();
+		entries.values().removeIf(entry -> entry.expiresAt <= now && entry.result.isDone());
+		try {
+			int deleted = jdbcTemplate.update(DELETE_EXPIRED, now);
+			if (deleted > 0) {
+				logger.debug("Purged {} expired idempotency keys", deleted);
+			}
+		} catch (DataAccessException ex) {
+			logger.warn("Failed to purge expired idempotency keys: {}", ex.getMessage());
+		}
+	}
+
+	private Response await(Entry entry) {
+		try {
+			Response response = entry.result.get(waitTimeout, TimeUnit.MILLISECONDS);
+			if (response == MISMATCH) {
+				mismatched.increment();
+				return response;
+			}
+			if (response.getStatus() >= 500) {
+				return response;
+			}
+			replayed.increment();
+			return response.replay();
+		} catch (TimeoutException ex) {
+			inProgress.increment();
+			return IN_PROGRESS;
+		} catch (ExecutionException ex) {
+			// The request this one waited for failed; fail the same way
+			if (ex.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw new IllegalStateException(ex.getCause());
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			inProgress.increment();
+			return IN_PROGRESS;
+		}
+	}
+
+	private Response mismatch() {
+		mismatched.increment();
+		return MISMATCH;
+	}
+
+	/**
+	 * Reads a stored response, deleting it if it has expired. A failing read
+	 * counts as a miss, leaving duplicates to the constraints of the request.
+	 */
+	private Entry load(String keyHash) {
+		long now = System.currentTimeMillis();
+		List<Entry> rows;
+		try {
+			rows = jdbcTemplate.query(SELECT, (rs, rowNum) -> {
+				Entry stored = new Entry(rs.getString("fingerprint"), rs.getLong("expires_at"));
+				stored.result.complete(new Response(rs.getInt("status"), rs.getString("body"), false));
+				return stored;
+			}, keyHash);
+			if (!rows.isEmpty() && rows.get(0).expiresAt <= now) {
+				jdbcTemplate.update(DELETE_EXPIRED_KEY, keyHash, now);
+				return null;
+			}
+		} catch (DataAccessException ex) {
+			logger.warn("Failed to read idempotency key: {}", ex.getMessage());
+			return null;
+		}
+		return rows.isEmpty() ? null : rows.get(0);
+	}
+
+	private void persist(String keyHash, Entry entry, Response response) {
+		if (response.getBody() != null && response.getBody().length() > MAX_STORED_BODY) {
+			return;
+		}
+		try {
+			jdbcTemplate.update(INSERT, keyHash, entry.fingerprint, response.getStatus(), response.getBody(),
+					entry.expiresAt);
+		} catch (DuplicateKeyException ex) {
+			// Another node stored the key first
+			logger.debug("Idempotency key already stored");
+		} catch (DataAccessException ex) {
+			logger.warn("Failed to store idempotency key: {}", ex.getMessage());
+		}
+	}
+
+	/**
+	 * Evicts a completed entry; the table still answers for it.
+	 */
+	private void evictOne() {
+		Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().getValue().result.isDone()) {
+				iterator.remove();
+				return;
+			}
+		}
+	}
+
+	private static String keyHash(Tenant tenant, String key) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256")
+					.digest((tenant.getId() + ':' + key).getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(digest);
+		} catch (GeneralSecurityException ex) {
+			throw new IllegalStateException("SHA-256 is not available", ex);
+		}
+	}
+
+	private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+		return Counter.builder("idempotency.requests").description("Requests with an Idempotency-Key by outcome")
+				.tag("outcome", outcome).register(meterRegistry);
+	}
+
+	/**
+	 * The execution of a key: the fingerprint of its request and its response,
+	 * once there is one.
+	 */
+	private static final class Entry {
+
+		private final String fingerprint;
+		private final long expiresAt;
+		private final CompletableFuture<Response> result = new CompletableFuture<>();
+
+		private Entry(String fingerprint, long expiresAt) {
+			this.fingerprint = fingerprint;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	/**
+	 * The status and body of a response.
+	 */
+	public static final class Response {
+
+		private final int status;
+		private final String body;
+		private final boolean replayed;
+
+		/**
+		 * Constructs a new {@code Response}.
+		 *
+		 * @param status the HTTP status code
+		 * @param body   the body
+		 */
+		public Response(int status, String body) {
+			this(status, body, false);
+		}
+
+		private Response(int status, String body, boolean replayed) {
+			this.status = status;
+			this.body = body;
+			this.replayed = replayed;
+		}
+
+		/**
+		 * Gets the HTTP status code.
+		 *
+		 * @return the status code
+		 */
+		public int getStatus() {
+			return status;
+		}
+
+		/**
+		 * Gets the body.
+		 *
+		 * @return the body
+		 */
+		public String getBody() {
+			return body;
+		}
+
+		/**
+		 * Tells whether this response was stored for an earlier request.
+		 *
+		 * @return true if the response is replayed
+		 */
+		public boolean isReplayed() {
+			return replayed;
+		}
+
+		private Response replay() {
+			return new Response(status, body, true);
+		}
+	}
+}
@@ -0,0 +1,302 @@
+package com.example.security.service;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.security.exceptions.AuthFailure;
+import com.example.security.exceptions.AuthFailureException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Dedicated threads for password hashing and verification.
+ *
+ * <p>
+ * BCrypt is deliberately slow, CPU-bound work. Run on the request threads it
+ * competes with request I/O for the cores, and a burst of logins makes every
+ * other request wait. Here it runs on {@code security.password.threads}
+ * threads, by default one per processor available to the JVM, which already
+ * honours the container's CPU limit and the process's affinity mask. The
+ * request thread waits for its result.
+ * </p>
+ *
+ * <p>
+ * Work waits in a bounded queue with two classes. {@link Priority#SUSPECT}
+ * work, logins of accounts or addresses that failed recently, gets one turn
+ * in {@value #SUSPECT_TURN} while normal work is waiting, so it is slowed down
+ * under load rather than starved. When the queue is full, a normal login
+ * displaces the newest suspect one, and otherwise the new work is rejected
+ * with {@link AuthFailure#OVERLOADED} at once instead of queueing past any
+ * useful deadline.
+ * </p>
+ *
+ * <p>
+ * Saturation is exported as the {@code password.verify.queued} and
+ * {@code password.verify.active} gauges, against
+ * {@code password.verify.threads}, the {@code password.verify.wait} timer and
+ * the {@code password.verify.rejected} counter, each queue meter tagged by
+ * priority.
+ * </p>
+ *
+ * @author Shivraj.Jadhav
+ */
+@Component
+public class PasswordVerificationPool {
+
+	private static final Logger logger = LoggerFactory.getLogger(PasswordVerificationPool.class);
+
+	/**
+	 * The priority classes of the queue.
+	 */
+	public enum Priority {
+		NORMAL, SUSPECT
+	}
+
+	static final int SUSPECT_TURN = 8;
+
+	private static final ThreadLocal<Priority> CURRENT_PRIORITY = new ThreadLocal<>();
+
+	private final MeterRegistry meterRegistry;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition workAvailable = lock.newCondition();
+	@SuppressWarnings("unchecked")
+	private final ArrayDeque<Task<?>>[] queues = new ArrayDeque[] { new ArrayDeque<>(), new ArrayDeque<>() };
+	private final AtomicInteger active = new AtomicInteger();
+	private final Timer[] waitTimers = new Timer[Priority.values().length];
+	private final Counter[] rejectedCounters = new Counter[Priority.values().length];
+
+	private Thread[] workers;
+	private int queued;
+	private int picks;
+	private volatile boolean running;
+
+	@Value("${security.password.threads:0}")
+	private int threads;
+
+	@Value("${security.password.queue-capacity:256}")
+	private int queueCapacity;
+
+	/**
+	 * Constructs a new {@code PasswordVerificationPool}.
+	 *
+	 * @param meterRegistry the registry the saturation meters are kept in
+	 */
+	public PasswordVerificationPool(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@PostConstruct
+	void start() {
+		if (threads <= 0) {
+			threads = Runtime.getRuntime().availableProcessors();
+		}
+
+		for (Priority priority : Priority.values()) {
+			String tag = priority.name().toLowerCase();
+			Gauge.builder("password.verify.queued", this, pool -> pool.queuedOf(priority))
+					.description("Password hashes waiting for a thread").tag("priority", tag).register(meterRegistry);
+			waitTimers[priority.ordinal()] = Timer.builder("password.verify.wait")
+					.description("Time password hashes wait for a thread").tag("priority", tag).register(meterRegistry);
+			rejectedCounters[priority.ordinal()] = Counter.builder("password.verify.rejected")
+					.description("Password hashes turned away by a full queue").tag("priority", tag)
+					.register(meterRegistry);
+		}
+		Gauge.builder("password.verify.active", active, AtomicInteger::get)
+				.description("Password hashes being computed").register(meterRegistry);
+		Gauge.builder("password.verify.threads", this, pool -> pool.threads)
+				.description("Threads computing password hashes").register(meterRegistry);
+
+		running = true;
+		workers = new Thread[threads];
+		for (int i = 0; i < threads; i++) {
+			workers[i] = new Thread(this::work, "password-verify-" + (i + 1));
+			workers[i].setDaemon(true);
+			workers[i].start();
+		}
+		logger.info("Password verification pool started with {} threads", threads);
+	}
+
+	@PreDestroy
+	void stop() {
+		running = false;
+		for (Thread worker : workers) {
+			worker.interrupt();
+		}
+	}
+
+	/**
+	 * Runs an action with the given priority for the password work it
+	 * submits.
+	 *
+	 * @param <T>      the type of the result
+	 * @param priority the priority of the action's password work
+	 * @param action   the action, typically an authentication
+	 * @return the result of the action
+	 */
+	public static <T> T withPriority(Priority priority, Supplier<T> action) {
+		Priority previous = CURRENT_PRIORITY.get();
+		CURRENT_PRIORITY.set(priority);
+		try {
+			return action.get();
+		} finally {
+			if (previous != null) {
+				CURRENT_PRIORITY.set(previous);
+			} else {
+				CURRENT_PRIORITY.remove();
+			}
+		}
+	}
+
+	/**
+	 * Runs password work on the pool, at the priority bound by
+	 * {@link #withPriority(Priority, Supplier)}, and waits for its result.
+	 *
+	 * @param <T>  the type of the result
+	 * @param work the password work
+	 * @return the result of the work
+	 * @throws AuthFailureException {@link AuthFailure#OVERLOADED} if the queue is full
+	 */
+	public <T> T call(Callable<T> work) {
+		Priority priority = CURRENT_PRIORITY.get();
+		Task<T> task = new Task<>(work, priority != null ? priority : Priority.NORMAL);
+		submit(task);
+
+		try {
+			return task.get();
+		} catch (InterruptedException ex) {
+			task.cancel(false);
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for password verification", ex);
+		} catch (ExecutionException ex) {
+			if (ex.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw new IllegalStateException("Password verification failed", ex.getCause());
+		}
+	}
+
+	/**
+	 * Returns the number of threads of the pool.
+	 *
+	 * @return the number of threads
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	private void submit(Task<?> task) {
+		Task<?> displaced = null;
+		lock.lock();
+		try {
+			if (queued >= queueCapacity) {
+				ArrayDeque<Task<?>> suspects = queues[Priority.SUSPECT.ordinal()];
+				if (task.priority != Priority.NORMAL || suspects.isEmpty()) {
+					reject(task);
+					return;
+				}
+				displaced = suspects.pollLast();
+				queued--;
+			}
+			queues[task.priority.ordinal()].addLast(task);
+			queued++;
+			workAvailable.signal();
+		} finally {
+			lock.unlock();
+		}
+		if (displaced != null) {
+			reject(displaced);
+		}
+	}
+
+	private void reject(Task<?> task) {
+		rejectedCounters[task.priority.ordinal()].increment();
+		task.reject();
+	}
+
+	private void work() {
+		while (running) {
+			Task<?> task;
+			lock.lock();
+			try {
+				while ((task = next()) == null) {
+					workAvailable.await();
+				}
+			} catch (InterruptedException ex) {
+				return;
+			} finally {
+				lock.unlock();
+			}
+
+			waitTimers[task.priority.ordinal()].record(System.nanoTime() - task.queuedAt, TimeUnit.NANOSECONDS);
+			active.incrementAndGet();
+			try {
+				task.run();
+			} finally {
+				active.decrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Takes the next task, giving suspect work one turn in
+	 * {@value #SUSPECT_TURN} while normal work waits. Must hold the lock.
+	 */
+	private Task<?> next() {
+		ArrayDeque<Task<?>> normal = queues[Priority.NORMAL.ordinal()];
+		ArrayDeque<Task<?>> suspects = queues[Priority.SUSPECT.ordinal()];
+		Task<?> task;
+		if (!suspects.isEmpty() && (normal.isEmpty() || ++picks % SUSPECT_TURN == 0)) {
+			task = suspects.pollFirst();
+		} else {
+			task = normal.pollFirst();
+		}
+		if (task != null) {
+			queued--;
+		}
+		return task;
+	}
+
+	private int queuedOf(Priority priority) {
+		lock.lock();
+		try {
+			return queues[priority.ordinal()].size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Password work waiting in the queue.
+	 */
+	private static final class Task<T> extends FutureTask<T> {
+
+		private final Priority priority;
+		private final long queuedAt = System.nanoTime();
+
+		private Task(Callable<T> work, Priority priority) {
+			super(work);
+			this.priority = priority;
+		}
+
+		private void reject() {
+			setException(AuthFailure.OVERLOADED.exception());
+		}
+	}
+}
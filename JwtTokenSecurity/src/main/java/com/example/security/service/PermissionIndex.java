@@ -0,0 +1,248 @@
+package com.example.security.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.security.models.Permission;
+import com.example.security.models.Role;
+import com.example.security.models.User;
+import com.example.security.repository.PermissionRepository;
+import com.example.security.repository.RoleRepository;
+import com.example.security.repository.ShardRouter;
+import com.example.security.repository.UserRepository;
+
+/**
+ * In-memory index of roles and permissions.
+ * 
+ * <p>
+ * The index loads every {@link Permission} and {@link Role} once and keeps
+ * permission names, bit positions and per-role bitmaps in memory. A user's
+ * roles are resolved to a bitmap at login; from then on the bitmap travels in
+ * the token and every authorization check is a bit test against it, without
+ * touching the database.
+ * </p>
+ * 
+ * <p>
+ * The bean is exposed to SpEL as {@code @permissionIndex}, e.g.
+ * {@code @PreAuthorize("@permissionIndex.has('USERS_READ_ALL')")}.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+@Service
+public class PermissionIndex {
+
+	private static final Logger logger = LoggerFactory.getLogger(PermissionIndex.class);
+
+	private final PermissionRepository permissionRepository;
+	private final RoleRepository roleRepository;
+	private final UserRepository userRepository;
+	private final ShardRouter shardRouter;
+
+	private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of(),
+			new GrantedAuthority[Permission.MAX_PERMISSIONS]);
+
+	/**
+	 * Constructs a new {@code PermissionIndex}.
+	 *
+	 * @param permissionRepository the repository permissions are loaded from
+	 * @param roleRepository       the repository roles are loaded from
+	 * @param userRepository       the repository users' role names are loaded
+	 *                             from
+	 * @param shardRouter          the router picking the user's shard
+	 */
+	public PermissionIndex(PermissionRepository permissionRepository, RoleRepository roleRepository,
+			UserRepository userRepository, ShardRouter shardRouter) {
+		this.permissionRepository = permissionRepository;
+		this.roleRepository = roleRepository;
+		this.userRepository = userRepository;
+		this.shardRouter = shardRouter;
+	}
+
+	/**
+	 * Reloads all permissions and roles from the database.
+	 */
+	@Transactional(readOnly = true)
+	public void reload() {
+		Map<String, Integer> bits = new HashMap<>();
+		GrantedAuthority[] authorities = new GrantedAuthority[Permission.MAX_PERMISSIONS];
+		for (Permission permission : permissionRepository.findAll()) {
+			int bit = permission.getBit();
+			if (bit < 0 || bit >= Permission.MAX_PERMISSIONS) {
+				throw new IllegalStateException("Permission " + permission.getName() + " has invalid bit " + bit);
+			}
+			bits.put(permission.getName(), bit);
+			authorities[bit] = new SimpleGrantedAuthority(permission.getName());
+		}
+
+		Map<String, Long> roleMasks = new HashMap<>();
+		for (Role role : roleRepository.findAll()) {
+			long mask = 0;
+			for (Permission permission : role.getPermissions()) {
+				mask |= 1L << permission.getBit();
+			}
+			roleMasks.put(role.getName(), mask);
+		}
+
+		// One write, so a permission set built from the old snapshot cannot land in the new one
+		snapshot = new Snapshot(bits, roleMasks, authorities);
+
+		logger.info("Permission index loaded: {} permissions, {} roles", bits.size(), roleMasks.size());
+	}
+
+	/**
+	 * Resolves the permission bitmap of a user from their roles.
+	 *
+	 * @param user the user
+	 * @return the user's permissions
+	 */
+	public PermissionSet resolve(User user) {
+		return authorities(maskForRoles(
+				shardRouter.onShardOfId(user.getId(), () -> userRepository.findRoleNamesById(user.getId()))));
+	}
+
+	/**
+	 * Combines the bitmaps of the given roles. Unknown roles grant nothing.
+	 *
+	 * @param roleNames the names of the roles
+	 * @return the combined permission bitmap
+	 */
+	public long maskForRoles(Collection<String> roleNames) {
+		Map<String, Long> roleMasks = snapshot.roleMasks;
+		long mask = 0;
+		for (String roleName : roleNames) {
+			mask |= roleMasks.getOrDefault(roleName, 0L);
+		}
+		return mask;
+	}
+
+	/**
+	 * Combines the bits of the given permissions.
+	 *
+	 * @param permissionNames the names of the permissions
+	 * @return the permission bitmap
+	 * @throws IllegalArgumentException if a permission is unknown
+	 */
+	public long maskForPermissions(Collection<String> permissionNames) {
+		Map<String, Integer> bits = snapshot.bits;
+		long mask = 0;
+		for (String permissionName : permissionNames) {
+			Integer bit = bits.get(permissionName);
+			if (bit == null) {
+				throw new IllegalArgumentException("Unknown permission " + permissionName);
+			}
+			mask |= 1L << bit;
+		}
+		return mask;
+	}
+
+	/**
+	 * Returns the shared {@link PermissionSet} for a bitmap. Bits that do not
+	 * belong to a known permission are dropped.
+	 *
+	 * @param mask the permission bitmap, e.g. from a token
+	 * @return the permission set
+	 */
+	public PermissionSet authorities(long mask) {
+		Snapshot current = snapshot;
+		PermissionSet permissionSet = current.permissionSets.get(mask);
+		if (permissionSet != null) {
+			return permissionSet;
+		}
+		return current.permissionSets.computeIfAbsent(mask,
+				key -> new PermissionSet(key & current.knownMask, current.authoritiesByBit));
+	}
+
+	/**
+	 * Checks whether the current authentication holds a permission.
+	 *
+	 * @param permission the permission name
+	 * @return true if the permission is granted
+	 */
+	public boolean has(String permission) {
+		return has(SecurityContextHolder.getContext().getAuthentication(), permission);
+	}
+
+	/**
+	 * Checks whether an authentication holds a permission.
+	 *
+	 * <p>
+	 * For authentications carrying a {@link PermissionSet} this is a single bit
+	 * test; other authentications fall back to comparing authority names.
+	 * </p>
+	 *
+	 * @param authentication the authentication, may be {@code null}
+	 * @param permission     the permission name
+	 * @return true if the permission is granted
+	 */
+	public boolean has(Authentication authentication, String permission) {
+		if (authentication == null || !authentication.isAuthenticated()) {
+			return false;
+		}
+		Integer bit = snapshot.bits.get(permission);
+		if (bit == null) {
+			return false;
+		}
+		Collection<? extends GrantedAuthority> authorities = authentication.getAuthorities();
+		if (authorities instanceof PermissionSet permissionSet) {
+			return permissionSet.hasBit(bit);
+		}
+		for (GrantedAuthority authority : authorities) {
+			if (permission.equals(authority.getAuthority())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Creates an {@link AuthorizationManager} for request rules that requires a
+	 * permission.
+	 *
+	 * @param permission the permission name
+	 * @return the authorization manager
+	 */
+	public AuthorizationManager<RequestAuthorizationContext> require(String permission) {
+		return (authentication, context) -> new AuthorizationDecision(has(authentication.get(), permission));
+	}
+
+	/**
+	 * Immutable view of the loaded permissions and roles, swapped atomically on
+	 * reload together with the permission sets built from it.
+	 */
+	private static final class Snapshot {
+
+		private final Map<String, Integer> bits;
+		private final Map<String, Long> roleMasks;
+		private final GrantedAuthority[] authoritiesByBit;
+		private final long knownMask;
+		private final ConcurrentMap<Long, PermissionSet> permissionSets = new ConcurrentHashMap<>();
+
+		private Snapshot(Map<String, Integer> bits, Map<String, Long> roleMasks,
+				GrantedAuthority[] authoritiesByBit) {
+			this.bits = bits;
+			this.roleMasks = roleMasks;
+			this.authoritiesByBit = authoritiesByBit;
+			long known = 0;
+			for (int bit : bits.values()) {
+				known |= 1L << bit;
+			}
+			this.knownMask = known;
+		}
+	}
+}
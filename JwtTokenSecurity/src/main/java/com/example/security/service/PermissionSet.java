@@ -0,0 +1,78 @@
+package com.example.security.service;
+
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * Immutable collection of permissions backed by a 64-bit bitmap.
+ * <p>
+ * Instances are handed out by {@link PermissionIndex} and shared between all
+ * users with the same bitmap. {@link #hasBit(int)} is a single bit test;
+ * iterating yields one precomputed {@link GrantedAuthority} per set bit, so the
+ * set can still be used wherever Spring Security expects authorities.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+@SuppressWarnings("serial")
+public final class PermissionSet extends AbstractCollection<GrantedAuthority> implements Serializable {
+
+	private final long mask;
+	private final GrantedAuthority[] authoritiesByBit;
+
+	PermissionSet(long mask, GrantedAuthority[] authoritiesByBit) {
+		this.mask = mask;
+		this.authoritiesByBit = authoritiesByBit;
+	}
+
+	/**
+	 * Gets the bitmap of granted permissions.
+	 *
+	 * @return the permission bitmap
+	 */
+	public long getMask() {
+		return mask;
+	}
+
+	/**
+	 * Checks whether the permission at the given bit position is granted.
+	 *
+	 * @param bit the bit position, between 0 and 63
+	 * @return true if the permission is granted
+	 */
+	public boolean hasBit(int bit) {
+		return (mask & (1L << bit)) != 0;
+	}
+
+	@Override
+	public int size() {
+		return Long.bitCount(mask);
+	}
+
+	@Override
+	public Iterator<GrantedAuthority> iterator() {
+		return new Iterator<>() {
+
+			private long remaining = mask;
+
+			@Override
+			public boolean hasNext() {
+				return remaining != 0;
+			}
+
+			@Override
+			public GrantedAuthority next() {
+				if (remaining == 0) {
+					throw new NoSuchElementException();
+				}
+				int bit = Long.numberOfTrailingZeros(remaining);
+				remaining &= remaining - 1;
+				return authoritiesByBit[bit];
+			}
+		};
+	}
+}
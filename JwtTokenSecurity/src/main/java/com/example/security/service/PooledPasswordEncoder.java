@@ -0,0 +1,49 @@
+package com.example.security.service;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * {@link PasswordEncoder} computing its hashes on the
+ * {@link PasswordVerificationPool}.
+ *
+ * <p>
+ * Both hashing a new password and verifying a presented one go through the
+ * pool, including the dummy verification {@code DaoAuthenticationProvider}
+ * runs for unknown users, so every BCrypt round is bounded by the pool's
+ * threads. {@link #upgradeEncoding(String)} only parses the hash and runs on
+ * the caller.
+ * </p>
+ *
+ * @author Shivraj.Jadhav
+ */
+public class PooledPasswordEncoder implements PasswordEncoder {
+
+	private final PasswordEncoder delegate;
+	private final PasswordVerificationPool pool;
+
+	/**
+	 * Constructs a new {@code PooledPasswordEncoder}.
+	 *
+	 * @param delegate the encoder computing the hashes
+	 * @param pool     the pool to compute them on
+	 */
+	public PooledPasswordEncoder(PasswordEncoder delegate, PasswordVerificationPool pool) {
+		this.delegate = delegate;
+		this.pool = pool;
+	}
+
+	@Override
+	public String encode(CharSequence rawPassword) {
+		return pool.call(() -> delegate.encode(rawPassword));
+	}
+
+	@Override
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		return pool.call(() -> delegate.matches(rawPassword, encodedPassword));
+	}
+
+	@Override
+	public boolean upgradeEncoding(String encodedPassword) {
+		return delegate.upgradeEncoding(encodedPassword);
+	}
+}
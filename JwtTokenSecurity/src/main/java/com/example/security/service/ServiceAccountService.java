@@ -0,0 +1,176 @@
+package com.example.security.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.example.security.exceptions.AuthFailure;
+import com.example.security.exceptions.AuthFailureException;
+import com.example.security.jwt.Tenant;
+import com.example.security.models.ServiceAccount;
+import com.example.security.repository.ServiceAccountRepository;
+
+/**
+ * Creates, authenticates and disables {@link ServiceAccount}s.
+ *
+ * <p>
+ * Secrets are 32 random bytes, so checking one is a single SHA-256 digest and
+ * a constant-time comparison. Enabled accounts are cached for the
+ * authentication filter, which resolves the principal of every service token
+ * by name; disabling an account evicts it. The cache is per instance, and
+ * other instances keep accepting the account's outstanding tokens until they
+ * expire, which the token lifetime cap keeps short.
+ * </p>
+ *
+ * @author Shivraj.Jadhav
+ */
+@Service
+public class ServiceAccountService {
+
+	private static final Logger logger = LoggerFactory.getLogger(ServiceAccountService.class);
+
+	private static final int SECRET_BYTES = 32;
+	private static final String BASIC_PREFIX = "Basic ";
+
+	private final ServiceAccountRepository serviceAccountRepository;
+	private final SecureRandom random = new SecureRandom();
+	private final ConcurrentMap<String, ServiceAccount> accounts = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructs a new {@code ServiceAccountService}.
+	 *
+	 * @param serviceAccountRepository the repository of service accounts
+	 */
+	public ServiceAccountService(ServiceAccountRepository serviceAccountRepository) {
+		this.serviceAccountRepository = serviceAccountRepository;
+	}
+
+	/**
+	 * Creates a service account with a fresh secret.
+	 *
+	 * @param tenant      the tenant the account belongs to
+	 * @param name        the name of the account
+	 * @param permissions the permissions the account's tokens may carry
+	 * @return the secret, which is not stored and cannot be shown again, or
+	 *         empty if the tenant already has an account of that name
+	 */
+	public Optional<String> create(Tenant tenant, String name, long permissions) {
+		if (serviceAccountRepository.findByTenantAndName(tenant.getId(), name).isPresent()) {
+			return Optional.empty();
+		}
+
+		byte[] bytes = new byte[SECRET_BYTES];
+		random.nextBytes(bytes);
+		String secret = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+		serviceAccountRepository.save(new ServiceAccount().setTenant(tenant.getId()).setName(name)
+				.setPermissions(permissions).setSecretHash(HexFormat.of().formatHex(digest(secret))));
+
+		logger.info("Created service account {} of tenant {}", name, tenant);
+		return Optional.of(secret);
+	}
+
+	/**
+	 * Authenticates a service account by the HTTP Basic credentials of a
+	 * request, its name and secret.
+	 *
+	 * @param tenant        the tenant of the account
+	 * @param authorization the {@code Authorization} header, may be {@code null}
+	 * @return the account
+	 * @throws AuthFailureException {@link AuthFailure#BAD_CREDENTIALS} if the credentials are missing or do not match
+	 */
+	public ServiceAccount authenticate(Tenant tenant, String authorization) {
+		if (authorization == null || !authorization.startsWith(BASIC_PREFIX)) {
+			throw AuthFailure.BAD_CREDENTIALS.exception();
+		}
+		String decoded;
+		try {
+			decoded = new String(Base64.getDecoder().decode(authorization.substring(BASIC_PREFIX.length()).trim()),
+					StandardCharsets.UTF_8);
+		} catch (IllegalArgumentException ex) {
+			throw AuthFailure.BAD_CREDENTIALS.exception();
+		}
+		int colon = decoded.indexOf(':');
+		if (colon < 0) {
+			throw AuthFailure.BAD_CREDENTIALS.exception();
+		}
+		return authenticate(tenant, decoded.substring(0, colon), decoded.substring(colon + 1));
+	}
+
+	/**
+	 * Authenticates a service account by its secret.
+	 *
+	 * @param tenant the tenant of the account
+	 * @param name   the name of the account
+	 * @param secret the presented secret
+	 * @return the account
+	 * @throws AuthFailureException {@link AuthFailure#BAD_CREDENTIALS} if no enabled account matches the secret
+	 */
+	public ServiceAccount authenticate(Tenant tenant, String name, String secret) {
+		ServiceAccount account = serviceAccountRepository.findByTenantAndName(tenant.getId(), name)
+				.filter(ServiceAccount::isEnabled).orElseThrow(AuthFailure.BAD_CREDENTIALS::exception);
+		if (!MessageDigest.isEqual(digest(secret), HexFormat.of().parseHex(account.getSecretHash()))) {
+			throw AuthFailure.BAD_CREDENTIALS.exception();
+		}
+		return account;
+	}
+
+	/**
+	 * Returns the enabled service account a token names, loading it on a
+	 * miss.
+	 *
+	 * @param tenant the tenant the token was issued for
+	 * @param name   the name of the account
+	 * @return the account
+	 * @throws AuthFailureException {@link AuthFailure#UNKNOWN_USER} if the account is unknown or disabled
+	 */
+	public ServiceAccount load(Tenant tenant, String name) {
+		String key = tenant.getId() + '/' + name;
+		ServiceAccount account = accounts.get(key);
+		if (account != null) {
+			return account;
+		}
+
+		account = serviceAccountRepository.findByTenantAndName(tenant.getId(), name)
+				.filter(ServiceAccount::isEnabled).orElseThrow(AuthFailure.UNKNOWN_USER::exception);
+		accounts.put(key, account);
+		return account;
+	}
+
+	/**
+	 * Disables a service account: it can no longer mint tokens, and this
+	 * instance stops accepting the tokens it minted.
+	 *
+	 * @param tenant the tenant of the account
+	 * @param name   the name of the account
+	 * @return false if the tenant has no account of that name
+	 */
+	public boolean disable(Tenant tenant, String name) {
+		Optional<ServiceAccount> account = serviceAccountRepository.findByTenantAndName(tenant.getId(), name);
+		if (account.isEmpty()) {
+			return false;
+		}
+		serviceAccountRepository.save(account.get().setEnabled(false));
+		accounts.remove(tenant.getId() + '/' + name);
+
+		logger.info("Disabled service account {} of tenant {}", name, tenant);
+		return true;
+	}
+
+	private static byte[] digest(String secret) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("SHA-256 is not available", ex);
+		}
+	}
+}
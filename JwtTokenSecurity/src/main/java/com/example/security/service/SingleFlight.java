@@ -0,0 +1,122 @@
+package com.example.security.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Coalesces concurrent identical calls into one.
+ *
+ * <p>
+ * The first caller for a key runs the call on its own thread and shares the
+ * outcome, result or exception, with every caller for the same key arriving
+ * while it runs; a call finished is forgotten, so the next one runs again.
+ * Callers joining a call wait for it at most {@code timeout} milliseconds.
+ * One that gives up cancels the shared call for newcomers, who start a fresh
+ * one instead of piling onto a stuck call, and runs the call itself; the
+ * callers already waiting keep waiting for the original. An interrupted
+ * caller stops waiting without disturbing the others.
+ * </p>
+ *
+ * <p>
+ * Calls are counted in {@code singleflight.calls}, tagged by name and by
+ * outcome: {@code led}, {@code joined} or {@code timed-out}.
+ * </p>
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the results
+ * @author Shivraj.Jadhav
+ */
+public final class SingleFlight<K, V> {
+
+	private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+	private final long timeout;
+	private final Counter led;
+	private final Counter joined;
+	private final Counter timedOut;
+
+	/**
+	 * Constructs a new {@code SingleFlight}.
+	 *
+	 * @param name          the name tagging the counters
+	 * @param timeout       the time a joining caller waits, in milliseconds
+	 * @param meterRegistry the registry the counters are kept in
+	 */
+	public SingleFlight(String name, long timeout, MeterRegistry meterRegistry) {
+		this.timeout = timeout;
+		this.led = outcome(meterRegistry, name, "led");
+		this.joined = outcome(meterRegistry, name, "joined");
+		this.timedOut = outcome(meterRegistry, name, "timed-out");
+	}
+
+	/**
+	 * Runs the call, or joins the one already running for the key.
+	 *
+	 * @param key  the key identical calls share
+	 * @param call the call
+	 * @return the result of the call
+	 * @throws RuntimeException the exception the call threw
+	 */
+	public V execute(K key, Supplier<V> call) {
+		CompletableFuture<V> flight = new CompletableFuture<>();
+		CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+		if (existing == null) {
+			led.increment();
+			return lead(key, flight, call);
+		}
+
+		joined.increment();
+		try {
+			return existing.get(timeout, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException ex) {
+			timedOut.increment();
+			inFlight.remove(key, existing);
+			return call.get();
+		} catch (ExecutionException ex) {
+			if (ex.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			if (ex.getCause() instanceof Error error) {
+				throw error;
+			}
+			throw new IllegalStateException(ex.getCause());
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for a call in flight", ex);
+		}
+	}
+
+	/**
+	 * Gets the number of calls currently running.
+	 *
+	 * @return the number of keys in flight
+	 */
+	public int inFlight() {
+		return inFlight.size();
+	}
+
+	private V lead(K key, CompletableFuture<V> flight, Supplier<V> call) {
+		try {
+			V result = call.get();
+			flight.complete(result);
+			return result;
+		} catch (RuntimeException | Error ex) {
+			flight.completeExceptionally(ex);
+			throw ex;
+		} finally {
+			inFlight.remove(key, flight);
+		}
+	}
+
+	private static Counter outcome(MeterRegistry meterRegistry, String name, String outcome) {
+		return Counter.builder("singleflight.calls").description("Coalesced calls by outcome").tag("name", name)
+				.tag("outcome", outcome).register(meterRegistry);
+	}
+}
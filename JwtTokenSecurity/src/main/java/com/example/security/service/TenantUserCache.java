@@ -0,0 +1,230 @@
+package com.example.security.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.security.exceptions.AuthFailure;
+import com.example.security.exceptions.AuthFailureException;
+import com.example.security.jwt.Tenant;
+import com.example.security.jwt.TenantRegistry;
+import com.example.security.jwt.TimingWheel;
+import com.example.security.jwt.TokenClock;
+import com.example.security.models.User;
+import com.example.security.repository.ShardRouter;
+import com.example.security.repository.UserRepository;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Cache of the users authenticated by bearer tokens, partitioned by tenant.
+ * 
+ * <p>
+ * Each tenant gets its own bounded partition, indexed by the tenant's position
+ * in the {@link TenantRegistry}, so a tenant with many active users only ever
+ * evicts its own entries. A full partition evicts its least recently used
+ * user. Entries are dropped when the user entity is updated or removed on this
+ * instance, and in any case once they are
+ * {@code security.tenant.user-cache.ttl} old, which bounds how long changes
+ * made through other instances go unseen; the expiries are kept on a
+ * {@link TimingWheel}. Concurrent misses on the same user, such as a burst of
+ * requests with a fresh token, share one lookup.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+@Service
+public class TenantUserCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(TenantUserCache.class);
+
+	private static final long TICK_MILLIS = 1000L;
+
+	private final UserRepository userRepository;
+	private final TenantRegistry tenantRegistry;
+	private final ShardRouter shardRouter;
+	private final SingleFlight<String, Optional<User>> userLookups;
+	private final TokenClock tokenClock;
+	private final Map<String, CachedUser>[] partitions;
+	private final TimingWheel<CachedUser> expiryWheel;
+
+	@Value("${security.tenant.user-cache.max-entries:1000}")
+	private int maxEntries;
+
+	@Value("${security.tenant.user-cache.ttl:60000}")
+	private long ttl;
+
+	/**
+	 * Constructs a new {@code TenantUserCache}.
+	 *
+	 * @param userRepository the repository users are loaded from on a miss
+	 * @param tenantRegistry the registry of tenants, one partition each
+	 * @param shardRouter    the router picking the user's shard
+	 * @param userLookups    the coalescer of concurrent lookups of a user
+	 * @param tokenClock     the clock the entries expire by
+	 */
+	@SuppressWarnings("unchecked")
+	public TenantUserCache(UserRepository userRepository, TenantRegistry tenantRegistry, ShardRouter shardRouter,
+			SingleFlight<String, Optional<User>> userLookups, TokenClock tokenClock) {
+		this.userRepository = userRepository;
+		this.tenantRegistry = tenantRegistry;
+		this.shardRouter = shardRouter;
+		this.userLookups = userLookups;
+		this.tokenClock = tokenClock;
+		this.partitions = new Map[tenantRegistry.size()];
+		for (int i = 0; i < partitions.length; i++) {
+			partitions[i] = new LinkedHashMap<>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, CachedUser> eldest) {
+					if (size() <= maxEntries) {
+						return false;
+					}
+					eldest.getValue().cancelExpiry();
+					return true;
+				}
+			};
+		}
+		this.expiryWheel = new TimingWheel<>(TICK_MILLIS, tokenClock.millis(), this::expired);
+	}
+
+	/**
+	 * Returns the user of a tenant, loading it on a miss.
+	 *
+	 * @param tenant the tenant of the user
+	 * @param email  the email of the user
+	 * @return the user
+	 * @throws AuthFailureException {@link AuthFailure#UNKNOWN_USER} if the user does not exist
+	 */
+	public User load(Tenant tenant, String email) {
+		Map<String, CachedUser> partition = partitions[tenant.getIndex()];
+		CachedUser cached;
+		synchronized (partition) {
+			cached = partition.get(email);
+		}
+		if (cached != null) {
+			return cached.user;
+		}
+
+		User user = userLookups
+				.execute(tenant.getId() + ':' + email,
+						() -> shardRouter.onShardOf(email,
+								() -> userRepository.findByTenantAndEmail(tenant.getId(), email)))
+				.orElseThrow(AuthFailure.UNKNOWN_USER::exception);
+		cached = new CachedUser(partition, email, user);
+		cached.expiry = expiryWheel.schedule(cached, tokenClock.millis() + ttl);
+		CachedUser replaced;
+		synchronized (partition) {
+			replaced = partition.put(email, cached);
+		}
+		if (replaced != null) {
+			replaced.cancelExpiry();
+		}
+		return user;
+	}
+
+	/**
+	 * Drops a user from its tenant's partition. The entry is matched by id, so
+	 * it is found even if the update changed the email.
+	 *
+	 * @param user the user
+	 */
+	public void invalidate(User user) {
+		Tenant tenant = tenantRegistry.byId(user.getTenant());
+		if (tenant == null) {
+			return;
+		}
+		Map<String, CachedUser> partition = partitions[tenant.getIndex()];
+		boolean removed = false;
+		synchronized (partition) {
+			Iterator<CachedUser> entries = partition.values().iterator();
+			while (entries.hasNext()) {
+				CachedUser cached = entries.next();
+				if (cached.user.getId().equals(user.getId())) {
+					cached.cancelExpiry();
+					entries.remove();
+					removed = true;
+				}
+			}
+		}
+		if (removed) {
+			logger.debug("Invalidated cached user {} of tenant {}", user.getId(), tenant);
+		}
+	}
+
+	/**
+	 * Drops the users cached for longer than the time to live.
+	 */
+	@Scheduled(fixedDelay = TICK_MILLIS)
+	public void expire() {
+		expiryWheel.advance(tokenClock.millis());
+	}
+
+	private void expired(List<CachedUser> expired) {
+		for (CachedUser cached : expired) {
+			synchronized (cached.partition) {
+				// A reload replaced the entry and has its own expiry
+				cached.partition.remove(cached.email, cached);
+			}
+		}
+		logger.debug("Expired {} cached users", expired.size());
+	}
+
+	/**
+	 * A cached user, scheduled for expiry.
+	 */
+	private static final class CachedUser {
+
+		private final Map<String, CachedUser> partition;
+		private final String email;
+		private final User user;
+		private volatile TimingWheel.Timeout<CachedUser> expiry;
+
+		CachedUser(Map<String, CachedUser> partition, String email, User user) {
+			this.partition = partition;
+			this.email = email;
+			this.user = user;
+		}
+
+		void cancelExpiry() {
+			TimingWheel.Timeout<CachedUser> timeout = expiry;
+			if (timeout != null) {
+				timeout.cancel();
+			}
+		}
+	}
+
+	/**
+	 * JPA entity listener invalidating the cache whenever a {@link User} changes.
+	 */
+	public static class UserChangeListener {
+
+		private final ObjectProvider<TenantUserCache> tenantUserCache;
+
+		/**
+		 * Constructs the listener; instantiated by Hibernate through the Spring
+		 * bean container while the entity manager factory is being built, so the
+		 * cache, which depends on a repository, is looked up lazily.
+		 *
+		 * @param tenantUserCache the provider of the cache to invalidate
+		 */
+		public UserChangeListener(ObjectProvider<TenantUserCache> tenantUserCache) {
+			this.tenantUserCache = tenantUserCache;
+		}
+
+		@PostUpdate
+		@PostRemove
+		void onChange(User user) {
+			tenantUserCache.getObject().invalidate(user);
+		}
+	}
+}
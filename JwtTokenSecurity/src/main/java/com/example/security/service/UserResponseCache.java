@@ -0,0 +1,165 @@
+package com.example.security.service;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.security.models.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Per-user cache of the serialized {@code /users/me} response.
+ * 
+ * <p>
+ * Each entry holds the JSON bytes of a user together with an ETag derived from
+ * the user's id and {@code updatedAt} timestamp. An entry is only served while
+ * its ETag still matches the user, and it is dropped as soon as the entity is
+ * updated or removed, so polling clients get either a 304 or the cached bytes
+ * without the principal being serialized again.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+@Service
+public class UserResponseCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(UserResponseCache.class);
+
+	private final ObjectWriter userWriter;
+	private final ConcurrentMap<Integer, CachedResponse> responses = new ConcurrentHashMap<>();
+
+	@Value("${security.cache.user-response.max-entries:10000}")
+	private int maxEntries;
+
+	/**
+	 * Constructs a new {@code UserResponseCache}.
+	 *
+	 * @param objectMapper the mapper used to serialize users
+	 */
+	public UserResponseCache(ObjectMapper objectMapper) {
+		this.userWriter = objectMapper.writerFor(User.class);
+	}
+
+	/**
+	 * Returns the cached response for the user, serializing it if there is no
+	 * entry or the entry is stale.
+	 *
+	 * @param user the user to return the response for
+	 * @return the cached response
+	 */
+	public CachedResponse get(User user) {
+		String etag = etagFor(user);
+		CachedResponse cached = responses.get(user.getId());
+		if (cached != null && cached.getEtag().equals(etag)) {
+			return cached;
+		}
+
+		try {
+			cached = new CachedResponse(etag, userWriter.writeValueAsBytes(user));
+		} catch (JsonProcessingException ex) {
+			throw new IllegalStateException("Could not serialize user " + user.getId(), ex);
+		}
+
+		if (responses.size() >= maxEntries) {
+			evictOne();
+		}
+		responses.put(user.getId(), cached);
+		return cached;
+	}
+
+	/**
+	 * Drops the cached response of a user.
+	 *
+	 * @param userId the id of the user
+	 */
+	public void invalidate(Integer userId) {
+		if (userId != null && responses.remove(userId) != null) {
+			logger.debug("Invalidated cached response for user id: {}", userId);
+		}
+	}
+
+	/**
+	 * Computes the ETag of a user from its id and last update time.
+	 *
+	 * @param user the user
+	 * @return the quoted ETag value
+	 */
+	public static String etagFor(User user) {
+		long version = user.getUpdatedAt() != null ? user.getUpdatedAt().getTime() : 0L;
+		return "\"" + user.getId() + "-" + Long.toHexString(version) + "\"";
+	}
+
+	private void evictOne() {
+		Iterator<Integer> keys = responses.keySet().iterator();
+		if (keys.hasNext()) {
+			keys.next();
+			keys.remove();
+		}
+	}
+
+	/**
+	 * JPA entity listener invalidating the cache whenever a {@link User} changes.
+	 */
+	public static class UserChangeListener {
+
+		private final UserResponseCache userResponseCache;
+
+		/**
+		 * Constructs the listener; instantiated by Hibernate through the Spring
+		 * bean container.
+		 *
+		 * @param userResponseCache the cache to invalidate
+		 */
+		public UserChangeListener(UserResponseCache userResponseCache) {
+			this.userResponseCache = userResponseCache;
+		}
+
+		@PostUpdate
+		@PostRemove
+		void onChange(User user) {
+			userResponseCache.invalidate(user.getId());
+		}
+	}
+
+	/**
+	 * A serialized user together with its ETag.
+	 */
+	public static final class CachedResponse {
+
+		private final String etag;
+		private final byte[] body;
+
+		private CachedResponse(String etag, byte[] body) {
+			this.etag = etag;
+			this.body = body;
+		}
+
+		/**
+		 * Gets the ETag of the response.
+		 *
+		 * @return the quoted ETag value
+		 */
+		public String getEtag() {
+			return etag;
+		}
+
+		/**
+		 * Gets the serialized JSON body.
+		 *
+		 * @return the JSON bytes
+		 */
+		public byte[] getBody() {
+			return body;
+		}
+	}
+}
@@ -1,51 +1,127 @@
-package com.example.security.service;
-
-import org.springframework.stereotype.Service;
-import com.example.security.models.User;
-import com.example.security.repository.UserRepository;
-
-import java.util.ArrayList;
-import java.util.List;
-
-/**
- * Service class for managing user-related operations.
- * 
- * <p>
- * This service provides methods for interacting with user data, including
- * retrieving all users from the repository.
- * </p>
- * 
- * @author Your Name
- */
-@Service
-public class UserService {
-
-    private final UserRepository userRepository;
-
-    /**
-     * Constructs a new {@code UserService} with the specified {@code UserRepository}.
-     * 
-     * @param userRepository the {@link UserRepository} to be used for accessing user data
-     */
-    public UserService(UserRepository userRepository) {
-        this.userRepository = userRepository;
-    }
-
-    /**
-     * Retrieves all users from the repository.
-     * 
-     * <p>
-     * This method fetches all users and returns them as a list.
-     * </p>
-     * 
-     * @return a {@link List} of {@link User} entities
-     */
-    public List<User> allUsers() {
-        List<User> users = new ArrayList<>();
-        
-        // Fetch all users from the repository and add them to the list
-        userRepository.findAll().forEach(users::add);
-        
-        return users;
-    }
-}
+package com.example.security.service;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import com.example.security.jwt.Tenant;
+import com.example.security.models.User;
+import com.example.security.repository.ShardRouter;
+import com.example.security.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Service class for managing user-related operations.
+ * 
+ * <p>
+ * This service provides methods for interacting with user data, including
+ * retrieving all users from the repository.
+ * </p>
+ * 
+ * @author Your Name
+ */
+@Service
+public class UserService {
+
+    /**
+     * Users loaded per query while listing.
+     */
+    static final int BATCH_SIZE = 500;
+
+    private final UserRepository userRepository;
+    private final ShardRouter shardRouter;
+
+    /**
+     * Constructs a new {@code UserService} with the specified {@code UserRepository}
+     * and {@code ShardRouter}.
+     * 
+     * @param userRepository the {@link UserRepository} to be used for accessing user data
+     * @param shardRouter the {@link ShardRouter} the user shards are queried through
+     */
+    public UserService(UserRepository userRepository, ShardRouter shardRouter) {
+        this.userRepository = userRepository;
+        this.shardRouter = shardRouter;
+    }
+
+    /**
+     * Retrieves all users of a tenant from the repository.
+     * 
+     * <p>
+     * This method returns the users lazily: iterating loads them in batches of
+     * {@value #BATCH_SIZE} by id, each in its own read-only transaction, so
+     * at most two batches per shard are held at a time. Callers need the
+     * {@code USERS_READ_ALL} permission, which is checked when this method is
+     * called rather than while iterating. When users are sharded, the shards
+     * are queried in parallel on the {@link ShardRouter}'s pool, each fetching
+     * its next batch while the previous one is read, and the users are
+     * returned in shard order.
+     * </p>
+     * 
+     * @param tenant the tenant whose users are listed, the caller's own
+     * @return an {@link Iterable} over the tenant's {@link User} entities
+     */
+    @PreAuthorize("@permissionIndex.has('USERS_READ_ALL')")
+    public Iterable<User> allUsers(Tenant tenant) {
+        String tenantId = tenant.getId();
+        return () -> new UserBatches(tenantId);
+    }
+
+    /**
+     * Walks the shards in order while every shard fetches its next batch in
+     * parallel, one batch ahead of the one being read.
+     */
+    private final class UserBatches implements Iterator<User> {
+
+        private final String tenant;
+        private final List<CompletableFuture<List<User>>> nextBatches;
+        private int shard;
+        private Iterator<User> batch = Collections.emptyIterator();
+
+        UserBatches(String tenant) {
+            this.tenant = tenant;
+            int shards = shardRouter.shardCount();
+            this.nextBatches = new ArrayList<>(shards);
+            for (int i = 0; i < shards; i++) {
+                nextBatches.add(fetch(i, 0));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!batch.hasNext()) {
+                if (shard == nextBatches.size()) {
+                    return false;
+                }
+                CompletableFuture<List<User>> next = nextBatches.get(shard);
+                if (next == null) {
+                    shard++;
+                    continue;
+                }
+                List<User> users = next.join();
+                // A short batch is the last of its shard
+                nextBatches.set(shard, users.size() < BATCH_SIZE ? null
+                        : fetch(shard, users.get(users.size() - 1).getId()));
+                batch = users.iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public User next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return batch.next();
+        }
+
+        private CompletableFuture<List<User>> fetch(int target, int lastId) {
+            return shardRouter.onShardAsync(target, () -> userRepository
+                    .findByTenantAndIdGreaterThanOrderByIdAsc(tenant, lastId, Limit.of(BATCH_SIZE)));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+-- Schema of the perf profile (application-perf.properties), matching the entities; Hibernate validates it at startup.
+-- Keep in step with the entities when they change.
+
+create table permissions (id integer not null, bit integer not null, name varchar(64) not null, primary key (id));
+create table roles (id integer not null, name varchar(64) not null, primary key (id));
+create table role_permissions (role_id integer not null, permission_id integer not null, primary key (role_id, permission_id));
+
+create table users (id integer not null, created_at timestamp(6), email varchar(100) not null, full_name varchar(255) not null,
+	password varchar(255) not null, tenant varchar(50) default 'default' not null, updated_at timestamp(6), primary key (id));
+create table user_roles (user_id integer not null, role_id integer not null, primary key (user_id, role_id));
+
+create table opaque_tokens (token_hash varchar(32) not null, email varchar(100) not null, expires_at bigint not null,
+	issued_at bigint not null, permissions bigint not null, tenant varchar(50) not null, user_id integer not null,
+	primary key (token_hash));
+create table service_accounts (id integer not null, created_at timestamp(6), enabled boolean not null, name varchar(64) not null,
+	permissions bigint not null, secret_hash varchar(64) not null, tenant varchar(50) not null, primary key (id));
+create table audit_events (id bigint generated by default as identity, client_address varchar(45), detail varchar(64),
+	event_type varchar(32) not null, occurred_at timestamp(6) not null, subject varchar(100), tenant varchar(50), primary key (id));
+create table idempotency_keys (key_hash varchar(64) not null, fingerprint varchar(64) not null, status integer not null,
+	body varchar(255), expires_at bigint not null, primary key (key_hash));
+
+alter table permissions add constraint uk_permissions_bit unique (bit);
+alter table permissions add constraint uk_permissions_name unique (name);
+alter table roles add constraint uk_roles_name unique (name);
+alter table service_accounts add constraint uk_service_accounts_tenant_name unique (tenant, name);
+alter table users add constraint uk_users_tenant_email unique (tenant, email);
+
+-- Login looks users up by tenant and email (the unique constraint above), bearer tokens and the user cache by email alone
+create index idx_users_email on users (email);
+-- The user listing pages through a tenant's users by id
+create index idx_users_tenant_id on users (tenant, id);
+-- Role resolution at login joins user_roles by user, the primary key covers that; this covers the reverse direction
+create index idx_user_roles_role_id on user_roles (role_id);
+create index idx_opaque_tokens_expires_at on opaque_tokens (expires_at);
+create index idx_audit_events_occurred_at on audit_events (occurred_at);
+create index idx_audit_events_subject on audit_events (subject);
+create index idx_idempotency_keys_expires_at on idempotency_keys (expires_at);
+
+alter table role_permissions add constraint fk_role_permissions_permission foreign key (permission_id) references permissions;
+alter table role_permissions add constraint fk_role_permissions_role foreign key (role_id) references roles;
+alter table user_roles add constraint fk_user_roles_role foreign key (role_id) references roles;
+alter table user_roles add constraint fk_user_roles_user foreign key (user_id) references users;
+
+create sequence permissions_seq start with 1 increment by 50;
+create sequence roles_seq start with 1 increment by 50;
+create sequence service_accounts_seq start with 1 increment by 50;
+create sequence users_seq start with 1 increment by 50;
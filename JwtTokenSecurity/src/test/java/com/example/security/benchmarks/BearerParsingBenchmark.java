@@ -0,0 +1,65 @@
+package com.example.security.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.security.jwt.JwtFastPathClaims;
+import com.example.security.jwt.JwtFastPathVerifier;
+import com.example.security.jwt.JwtService;
+import com.example.security.models.User;
+
+/**
+ * Compares the per-request cost of the bearer header fast path against the jjwt
+ * path the filter used before.
+ * <p>
+ * Run with
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="BearerParsingBenchmark -prof gc"}
+ * and compare {@code gc.alloc.rate.norm}.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BearerParsingBenchmark {
+
+	private JwtService jwtService;
+	private JwtFastPathVerifier verifier;
+	private User user;
+	private String authHeader;
+	private final JwtFastPathClaims claims = new JwtFastPathClaims();
+
+	@Setup
+	public void setUp() {
+		jwtService = BenchmarkSupport.jwtService();
+		verifier = new JwtFastPathVerifier(BenchmarkSupport.tenantRegistry(), BenchmarkSupport.tokenClock());
+
+		user = BenchmarkSupport.user();
+		authHeader = "Bearer " + jwtService.generateToken(user);
+	}
+
+	@Benchmark
+	public boolean jjwt() {
+		String jwt = authHeader.substring(7);
+		return jwtService.extractUsername(jwt) != null && jwtService.isTokenValid(jwt, user);
+	}
+
+	@Benchmark
+	public String fastPath() {
+		verifier.verify(authHeader, 7, claims);
+		return claims.getSubject();
+	}
+}
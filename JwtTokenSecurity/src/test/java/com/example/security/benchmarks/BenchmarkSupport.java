@@ -0,0 +1,51 @@
+package com.example.security.benchmarks;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.Level;
+
+import com.example.security.jwt.JwtService;
+import com.example.security.jwt.JwtTestSupport;
+import com.example.security.jwt.TokenClock;
+import com.example.security.jwt.TenantRegistry;
+import com.example.security.models.User;
+
+/**
+ * Builds the services the benchmarks exercise without a Spring context.
+ */
+final class BenchmarkSupport {
+
+	static final long EXPIRATION = JwtTestSupport.EXPIRATION;
+
+	static {
+		// Plain logback defaults to DEBUG, which would make the benchmarks measure logging
+		((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+	}
+
+	private BenchmarkSupport() {
+	}
+
+	static TenantRegistry tenantRegistry() {
+		return JwtTestSupport.tenantRegistry();
+	}
+
+	static TokenClock tokenClock() {
+		// Stopped at the start of the run, so expiry checks do not depend on how long it takes
+		return new TokenClock(Clock.fixed(Instant.now(), ZoneOffset.UTC));
+	}
+
+	static JwtService jwtService() {
+		return JwtTestSupport.jwtService(tenantRegistry(), tokenClock());
+	}
+
+	static User user() {
+		User user = new User().setEmail("benchmark.user@example.com").setFullName("Benchmark User").setPassword("x");
+		user.setId(42);
+		return user;
+	}
+}
@@ -0,0 +1,104 @@
+package com.example.security.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.security.web.SecurityFilterChain;
+
+import com.example.security.JwtTokenSecurityApplication;
+import com.example.security.config.PerfDataSeeder;
+import com.example.security.jwt.JwtService;
+import com.example.security.jwt.TenantRegistry;
+import com.example.security.models.User;
+import com.example.security.repository.UserRepository;
+
+/**
+ * Measures the per-request cost of the Spring Security filter chains alone:
+ * the application is started with the {@code perf} profile and each call runs
+ * a request through the {@code springSecurityFilterChain} down to an empty
+ * servlet. {@code /auth/login} stands for the public endpoints, {@code /users/me}
+ * with a bearer token for the API. The filters of the chain each path matched
+ * are printed at the end of each trial.
+ * <p>
+ * Run with
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="SecurityFilterChainBenchmark -prof gc"}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecurityFilterChainBenchmark {
+
+	@Param({ "/auth/login", "/users/me" })
+	public String path;
+
+	private ConfigurableApplicationContext context;
+	private FilterChainProxy filterChainProxy;
+	private String authHeader;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		context = new SpringApplicationBuilder(JwtTokenSecurityApplication.class).run("--server.port=0",
+				"--spring.profiles.active=perf", "--security.perf.seed-users=1", "--logging.level.root=WARN");
+		filterChainProxy = context.getBean("springSecurityFilterChain", FilterChainProxy.class);
+
+		String tenantId = context.getBean(TenantRegistry.class).getDefault().getId();
+		User user = context.getBean(UserRepository.class).findByTenantAndEmail(tenantId, PerfDataSeeder.email(1))
+				.orElseThrow();
+		authHeader = "Bearer " + context.getBean(JwtService.class).generateToken(user);
+		if (request().getMethod().equals("GET") && filter().getStatus() != 200) {
+			throw new IllegalStateException("Bearer token was not accepted");
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		for (SecurityFilterChain chain : filterChainProxy.getFilterChains()) {
+			if (chain.matches(request())) {
+				System.out.println(path + " runs " + chain.getFilters().size() + " filters: " + chain.getFilters()
+						.stream().map(filter -> filter.getClass().getSimpleName()).toList());
+				break;
+			}
+		}
+		context.close();
+	}
+
+	@Benchmark
+	public MockHttpServletResponse filter() throws Exception {
+		MockHttpServletRequest request = request();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filterChainProxy.doFilter(request, response, new MockFilterChain());
+		return response;
+	}
+
+	private MockHttpServletRequest request() {
+		boolean api = path.startsWith("/users");
+		MockHttpServletRequest request = new MockHttpServletRequest(api ? "GET" : "POST", path);
+		request.setServletPath(path);
+		if (api) {
+			request.addHeader("Authorization", authHeader);
+		}
+		return request;
+	}
+}
@@ -0,0 +1,91 @@
+package com.example.security.benchmarks;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.security.jwt.TimingWheel;
+
+/**
+ * Measures the timing wheel with a steady population of entries.
+ * <p>
+ * The wheel is filled with {@code entries} deadlines spread over an hour of
+ * one-second ticks, and every expired entry is rescheduled an hour ahead, so
+ * the population stays constant. {@code scheduleAndCancel} shows insert and
+ * cancel do not depend on the population; {@code advanceOneTick} expires and
+ * reschedules the ~{@code entries / 3600} entries of one tick. The retained
+ * heap per entry is printed during setup. Run with
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="TimingWheelBenchmark -prof gc"}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = { "-Xms3g", "-Xmx3g" })
+public class TimingWheelBenchmark {
+
+	private static final long TICK = 1000L;
+	private static final long HORIZON = 3_600_000L;
+	private static final long START = 1_700_000_000_000L;
+
+	@Param({ "1000000", "10000000" })
+	private int entries;
+
+	private final Object payload = new Object();
+	private final SplittableRandom random = new SplittableRandom(42);
+	private TimingWheel<Object> wheel;
+	private long now;
+
+	@Setup
+	public void setUp() {
+		long before = usedHeap();
+		now = START;
+		wheel = new TimingWheel<>(TICK, START, this::reschedule);
+		for (int i = 0; i < entries; i++) {
+			wheel.schedule(payload, START + random.nextLong(HORIZON));
+		}
+		long after = usedHeap();
+
+		System.out.printf("%nTiming wheel: %d entries, %.1f bytes retained per entry%n", wheel.size(),
+				(after - before) / (double) entries);
+	}
+
+	@Benchmark
+	public boolean scheduleAndCancel() {
+		return wheel.schedule(payload, now + random.nextLong(HORIZON)).cancel();
+	}
+
+	@Benchmark
+	public int advanceOneTick() {
+		now += TICK;
+		return wheel.advance(now);
+	}
+
+	private void reschedule(List<Object> expired) {
+		for (Object object : expired) {
+			wheel.schedule(object, now + HORIZON);
+		}
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,73 @@
+package com.example.security.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.security.jwt.CompactTokenClaims;
+import com.example.security.jwt.CompactTokenCodec;
+import com.example.security.jwt.JwtService;
+import com.example.security.jwt.TenantRegistry;
+import com.example.security.models.User;
+
+/**
+ * Compares parse cost of a standard JWT against the compact binary format.
+ * <p>
+ * Token sizes are printed during setup. Run with
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="TokenFormatBenchmark -prof gc"}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenFormatBenchmark {
+
+	private JwtService jwtService;
+	private CompactTokenCodec compactTokenCodec;
+	private User user;
+	private String jwtHeader;
+	private String compactHeader;
+	private final CompactTokenClaims claims = new CompactTokenClaims();
+
+	@Setup
+	public void setUp() {
+		jwtService = BenchmarkSupport.jwtService();
+		TenantRegistry tenantRegistry = BenchmarkSupport.tenantRegistry();
+		compactTokenCodec = new CompactTokenCodec(tenantRegistry, BenchmarkSupport.tokenClock());
+		ReflectionTestUtils.setField(compactTokenCodec, "enabled", true);
+		ReflectionTestUtils.setField(compactTokenCodec, "jwtExpiration", BenchmarkSupport.EXPIRATION);
+		ReflectionTestUtils.invokeMethod(compactTokenCodec, "init");
+
+		user = BenchmarkSupport.user();
+		String jwt = jwtService.generateToken(user);
+		String compact = compactTokenCodec.encode(tenantRegistry.getDefault(), user.getId(), 0L);
+		jwtHeader = "Bearer " + jwt;
+		compactHeader = "Bearer " + compact;
+
+		System.out.printf("%nToken size: jwt=%d chars, compact=%d chars%n", jwt.length(), compact.length());
+	}
+
+	@Benchmark
+	public boolean parseJwt() {
+		return jwtService.isTokenValid(jwtHeader.substring(7), user);
+	}
+
+	@Benchmark
+	public int parseCompact() {
+		compactTokenCodec.decode(compactHeader, 7, claims);
+		return claims.getSubjectId();
+	}
+}
@@ -0,0 +1,125 @@
+package com.example.security.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.security.models.User;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Compares writing the {@code GET /users/} response as one value, as the
+ * message converter did, with streaming it through the shared
+ * {@link ObjectWriter} of {@code UserController}, each with and without gzip
+ * as the server applies it. The time includes serialization and compression;
+ * the body size per call is printed at the end of each trial.
+ * <p>
+ * Run with
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="UserListingBenchmark -prof gc"}.
+ * For the latency over HTTP/1.1 and HTTP/2, run the load test with the
+ * {@code list} operation.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserListingBenchmark {
+
+	@Param({ "100", "2000" })
+	public int users;
+
+	@Param({ "false", "true" })
+	public boolean gzip;
+
+	private ObjectMapper objectMapper;
+	private ObjectWriter usersWriter;
+	private List<User> list;
+
+	@Setup
+	public void setUp() {
+		objectMapper = new ObjectMapper();
+		usersWriter = objectMapper.writerFor(User.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+				.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		list = new ArrayList<>(users);
+		Date now = new Date();
+		for (int i = 1; i <= users; i++) {
+			User user = new User().setEmail("user" + i + "@perf.example.com").setFullName("Perf User " + i)
+					.setPassword("$2a$10$GXGhM.RdTT0ZOfPFx3GEz.CLrIc2bXHlz7XLO2kI9Trw/IdvbRPBi");
+			user.setId(i);
+			user.setCreatedAt(now);
+			user.setUpdatedAt(now);
+			list.add(user);
+		}
+	}
+
+	@Benchmark
+	public void writeValue(Wire wire) throws IOException {
+		try (OutputStream out = wire.open(gzip)) {
+			objectMapper.writeValue(out, list);
+		}
+	}
+
+	@Benchmark
+	public void streamed(Wire wire) throws IOException {
+		try (OutputStream out = wire.open(gzip); SequenceWriter sequence = usersWriter.writeValuesAsArray(out)) {
+			sequence.writeAll(list);
+		}
+	}
+
+	/**
+	 * Counts the bytes that would go on the wire and prints the size per call
+	 * once the trial is over.
+	 */
+	@State(Scope.Thread)
+	public static class Wire {
+
+		private long wireBytes;
+		private long calls;
+
+		@TearDown(Level.Trial)
+		public void report() {
+			System.out.printf("%n%d bytes on the wire per call%n", calls == 0 ? 0 : wireBytes / calls);
+		}
+
+		OutputStream open(boolean gzip) throws IOException {
+			calls++;
+			OutputStream sink = new OutputStream() {
+				@Override
+				public void write(int b) {
+					wireBytes++;
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) {
+					wireBytes += len;
+				}
+			};
+			return gzip ? new GZIPOutputStream(sink, 8192) : sink;
+		}
+	}
+}
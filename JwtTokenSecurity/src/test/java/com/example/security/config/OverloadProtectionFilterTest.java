@@ -0,0 +1,63 @@
+package com.example.security.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.security.service.AdaptiveConcurrencyLimiter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+
+class OverloadProtectionFilterTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final AdaptiveConcurrencyLimiter authLimiter = new AdaptiveConcurrencyLimiter("auth", 10, 1, 10,
+			meterRegistry);
+	private final AdaptiveConcurrencyLimiter apiLimiter = new AdaptiveConcurrencyLimiter("api", 10, 1, 10,
+			meterRegistry);
+	private final OverloadProtectionFilter filter = new OverloadProtectionFilter(authLimiter, apiLimiter, null);
+
+	@Test
+	void holdsThePermitUntilAnAsyncResponseCompletes() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/");
+		request.setAsyncSupported(true);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		filter.doFilter(request, response, (req, res) -> req.startAsync());
+		assertEquals(1, apiLimiter.getInFlight());
+
+		((MockAsyncContext) request.getAsyncContext()).complete();
+		assertEquals(0, apiLimiter.getInFlight());
+		assertEquals(10, apiLimiter.getLimit());
+	}
+
+	@Test
+	void lowersTheLimitOnServerErrorsOnly() {
+		FilterChain clientError = (req, res) -> {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
+		};
+		assertThrows(ResponseStatusException.class, () -> filter.doFilter(request(), new MockHttpServletResponse(),
+				clientError));
+		assertEquals(0, apiLimiter.getInFlight());
+		assertEquals(10, apiLimiter.getLimit());
+
+		FilterChain serverError = (req, res) -> {
+			throw new IllegalStateException();
+		};
+		assertThrows(IllegalStateException.class, () -> filter.doFilter(request(), new MockHttpServletResponse(),
+				serverError));
+		assertEquals(0, apiLimiter.getInFlight());
+		assertEquals(9, apiLimiter.getLimit());
+	}
+
+	private static MockHttpServletRequest request() {
+		return new MockHttpServletRequest("GET", "/users/me");
+	}
+}
@@ -0,0 +1,93 @@
+package com.example.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Base64;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.security.exceptions.AuthFailure;
+import com.example.security.exceptions.AuthFailureException;
+
+class CompactTokenCodecTest {
+
+	private static final TenantRegistry TENANT_REGISTRY = JwtTestSupport.tenantRegistry();
+
+	private CompactTokenCodec codec;
+
+	@BeforeEach
+	void setUp() {
+		codec = newCodec(3600000L);
+	}
+
+	@Test
+	void roundTripsClaims() {
+		String token = codec.encode(TENANT_REGISTRY.getDefault(), 42, 0b1011L);
+		String header = "Bearer " + token;
+
+		assertEquals(CompactTokenCodec.PREFIX.length() + CompactTokenCodec.ENCODED_LENGTH, token.length());
+		assertTrue(codec.isCompactToken(header, 7));
+
+		CompactTokenClaims claims = new CompactTokenClaims();
+		codec.decode(header, 7, claims);
+
+		assertEquals(42, claims.getSubjectId());
+		assertEquals(0b1011L, claims.getRoles());
+		assertEquals(3600, claims.getExpiresAt() - claims.getIssuedAt());
+	}
+
+	@Test
+	void rejectsTamperedToken() {
+		String token = codec.encode(TENANT_REGISTRY.getDefault(), 42, 0L);
+		char[] chars = token.toCharArray();
+		int index = CompactTokenCodec.PREFIX.length() + 5;
+		chars[index] = chars[index] == 'A' ? 'B' : 'A';
+
+		AuthFailureException exception = assertThrows(AuthFailureException.class,
+				() -> codec.decode(new String(chars), 0, new CompactTokenClaims()));
+		assertSame(AuthFailure.BAD_SIGNATURE, exception.getFailure());
+	}
+
+	@Test
+	void rejectsTokensMacedWithTheJwtKey() {
+		String token = codec.encode(TENANT_REGISTRY.getDefault(), 42, 0L);
+		byte[] bytes = Base64.getUrlDecoder().decode(token.substring(CompactTokenCodec.PREFIX.length()));
+		byte[] mac = new byte[TenantHmac.LENGTH];
+		new TenantHmac(TENANT_REGISTRY).sign(TENANT_REGISTRY.getDefault(), bytes, CompactTokenCodec.BODY_LENGTH, mac);
+		System.arraycopy(mac, 0, bytes, CompactTokenCodec.BODY_LENGTH, CompactTokenCodec.MAC_LENGTH);
+		String forged = CompactTokenCodec.PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+		AuthFailureException exception = assertThrows(AuthFailureException.class,
+				() -> codec.decode(forged, 0, new CompactTokenClaims()));
+		assertSame(AuthFailure.BAD_SIGNATURE, exception.getFailure());
+	}
+
+	@Test
+	void rejectsExpiredToken() {
+		String token = newCodec(-1000L).encode(TENANT_REGISTRY.getDefault(), 42, 0L);
+
+		AuthFailureException exception = assertThrows(AuthFailureException.class,
+				() -> codec.decode(token, 0, new CompactTokenClaims()));
+		assertSame(AuthFailure.EXPIRED_TOKEN, exception.getFailure());
+	}
+
+	@Test
+	void rejectsMalformedToken() {
+		AuthFailureException exception = assertThrows(AuthFailureException.class,
+				() -> codec.decode("ct_short", 0, new CompactTokenClaims()));
+		assertSame(AuthFailure.MALFORMED_TOKEN, exception.getFailure());
+	}
+
+	private static CompactTokenCodec newCodec(long expiration) {
+		CompactTokenCodec codec = new CompactTokenCodec(TENANT_REGISTRY, new TokenClock());
+		ReflectionTestUtils.setField(codec, "enabled", true);
+		ReflectionTestUtils.setField(codec, "jwtExpiration", expiration);
+		codec.init();
+		return codec;
+	}
+}
@@ -0,0 +1,141 @@
+package com.example.security.jwt;
+
+import static com.example.security.jwt.JwtTestSupport.SECRET;
+import static com.example.security.jwt.JwtTestSupport.TENANT_SECRET;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+import com.example.security.exceptions.AuthFailure;
+import com.example.security.exceptions.AuthFailureException;
+
+class JwtFastPathVerifierTest {
+
+	private TenantRegistry tenantRegistry;
+	private JwtService jwtService;
+	private JwtFastPathVerifier verifier;
+
+	@BeforeEach
+	void setUp() {
+		tenantRegistry = JwtTestSupport.tenantRegistry("acme");
+		jwtService = JwtTestSupport.jwtService(tenantRegistry, new TokenClock());
+
+		verifier = new JwtFastPathVerifier(tenantRegistry, new TokenClock());
+	}
+
+	@Test
+	void verifiesTokensIssuedByJwtService() {
+		String header = "Bearer " + jwtService.generateToken(Map.of("nested", Map.of("a", "}")), user());
+
+		JwtFastPathClaims claims = new JwtFastPathClaims();
+		assertTrue(verifier.verify(header, 7, claims));
+
+		assertEquals("jane@example.com", claims.getSubject());
+		assertEquals(3600, claims.getExpiresAt() - claims.getIssuedAt());
+	}
+
+	@Test
+	void verifiesTokensOfOtherTenantsWithTheirKey() {
+		com.example.security.models.User user = new com.example.security.models.User().setEmail("jane@acme.example")
+				.setTenant("acme");
+		String token = jwtService.generateToken(user);
+
+		JwtFastPathClaims claims = new JwtFastPathClaims();
+		assertTrue(verifier.verify(token, 0, claims));
+
+		assertEquals("acme", claims.getTenant().getId());
+		assertEquals("acme", jwtService.extractTenant(token).getId());
+	}
+
+	@Test
+	void rejectsTamperedSignature() {
+		String token = jwtService.generateToken(user());
+		char last = token.charAt(token.length() - 2);
+		String tampered = token.substring(0, token.length() - 2) + (last == 'A' ? 'B' : 'A')
+				+ token.charAt(token.length() - 1);
+
+		AuthFailureException exception = assertThrows(AuthFailureException.class,
+				() -> verifier.verify(tampered, 0, new JwtFastPathClaims()));
+		assertSame(AuthFailure.BAD_SIGNATURE, exception.getFailure());
+	}
+
+	@Test
+	void rejectsExpiredToken() {
+		String token = Jwts.builder().setSubject("jane@example.com").setIssuedAt(new Date(0))
+				.setExpiration(new Date(1000)).signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)),
+						SignatureAlgorithm.HS256)
+				.compact();
+
+		AuthFailureException exception = assertThrows(AuthFailureException.class,
+				() -> verifier.verify(token, 0, new JwtFastPathClaims()));
+		assertSame(AuthFailure.EXPIRED_TOKEN, exception.getFailure());
+	}
+
+	@Test
+	void toleratesTheClockSkewAtExpiry() {
+		String token = Jwts.builder().setSubject("jane@example.com").setIssuedAt(new Date(0))
+				.setExpiration(new Date(1_000_000)).signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)),
+						SignatureAlgorithm.HS256)
+				.compact();
+		TokenClock tokenClock = new TokenClock(Clock.fixed(Instant.ofEpochMilli(1_005_000), ZoneOffset.UTC));
+		JwtFastPathVerifier skewed = new JwtFastPathVerifier(tenantRegistry, tokenClock);
+
+		AuthFailureException exception = assertThrows(AuthFailureException.class,
+				() -> skewed.verify(token, 0, new JwtFastPathClaims()));
+		assertSame(AuthFailure.EXPIRED_TOKEN, exception.getFailure());
+
+		ReflectionTestUtils.setField(tokenClock, "skew", 10_000L);
+		assertTrue(skewed.verify(token, 0, new JwtFastPathClaims()));
+
+		JwtService skewedService = new JwtService(tenantRegistry, tokenClock);
+		skewedService.init();
+		assertTrue(skewedService.isTokenValid(token, User.withUsername("jane@example.com").password("x").build()));
+	}
+
+	@Test
+	void readsTokensOffTheFastPathWithJjwt() {
+		String token = Jwts.builder().setHeaderParam("kid", "acme").setSubject("jäne\"@acme.example")
+				.claim(JwtService.PERMISSIONS_CLAIM, 5L).setIssuedAt(new Date(1_000_000))
+				.setExpiration(new Date(4_000_000_000_000L))
+				.signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(TENANT_SECRET)), SignatureAlgorithm.HS256)
+				.compact();
+		JwtFastPathClaims claims = new JwtFastPathClaims();
+		assertFalse(verifier.verify(token, 0, claims));
+
+		jwtService.readClaims(token, claims);
+
+		assertEquals("jäne\"@acme.example", claims.getSubject());
+		assertEquals("acme", claims.getTenant().getId());
+		assertEquals(5L, claims.getPermissions());
+		assertEquals(1000, claims.getIssuedAt());
+		assertEquals(4_000_000_000L, claims.getExpiresAt());
+	}
+
+	@Test
+	void leavesForeignTokensToTheRegularParser() {
+		assertFalse(verifier.verify("eyJhbGciOiJIUzUxMiJ9.e30.sig", 0, new JwtFastPathClaims()));
+		assertFalse(verifier.verify("not-a-jwt", 0, new JwtFastPathClaims()));
+	}
+
+	private static User user() {
+		return new User("jane@example.com", "x", java.util.List.of());
+	}
+}
@@ -0,0 +1,73 @@
+package com.example.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+import com.example.security.models.User;
+
+class JwtTemplateWriterTest {
+
+	private static final long ISSUED_AT = 1_700_000_000L;
+
+	private TenantRegistry tenantRegistry;
+	private JwtTemplateWriter writer;
+
+	@BeforeEach
+	void setUp() {
+		tenantRegistry = JwtTestSupport.tenantRegistry("acme");
+		writer = new JwtTemplateWriter(tenantRegistry);
+	}
+
+	@Test
+	void writesTheSameTokensAsJjwt() {
+		for (Tenant tenant : new Tenant[] { tenantRegistry.getDefault(), tenantRegistry.byId("acme") }) {
+			for (long permissions : new long[] { 0L, 3L, Long.MIN_VALUE | 1L, -5L }) {
+				assertEquals(jjwt(tenant, "jane@example.com", permissions, null),
+						writer.write(tenant, "jane@example.com", true, permissions, null, ISSUED_AT, ISSUED_AT + 3600));
+			}
+			assertEquals(jjwt(tenant, "service:batch-job", 2L, "a1b2.17"),
+					writer.write(tenant, "service:batch-job", true, 2L, "a1b2.17", ISSUED_AT, ISSUED_AT + 3600));
+			assertEquals(jjwt(tenant, "jane@example.com", null, null),
+					writer.write(tenant, "jane@example.com", false, 0L, null, ISSUED_AT, ISSUED_AT + 3600));
+		}
+	}
+
+	@Test
+	void refusesSubjectsThatNeedEscaping() {
+		Tenant tenant = tenantRegistry.getDefault();
+
+		assertNull(writer.write(tenant, "ja\"ne@example.com", true, 1L, null, ISSUED_AT, ISSUED_AT + 3600));
+		assertNull(writer.write(tenant, "jäne@example.com", true, 1L, null, ISSUED_AT, ISSUED_AT + 3600));
+	}
+
+	@Test
+	void jwtServiceFallsBackToJjwtForSuchSubjects() {
+		JwtService jwtService = JwtTestSupport.jwtService(tenantRegistry, new TokenClock());
+		User user = new User().setEmail("jäne\"@example.com");
+
+		assertEquals("jäne\"@example.com", jwtService.extractUsername(jwtService.generateToken(user)));
+	}
+
+	private static String jjwt(Tenant tenant, String subject, Long permissions, String tokenId) {
+		JwtBuilder builder = Jwts.builder();
+		if (!tenant.isDefault()) {
+			builder.setHeaderParam(JwsHeader.KEY_ID, tenant.getId());
+		}
+		if (permissions != null) {
+			builder.claim(JwtService.PERMISSIONS_CLAIM, permissions);
+		}
+		return builder.setSubject(subject).setId(tokenId).setIssuedAt(new Date(ISSUED_AT * 1000))
+				.setExpiration(new Date((ISSUED_AT + 3600) * 1000)).signWith(tenant.getKey(), SignatureAlgorithm.HS256)
+				.compact();
+	}
+}
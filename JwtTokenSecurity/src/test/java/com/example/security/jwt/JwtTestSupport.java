@@ -0,0 +1,88 @@
+package com.example.security.jwt;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Builds the tenant registry and token services the unit tests share, without a Spring context.
+ */
+public final class JwtTestSupport {
+
+	/** Signing key of the default tenant. */
+	public static final String SECRET = "3cfa76ef14937c1c0ea519f8fc057a80fcd04a7420f8e8bcd0a7567c272e007b";
+
+	/** Signing key of every additional tenant passed to {@link #tenantRegistry(String...)}. */
+	public static final String TENANT_SECRET = "9b1f3c2e7a0d4f6b8c5e1a3d7f9b2c4e6a8d0f1b3c5e7a9d2f4b6c8e0a1d3f5b";
+
+	public static final long EXPIRATION = 3600000L;
+
+	private JwtTestSupport() {
+	}
+
+	/**
+	 * Returns an initialised registry holding the default tenant and the given additional tenants.
+	 */
+	public static TenantRegistry tenantRegistry(String... tenantIds) {
+		MockEnvironment environment = new MockEnvironment().withProperty("security.jwt.secret-key", SECRET);
+		if (tenantIds.length > 0) {
+			environment.setProperty("security.tenant.ids", String.join(",", tenantIds));
+			for (String tenantId : tenantIds) {
+				environment.setProperty("security.tenant.keys." + tenantId, TENANT_SECRET);
+			}
+		}
+		TenantRegistry tenantRegistry = new TenantRegistry(environment);
+		tenantRegistry.init();
+		return tenantRegistry;
+	}
+
+	/**
+	 * Returns an initialised {@link JwtService} issuing tokens valid for {@link #EXPIRATION}.
+	 */
+	public static JwtService jwtService(TenantRegistry tenantRegistry, TokenClock tokenClock) {
+		JwtService jwtService = new JwtService(tenantRegistry, tokenClock);
+		ReflectionTestUtils.setField(jwtService, "jwtExpiration", EXPIRATION);
+		jwtService.init();
+		return jwtService;
+	}
+
+	/**
+	 * A UTC clock that only moves when told to.
+	 */
+	public static final class MutableClock extends Clock {
+
+		private long millis;
+
+		public MutableClock(long millis) {
+			this.millis = millis;
+		}
+
+		public void advance(long delta) {
+			millis += delta;
+		}
+
+		@Override
+		public long millis() {
+			return millis;
+		}
+
+		@Override
+		public Instant instant() {
+			return Instant.ofEpochMilli(millis);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package com.example.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.security.exceptions.AuthFailure;
+import com.example.security.exceptions.AuthFailureException;
+
+class OpaqueTokenStoreTest {
+
+	private static final TenantRegistry TENANT_REGISTRY = JwtTestSupport.tenantRegistry();
+
+	private final OpaqueTokenWriter writer = mock(OpaqueTokenWriter.class);
+
+	@Test
+	void resolvesIssuedTokens() {
+		OpaqueTokenStore store = newStore(3600000L);
+		List<String> tokens = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			tokens.add(store.issue(TENANT_REGISTRY.getDefault(), i, "user" + i + "@example.com", i));
+		}
+
+		assertEquals(1000, store.size());
+		for (int i = 0; i < tokens.size(); i++) {
+			String header = "Bearer " + tokens.get(i);
+			assertTrue(store.isOpaqueToken(header, 7));
+
+			OpaqueTokenSession session = store.resolve(header, 7);
+			assertEquals(i, session.getUserId());
+			assertEquals("user" + i + "@example.com", session.getEmail());
+			assertEquals(i, session.getPermissions());
+			assertSame(TENANT_REGISTRY.getDefault(), session.getTenant());
+		}
+		verify(writer, times(1000)).enqueueInsert(any());
+	}
+
+	@Test
+	void rejectsRevokedToken() {
+		OpaqueTokenStore store = newStore(3600000L);
+		String token = store.issue(TENANT_REGISTRY.getDefault(), 42, "user@example.com", 0L);
+
+		assertTrue(store.revoke(token));
+		assertFalse(store.revoke(token));
+		verify(writer).enqueueDelete(any());
+
+		AuthFailureException exception = assertThrows(AuthFailureException.class, () -> store.resolve(token, 0));
+		assertSame(AuthFailure.INVALID_TOKEN, exception.getFailure());
+	}
+
+	@Test
+	void rejectsAndSweepsExpiredToken() {
+		OpaqueTokenStore store = newStore(-1000L);
+		String token = store.issue(TENANT_REGISTRY.getDefault(), 42, "user@example.com", 0L);
+
+		AuthFailureException exception = assertThrows(AuthFailureException.class, () -> store.resolve(token, 0));
+		assertSame(AuthFailure.EXPIRED_TOKEN, exception.getFailure());
+
+		store.expire(System.currentTimeMillis() + 1000);
+		assertEquals(0, store.size());
+	}
+
+	@Test
+	void rejectsMalformedToken() {
+		OpaqueTokenStore store = newStore(3600000L);
+
+		AuthFailureException exception = assertThrows(AuthFailureException.class,
+				() -> store.resolve("ot_short", 0));
+		assertSame(AuthFailure.MALFORMED_TOKEN, exception.getFailure());
+	}
+
+	private OpaqueTokenStore newStore(long expiration) {
+		OpaqueTokenStore store = new OpaqueTokenStore(TENANT_REGISTRY, writer, new TokenClock());
+		ReflectionTestUtils.setField(store, "enabled", true);
+		ReflectionTestUtils.setField(store, "expiration", expiration);
+		return store;
+	}
+}
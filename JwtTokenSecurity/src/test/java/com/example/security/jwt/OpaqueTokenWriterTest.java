@@ -0,0 +1,86 @@
+package com.example.security.jwt;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class OpaqueTokenWriterTest {
+
+	private static final TenantRegistry TENANT_REGISTRY = JwtTestSupport.tenantRegistry();
+
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+	private final OpaqueTokenWriter writer = new OpaqueTokenWriter(jdbcTemplate, new TokenClock());
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(writer, "enabled", true);
+	}
+
+	@Test
+	void deletesRevokedTokensAndRetriesInsertsWhenTheInsertsFail() {
+		OpaqueTokenSession issued = newSession(1L);
+		OpaqueTokenSession revoked = newSession(2L);
+		writer.enqueueInsert(issued);
+		writer.enqueueDelete(revoked);
+		failInserts();
+
+		writer.flush();
+
+		verify(jdbcTemplate).batchUpdate(startsWith("delete"), anyList());
+
+		reset(jdbcTemplate);
+		writer.flush();
+
+		verify(jdbcTemplate).batchUpdate(startsWith("insert"), anyList());
+		verify(jdbcTemplate, never()).batchUpdate(startsWith("delete"), anyList());
+	}
+
+	@Test
+	void dropsTokensRevokedWhileTheirInsertFailed() {
+		OpaqueTokenSession session = newSession(1L);
+		writer.enqueueInsert(session);
+		writer.enqueueDelete(session);
+		failInserts();
+
+		writer.flush();
+
+		reset(jdbcTemplate);
+		writer.flush();
+
+		verify(jdbcTemplate, never()).batchUpdate(startsWith("insert"), anyList());
+	}
+
+	@Test
+	void writesNothingWhileDisabled() {
+		ReflectionTestUtils.setField(writer, "enabled", false);
+		writer.enqueueInsert(newSession(1L));
+
+		writer.flush();
+
+		verifyNoInteractions(jdbcTemplate);
+	}
+
+	private void failInserts() {
+		DataAccessResourceFailureException failure = new DataAccessResourceFailureException("down");
+		doThrow(failure).when(jdbcTemplate).batchUpdate(startsWith("insert"), anyList());
+		doThrow(failure).when(jdbcTemplate).update(startsWith("insert"), any(Object[].class));
+	}
+
+	private static OpaqueTokenSession newSession(long key) {
+		long now = System.currentTimeMillis();
+		return new OpaqueTokenSession(key, key, TENANT_REGISTRY.getDefault(), 42, "user@example.com", 0L, now,
+				now + 3600000L);
+	}
+}
@@ -0,0 +1,83 @@
+package com.example.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.security.models.ServiceAccount;
+
+class ServiceTokenIssuerTest {
+
+	private JwtService jwtService;
+	private JwtFastPathVerifier verifier;
+	private ServiceTokenIssuer issuer;
+
+	@BeforeEach
+	void setUp() {
+		TenantRegistry tenantRegistry = JwtTestSupport.tenantRegistry("acme");
+		jwtService = JwtTestSupport.jwtService(tenantRegistry, new TokenClock());
+
+		verifier = new JwtFastPathVerifier(tenantRegistry, new TokenClock());
+		issuer = new ServiceTokenIssuer(jwtService, new TokenClock());
+	}
+
+	@AfterEach
+	void tearDown() {
+		issuer.stop();
+	}
+
+	@Test
+	void issuesVerifiableTokensInOrderedChunks() throws IOException {
+		int count = ServiceTokenIssuer.CHUNK_SIZE * 2 + 7;
+		List<String[]> chunks = new ArrayList<>();
+
+		issuer.issue(account(), 3L, count, 60000, chunks::add);
+
+		assertEquals(3, chunks.size());
+		assertEquals(7, chunks.get(2).length);
+		Set<String> tokenIds = new HashSet<>();
+		int index = 0;
+		for (String[] chunk : chunks) {
+			for (String token : chunk) {
+				JwtFastPathClaims claims = new JwtFastPathClaims();
+				assertTrue(verifier.verify(token, 0, claims));
+				assertEquals("service:batch-job", claims.getSubject());
+				assertEquals("acme", claims.getTenant().getId());
+				assertEquals(3L, claims.getPermissions());
+				assertEquals(60, claims.getExpiresAt() - claims.getIssuedAt());
+
+				String tokenId = jwtService.extractClaim(token, c -> c.getId());
+				assertTrue(tokenId.endsWith("." + index++));
+				tokenIds.add(tokenId);
+			}
+		}
+		assertEquals(count, tokenIds.size());
+	}
+
+	@Test
+	void stopsSigningWhenTheWriterFails() {
+		AtomicInteger written = new AtomicInteger();
+
+		assertThrows(IOException.class, () -> issuer.issue(account(), 1L, ServiceTokenIssuer.CHUNK_SIZE * 10, 60000,
+				tokens -> {
+					written.incrementAndGet();
+					throw new IOException("Client went away");
+				}));
+		assertEquals(1, written.get());
+	}
+
+	private static ServiceAccount account() {
+		return new ServiceAccount().setTenant("acme").setName("batch-job");
+	}
+}
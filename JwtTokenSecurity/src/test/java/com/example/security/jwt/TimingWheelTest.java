@@ -0,0 +1,104 @@
+package com.example.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTest {
+
+	private static final long START = 1_700_000_000_000L;
+
+	private final List<Long> expired = new ArrayList<>();
+	private final TimingWheel<Long> wheel = new TimingWheel<>(1000L, START, expired::addAll);
+
+	@Test
+	void expiresAtDeadlineAndNotBefore() {
+		wheel.schedule(1L, START + 1500);
+
+		assertEquals(0, wheel.advance(START + 1999));
+		assertEquals(1, wheel.advance(START + 2000));
+		assertEquals(List.of(1L), expired);
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	void expiresOverdueEntriesOnNextAdvance() {
+		wheel.schedule(1L, START - 60_000);
+
+		assertEquals(1, wheel.advance(START + 1000));
+	}
+
+	@Test
+	void cancelledEntriesDoNotExpire() {
+		TimingWheel.Timeout<Long> timeout = wheel.schedule(1L, START + 5000);
+		wheel.schedule(2L, START + 5000);
+
+		assertTrue(timeout.cancel());
+		assertFalse(timeout.cancel());
+		wheel.advance(START + 10_000);
+		assertEquals(List.of(2L), expired);
+		assertFalse(timeout.cancel());
+	}
+
+	@Test
+	void cascadesEntriesAcrossEveryLevel() {
+		// Beyond the span of the top level too, about 194 days at one-second ticks
+		long[] delays = { 1, 63, 64, 65, 4095, 4096, 4097, 262_143, 262_144, 16_777_215, 16_777_216, 40_000_000 };
+		for (long delay : delays) {
+			wheel.schedule(delay, START + delay * 1000);
+		}
+
+		for (long delay : delays) {
+			wheel.advance(START + delay * 1000 - 1);
+			assertFalse(expired.contains(delay), "expired early: " + delay);
+			wheel.advance(START + delay * 1000);
+			assertTrue(expired.contains(delay), "not expired: " + delay);
+		}
+		assertEquals(delays.length, expired.size());
+	}
+
+	@Test
+	void expiresRandomDeadlinesOnTime() {
+		Random random = new Random(42);
+		long[] delays = new long[100_000];
+		for (int i = 0; i < delays.length; i++) {
+			delays[i] = random.nextInt(10_000_000);
+			wheel.schedule(delays[i], START + delays[i]);
+		}
+		assertEquals(delays.length, wheel.size());
+
+		// Due entries are those whose deadline tick has ended
+		long[] dueAt = new long[delays.length];
+		for (int i = 0; i < delays.length; i++) {
+			dueAt[i] = (delays[i] + 999) / 1000 * 1000;
+		}
+		Arrays.sort(dueAt);
+
+		long now = START;
+		while (wheel.size() > 0) {
+			now += 1000 + random.nextInt(30_000);
+			wheel.advance(now);
+			int due = upperBound(dueAt, now - START);
+			assertEquals(due, expired.size());
+		}
+		assertEquals(delays.length, expired.size());
+	}
+
+	private static int upperBound(long[] sorted, long value) {
+		int index = Arrays.binarySearch(sorted, value + 1);
+		if (index < 0) {
+			return -index - 1;
+		}
+		while (index > 0 && sorted[index - 1] == value + 1) {
+			index--;
+		}
+		return index;
+	}
+}
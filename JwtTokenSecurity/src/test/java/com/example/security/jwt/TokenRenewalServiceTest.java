@@ -0,0 +1,84 @@
+package com.example.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.security.jwt.JwtTestSupport.MutableClock;
+import com.example.security.models.User;
+import com.example.security.service.PermissionIndex;
+import com.example.security.service.PermissionSet;
+
+class TokenRenewalServiceTest {
+
+	private static final long LIFETIME = JwtTestSupport.EXPIRATION;
+	private static final long MIN_INTERVAL = 60000L;
+
+	private final MutableClock clock = new MutableClock(1_700_000_000_000L);
+	private final PermissionIndex permissionIndex = mock(PermissionIndex.class);
+	private final User user = new User().setEmail("jane@example.com");
+
+	private JwtService jwtService;
+	private TokenRenewalService renewalService;
+
+	@BeforeEach
+	void setUp() {
+		TokenClock tokenClock = new TokenClock(clock);
+		jwtService = JwtTestSupport.jwtService(JwtTestSupport.tenantRegistry(), tokenClock);
+
+		renewalService = new TokenRenewalService(jwtService, permissionIndex, tokenClock);
+		ReflectionTestUtils.setField(renewalService, "fraction", 0.75);
+		ReflectionTestUtils.setField(renewalService, "minInterval", MIN_INTERVAL);
+
+		user.setId(42);
+		grant(1L);
+	}
+
+	@Test
+	void renewsOnlyOnceTheFractionIsUsedUp() {
+		long now = clock.millis();
+
+		assertNull(renewalService.renewIfDue(user, now - LIFETIME / 2, now + LIFETIME / 2));
+		assertNotNull(renewalService.renewIfDue(user, now - LIFETIME * 3 / 4, now + LIFETIME / 4));
+	}
+
+	@Test
+	void renewsASubjectOncePerMinimumInterval() {
+		assertNotNull(renewDue());
+		assertNull(renewDue());
+
+		clock.advance(MIN_INTERVAL - 1000);
+		renewalService.expire();
+		assertNull(renewDue());
+
+		clock.advance(1000);
+		renewalService.expire();
+		assertNotNull(renewDue());
+	}
+
+	@Test
+	void renewsWithTheCurrentPermissions() {
+		grant(2L);
+
+		String renewed = renewDue();
+
+		assertEquals(2L, jwtService.extractPermissions(renewed));
+	}
+
+	private String renewDue() {
+		long now = clock.millis();
+		return renewalService.renewIfDue(user, now - LIFETIME + 1000, now + 1000);
+	}
+
+	private void grant(long mask) {
+		PermissionSet permissions = mock(PermissionSet.class);
+		when(permissions.getMask()).thenReturn(mask);
+		when(permissionIndex.resolve(user)).thenReturn(permissions);
+	}
+}
@@ -0,0 +1,88 @@
+package com.example.security.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the latencies and response sizes of one operation on one client
+ * thread.
+ * 
+ * <p>
+ * Samples go into a growable {@code long} array so recording does not
+ * allocate per request; recorders of all threads are merged once the run is
+ * over.
+ * </p>
+ */
+final class LatencyRecorder {
+
+	private long[] samples = new long[1 << 14];
+	private int count;
+	private long errors;
+	private long bytes;
+
+	void record(long nanos, long bodyBytes) {
+		if (count == samples.length) {
+			samples = Arrays.copyOf(samples, count * 2);
+		}
+		samples[count++] = nanos;
+		bytes += bodyBytes;
+	}
+
+	void error() {
+		errors++;
+	}
+
+	/**
+	 * Merges the recorders of all threads into a latency summary.
+	 *
+	 * @param recorders   the recorders to merge
+	 * @param elapsedNanos the length of the measured phase
+	 * @return the summary, ready to be written as JSON
+	 */
+	static Map<String, Object> summarize(List<LatencyRecorder> recorders, long elapsedNanos) {
+		int total = 0;
+		long errors = 0;
+		long bytes = 0;
+		for (LatencyRecorder recorder : recorders) {
+			total += recorder.count;
+			errors += recorder.errors;
+			bytes += recorder.bytes;
+		}
+
+		long[] all = new long[total];
+		int offset = 0;
+		for (LatencyRecorder recorder : recorders) {
+			System.arraycopy(recorder.samples, 0, all, offset, recorder.count);
+			offset += recorder.count;
+		}
+		Arrays.sort(all);
+
+		Map<String, Object> summary = new LinkedHashMap<>();
+		summary.put("requests", total);
+		summary.put("errors", errors);
+		summary.put("throughputPerSec", round(total / (elapsedNanos / 1e9)));
+		summary.put("meanMs", total == 0 ? 0 : round(Arrays.stream(all).average().orElse(0) / 1e6));
+		summary.put("p50Ms", percentile(all, 0.50));
+		summary.put("p99Ms", percentile(all, 0.99));
+		summary.put("p999Ms", percentile(all, 0.999));
+		summary.put("maxMs", total == 0 ? 0 : round(all[total - 1] / 1e6));
+		if (bytes > 0) {
+			summary.put("bodyBytesPerRequest", bytes / total);
+		}
+		return summary;
+	}
+
+	private static double percentile(long[] sorted, double quantile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int index = (int) Math.ceil(quantile * sorted.length) - 1;
+		return round(sorted[Math.max(index, 0)] / 1e6);
+	}
+
+	private static double round(double value) {
+		return Math.round(value * 1000) / 1000.0;
+	}
+}
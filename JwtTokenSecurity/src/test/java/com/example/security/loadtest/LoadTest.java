@@ -0,0 +1,476 @@
+package com.example.security.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.example.security.loadtest.LoadTestOptions.Operation;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Load test of the signup, login and authenticated-call flow.
+ * 
+ * <p>
+ * Launches the packaged application under the {@code perf} profile, with an
+ * in-memory H2 database (or targets {@code --url}), signs up a pool of users
+ * and then drives a weighted mix of
+ * {@code POST /auth/signup}, {@code POST /auth/login} and
+ * {@code GET /users/me} from {@code --concurrency} clients. After a warmup
+ * phase it measures throughput and p50/p99/p999 latency per operation, reads
+ * the server's GC and allocation counters from the actuator metrics endpoint,
+ * and writes everything as JSON to {@code --out}. The JVM only updates its
+ * allocation counter at collections, so runs should be long enough to see a
+ * few of them. With {@code --preloaded n} the application seeds n users at
+ * startup and the pool is drawn from them rather than signed up, so logins run
+ * against a table of realistic size; a server given with {@code --url} must
+ * then have been started with the same seed password and one seeded admin.
+ * The first preloaded user, an admin, is used for {@code GET /users/}, the
+ * {@code list} operation. {@code --http2 true} switches the client to HTTP/2
+ * (h2c), {@code --gzip true} makes it accept compressed responses; the size
+ * of the response bodies as received is reported for the reads. Run it with
+ * </p>
+ * 
+ * <pre>
+ * mvn -Ploadtest package exec:exec -DskipTests -Dloadtest.args="--concurrency 64 --duration 60"
+ * </pre>
+ */
+public final class LoadTest {
+
+	private static final String PASSWORD = "load-test-password";
+	private static final Duration SEED_RETRY_WINDOW = Duration.ofMinutes(1);
+
+	private final LoadTestOptions options;
+	private final HttpClient client;
+	private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+	private final String runId = Long.toString(System.currentTimeMillis(), 36);
+	private final AtomicLong signups = new AtomicLong();
+	/** Token of the preloaded administrator, for the list operation. */
+	private String adminToken;
+
+	private LoadTest(LoadTestOptions options) {
+		this.options = options;
+		this.client = HttpClient.newBuilder()
+				.version(options.http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(5)).build();
+	}
+
+	public static void main(String[] args) throws Exception {
+		LoadTestOptions options = LoadTestOptions.parse(args);
+		Process server = options.url == null ? launch(options) : null;
+		try {
+			new LoadTest(options).run();
+		} finally {
+			if (server != null) {
+				server.destroy();
+				server.waitFor();
+			}
+		}
+	}
+
+	private void run() throws Exception {
+		awaitReady(Duration.ofMinutes(2));
+
+		List<Account> accounts;
+		if (options.preloaded > 0) {
+			System.out.printf("Logging in %d of %d preloaded users%n", Math.min(options.users, options.preloaded),
+					options.preloaded);
+			accounts = loginPreloaded();
+			adminToken = login(preloadedEmail(1));
+		} else if (options.mix.containsKey(Operation.LIST)) {
+			throw new IllegalStateException("The list operation needs --preloaded, whose first user is an admin");
+		} else {
+			System.out.printf("Signing up %d users%n", options.users);
+			accounts = seed();
+		}
+
+		System.out.printf("Warming up for %ds%n", options.warmup.toSeconds());
+		drive(accounts, options.warmup);
+
+		Map<String, Double> before = serverMetrics(accounts.get(0).token);
+		System.out.printf("Measuring for %ds at concurrency %d%n", options.duration.toSeconds(), options.concurrency);
+		long start = System.nanoTime();
+		Map<Operation, List<LatencyRecorder>> recorders = drive(accounts, options.duration);
+		long elapsed = System.nanoTime() - start;
+		Map<String, Double> after = serverMetrics(accounts.get(0).token);
+
+		Map<String, Object> report = report(recorders, elapsed, before, after);
+		Files.createDirectories(options.out.toAbsolutePath().getParent());
+		objectMapper.writeValue(options.out.toFile(), report);
+		System.out.println(objectMapper.writeValueAsString(report));
+		System.out.println("Report written to " + options.out);
+	}
+
+	private static Process launch(LoadTestOptions options) throws IOException {
+		if (!Files.exists(options.jar)) {
+			throw new IllegalStateException(options.jar + " not found; package the application first");
+		}
+
+		List<String> command = new ArrayList<>();
+		command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+		command.addAll(List.of(options.jvmArgs.trim().split("\\s+")));
+		command.addAll(List.of("-jar", options.jar.toString(), "--server.port=" + options.port,
+				"--spring.profiles.active=perf", "--logging.level.root=WARN",
+				"--management.endpoints.web.exposure.include=health,metrics"));
+		if (options.preloaded > 0) {
+			command.addAll(List.of("--security.perf.seed-users=" + options.preloaded,
+					"--security.perf.seed-password=" + PASSWORD, "--security.perf.seed-admins=1"));
+		}
+
+		Path log = options.out.toAbsolutePath().getParent().resolve("server.log");
+		Files.createDirectories(log.getParent());
+		System.out.println("Launching " + String.join(" ", command));
+		return new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+	}
+
+	private void awaitReady(Duration timeout) throws InterruptedException {
+		long deadline = System.nanoTime() + timeout.toNanos();
+		while (System.nanoTime() < deadline) {
+			try {
+				client.send(HttpRequest.newBuilder(uri("/auth/login")).GET().build(), BodyHandlers.discarding());
+				// Preloaded users are seeded after the port opens; the last one marks the end
+				if (options.preloaded == 0 || login(preloadedEmail(options.preloaded)) != null) {
+					return;
+				}
+				Thread.sleep(500);
+			} catch (IOException ex) {
+				Thread.sleep(500);
+			}
+		}
+		throw new IllegalStateException("Application did not start within " + timeout);
+	}
+
+	private List<Account> seed() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(options.concurrency);
+		try {
+			List<Future<Account>> futures = new ArrayList<>();
+			for (int i = 0; i < options.users; i++) {
+				futures.add(executor.submit(() -> {
+					String email = retried(this::signup);
+					if (email == null) {
+						throw new IllegalStateException("Seeding signup failed");
+					}
+					String token = retried(() -> login(email));
+					if (token == null) {
+						throw new IllegalStateException("Seeding login failed for " + email);
+					}
+					return new Account(email, token);
+				}));
+			}
+
+			List<Account> accounts = new ArrayList<>(options.users);
+			for (Future<Account> future : futures) {
+				accounts.add(future.get());
+			}
+			return accounts;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Runs a seeding step, retrying it for up to a minute at jittered intervals
+	 * of about a second; with all clients seeding at once, the server's
+	 * overload protection sheds some.
+	 */
+	private static String retried(Callable<String> step) throws Exception {
+		long deadline = System.nanoTime() + SEED_RETRY_WINDOW.toNanos();
+		String result;
+		while ((result = step.call()) == null && System.nanoTime() < deadline) {
+			Thread.sleep(ThreadLocalRandom.current().nextLong(500, 1500));
+		}
+		return result;
+	}
+
+	/**
+	 * Logs in a reproducible random sample of the preloaded users.
+	 */
+	private List<Account> loginPreloaded() throws Exception {
+		int count = Math.min(options.users, options.preloaded);
+		List<Integer> numbers = new ArrayList<>(count);
+		if (count == options.preloaded) {
+			for (int n = 1; n <= count; n++) {
+				numbers.add(n);
+			}
+		} else {
+			Random random = new Random(options.preloaded);
+			Set<Integer> picked = new LinkedHashSet<>();
+			while (picked.size() < count) {
+				picked.add(1 + random.nextInt(options.preloaded));
+			}
+			numbers.addAll(picked);
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(options.concurrency);
+		try {
+			List<Future<Account>> futures = new ArrayList<>();
+			for (int n : numbers) {
+				futures.add(executor.submit(() -> {
+					String email = preloadedEmail(n);
+					String token = login(email);
+					if (token == null) {
+						throw new IllegalStateException("Login failed for preloaded user " + email);
+					}
+					return new Account(email, token);
+				}));
+			}
+
+			List<Account> accounts = new ArrayList<>(count);
+			for (Future<Account> future : futures) {
+				accounts.add(future.get());
+			}
+			return accounts;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Returns the email the {@code perf} profile gives its n-th preloaded user.
+	 */
+	private static String preloadedEmail(int n) {
+		return "user" + n + "@perf.example.com";
+	}
+
+	/**
+	 * Runs the operation mix from every client until the duration is up.
+	 */
+	private Map<Operation, List<LatencyRecorder>> drive(List<Account> accounts, Duration duration)
+			throws InterruptedException {
+		Operation[] operations = options.mix.keySet().toArray(Operation[]::new);
+		int[] cumulative = new int[operations.length];
+		int sum = 0;
+		for (int i = 0; i < operations.length; i++) {
+			sum += options.mix.get(operations[i]);
+			cumulative[i] = sum;
+		}
+		int totalWeight = sum;
+
+		Map<Operation, List<LatencyRecorder>> recorders = new EnumMap<>(Operation.class);
+		for (Operation operation : operations) {
+			recorders.put(operation, new ArrayList<>());
+		}
+
+		long deadline = System.nanoTime() + duration.toNanos();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < options.concurrency; t++) {
+			Map<Operation, LatencyRecorder> local = new EnumMap<>(Operation.class);
+			for (Operation operation : operations) {
+				LatencyRecorder recorder = new LatencyRecorder();
+				local.put(operation, recorder);
+				recorders.get(operation).add(recorder);
+			}
+
+			Thread thread = new Thread(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				while (System.nanoTime() < deadline) {
+					int pick = random.nextInt(totalWeight);
+					int index = 0;
+					while (cumulative[index] <= pick) {
+						index++;
+					}
+					Operation operation = operations[index];
+					Account account = accounts.get(random.nextInt(accounts.size()));
+
+					long begin = System.nanoTime();
+					long bytes = execute(operation, account);
+					long latency = System.nanoTime() - begin;
+					if (bytes >= 0) {
+						local.get(operation).record(latency, bytes);
+					} else {
+						local.get(operation).error();
+					}
+				}
+			}, "load-client-" + t);
+			threads.add(thread);
+			thread.start();
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		return recorders;
+	}
+
+	/**
+	 * Performs one operation. Returns the size of the response body as received
+	 * for the reads, 0 for the writes, or -1 if the operation failed.
+	 */
+	private long execute(Operation operation, Account account) {
+		try {
+			return switch (operation) {
+				case SIGNUP -> signup() != null ? 0 : -1;
+				case LOGIN -> login(account.email) != null ? 0 : -1;
+				case ME -> read("/users/me", account.token);
+				case LIST -> read("/users/", adminToken);
+			};
+		} catch (IOException ex) {
+			return -1;
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return -1;
+		}
+	}
+
+	private long read(String path, String token) throws IOException, InterruptedException {
+		HttpRequest.Builder request = HttpRequest.newBuilder(uri(path)).header("Authorization", "Bearer " + token);
+		if (options.gzip) {
+			request.header("Accept-Encoding", "gzip");
+		}
+		HttpResponse<byte[]> response = client.send(request.GET().build(), BodyHandlers.ofByteArray());
+		backOffIfShed(response);
+		return response.statusCode() == 200 ? response.body().length : -1;
+	}
+
+	private String signup() throws IOException, InterruptedException {
+		String email = "load-" + runId + "-" + signups.incrementAndGet() + "@example.com";
+		String body = objectMapper.writeValueAsString(
+				Map.of("email", email, "password", PASSWORD, "fullName", "Load Test"));
+		HttpResponse<Void> response = client.send(post("/auth/signup", body), BodyHandlers.discarding());
+		backOffIfShed(response);
+		return response.statusCode() == 200 ? email : null;
+	}
+
+	private String login(String email) throws IOException, InterruptedException {
+		String body = objectMapper.writeValueAsString(Map.of("email", email, "password", PASSWORD));
+		HttpResponse<byte[]> response = client.send(post("/auth/login", body), BodyHandlers.ofByteArray());
+		backOffIfShed(response);
+		if (response.statusCode() != 200) {
+			return null;
+		}
+		return objectMapper.readTree(response.body()).path("token").asText(null);
+	}
+
+	/**
+	 * Waits as long as the {@code Retry-After} header of a shed request asks, as
+	 * a well-behaved client would. The wait is not part of any recorded latency,
+	 * as shed requests count as errors.
+	 */
+	private static void backOffIfShed(HttpResponse<?> response) throws InterruptedException {
+		if (response.statusCode() == 503) {
+			OptionalLong retryAfter = response.headers().firstValueAsLong("Retry-After");
+			if (retryAfter.isPresent()) {
+				Thread.sleep(retryAfter.getAsLong() * 1000);
+			}
+		}
+	}
+
+	/**
+	 * Reads the server's cumulative GC and allocation counters. Returns an empty
+	 * map if the metrics endpoint is not exposed.
+	 */
+	private Map<String, Double> serverMetrics(String token) throws InterruptedException {
+		Map<String, Double> metrics = new LinkedHashMap<>();
+		metric(metrics, token, "jvm.gc.pause", "COUNT", "gcPauses");
+		metric(metrics, token, "jvm.gc.pause", "TOTAL_TIME", "gcPauseSeconds");
+		metric(metrics, token, "jvm.gc.memory.allocated", "COUNT", "allocatedBytes");
+		metric(metrics, token, "jvm.gc.memory.promoted", "COUNT", "promotedBytes");
+		return metrics;
+	}
+
+	private void metric(Map<String, Double> metrics, String token, String name, String statistic, String key)
+			throws InterruptedException {
+		try {
+			HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(uri("/actuator/metrics/" + name))
+					.header("Authorization", "Bearer " + token).GET().build(), BodyHandlers.ofByteArray());
+			if (response.statusCode() != 200) {
+				return;
+			}
+			for (JsonNode measurement : objectMapper.readTree(response.body()).path("measurements")) {
+				if (statistic.equals(measurement.path("statistic").asText())) {
+					metrics.put(key, measurement.path("value").asDouble());
+				}
+			}
+		} catch (IOException ex) {
+			// Leave the metric out of the report
+		}
+	}
+
+	private Map<String, Object> report(Map<Operation, List<LatencyRecorder>> recorders, long elapsed,
+			Map<String, Double> before, Map<String, Double> after) {
+		Map<String, Object> config = new LinkedHashMap<>();
+		config.put("url", options.baseUrl());
+		config.put("concurrency", options.concurrency);
+		config.put("users", options.users);
+		config.put("preloaded", options.preloaded);
+		config.put("warmupSeconds", options.warmup.toSeconds());
+		config.put("durationSeconds", options.duration.toSeconds());
+		config.put("mix", options.mix);
+		config.put("http2", options.http2);
+		config.put("gzip", options.gzip);
+		config.put("serverJvmArgs", options.url == null ? options.jvmArgs : null);
+
+		Map<String, Object> operations = new LinkedHashMap<>();
+		List<LatencyRecorder> all = new ArrayList<>();
+		recorders.forEach((operation, list) -> {
+			operations.put(operation.name().toLowerCase(), LatencyRecorder.summarize(list, elapsed));
+			all.addAll(list);
+		});
+		Map<String, Object> total = LatencyRecorder.summarize(all, elapsed);
+
+		Map<String, Object> server = new LinkedHashMap<>();
+		after.forEach((key, value) -> {
+			if (before.containsKey(key)) {
+				server.put(key, value - before.get(key));
+			}
+		});
+		Object requests = total.get("requests");
+		if (server.containsKey("allocatedBytes") && requests instanceof Integer count && count > 0) {
+			server.put("allocatedBytesPerRequest", Math.round((Double) server.get("allocatedBytes") / count));
+		}
+
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("timestamp", Instant.now().toString());
+		report.put("javaVersion", System.getProperty("java.version"));
+		report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+		report.put("config", config);
+		report.put("total", total);
+		report.put("operations", operations);
+		report.put("server", server);
+		return report;
+	}
+
+	private HttpRequest post(String path, String json) {
+		return HttpRequest.newBuilder(uri(path)).header("Content-Type", "application/json")
+				.POST(BodyPublishers.ofString(json)).build();
+	}
+
+	private URI uri(String path) {
+		return URI.create(options.baseUrl() + path);
+	}
+
+	private static final class Account {
+
+		private final String email;
+		private final String token;
+
+		private Account(String email, String token) {
+			this.email = email;
+			this.token = token;
+		}
+	}
+}
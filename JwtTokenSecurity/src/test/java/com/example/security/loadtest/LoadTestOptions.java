@@ -0,0 +1,92 @@
+package com.example.security.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Command line options of the {@link LoadTest}.
+ * 
+ * <p>
+ * Options are given as {@code --name value} pairs; every option has a default
+ * so a bare run is reproducible.
+ * </p>
+ */
+final class LoadTestOptions {
+
+	/** Packaged application to launch; ignored when {@link #url} is set. */
+	Path jar = Path.of("target/JwtTokenSecurity-0.0.1-SNAPSHOT.jar");
+	/** Base URL of an already running application. */
+	String url;
+	/** Port the launched application listens on. */
+	int port = 18181;
+	/** Heap flags for the launched application. */
+	String jvmArgs = "-Xms512m -Xmx512m";
+	/** Number of concurrent clients. */
+	int concurrency = 32;
+	/** Number of users signed up before the run; login and /users/me pick from these. */
+	int users = 200;
+	/**
+	 * Number of users the launched application preloads under the {@code perf}
+	 * profile; when set, {@link #users} of them are logged in instead of signing
+	 * up new ones.
+	 */
+	int preloaded;
+	/** Whether the client speaks HTTP/2 (h2c) instead of HTTP/1.1. */
+	boolean http2;
+	/** Whether the client accepts gzip-compressed responses. */
+	boolean gzip;
+	Duration warmup = Duration.ofSeconds(15);
+	Duration duration = Duration.ofSeconds(30);
+	/** Relative weights of the operations. */
+	Map<Operation, Integer> mix = parseMix("signup=2,login=8,me=90");
+	Path out = Path.of("target/loadtest/result.json");
+
+	static LoadTestOptions parse(String[] args) {
+		LoadTestOptions options = new LoadTestOptions();
+		for (int i = 0; i < args.length; i += 2) {
+			if (!args[i].startsWith("--") || i + 1 >= args.length) {
+				throw new IllegalArgumentException("Expected --name value pairs but got: " + args[i]);
+			}
+			String value = args[i + 1];
+			switch (args[i].substring(2)) {
+				case "jar" -> options.jar = Path.of(value);
+				case "url" -> options.url = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+				case "port" -> options.port = Integer.parseInt(value);
+				case "jvm-args" -> options.jvmArgs = value;
+				case "concurrency" -> options.concurrency = Integer.parseInt(value);
+				case "users" -> options.users = Integer.parseInt(value);
+				case "preloaded" -> options.preloaded = Integer.parseInt(value);
+				case "http2" -> options.http2 = Boolean.parseBoolean(value);
+				case "gzip" -> options.gzip = Boolean.parseBoolean(value);
+				case "warmup" -> options.warmup = Duration.ofSeconds(Long.parseLong(value));
+				case "duration" -> options.duration = Duration.ofSeconds(Long.parseLong(value));
+				case "mix" -> options.mix = parseMix(value);
+				case "out" -> options.out = Path.of(value);
+				default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+			}
+		}
+		return options;
+	}
+
+	String baseUrl() {
+		return url != null ? url : "http://localhost:" + port;
+	}
+
+	private static Map<Operation, Integer> parseMix(String value) {
+		Map<Operation, Integer> mix = new LinkedHashMap<>();
+		for (String part : value.split(",")) {
+			String[] weight = part.split("=");
+			mix.put(Operation.valueOf(weight[0].trim().toUpperCase()), Integer.parseInt(weight[1].trim()));
+		}
+		return mix;
+	}
+
+	/**
+	 * The operations a client performs.
+	 */
+	enum Operation {
+		SIGNUP, LOGIN, ME, LIST
+	}
+}
@@ -0,0 +1,109 @@
+package com.example.security.repository;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class ReplicaRoutingDataSourceTest {
+
+	private final DataSource primary = mock(DataSource.class);
+	private final DataSource replica1 = mock(DataSource.class);
+	private final DataSource replica2 = mock(DataSource.class);
+	private final Connection primaryConnection = mock(Connection.class);
+	private final Connection replica1Connection = mock(Connection.class);
+	private final Connection replica2Connection = mock(Connection.class);
+
+	private ReplicaRoutingDataSource dataSource;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		when(primary.getConnection()).thenReturn(primaryConnection);
+		when(replica1.getConnection()).thenReturn(replica1Connection);
+		when(replica2.getConnection()).thenReturn(replica2Connection);
+		when(replica1Connection.isValid(1)).thenReturn(true);
+		when(replica2Connection.isValid(1)).thenReturn(true);
+
+		Map<String, DataSource> replicas = new LinkedHashMap<>();
+		replicas.put("jdbc:h2:mem:replica1", replica1);
+		replicas.put("jdbc:h2:mem:replica2", replica2);
+		dataSource = new ReplicaRoutingDataSource(0, primary, replicas);
+	}
+
+	@AfterEach
+	void tearDown() {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+	}
+
+	@Test
+	void sendsWritesToThePrimary() throws SQLException {
+		assertSame(primaryConnection, dataSource.getConnection());
+		assertSame(primaryConnection, dataSource.getConnection());
+	}
+
+	@Test
+	void spreadsReadOnlyTransactionsOverTheReplicas() throws SQLException {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		assertSame(replica1Connection, dataSource.getConnection());
+		assertSame(replica2Connection, dataSource.getConnection());
+		assertSame(replica1Connection, dataSource.getConnection());
+	}
+
+	@Test
+	void keepsPinnedReadsOnThePrimary() {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		assertSame(primaryConnection, ReplicaRoutingDataSource.onPrimary(this::connection));
+		assertSame(replica1Connection, connection());
+	}
+
+	@Test
+	void failsOverUntilTheReplicaRecovers() throws SQLException {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		when(replica1.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+		assertSame(primaryConnection, dataSource.getConnection());
+		assertSame(replica2Connection, dataSource.getConnection());
+		assertSame(replica2Connection, dataSource.getConnection());
+
+		dataSource.checkHealth(1);
+		assertSame(replica2Connection, dataSource.getConnection());
+
+		doReturn(replica1Connection).when(replica1).getConnection();
+		dataSource.checkHealth(1);
+		assertSame(replica1Connection, dataSource.getConnection());
+		assertSame(replica2Connection, dataSource.getConnection());
+	}
+
+	@Test
+	void readsFromThePrimaryWhenEveryReplicaIsDown() throws SQLException {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		when(replica1Connection.isValid(1)).thenReturn(false);
+		when(replica2.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+		dataSource.checkHealth(1);
+
+		assertSame(primaryConnection, dataSource.getConnection());
+	}
+
+	private Connection connection() {
+		try {
+			return dataSource.getConnection();
+		} catch (SQLException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+}
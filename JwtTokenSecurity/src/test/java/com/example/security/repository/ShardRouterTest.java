@@ -0,0 +1,126 @@
+package com.example.security.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+class ShardRouterTest {
+
+	private static final int EMAILS = 100_000;
+
+	@Test
+	void routesEverythingToShardZeroWithoutShards() {
+		ShardRouter router = newRouter(1);
+
+		assertFalse(router.isEnabled());
+		assertEquals(0, router.shardFor("user@example.com"));
+		assertEquals(1, router.onShardAsync(0, () -> ShardContext.currentShard() + 1).join());
+	}
+
+	@Test
+	void routesEmailsIgnoringCase() {
+		ShardRouter router = newRouter(4);
+
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(router.shardFor("user" + i + "@example.com"),
+					router.shardFor("  User" + i + "@Example.COM "));
+		}
+	}
+
+	@Test
+	void spreadsEmailsEvenly() {
+		ShardRouter router = newRouter(4);
+		int[] counts = new int[4];
+		for (int i = 0; i < EMAILS; i++) {
+			counts[router.shardFor("user" + i + "@example.com")]++;
+		}
+
+		for (int count : counts) {
+			assertTrue(Math.abs(count - EMAILS / 4) < EMAILS / 4 / 5, "uneven shard: " + count);
+		}
+	}
+
+	@Test
+	void appendingAShardMovesOnlyItsShare() {
+		ShardRouter four = newRouter(4);
+		ShardRouter five = newRouter(5);
+		int moved = 0;
+		for (int i = 0; i < EMAILS; i++) {
+			String email = "user" + i + "@example.com";
+			int before = four.shardFor(email);
+			int after = five.shardFor(email);
+			if (before != after) {
+				assertEquals(4, after, "moved between existing shards");
+				moved++;
+			}
+		}
+
+		assertTrue(Math.abs(moved - EMAILS / 5) < EMAILS / 5 / 5, "moved: " + moved);
+	}
+
+	@Test
+	void routesIdsByTheirShardBits() {
+		ShardRouter router = newRouter(3);
+
+		assertEquals(0, ShardRouter.shardOfId(42));
+		assertEquals(2, ShardRouter.shardOfId((2 << ShardRouter.ID_SHARD_SHIFT) | 42));
+		assertEquals(2, router.onShardOfId((2 << ShardRouter.ID_SHARD_SHIFT) | 42, ShardContext::currentShard));
+		assertEquals(0, ShardContext.currentShard());
+	}
+
+	@Test
+	void runsLargeIdsDirectlyWithoutShards() {
+		ShardRouter router = newRouter(1);
+		int id = (3 << ShardRouter.ID_SHARD_SHIFT) | 42;
+
+		assertEquals(id, router.onShardOfId(id, () -> id));
+		assertFalse(ShardContext.isBound());
+	}
+
+	@Test
+	void rejectsIdsOfUnknownShards() {
+		ShardRouter router = newRouter(2);
+
+		assertThrows(IllegalArgumentException.class,
+				() -> router.onShardOfId((3 << ShardRouter.ID_SHARD_SHIFT) | 42, () -> null));
+	}
+
+	@Test
+	void queriesShardsOnThePool() {
+		ShardRouter router = newRouter(3);
+		try {
+			List<CompletableFuture<String>> futures = new ArrayList<>();
+			for (int shard = 0; shard < 3; shard++) {
+				futures.add(router.onShardAsync(shard,
+						() -> ShardContext.currentShard() + "@" + Thread.currentThread().getName()));
+			}
+			for (int shard = 0; shard < 3; shard++) {
+				String result = futures.get(shard).join();
+				assertTrue(result.startsWith(shard + "@shard-query-"), result);
+			}
+			assertThrows(IllegalArgumentException.class, () -> router.onShardAsync(3, () -> null));
+		} finally {
+			router.shutdown();
+		}
+	}
+
+	private static ShardRouter newRouter(int shards) {
+		StringBuilder urls = new StringBuilder();
+		for (int shard = 1; shard < shards; shard++) {
+			urls.append(urls.length() > 0 ? "," : "").append("jdbc:h2:mem:shard").append(shard);
+		}
+		MockEnvironment environment = new MockEnvironment().withProperty("spring.datasource.url", "jdbc:h2:mem:shard0")
+				.withProperty("security.shard.urls", urls.toString());
+		ShardRouter router = new ShardRouter(environment, new ReplicaRouter(environment));
+		router.init();
+		return router;
+	}
+}
@@ -0,0 +1,48 @@
+package com.example.security.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Limit;
+
+import com.example.security.models.User;
+import com.example.security.service.UserResponseCache;
+
+@DataJpaTest
+class UserRepositoryTest {
+
+	@Autowired
+	private UserRepository userRepository;
+
+	// Required by the entity listener of User
+	@MockBean
+	private UserResponseCache userResponseCache;
+
+	@Test
+	void pagesThroughTheUsersOfOneTenantOnly() {
+		save("acme", "a@acme.example");
+		save("globex", "a@globex.example");
+		save("acme", "b@acme.example");
+		save("globex", "b@globex.example");
+		save("acme", "c@acme.example");
+
+		List<User> first = userRepository.findByTenantAndIdGreaterThanOrderByIdAsc("acme", 0, Limit.of(2));
+		List<User> second = userRepository.findByTenantAndIdGreaterThanOrderByIdAsc("acme",
+				first.get(first.size() - 1).getId(), Limit.of(2));
+
+		List<String> emails = new ArrayList<>();
+		first.forEach(user -> emails.add(user.getEmail()));
+		second.forEach(user -> emails.add(user.getEmail()));
+		assertEquals(List.of("a@acme.example", "b@acme.example", "c@acme.example"), emails);
+	}
+
+	private void save(String tenant, String email) {
+		userRepository.save(new User().setTenant(tenant).setEmail(email).setFullName(email).setPassword("secret"));
+	}
+}
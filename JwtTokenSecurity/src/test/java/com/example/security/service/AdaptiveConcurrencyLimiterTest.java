@@ -0,0 +1,87 @@
+package com.example.security.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AdaptiveConcurrencyLimiterTest {
+
+	private static final long RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void shedsCallsBeyondTheLimit() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 2, 1, 10, meterRegistry);
+
+		assertTrue(limiter.tryAcquire());
+		assertTrue(limiter.tryAcquire());
+		assertFalse(limiter.tryAcquire());
+		assertEquals(1.0, meterRegistry.counter("overload.requests", "limiter", "test", "outcome", "shed").count());
+
+		limiter.release(RTT, false);
+		assertTrue(limiter.tryAcquire());
+	}
+
+	@Test
+	void growsWhileLatencyStaysAtItsMinimum() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 10, 1, 50, meterRegistry);
+
+		for (int i = 0; i < 20; i++) {
+			saturate(limiter, RTT);
+		}
+
+		assertEquals(50, limiter.getLimit());
+	}
+
+	@Test
+	void doesNotGrowWhileIdle() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 10, 1, 50, meterRegistry);
+
+		for (int i = 0; i < 100; i++) {
+			assertTrue(limiter.tryAcquire());
+			limiter.release(RTT, false);
+		}
+
+		assertEquals(10, limiter.getLimit());
+	}
+
+	@Test
+	void shrinksWhenLatencyRisesAndOnDrops() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 40, 4, 50, meterRegistry);
+		saturate(limiter, RTT);
+		int limit = limiter.getLimit();
+
+		for (int i = 0; i < 5; i++) {
+			saturate(limiter, 4 * RTT);
+		}
+		assertTrue(limiter.getLimit() < limit);
+
+		limit = limiter.getLimit();
+		assertTrue(limiter.tryAcquire());
+		limiter.release(RTT, true);
+		assertEquals((int) (limit * 0.9), limiter.getLimit(), 1);
+
+		for (int i = 0; i < 100; i++) {
+			assertTrue(limiter.tryAcquire());
+			limiter.release(RTT, true);
+		}
+		assertEquals(4, limiter.getLimit());
+	}
+
+	private static void saturate(AdaptiveConcurrencyLimiter limiter, long rtt) {
+		int admitted = 0;
+		while (limiter.tryAcquire()) {
+			admitted++;
+		}
+		for (int i = 0; i < admitted; i++) {
+			limiter.release(rtt, false);
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package com.example.security.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class AuditRingBufferTest {
+
+	@Test
+	void roundsTheCapacityUpAndRejectsOffersWhenFull() {
+		AuditRingBuffer<Integer> buffer = new AuditRingBuffer<>(3);
+		assertEquals(4, buffer.capacity());
+
+		for (int i = 0; i < 4; i++) {
+			assertTrue(buffer.offer(i));
+		}
+		assertFalse(buffer.offer(4));
+		assertEquals(4, buffer.size());
+
+		assertEquals(0, buffer.poll());
+		assertTrue(buffer.offer(4));
+		for (int i = 1; i <= 4; i++) {
+			assertEquals(i, buffer.poll());
+		}
+		assertNull(buffer.poll());
+		assertEquals(0, buffer.size());
+	}
+
+	@Test
+	void deliversEveryElementOfConcurrentProducersOnce() throws InterruptedException {
+		int producers = 4;
+		int perProducer = 20_000;
+		AuditRingBuffer<Integer> buffer = new AuditRingBuffer<>(256);
+		ExecutorService executor = Executors.newFixedThreadPool(producers);
+		CountDownLatch done = new CountDownLatch(producers);
+		for (int p = 0; p < producers; p++) {
+			int base = p * perProducer;
+			executor.execute(() -> {
+				for (int i = 0; i < perProducer; i++) {
+					while (!buffer.offer(base + i)) {
+						Thread.yield();
+					}
+				}
+				done.countDown();
+			});
+		}
+
+		boolean[] seen = new boolean[producers * perProducer];
+		int[] lastOfProducer = new int[producers];
+		Arrays.fill(lastOfProducer, -1);
+		int received = 0;
+		while (received < seen.length) {
+			Integer element = buffer.poll();
+			if (element == null) {
+				Thread.yield();
+				continue;
+			}
+			assertFalse(seen[element]);
+			seen[element] = true;
+			// Elements of one producer arrive in the order it offered them
+			int producer = element / perProducer;
+			assertTrue(element > lastOfProducer[producer]);
+			lastOfProducer[producer] = element;
+			received++;
+		}
+
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		executor.shutdown();
+		assertNull(buffer.poll());
+	}
+}
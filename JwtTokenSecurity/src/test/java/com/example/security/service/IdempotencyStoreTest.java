@@ -0,0 +1,156 @@
+package com.example.security.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.security.jwt.JwtTestSupport;
+import com.example.security.jwt.Tenant;
+import com.example.security.jwt.TenantRegistry;
+import com.example.security.service.IdempotencyStore.Response;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IdempotencyStoreTest {
+
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+	private final ExecutorService callers = Executors.newCachedThreadPool();
+
+	private IdempotencyStore store;
+	private Tenant tenant;
+
+	@BeforeEach
+	void setUp() {
+		TenantRegistry tenantRegistry = JwtTestSupport.tenantRegistry();
+		tenant = tenantRegistry.getDefault();
+
+		store = new IdempotencyStore(jdbcTemplate, tenantRegistry, new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(store, "ttl", 60000L);
+		ReflectionTestUtils.setField(store, "maxEntries", 100);
+		ReflectionTestUtils.setField(store, "waitTimeout", 5000L);
+	}
+
+	@AfterEach
+	void tearDown() {
+		callers.shutdownNow();
+	}
+
+	@Test
+	void collapsesConcurrentIdenticalRequestsIntoOneExecution() throws Exception {
+		AtomicInteger executions = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		String fingerprint = store.fingerprint("a@example.com", "A", "secret");
+
+		CompletableFuture<Response> first = CompletableFuture.supplyAsync(
+				() -> store.execute(tenant, "key-1", fingerprint, () -> {
+					executions.incrementAndGet();
+					started.countDown();
+					await(release);
+					return new Response(200, "created");
+				}), callers);
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		CompletableFuture<Response> retry = CompletableFuture.supplyAsync(
+				() -> store.execute(tenant, "key-1", fingerprint, () -> {
+					executions.incrementAndGet();
+					return new Response(500, "executed twice");
+				}), callers);
+		release.countDown();
+
+		assertFalse(first.get(5, TimeUnit.SECONDS).isReplayed());
+		Response replayed = retry.get(5, TimeUnit.SECONDS);
+		assertEquals(200, replayed.getStatus());
+		assertEquals("created", replayed.getBody());
+		assertTrue(replayed.isReplayed());
+		assertEquals(1, executions.get());
+	}
+
+	@Test
+	void replaysStoredResponsesAndRejectsReuseForAnotherRequest() {
+		String fingerprint = store.fingerprint("a@example.com", "A", "secret");
+		store.execute(tenant, "key-1", fingerprint, () -> new Response(409, "exists"));
+
+		Response replayed = store.execute(tenant, "key-1", fingerprint, () -> new Response(200, "executed twice"));
+		assertEquals(409, replayed.getStatus());
+		assertTrue(replayed.isReplayed());
+		verify(jdbcTemplate).update(anyString(), anyString(), eq(fingerprint), eq(409), eq("exists"), any());
+
+		assertSame(IdempotencyStore.MISMATCH, store.execute(tenant, "key-1",
+				store.fingerprint("a@example.com", "A", "other"), () -> new Response(200, "executed twice")));
+	}
+
+	@Test
+	void executesAgainAfterAServerError() {
+		String fingerprint = store.fingerprint("a@example.com", "A", "secret");
+		store.execute(tenant, "key-1", fingerprint, () -> new Response(500, "failed"));
+
+		Response retried = store.execute(tenant, "key-1", fingerprint, () -> new Response(200, "created"));
+		assertEquals(200, retried.getStatus());
+		assertFalse(retried.isReplayed());
+
+		assertThrows(IllegalStateException.class, () -> store.execute(tenant, "key-2", fingerprint, () -> {
+			throw new IllegalStateException("overloaded");
+		}));
+		assertEquals(200, store.execute(tenant, "key-2", fingerprint, () -> new Response(200, "created")).getStatus());
+		verify(jdbcTemplate, never()).update(anyString(), anyString(), eq(fingerprint), eq(500), any(), any());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void answersFromTheTableWhenMemoryMisses() {
+		String fingerprint = store.fingerprint("a@example.com", "A", "secret");
+		when(jdbcTemplate.query(anyString(), any(RowMapper.class), anyString())).thenAnswer(invocation -> {
+			ResultSet row = mock(ResultSet.class);
+			when(row.getString("fingerprint")).thenReturn(fingerprint);
+			when(row.getInt("status")).thenReturn(200);
+			when(row.getString("body")).thenReturn("created");
+			when(row.getLong("expires_at")).thenReturn(System.currentTimeMillis() + 60000);
+			return List.of(invocation.getArgument(1, RowMapper.class).mapRow(row, 0));
+		});
+
+		Response replayed = store.execute(tenant, "key-1", fingerprint, () -> new Response(500, "executed twice"));
+		assertEquals(200, replayed.getStatus());
+		assertTrue(replayed.isReplayed());
+	}
+
+	@Test
+	void acceptsOnlyPrintableKeys() {
+		assertTrue(IdempotencyStore.isValidKey("8e03978e-40d5-43e8-bc93-6894a57f9324"));
+		assertFalse(IdempotencyStore.isValidKey(""));
+		assertFalse(IdempotencyStore.isValidKey("with space"));
+		assertFalse(IdempotencyStore.isValidKey("x".repeat(256)));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package com.example.security.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.security.exceptions.AuthFailure;
+import com.example.security.exceptions.AuthFailureException;
+import com.example.security.service.PasswordVerificationPool.Priority;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PasswordVerificationPoolTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final ExecutorService callers = Executors.newCachedThreadPool();
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private PasswordVerificationPool pool;
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		pool.stop();
+		callers.shutdownNow();
+	}
+
+	@Test
+	void runsWorkOnThePoolThreads() {
+		pool = newPool(2, 16);
+
+		assertTrue(pool.call(() -> Thread.currentThread().getName()).startsWith("password-verify-"));
+		assertEquals(2, pool.getThreads());
+	}
+
+	@Test
+	void givesSuspectWorkOneTurnInEight() throws Exception {
+		pool = newPool(1, 64);
+		CompletableFuture<Void> blocker = submit(Priority.NORMAL, () -> await(release));
+		awaitQueued(Priority.NORMAL, 0);
+
+		List<String> order = Collections.synchronizedList(new ArrayList<>());
+		List<CompletableFuture<?>> calls = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			String name = "s" + i;
+			calls.add(submit(Priority.SUSPECT, () -> order.add(name)));
+			awaitQueued(Priority.SUSPECT, i + 1);
+		}
+		for (int i = 0; i < 14; i++) {
+			String name = "n" + i;
+			calls.add(submit(Priority.NORMAL, () -> order.add(name)));
+			awaitQueued(Priority.NORMAL, i + 1);
+		}
+
+		release.countDown();
+		blocker.get(5, TimeUnit.SECONDS);
+		for (CompletableFuture<?> call : calls) {
+			call.get(5, TimeUnit.SECONDS);
+		}
+
+		assertEquals(List.of("n0", "n1", "n2", "n3", "n4", "n5", "n6", "s0", "n7", "n8", "n9", "n10", "n11", "n12",
+				"n13", "s1", "s2"), order);
+	}
+
+	@Test
+	void displacesSuspectWorkWhenFull() throws Exception {
+		pool = newPool(1, 2);
+		CompletableFuture<Void> blocker = submit(Priority.NORMAL, () -> await(release));
+		awaitQueued(Priority.NORMAL, 0);
+
+		CompletableFuture<Void> suspect = submit(Priority.SUSPECT, () -> {
+		});
+		awaitQueued(Priority.SUSPECT, 1);
+		CompletableFuture<Void> normal1 = submit(Priority.NORMAL, () -> {
+		});
+		awaitQueued(Priority.NORMAL, 1);
+
+		// Full: a normal login displaces the suspect one, a suspect login is turned away
+		CompletableFuture<Void> normal2 = submit(Priority.NORMAL, () -> {
+		});
+		assertOverloaded(suspect);
+		assertOverloaded(submit(Priority.SUSPECT, () -> {
+		}));
+		assertOverloaded(submit(Priority.NORMAL, () -> {
+		}));
+
+		release.countDown();
+		blocker.get(5, TimeUnit.SECONDS);
+		normal1.get(5, TimeUnit.SECONDS);
+		normal2.get(5, TimeUnit.SECONDS);
+		assertEquals(2.0, meterRegistry.get("password.verify.rejected").tag("priority", "suspect").counter().count());
+		assertEquals(1.0, meterRegistry.get("password.verify.rejected").tag("priority", "normal").counter().count());
+	}
+
+	@Test
+	void propagatesFailuresOfTheWork() {
+		pool = newPool(1, 16);
+
+		IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> pool.call(() -> {
+			throw new IllegalArgumentException("Invalid salt");
+		}));
+		assertEquals("Invalid salt", exception.getMessage());
+	}
+
+	private PasswordVerificationPool newPool(int threads, int queueCapacity) {
+		PasswordVerificationPool newPool = new PasswordVerificationPool(meterRegistry);
+		ReflectionTestUtils.setField(newPool, "threads", threads);
+		ReflectionTestUtils.setField(newPool, "queueCapacity", queueCapacity);
+		newPool.start();
+		return newPool;
+	}
+
+	private CompletableFuture<Void> submit(Priority priority, Runnable work) {
+		return CompletableFuture.runAsync(() -> PasswordVerificationPool.withPriority(priority, () -> pool.call(() -> {
+			work.run();
+			return null;
+		})), callers);
+	}
+
+	private void awaitQueued(Priority priority, int expected) throws InterruptedException {
+		String tag = priority.name().toLowerCase();
+		for (int i = 0; i < 500; i++) {
+			if (meterRegistry.get("password.verify.queued").tag("priority", tag).gauge().value() == expected
+					&& meterRegistry.get("password.verify.active").gauge().value() == 1) {
+				return;
+			}
+			Thread.sleep(10);
+		}
+		throw new AssertionError("Queue of " + tag + " work did not reach " + expected);
+	}
+
+	private static void assertOverloaded(CompletableFuture<Void> call) throws Exception {
+		ExecutionException exception = assertThrows(ExecutionException.class, () -> call.get(5, TimeUnit.SECONDS));
+		AuthFailureException failure = (AuthFailureException) exception.getCause();
+		assertSame(AuthFailure.OVERLOADED, failure.getFailure());
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package com.example.security.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+
+import com.example.security.models.Permission;
+import com.example.security.models.Role;
+import com.example.security.repository.PermissionRepository;
+import com.example.security.repository.RoleRepository;
+import com.example.security.repository.ShardRouter;
+import com.example.security.repository.UserRepository;
+
+class PermissionIndexTest {
+
+	private final PermissionRepository permissionRepository = mock(PermissionRepository.class);
+	private final RoleRepository roleRepository = mock(RoleRepository.class);
+	private final PermissionIndex permissionIndex = new PermissionIndex(permissionRepository, roleRepository,
+			mock(UserRepository.class), mock(ShardRouter.class));
+
+	@Test
+	void sharesPermissionSetsUntilTheNextReload() {
+		Permission read = new Permission().setName("USERS_READ").setBit(0);
+		load(List.of(read), List.of(new Role().setName("USER").setPermissions(Set.of(read))));
+
+		PermissionSet before = permissionIndex.authorities(3L);
+		assertSame(before, permissionIndex.authorities(3L));
+		assertEquals(List.of("USERS_READ"), names(before));
+
+		Permission write = new Permission().setName("USERS_WRITE").setBit(1);
+		load(List.of(read, write), List.of(new Role().setName("USER").setPermissions(Set.of(read, write))));
+
+		PermissionSet after = permissionIndex.authorities(3L);
+		assertNotSame(before, after);
+		assertEquals(3L, after.getMask());
+		assertEquals(List.of("USERS_READ", "USERS_WRITE"), names(after));
+		assertEquals(3L, permissionIndex.maskForRoles(List.of("USER")));
+	}
+
+	private void load(List<Permission> permissions, List<Role> roles) {
+		when(permissionRepository.findAll()).thenReturn(permissions);
+		when(roleRepository.findAll()).thenReturn(roles);
+		permissionIndex.reload();
+	}
+
+	private static List<String> names(PermissionSet permissionSet) {
+		List<String> names = new ArrayList<>();
+		for (GrantedAuthority authority : permissionSet) {
+			names.add(authority.getAuthority());
+		}
+		return names;
+	}
+}
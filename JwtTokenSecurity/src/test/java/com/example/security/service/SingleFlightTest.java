@@ -0,0 +1,121 @@
+package com.example.security.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SingleFlightTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final ExecutorService callers = Executors.newCachedThreadPool();
+
+	@AfterEach
+	void tearDown() {
+		callers.shutdownNow();
+	}
+
+	@Test
+	void sharesOneCallAmongConcurrentCallers() throws Exception {
+		SingleFlight<String, String> flight = new SingleFlight<>("test", 5000, meterRegistry);
+		AtomicInteger calls = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> flight.execute("a", () -> {
+			calls.incrementAndGet();
+			started.countDown();
+			await(release);
+			return "user";
+		}), callers);
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		List<CompletableFuture<String>> followers = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			followers.add(CompletableFuture.supplyAsync(() -> flight.execute("a", () -> {
+				calls.incrementAndGet();
+				return "queried twice";
+			}), callers));
+		}
+		while (meterRegistry.counter("singleflight.calls", "name", "test", "outcome", "joined").count() < 8) {
+			Thread.sleep(5);
+		}
+		release.countDown();
+
+		assertEquals("user", leader.get(5, TimeUnit.SECONDS));
+		for (CompletableFuture<String> follower : followers) {
+			assertEquals("user", follower.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, calls.get());
+		assertEquals(0, flight.inFlight());
+		assertEquals("again", flight.execute("a", () -> "again"));
+	}
+
+	@Test
+	void sharesTheExceptionOfTheCall() throws Exception {
+		SingleFlight<String, String> flight = new SingleFlight<>("test", 5000, meterRegistry);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		IllegalStateException failure = new IllegalStateException("database down");
+
+		CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> flight.execute("a", () -> {
+			started.countDown();
+			await(release);
+			throw failure;
+		}), callers);
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		CompletableFuture<String> follower = CompletableFuture
+				.supplyAsync(() -> flight.execute("a", () -> "queried twice"), callers);
+		while (meterRegistry.counter("singleflight.calls", "name", "test", "outcome", "joined").count() < 1) {
+			Thread.sleep(5);
+		}
+		release.countDown();
+
+		assertSame(failure, assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS)).getCause());
+		assertSame(failure, assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS)).getCause());
+		assertEquals(0, flight.inFlight());
+	}
+
+	@Test
+	void callsAgainWhenTheSharedCallTakesTooLong() throws Exception {
+		SingleFlight<String, String> flight = new SingleFlight<>("test", 50, meterRegistry);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		CompletableFuture<String> stuck = CompletableFuture.supplyAsync(() -> flight.execute("a", () -> {
+			started.countDown();
+			await(release);
+			return "late";
+		}), callers);
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		assertEquals("own", flight.execute("a", () -> "own"));
+		assertEquals("fresh", flight.execute("a", () -> "fresh"));
+		assertEquals(1.0, meterRegistry.counter("singleflight.calls", "name", "test", "outcome", "timed-out").count());
+
+		release.countDown();
+		assertEquals("late", stuck.get(5, TimeUnit.SECONDS));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package com.example.security.service;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.security.jwt.JwtTestSupport;
+import com.example.security.jwt.JwtTestSupport.MutableClock;
+import com.example.security.jwt.Tenant;
+import com.example.security.jwt.TenantRegistry;
+import com.example.security.jwt.TokenClock;
+import com.example.security.models.User;
+import com.example.security.repository.ShardRouter;
+import com.example.security.repository.UserRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TenantUserCacheTest {
+
+	private static final long TTL = 60000L;
+
+	private final MutableClock clock = new MutableClock(1_700_000_000_000L);
+	private final UserRepository userRepository = mock(UserRepository.class);
+	private final ShardRouter shardRouter = mock(ShardRouter.class);
+
+	private Tenant tenant;
+	private TenantUserCache cache;
+
+	@BeforeEach
+	void setUp() {
+		TenantRegistry tenantRegistry = JwtTestSupport.tenantRegistry();
+		tenant = tenantRegistry.getDefault();
+
+		when(shardRouter.onShardOf(anyString(), any()))
+				.thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(1)).get());
+		when(userRepository.findByTenantAndEmail(any(), anyString()))
+				.thenAnswer(invocation -> Optional.of(new User().setEmail(invocation.getArgument(1))));
+
+		cache = new TenantUserCache(userRepository, tenantRegistry, shardRouter,
+				new SingleFlight<>("test", 5000, new SimpleMeterRegistry()), new TokenClock(clock));
+		ReflectionTestUtils.setField(cache, "maxEntries", 2);
+		ReflectionTestUtils.setField(cache, "ttl", TTL);
+	}
+
+	@Test
+	void evictsTheLeastRecentlyUsedUser() {
+		User a = cache.load(tenant, "a@example.com");
+		cache.load(tenant, "b@example.com");
+		cache.load(tenant, "a@example.com");
+		cache.load(tenant, "c@example.com");
+
+		assertSame(a, cache.load(tenant, "a@example.com"));
+		verify(userRepository, times(1)).findByTenantAndEmail(tenant.getId(), "a@example.com");
+		cache.load(tenant, "b@example.com");
+		verify(userRepository, times(2)).findByTenantAndEmail(tenant.getId(), "b@example.com");
+	}
+
+	@Test
+	void reloadsUsersOnceTheirTimeToLiveHasPassed() {
+		User first = cache.load(tenant, "a@example.com");
+		clock.advance(TTL / 2);
+		cache.expire();
+		assertSame(first, cache.load(tenant, "a@example.com"));
+
+		clock.advance(TTL);
+		cache.expire();
+		User reloaded = cache.load(tenant, "a@example.com");
+
+		verify(userRepository, times(2)).findByTenantAndEmail(tenant.getId(), "a@example.com");
+		assertSame(reloaded, cache.load(tenant, "a@example.com"));
+	}
+}
@@ -0,0 +1,105 @@
+package com.example.security.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import com.example.security.jwt.JwtTestSupport;
+import com.example.security.jwt.Tenant;
+import com.example.security.jwt.TenantRegistry;
+import com.example.security.models.User;
+import com.example.security.repository.ShardRouter;
+import com.example.security.repository.UserRepository;
+
+class UserServiceTest {
+
+	private final UserRepository userRepository = mock(UserRepository.class);
+	private final ShardRouter shardRouter = mock(ShardRouter.class);
+	private final UserService userService = new UserService(userRepository, shardRouter);
+	private int shard;
+	private Tenant tenant;
+	private Tenant otherTenant;
+
+	@BeforeEach
+	void setUp() {
+		TenantRegistry tenantRegistry = JwtTestSupport.tenantRegistry("acme", "globex");
+		tenant = tenantRegistry.byId("acme");
+		otherTenant = tenantRegistry.byId("globex");
+
+		when(shardRouter.onShardAsync(anyInt(), any())).thenAnswer(invocation -> {
+			shard = invocation.getArgument(0);
+			return CompletableFuture.completedFuture(((Supplier<?>) invocation.getArgument(1)).get());
+		});
+	}
+
+	@Test
+	void listsUsersInBatches() {
+		when(shardRouter.shardCount()).thenReturn(1);
+		when(userRepository.findByTenantAndIdGreaterThanOrderByIdAsc(eq("acme"), eq(0), any()))
+				.thenReturn(users(1, UserService.BATCH_SIZE));
+		when(userRepository.findByTenantAndIdGreaterThanOrderByIdAsc(eq("acme"), eq(UserService.BATCH_SIZE), any()))
+				.thenReturn(users(UserService.BATCH_SIZE + 1, 3));
+
+		assertEquals(UserService.BATCH_SIZE + 3, ids(userService.allUsers(tenant)).size());
+		verify(userRepository, never()).findByTenantAndIdGreaterThanOrderByIdAsc(any(),
+				eq(UserService.BATCH_SIZE + 3), any());
+	}
+
+	@Test
+	void queriesAllShardsUpFrontAndListsThemInOrder() {
+		int second = 1 << ShardRouter.ID_SHARD_SHIFT;
+		when(shardRouter.shardCount()).thenReturn(2);
+		when(userRepository.findByTenantAndIdGreaterThanOrderByIdAsc(eq("acme"), eq(0), any(Limit.class)))
+				.thenAnswer(invocation -> shard == 0 ? users(1, 2) : users(second + 1, 2));
+
+		Iterator<User> users = userService.allUsers(tenant).iterator();
+		verify(shardRouter).onShardAsync(eq(0), any());
+		verify(shardRouter).onShardAsync(eq(1), any());
+
+		List<Integer> ids = new ArrayList<>();
+		users.forEachRemaining(user -> ids.add(user.getId()));
+		assertEquals(List.of(1, 2, second + 1, second + 2), ids);
+	}
+
+	@Test
+	void listsOnlyTheUsersOfTheGivenTenant() {
+		when(shardRouter.shardCount()).thenReturn(1);
+		when(userRepository.findByTenantAndIdGreaterThanOrderByIdAsc(eq("acme"), eq(0), any())).thenReturn(users(1, 2));
+		when(userRepository.findByTenantAndIdGreaterThanOrderByIdAsc(eq("globex"), eq(0), any()))
+				.thenReturn(users(3, 1));
+
+		assertEquals(List.of(1, 2), ids(userService.allUsers(tenant)));
+		assertEquals(List.of(3), ids(userService.allUsers(otherTenant)));
+	}
+
+	private static List<User> users(int firstId, int count) {
+		List<User> users = new ArrayList<>(count);
+		for (int id = firstId; id < firstId + count; id++) {
+			User user = new User();
+			user.setId(id);
+			users.add(user);
+		}
+		return users;
+	}
+
+	private static List<Integer> ids(Iterable<User> users) {
+		List<Integer> ids = new ArrayList<>();
+		users.forEach(user -> ids.add(user.getId()));
+		return ids;
+	}
+}
@@ -0,0 +1,32 @@
+package com.example.security;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The entry point of the reactive (WebFlux) variant of the application.
+ * <p>
+ * Exposes the same {@code /auth/**} and {@code /users/**} contract as the
+ * servlet application, on a non-blocking Netty server.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+@SpringBootApplication
+public class JwtTokenSecurityReactiveApplication {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtTokenSecurityReactiveApplication.class);
+
+    /**
+     * The main method which serves as the entry point for the application.
+     *
+     * @param args command-line arguments passed to the application
+     */
+    public static void main(String[] args) {
+        logger.info("Starting JwtTokenSecurityReactiveApplication...");
+        SpringApplication.run(JwtTokenSecurityReactiveApplication.class, args);
+        logger.info("JwtTokenSecurityReactiveApplication started successfully.");
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.security.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.r2dbc.config.EnableR2dbcAuditing;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.example.security.repository.UserRepository;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Configuration class for application-specific security settings.
+ * 
+ * <p>
+ * Sets up the reactive user details service, password encoder, the scheduler
+ * BCrypt work is offloaded to, and the reactive authentication manager.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+@Configuration
+@EnableR2dbcAuditing
+public class ApplicationConfiguration {
+
+	private static final Logger logger = LoggerFactory.getLogger(ApplicationConfiguration.class);
+
+	private final UserRepository userRepository;
+
+	/**
+	 * Constructs an {@code ApplicationConfiguration} with the specified
+	 * {@code UserRepository}.
+	 *
+	 * @param userRepository the reactive user repository
+	 */
+	public ApplicationConfiguration(UserRepository userRepository) {
+		this.userRepository = userRepository;
+	}
+
+	/**
+	 * Provides a {@code ReactiveUserDetailsService} bean that loads user-specific
+	 * data.
+	 * 
+	 * <p>
+	 * Uses the reactive {@code UserRepository} to find users by email. An unknown
+	 * email results in an empty {@code Mono}.
+	 * </p>
+	 *
+	 * @return the {@code ReactiveUserDetailsService} bean
+	 */
+	@Bean
+	public ReactiveUserDetailsService userDetailsService() {
+		logger.info("Creating ReactiveUserDetailsService bean");
+
+		return username -> userRepository.findByEmail(username).cast(UserDetails.class);
+	}
+
+	/**
+	 * Provides a {@code BCryptPasswordEncoder} bean for password encoding.
+	 *
+	 * @return the {@code BCryptPasswordEncoder} bean
+	 */
+	@Bean
+	public BCryptPasswordEncoder passwordEncoder() {
+		logger.info("Creating BCryptPasswordEncoder bean");
+
+		return new BCryptPasswordEncoder();
+	}
+
+	/**
+	 * Provides the {@code Scheduler} that BCrypt hashing and verification run on.
+	 *
+	 * <p>
+	 * BCrypt is pure CPU work; running it on the Netty event loop would stall every
+	 * other connection served by that loop. The scheduler is sized to the
+	 * available processors unless {@code security.password.threads} says
+	 * otherwise.
+	 * </p>
+	 *
+	 * @param threads the configured thread count, {@code 0} for one per processor
+	 * @return the password hashing {@code Scheduler}
+	 */
+	@Bean(destroyMethod = "dispose")
+	public Scheduler passwordScheduler(@Value("${security.password.threads:0}") int threads) {
+		int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		logger.info("Creating password hashing scheduler with {} threads", size);
+
+		return Schedulers.newParallel("bcrypt", size);
+	}
+
+	/**
+	 * Provides a {@code ReactiveAuthenticationManager} bean.
+	 *
+	 * <p>
+	 * Configures the manager with the user details service and password encoder,
+	 * and offloads password verification to the {@code passwordScheduler}.
+	 * </p>
+	 *
+	 * @param passwordScheduler the scheduler BCrypt verification runs on
+	 * @return the {@code ReactiveAuthenticationManager} bean
+	 */
+	@Bean
+	public ReactiveAuthenticationManager authenticationManager(Scheduler passwordScheduler) {
+		logger.info("Creating ReactiveAuthenticationManager bean");
+
+		UserDetailsRepositoryReactiveAuthenticationManager authenticationManager = new UserDetailsRepositoryReactiveAuthenticationManager(
+				userDetailsService());
+		authenticationManager.setPasswordEncoder(passwordEncoder());
+		authenticationManager.setScheduler(passwordScheduler);
+
+		return authenticationManager;
+	}
+}
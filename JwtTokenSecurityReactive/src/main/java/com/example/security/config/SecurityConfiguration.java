@@ -0,0 +1,101 @@
+package com.example.security.config;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsConfigurationSource;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+
+import com.example.security.jwt.JwtAuthenticationWebFilter;
+import com.example.security.jwt.JwtService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Configuration class for Spring Security on WebFlux.
+ * 
+ * <p>
+ * Configures the same rules as the servlet application: {@code /auth/**} is
+ * public, everything else requires a valid JWT. No security context is ever
+ * stored, the {@link JwtAuthenticationWebFilter} rebuilds it per exchange.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+@Configuration
+@EnableWebFluxSecurity
+public class SecurityConfiguration {
+
+	private static final Logger logger = LoggerFactory.getLogger(SecurityConfiguration.class);
+
+	private final JwtAuthenticationWebFilter jwtAuthenticationWebFilter;
+
+	/**
+	 * Constructs a {@code SecurityConfiguration} and its
+	 * {@code JwtAuthenticationWebFilter}.
+	 *
+	 * <p>
+	 * The filter is deliberately not a bean: WebFlux registers every
+	 * {@code WebFilter} bean for all exchanges, which would run JWT validation a
+	 * second time outside the security chain.
+	 * </p>
+	 *
+	 * @param jwtService         the JWT service to handle token operations
+	 * @param userDetailsService the service to load user details
+	 * @param objectMapper       the mapper used to write error responses
+	 */
+	public SecurityConfiguration(JwtService jwtService, ReactiveUserDetailsService userDetailsService,
+			ObjectMapper objectMapper) {
+		this.jwtAuthenticationWebFilter = new JwtAuthenticationWebFilter(jwtService, userDetailsService,
+				objectMapper);
+	}
+
+	/**
+	 * Configures the security filter chain for HTTP exchanges.
+	 *
+	 * @param http the {@code ServerHttpSecurity} to configure
+	 * @return the configured {@code SecurityWebFilterChain}
+	 */
+	@Bean
+	public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+		logger.info("Configuring security web filter chain");
+
+		return http.csrf(ServerHttpSecurity.CsrfSpec::disable).cors(Customizer.withDefaults())
+				.httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+				.formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+				.securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+				.authorizeExchange(exchanges -> exchanges.pathMatchers("/auth/**").permitAll().anyExchange()
+						.authenticated())
+				.addFilterAt(jwtAuthenticationWebFilter, SecurityWebFiltersOrder.AUTHENTICATION).build();
+	}
+
+	/**
+	 * Configures CORS settings.
+	 *
+	 * @return the configured {@code CorsConfigurationSource}
+	 */
+	@Bean
+	public CorsConfigurationSource corsConfigurationSource() {
+		logger.info("Configuring CORS settings");
+
+		CorsConfiguration configuration = new CorsConfiguration();
+		configuration.setAllowedOrigins(List.of("http://localhost:8005"));
+		configuration.setAllowedMethods(List.of("GET", "POST"));
+		configuration.setAllowedHeaders(List.of("Authorization", "Content-Type"));
+
+		UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+		source.registerCorsConfiguration("/**", configuration);
+
+		return source;
+	}
+}
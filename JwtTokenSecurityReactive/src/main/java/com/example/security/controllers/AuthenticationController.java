@@ -0,0 +1,118 @@
+package com.example.security.controllers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.support.WebExchangeBindException;
+
+import com.example.security.dtos.LoginResponse;
+import com.example.security.dtos.LoginUserDto;
+import com.example.security.dtos.RegisterUserDto;
+import com.example.security.jwt.AuthenticationService;
+import com.example.security.jwt.JwtService;
+
+import jakarta.validation.Valid;
+import reactor.core.publisher.Mono;
+
+/**
+ * Controller for handling authentication and user registration.
+ * 
+ * <p>
+ * Provides the same sign up and login end points as the servlet application,
+ * returning {@code Mono} results so no request thread waits on BCrypt or the
+ * database.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+@RestController
+@RequestMapping("/auth")
+public class AuthenticationController {
+
+	private static final Logger logger = LoggerFactory.getLogger(AuthenticationController.class);
+
+	private final JwtService jwtService;
+	private final AuthenticationService authenticationService;
+
+	/**
+	 * Constructs an {@code AuthenticationController} with the specified
+	 * {@code JwtService} and {@code AuthenticationService}.
+	 *
+	 * @param jwtService            the JWT service
+	 * @param authenticationService the authentication service
+	 */
+	public AuthenticationController(JwtService jwtService, AuthenticationService authenticationService) {
+		this.jwtService = jwtService;
+		this.authenticationService = authenticationService;
+	}
+
+	/**
+	 * Registers a new user with the provided registration details.
+	 *
+	 * @param registerUserDto the user registration details. Must include email,
+	 *                        password, and full name.
+	 * @return a {@code Mono} emitting the result of the registration process.
+	 */
+	@PostMapping("/signup")
+	public Mono<ResponseEntity<String>> register(@Valid @RequestBody Mono<RegisterUserDto> registerUserDto) {
+		return registerUserDto.flatMap(input -> {
+			logger.info("Attempting to register user with email: {}", input.getEmail());
+
+			return authenticationService.signup(input)
+					.map(registeredUser -> ResponseEntity
+							.ok("Registration successful for user: " + registeredUser.getEmail()))
+					.onErrorResume(ex -> {
+						logger.error("Error during user registration for email: {}. Exception: {}", input.getEmail(),
+								ex.getMessage());
+
+						return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+								.body("Registration failed due to a server error. Please try again later."));
+					});
+		}).onErrorResume(WebExchangeBindException.class, ex -> {
+			StringBuilder errorMessages = new StringBuilder("Validation failed for registration: ");
+			ex.getAllErrors().forEach(error -> errorMessages.append(error.getDefaultMessage()).append("; "));
+
+			logger.error("Validation failed for registration: {}", errorMessages.toString());
+
+			return Mono.just(ResponseEntity.badRequest().body(errorMessages.toString()));
+		});
+	}
+
+	/**
+	 * Authenticates a user and generates a JWT token.
+	 *
+	 * @param loginUserDto the user login details.
+	 * @return a {@code Mono} emitting the login response with JWT token and
+	 *         expiration time.
+	 */
+	@PostMapping("/login")
+	public Mono<ResponseEntity<Object>> authenticate(@RequestBody LoginUserDto loginUserDto) {
+		logger.info("Authenticating user (Login) with email: {}", loginUserDto.getEmail());
+
+		return authenticationService.authenticate(loginUserDto).map(authenticatedUser -> {
+			String jwtToken = jwtService.generateToken(authenticatedUser);
+			long expiresIn = jwtService.getExpirationTime();
+
+			logger.info("User authenticated successfully (Login) with email: {}", authenticatedUser.getEmail());
+
+			return ResponseEntity.<Object>ok(new LoginResponse().setToken(jwtToken).setExpiresIn(expiresIn));
+		}).onErrorResume(AuthenticationException.class, ex -> {
+			logger.warn("Login failed for user: {}", loginUserDto.getEmail());
+
+			return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid credentials"));
+		}).onErrorResume(ex -> {
+			logger.error("Error during authentication for email: {}. Exception: {}", loginUserDto.getEmail(),
+					ex.getMessage());
+
+			return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+					.body("Authentication failed due to a server error. Please try again later."));
+		});
+	}
+
+}
@@ -0,0 +1,67 @@
+package com.example.security.controllers;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.security.models.User;
+import com.example.security.service.UserService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Controller for managing user-related operations.
+ * 
+ * <p>
+ * This class provides endpoints for retrieving information about the currently
+ * authenticated user and for listing all users.
+ * </p>
+ */
+@RequestMapping("/users")
+@RestController
+public class UserController {
+
+	private static final Logger logger = LoggerFactory.getLogger(UserController.class);
+	private final UserService userService;
+
+	/**
+	 * Constructs a new {@link UserController} with the specified
+	 * {@link UserService}.
+	 *
+	 * @param userService the service used for user-related operations
+	 */
+	public UserController(UserService userService) {
+		this.userService = userService;
+	}
+
+	/**
+	 * Retrieves the details of the currently authenticated user.
+	 *
+	 * @return a {@code Mono} emitting the authenticated user's details
+	 */
+	@GetMapping("/me")
+	public Mono<ResponseEntity<User>> authenticatedUser() {
+		return ReactiveSecurityContextHolder.getContext()
+				.map(context -> (User) context.getAuthentication().getPrincipal()).map(currentUser -> {
+					logger.info("Fetching details for authenticated user: {}", currentUser.getEmail());
+					return ResponseEntity.ok(currentUser);
+				});
+	}
+
+	/**
+	 * Streams all users in the system.
+	 *
+	 * @return a {@code Flux} of all users
+	 */
+	@GetMapping("/")
+	public Flux<User> allUsers() {
+		logger.info("Fetching details for all users");
+
+		return userService.allUsers();
+	}
+}
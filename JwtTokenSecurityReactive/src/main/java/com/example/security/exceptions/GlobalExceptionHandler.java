@@ -0,0 +1,73 @@
+package com.example.security.exceptions;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.AccountStatusException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.MethodNotAllowedException;
+
+/**
+ * Global exception handler for handling various types of exceptions.
+ * 
+ * <p>
+ * Reactive counterpart of the servlet handler: exceptions raised by controllers
+ * are mapped to a {@link ProblemDetail} with the same descriptions.
+ * </p>
+ * 
+ */
+@RestControllerAdvice
+public class GlobalExceptionHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
+
+    /**
+     * Handles various types of exceptions and returns a structured error response.
+     * 
+     * @param exception the {@link Exception} that was thrown
+     * @return a {@link ResponseEntity} containing a {@link ProblemDetail} with error details
+     */
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ProblemDetail> handleException(Exception exception) {
+        ProblemDetail errorDetail;
+        HttpStatus status;
+        String description;
+
+        if (exception instanceof MethodNotAllowedException) {
+            status = HttpStatus.METHOD_NOT_ALLOWED;
+            description = "The request method is not supported for this endpoint.";
+        } else if (exception instanceof BadCredentialsException) {
+            status = HttpStatus.UNAUTHORIZED;
+            description = "The username or password is incorrect.";
+        } else if (exception instanceof AccountStatusException) {
+            status = HttpStatus.FORBIDDEN;
+            description = "The account is locked or disabled.";
+        } else if (exception instanceof AccessDeniedException) {
+            status = HttpStatus.FORBIDDEN;
+            description = "You do not have permission to access this resource.";
+        } else if (exception instanceof SignatureException) {
+            status = HttpStatus.FORBIDDEN;
+            description = "The JWT signature is invalid.";
+        } else if (exception instanceof ExpiredJwtException) {
+            status = HttpStatus.FORBIDDEN;
+            description = "The JWT token has expired.";
+        } else {
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
+            description = "An unexpected error occurred.";
+        }
+
+        logger.error("Exception occurred: {}", exception.getMessage(), exception);
+
+        errorDetail = ProblemDetail.forStatusAndDetail(status, exception.getMessage());
+        errorDetail.setProperty("description", description);
+
+        return ResponseEntity.status(status).body(errorDetail);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.security.jwt;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import com.example.security.dtos.LoginUserDto;
+import com.example.security.dtos.RegisterUserDto;
+import com.example.security.models.User;
+import com.example.security.repository.UserRepository;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Service class responsible for user authentication and registration.
+ * 
+ * <p>
+ * Reactive counterpart of the servlet {@code AuthenticationService}. Password
+ * hashing runs on the dedicated {@code passwordScheduler}, database access goes
+ * through the R2DBC {@link UserRepository}, so no Netty event loop thread ever
+ * blocks.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+@Service
+public class AuthenticationService {
+
+	private static final Logger logger = LoggerFactory.getLogger(AuthenticationService.class);
+
+	private final UserRepository userRepository;
+	private final PasswordEncoder passwordEncoder;
+	private final ReactiveAuthenticationManager authenticationManager;
+	private final Scheduler passwordScheduler;
+
+	/**
+	 * Constructs an instance of {@code AuthenticationService}.
+	 *
+	 * @param userRepository        the user repository to interact with user data
+	 * @param authenticationManager the reactive authentication manager
+	 * @param passwordEncoder       the password encoder to encode passwords
+	 * @param passwordScheduler     the scheduler password hashing runs on
+	 */
+	public AuthenticationService(UserRepository userRepository, ReactiveAuthenticationManager authenticationManager,
+			PasswordEncoder passwordEncoder, Scheduler passwordScheduler) {
+		this.userRepository = userRepository;
+		this.authenticationManager = authenticationManager;
+		this.passwordEncoder = passwordEncoder;
+		this.passwordScheduler = passwordScheduler;
+	}
+
+	/**
+	 * Registers a new user with the given details.
+	 *
+	 * @param input the user registration details
+	 * @return a {@code Mono} emitting the saved {@link User}
+	 */
+	public Mono<User> signup(RegisterUserDto input) {
+		logger.info("Registering new user with email: {}", input.getEmail());
+
+		return Mono.fromCallable(() -> passwordEncoder.encode(input.getPassword())).subscribeOn(passwordScheduler)
+				.map(encoded -> new User().setFullName(input.getFullName()).setEmail(input.getEmail())
+						.setPassword(encoded))
+				.flatMap(userRepository::save).doOnNext(
+						savedUser -> logger.info("User registered successfully with email: {}", savedUser.getEmail()));
+	}
+
+	/**
+	 * Authenticates a user with the given login details.
+	 *
+	 * <p>
+	 * The authentication manager already returns the loaded {@link User} as
+	 * principal, so no second lookup is needed.
+	 * </p>
+	 *
+	 * @param input the login credentials
+	 * @return a {@code Mono} emitting the authenticated {@link User}, or an
+	 *         {@code AuthenticationException} error if the credentials are invalid
+	 */
+	public Mono<User> authenticate(LoginUserDto input) {
+		logger.info("Attempting to authenticate user with email: {}", input.getEmail());
+
+		return authenticationManager
+				.authenticate(new UsernamePasswordAuthenticationToken(input.getEmail(), input.getPassword()))
+				.map(authentication -> (User) authentication.getPrincipal())
+				.doOnNext(user -> logger.info("User authenticated successfully with email: {}", user.getEmail()));
+	}
+
+}
@@ -0,0 +1,125 @@
+package com.example.security.jwt;
+
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive filter for JWT-based authentication.
+ * <p>
+ * The WebFlux counterpart of the servlet {@code JwtAuthenticationFilter}: it
+ * checks the "Authorization" header for a bearer token, validates it, loads the
+ * user through the reactive {@link ReactiveUserDetailsService} and publishes the
+ * authentication into the Reactor context. No thread is held while the user
+ * lookup is in flight.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+public class JwtAuthenticationWebFilter implements WebFilter {
+
+	private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationWebFilter.class);
+
+	private final JwtService jwtService;
+	private final ReactiveUserDetailsService userDetailsService;
+	private final ObjectMapper objectMapper;
+
+	/**
+	 * Constructs an instance of {@code JwtAuthenticationWebFilter}.
+	 *
+	 * @param jwtService         the JWT service to handle token operations
+	 * @param userDetailsService the service to load user details
+	 * @param objectMapper       the mapper used to write error responses
+	 */
+	public JwtAuthenticationWebFilter(JwtService jwtService, ReactiveUserDetailsService userDetailsService,
+			ObjectMapper objectMapper) {
+		this.jwtService = jwtService;
+		this.userDetailsService = userDetailsService;
+		this.objectMapper = objectMapper;
+	}
+
+	/**
+	 * Authenticates the exchange if it carries a valid bearer token.
+	 *
+	 * @param exchange the current server exchange
+	 * @param chain    the rest of the filter chain
+	 * @return a {@code Mono} completing when the exchange has been handled
+	 */
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+		final String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+
+		if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+			logger.debug("No JWT token found in the Authorization header or token does not start with Bearer.");
+			return chain.filter(exchange);
+		}
+
+		final Claims claims;
+		try {
+			// Parsed once; the signature and expiry are checked here
+			claims = jwtService.parseClaims(authHeader.substring(7));
+		} catch (JwtException | IllegalArgumentException exception) {
+			// jjwt throws IllegalArgumentException for an empty or blank token
+			logger.warn("Rejected JWT token: {}", exception.getMessage());
+			return writeProblem(exchange.getResponse(), exception);
+		}
+		final String userEmail = claims.getSubject();
+
+		Mono<Optional<Authentication>> authentication = userDetailsService.findByUsername(userEmail)
+				.filter(userDetails -> jwtService.isTokenValid(claims, userDetails))
+				.<Authentication>map(userDetails -> new UsernamePasswordAuthenticationToken(userDetails, null,
+						userDetails.getAuthorities()))
+				.map(Optional::of).defaultIfEmpty(Optional.empty());
+
+		return authentication.flatMap(result -> {
+			if (result.isEmpty()) {
+				logger.warn("Invalid JWT token for user: {}", userEmail);
+				return chain.filter(exchange);
+			}
+			return chain.filter(exchange).contextWrite(ReactiveSecurityContextHolder.withAuthentication(result.get()));
+		});
+	}
+
+	private Mono<Void> writeProblem(ServerHttpResponse response, RuntimeException exception) {
+		String description = exception instanceof ExpiredJwtException ? "The JWT token has expired."
+				: "The JWT token is invalid.";
+
+		// The parser's message would describe the token and key to the client
+		ProblemDetail errorDetail = ProblemDetail.forStatusAndDetail(HttpStatus.FORBIDDEN, description);
+		errorDetail.setProperty("description", description);
+
+		byte[] body;
+		try {
+			body = objectMapper.writeValueAsBytes(errorDetail);
+		} catch (JsonProcessingException ex) {
+			return Mono.error(ex);
+		}
+
+		response.setStatusCode(HttpStatus.FORBIDDEN);
+		response.getHeaders().setContentType(MediaType.APPLICATION_PROBLEM_JSON);
+		DataBuffer buffer = response.bufferFactory().wrap(body);
+		return response.writeWith(Mono.just(buffer));
+	}
+}
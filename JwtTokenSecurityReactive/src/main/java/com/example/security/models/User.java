@@ -0,0 +1,183 @@
+package com.example.security.models;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Represents a user in the system, implementing Spring Security's
+ * {@link UserDetails} interface.
+ * <p>
+ * This class is mapped to the "users" table through Spring Data R2DBC and
+ * mirrors the JPA entity of the servlet application, so both variants can share
+ * the same schema.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ * 
+ */
+@SuppressWarnings("serial")
+@Table("users")
+public class User implements UserDetails {
+
+	@Id
+	private Integer id;
+
+	@Column("full_name")
+	private String fullName;
+
+	private String email;
+
+	private String password;
+
+	@CreatedDate
+	@Column("created_at")
+	private LocalDateTime createdAt;
+
+	@LastModifiedDate
+	@Column("updated_at")
+	private LocalDateTime updatedAt;
+
+	/**
+	 * Gets the unique identifier for the user.
+	 * 
+	 * @return the user ID
+	 */
+	public Integer getId() {
+		return id;
+	}
+
+	/**
+	 * Sets the unique identifier for the user.
+	 * 
+	 * @param id the user ID
+	 */
+	public void setId(Integer id) {
+		this.id = id;
+	}
+
+	/**
+	 * Gets the full name of the user.
+	 * 
+	 * @return the full name of the user
+	 */
+	public String getFullName() {
+		return fullName;
+	}
+
+	/**
+	 * Sets the full name of the user.
+	 * 
+	 * @param fullName the full name of the user
+	 * @return the updated User object
+	 */
+	public User setFullName(String fullName) {
+		this.fullName = fullName;
+		return this;
+	}
+
+	/**
+	 * Gets the email of the user.
+	 * 
+	 * @return the email of the user
+	 */
+	public String getEmail() {
+		return email;
+	}
+
+	/**
+	 * Sets the email of the user.
+	 * 
+	 * @param email the email of the user
+	 * @return the updated User object
+	 */
+	public User setEmail(String email) {
+		this.email = email;
+		return this;
+	}
+
+	/**
+	 * Gets the password of the user.
+	 * 
+	 * @return the password of the user
+	 */
+	public String getPassword() {
+		return password;
+	}
+
+	/**
+	 * Sets the password of the user.
+	 * 
+	 * @param password the password of the user
+	 * @return the updated User object
+	 */
+	public User setPassword(String password) {
+		this.password = password;
+		return this;
+	}
+
+	/**
+	 * Gets the creation timestamp of the user record.
+	 * 
+	 * @return the creation timestamp
+	 */
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+
+	/**
+	 * Sets the creation timestamp of the user record.
+	 * 
+	 * @param createdAt the creation timestamp
+	 */
+	public void setCreatedAt(LocalDateTime createdAt) {
+		this.createdAt = createdAt;
+	}
+
+	/**
+	 * Gets the last update timestamp of the user record.
+	 * 
+	 * @return the last update timestamp
+	 */
+	public LocalDateTime getUpdatedAt() {
+		return updatedAt;
+	}
+
+	/**
+	 * Sets the last update timestamp of the user record.
+	 * 
+	 * @param updatedAt the last update timestamp
+	 */
+	public void setUpdatedAt(LocalDateTime updatedAt) {
+		this.updatedAt = updatedAt;
+	}
+
+	/**
+	 * Returns the authorities granted to the user. This implementation does not
+	 * grant any authorities.
+	 * 
+	 * @return an empty collection of granted authorities
+	 */
+	@Override
+	public Collection<? extends GrantedAuthority> getAuthorities() {
+		return List.of();
+	}
+
+	/**
+	 * Returns the username of the user, which is represented by the user's email.
+	 * 
+	 * @return the email of the user
+	 */
+	@Override
+	public String getUsername() {
+		return email;
+	}
+}
@@ -0,0 +1,27 @@
+package com.example.security.repository;
+
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import com.example.security.models.User;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive repository for managing {@link User} entities.
+ * <p>
+ * Extends {@link ReactiveCrudRepository} so every lookup is executed on the
+ * non-blocking R2DBC driver instead of a pooled JDBC connection.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ * 
+ */
+public interface UserRepository extends ReactiveCrudRepository<User, Integer> {
+
+	/**
+	 * Finds a user by their email address.
+	 * 
+	 * @param email the email address of the user
+	 * @return a {@link Mono} emitting the user if found, otherwise empty
+	 */
+	Mono<User> findByEmail(String email);
+}
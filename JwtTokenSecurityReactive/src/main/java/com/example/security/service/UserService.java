@@ -0,0 +1,41 @@
+package com.example.security.service;
+
+import org.springframework.stereotype.Service;
+import com.example.security.models.User;
+import com.example.security.repository.UserRepository;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Service class for managing user-related operations.
+ * 
+ * <p>
+ * Reactive counterpart of the servlet {@code UserService}; users are streamed
+ * from the repository instead of being collected into a list.
+ * </p>
+ * 
+ * @author Shivraj.Jadhav
+ */
+@Service
+public class UserService {
+
+    private final UserRepository userRepository;
+
+    /**
+     * Constructs a new {@code UserService} with the specified {@code UserRepository}.
+     * 
+     * @param userRepository the {@link UserRepository} to be used for accessing user data
+     */
+    public UserService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Streams all users from the repository.
+     * 
+     * @return a {@link Flux} of {@link User} entities
+     */
+    public Flux<User> allUsers() {
+        return userRepository.findAll();
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class JwtTokenSecurityReactiveApplicationTests {
+
+	@Test
+	void contextLoads() {
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.example.security.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.example.security.dtos.LoginResponse;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+class AuthenticationControllerTest {
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@SpyBean
+	private BCryptPasswordEncoder passwordEncoder;
+
+	private final List<String> bcryptThreads = new CopyOnWriteArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		doAnswer(invocation -> {
+			bcryptThreads.add(Thread.currentThread().getName());
+			return invocation.callRealMethod();
+		}).when(passwordEncoder).encode(any());
+		doAnswer(invocation -> {
+			bcryptThreads.add(Thread.currentThread().getName());
+			return invocation.callRealMethod();
+		}).when(passwordEncoder).matches(any(), anyString());
+	}
+
+	@Test
+	void signsUpLogsInAndReadsTheAuthenticatedUser() {
+		signup("jane@example.com", "secret123");
+		String token = login("jane@example.com", "secret123");
+
+		webTestClient.get().uri("/users/me").header(HttpHeaders.AUTHORIZATION, "Bearer " + token).exchange()
+				.expectStatus().isOk().expectBody().jsonPath("$.email").isEqualTo("jane@example.com");
+	}
+
+	@Test
+	void hashesAndVerifiesPasswordsOffTheEventLoop() {
+		signup("john@example.com", "secret123");
+		login("john@example.com", "secret123");
+
+		assertFalse(bcryptThreads.isEmpty());
+		for (String thread : bcryptThreads) {
+			assertTrue(thread.startsWith("bcrypt-"), thread);
+		}
+	}
+
+	@Test
+	void rejectsWrongPasswords() {
+		signup("joan@example.com", "secret123");
+
+		webTestClient.post().uri("/auth/login").bodyValue(Map.of("email", "joan@example.com", "password", "wrong"))
+				.exchange().expectStatus().isUnauthorized();
+	}
+
+	@Test
+	void rejectsRequestsWithoutToken() {
+		webTestClient.get().uri("/users/me").exchange().expectStatus().isUnauthorized();
+	}
+
+	private void signup(String email, String password) {
+		webTestClient.post().uri("/auth/signup")
+				.bodyValue(Map.of("email", email, "password", password, "fullName", "Test User")).exchange()
+				.expectStatus().isOk();
+	}
+
+	private String login(String email, String password) {
+		return webTestClient.post().uri("/auth/login").bodyValue(Map.of("email", email, "password", password))
+				.exchange().expectStatus().isOk().expectBody(LoginResponse.class).returnResult().getResponseBody()
+				.getToken();
+	}
+}
@@ -0,0 +1,115 @@
+package com.example.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.example.security.dtos.LoginResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import reactor.core.publisher.Mono;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+class JwtAuthenticationWebFilterTest {
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Autowired
+	private JwtService jwtService;
+
+	@Autowired
+	private ReactiveUserDetailsService userDetailsService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${security.jwt.secret-key}")
+	private String secretKey;
+
+	@Test
+	void acceptsValidToken() {
+		String token = signupAndLogin("valid@example.com");
+
+		get("Bearer " + token).expectStatus().isOk().expectBody().jsonPath("$.email").isEqualTo("valid@example.com");
+	}
+
+	@Test
+	void rejectsExpiredToken() {
+		signupAndLogin("expired@example.com");
+		long past = System.currentTimeMillis() - 60_000L;
+		String token = Jwts.builder().setSubject("expired@example.com").setIssuedAt(new Date(past - 60_000L))
+				.setExpiration(new Date(past))
+				.signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey)), SignatureAlgorithm.HS256).compact();
+
+		expectProblem("Bearer " + token, "The JWT token has expired.");
+	}
+
+	@Test
+	void rejectsTamperedToken() {
+		String token = signupAndLogin("tampered@example.com");
+		int index = token.length() - 10;
+		char replacement = token.charAt(index) == 'A' ? 'B' : 'A';
+		String tampered = token.substring(0, index) + replacement + token.substring(index + 1);
+
+		expectProblem("Bearer " + tampered, "The JWT token is invalid.");
+	}
+
+	@Test
+	void rejectsEmptyAndBlankTokens() {
+		// Called directly: the server trims header values, so these never arrive over HTTP
+		JwtAuthenticationWebFilter filter = new JwtAuthenticationWebFilter(jwtService, userDetailsService,
+				objectMapper);
+		for (String authorization : new String[] { "Bearer ", "Bearer    " }) {
+			MockServerWebExchange exchange = MockServerWebExchange
+					.from(MockServerHttpRequest.get("/users/me").header(HttpHeaders.AUTHORIZATION, authorization));
+
+			filter.filter(exchange, chained -> Mono.error(new AssertionError("Chain must not be called")))
+					.block();
+
+			assertEquals(HttpStatus.FORBIDDEN, exchange.getResponse().getStatusCode());
+			assertTrue(exchange.getResponse().getBodyAsString().block().contains("\"The JWT token is invalid.\""));
+		}
+	}
+
+	@Test
+	void rejectsMalformedTokenWithoutEchoingTheParser() {
+		expectProblem("Bearer abc.def.ghi", "The JWT token is invalid.");
+	}
+
+	private WebTestClient.ResponseSpec get(String authorization) {
+		return webTestClient.get().uri("/users/me").header(HttpHeaders.AUTHORIZATION, authorization).exchange();
+	}
+
+	private void expectProblem(String authorization, String detail) {
+		get(authorization).expectStatus().isForbidden().expectBody().jsonPath("$.status").isEqualTo(403)
+				.jsonPath("$.detail").isEqualTo(detail);
+	}
+
+	private String signupAndLogin(String email) {
+		webTestClient.post().uri("/auth/signup")
+				.bodyValue(Map.of("email", email, "password", "secret123", "fullName", "Test User")).exchange()
+				.expectStatus().isOk();
+		return webTestClient.post().uri("/auth/login").bodyValue(Map.of("email", email, "password", "secret123"))
+				.exchange().expectStatus().isOk().expectBody(LoginResponse.class).returnResult().getResponseBody()
+				.getToken();
+	}
+}